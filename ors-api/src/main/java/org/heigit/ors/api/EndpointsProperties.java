@@ -92,6 +92,8 @@ public class EndpointsProperties {
         private double maximumAvoidPolygonArea;
         private double maximumAvoidPolygonExtent;
         private int maximumAlternativeRoutes;
+        private AdmissionProperties admission = new AdmissionProperties();
+        private RoutingBatchProperties batch = new RoutingBatchProperties();
 
         public boolean isEnabled() {
             return enabled;
@@ -182,7 +184,75 @@ public class EndpointsProperties {
             this.maximumAlternativeRoutes = maximumAlternativeRoutes;
         }
 
+        public AdmissionProperties getAdmission() {
+            return admission;
+        }
+
+        public void setAdmission(AdmissionProperties admission) {
+            this.admission = admission;
+        }
+
+        public RoutingBatchProperties getBatch() {
+            return batch;
+        }
+
+        public void setBatch(RoutingBatchProperties batch) {
+            this.batch = batch;
+        }
+
+        public static class RoutingBatchProperties {
+            private boolean enabled;
+            private int threads;
+            private int maximumRequests = 1000000;
+            private int maximumPending = 256;
+            private int chunkSize = 16;
 
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            /**
+             * @return number of worker threads, values <= 0 use one thread per available processor
+             */
+            public int getThreads() {
+                return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+            }
+
+            public void setThreads(int threads) {
+                this.threads = threads;
+            }
+
+            public int getMaximumRequests() {
+                return maximumRequests;
+            }
+
+            public void setMaximumRequests(int maximumRequests) {
+                this.maximumRequests = maximumRequests;
+            }
+
+            public int getMaximumPending() {
+                return maximumPending;
+            }
+
+            public void setMaximumPending(int maximumPending) {
+                this.maximumPending = maximumPending;
+            }
+
+            /**
+             * @return number of consecutive requests computed by one worker with shared weightings and edge filters
+             */
+            public int getChunkSize() {
+                return chunkSize;
+            }
+
+            public void setChunkSize(int chunkSize) {
+                this.chunkSize = chunkSize;
+            }
+        }
     }
 
     public static class EndpointMatrixProperties {
@@ -195,6 +265,8 @@ public class EndpointsProperties {
         // TODO: this parameter is only used in a binary check for infinity (==-1);
         //       Can't we reduce it to a boolean "forbid_u_turns"?
         private double uTurnCost = INFINITE_U_TURN_COSTS;
+        private AdmissionProperties admission = new AdmissionProperties();
+        private MatrixJobsProperties jobs = new MatrixJobsProperties();
 
 
         public boolean isEnabled() {
@@ -248,6 +320,140 @@ public class EndpointsProperties {
         public void setUTurnCost(double uTurnCosts) {
             this.uTurnCost = uTurnCosts;
         }
+
+        public AdmissionProperties getAdmission() {
+            return admission;
+        }
+
+        public void setAdmission(AdmissionProperties admission) {
+            this.admission = admission;
+        }
+
+        public MatrixJobsProperties getJobs() {
+            return jobs;
+        }
+
+        public void setJobs(MatrixJobsProperties jobs) {
+            this.jobs = jobs;
+        }
+
+        public static class MatrixJobsProperties {
+            private boolean enabled;
+            private int maximumRoutes = 25000000;
+            private int tileSize = 500;
+            private int threads = 2;
+            private int maximumJobs = 4;
+            private String spoolPath = "./matrix-jobs";
+            private long resultTimeToLive = 3600;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public int getMaximumRoutes() {
+                return maximumRoutes;
+            }
+
+            public void setMaximumRoutes(int maximumRoutes) {
+                this.maximumRoutes = maximumRoutes;
+            }
+
+            public int getTileSize() {
+                return tileSize;
+            }
+
+            public void setTileSize(int tileSize) {
+                this.tileSize = tileSize;
+            }
+
+            public int getThreads() {
+                return threads;
+            }
+
+            public void setThreads(int threads) {
+                this.threads = threads;
+            }
+
+            public int getMaximumJobs() {
+                return maximumJobs;
+            }
+
+            public void setMaximumJobs(int maximumJobs) {
+                this.maximumJobs = maximumJobs;
+            }
+
+            public String getSpoolPath() {
+                return spoolPath;
+            }
+
+            public void setSpoolPath(String spoolPath) {
+                this.spoolPath = spoolPath;
+            }
+
+            public long getResultTimeToLive() {
+                return resultTimeToLive;
+            }
+
+            public void setResultTimeToLive(long resultTimeToLive) {
+                this.resultTimeToLive = resultTimeToLive;
+            }
+        }
+    }
+
+    /**
+     * Admission control settings of an endpoint. Entries in {@code profiles} define separate limits for single
+     * profiles, unset values are taken from the endpoint.
+     */
+    public static class AdmissionProperties {
+        private boolean enabled;
+        private int maximumConcurrency;
+        private int maximumQueueSize;
+        private long maximumQueueTime;
+        private Map<String, AdmissionProperties> profiles = new HashMap<>();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaximumConcurrency() {
+            return maximumConcurrency;
+        }
+
+        public void setMaximumConcurrency(int maximumConcurrency) {
+            this.maximumConcurrency = maximumConcurrency;
+        }
+
+        public int getMaximumQueueSize() {
+            return maximumQueueSize;
+        }
+
+        public void setMaximumQueueSize(int maximumQueueSize) {
+            this.maximumQueueSize = maximumQueueSize;
+        }
+
+        public long getMaximumQueueTime() {
+            return maximumQueueTime;
+        }
+
+        public void setMaximumQueueTime(long maximumQueueTime) {
+            this.maximumQueueTime = maximumQueueTime;
+        }
+
+        public Map<String, AdmissionProperties> getProfiles() {
+            return profiles;
+        }
+
+        public void setProfiles(Map<String, AdmissionProperties> profiles) {
+            this.profiles = profiles;
+        }
     }
 
     public static class MaximumRangeProperties {
@@ -336,6 +542,7 @@ public class EndpointsProperties {
         private int maximumIntervals = 1;
         private MaximumRangeProperties fastisochrones;
         private Map<String, StatisticsProviderProperties> statisticsProviders = new HashMap<>();
+        private AdmissionProperties admission = new AdmissionProperties();
 
         public boolean isEnabled() {
             return enabled;
@@ -393,6 +600,14 @@ public class EndpointsProperties {
             this.statisticsProviders = statisticsProviders;
         }
 
+        public AdmissionProperties getAdmission() {
+            return admission;
+        }
+
+        public void setAdmission(AdmissionProperties admission) {
+            this.admission = admission;
+        }
+
         public static class StatisticsProviderProperties {
             private boolean enabled;
             private String providerName;
@@ -445,6 +660,7 @@ public class EndpointsProperties {
     public static class EndpointSnapProperties {
         private boolean enabled;
         private String attribution;
+        private SnapBatchProperties batch = new SnapBatchProperties();
 
         public boolean isEnabled() {
             return enabled;
@@ -462,5 +678,63 @@ public class EndpointsProperties {
             this.attribution = attribution;
         }
 
+        public SnapBatchProperties getBatch() {
+            return batch;
+        }
+
+        public void setBatch(SnapBatchProperties batch) {
+            this.batch = batch;
+        }
+
+        public static class SnapBatchProperties {
+            private boolean enabled;
+            private int threads;
+            private int chunkSize = 4096;
+            private int maximumLocations = 100000000;
+            private int maximumPending = 64;
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            /**
+             * @return number of worker threads, values <= 0 use one thread per available processor
+             */
+            public int getThreads() {
+                return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+            }
+
+            public void setThreads(int threads) {
+                this.threads = threads;
+            }
+
+            public int getChunkSize() {
+                return chunkSize;
+            }
+
+            public void setChunkSize(int chunkSize) {
+                this.chunkSize = chunkSize;
+            }
+
+            public int getMaximumLocations() {
+                return maximumLocations;
+            }
+
+            public void setMaximumLocations(int maximumLocations) {
+                this.maximumLocations = maximumLocations;
+            }
+
+            public int getMaximumPending() {
+                return maximumPending;
+            }
+
+            public void setMaximumPending(int maximumPending) {
+                this.maximumPending = maximumPending;
+            }
+        }
     }
 }
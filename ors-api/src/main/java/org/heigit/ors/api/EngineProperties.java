@@ -21,10 +21,17 @@ public class EngineProperties {
     private int initThreads;
     private boolean preparationMode;
     private String sourceFile;
+    private boolean sharedOsmRead;
+    private String timeZonesFile;
     private String graphsRootPath;
     private ElevationProperties elevation;
     private ProfileProperties profileDefault;
     private Map<String, ProfileProperties> profiles;
+    private CacheProperties isochroneCache;
+    private RouteCacheProperties routeCache;
+    private CacheProperties snapCache;
+    private WarmUpProperties warmUp;
+    private boolean metricsPercentileHistograms;
 
     public int getInitThreads() {
         return initThreads;
@@ -50,6 +57,22 @@ public class EngineProperties {
         this.sourceFile = sourceFile;
     }
 
+    public boolean isSharedOsmRead() {
+        return sharedOsmRead;
+    }
+
+    public void setSharedOsmRead(boolean sharedOsmRead) {
+        this.sharedOsmRead = sharedOsmRead;
+    }
+
+    public String getTimeZonesFile() {
+        return timeZonesFile;
+    }
+
+    public void setTimeZonesFile(String timeZonesFile) {
+        this.timeZonesFile = timeZonesFile;
+    }
+
     public String getGraphsRootPath() {
         return graphsRootPath;
     }
@@ -82,7 +105,54 @@ public class EngineProperties {
         this.profiles = profiles;
     }
 
+    public CacheProperties getIsochroneCache() {
+        return isochroneCache;
+    }
+
+    public void setIsochroneCache(CacheProperties isochroneCache) {
+        this.isochroneCache = isochroneCache;
+    }
+
+    public RouteCacheProperties getRouteCache() {
+        return routeCache;
+    }
+
+    public void setRouteCache(RouteCacheProperties routeCache) {
+        this.routeCache = routeCache;
+    }
+
+    public CacheProperties getSnapCache() {
+        return snapCache;
+    }
+
+    public void setSnapCache(CacheProperties snapCache) {
+        this.snapCache = snapCache;
+    }
+
+    public WarmUpProperties getWarmUp() {
+        return warmUp;
+    }
+
+    public void setWarmUp(WarmUpProperties warmUp) {
+        this.warmUp = warmUp;
+    }
+
+    public boolean isMetricsPercentileHistograms() {
+        return metricsPercentileHistograms;
+    }
+
+    public void setMetricsPercentileHistograms(boolean metricsPercentileHistograms) {
+        this.metricsPercentileHistograms = metricsPercentileHistograms;
+    }
+
     public RouteProfileConfiguration[] getConvertedProfiles() {
+        return getConvertedProfiles(getGraphsRootPath());
+    }
+
+    /**
+     * @param rootGraphsPath folder relative graph paths of the profiles are resolved against
+     */
+    public RouteProfileConfiguration[] getConvertedProfiles(String rootGraphsPath) {
         List<RouteProfileConfiguration> convertedProfiles = new ArrayList<>();
         if (profiles != null) {
             for (Map.Entry<String, ProfileProperties> profileEntry : profiles.entrySet()) {
@@ -92,7 +162,6 @@ public class EngineProperties {
                 convertedProfile.setEnabled(profile.enabled != null ? profile.enabled : profileDefault.isEnabled());
                 convertedProfile.setProfiles(profile.getProfile());
                 String graphPath = profile.getGraphPath();
-                String rootGraphsPath = getGraphsRootPath();
                 if (!Helper.isEmpty(rootGraphsPath)) {
                     if (Helper.isEmpty(graphPath))
                         graphPath = Paths.get(rootGraphsPath, profileEntry.getKey()).toString();
@@ -139,7 +208,7 @@ public class EngineProperties {
                 }
                 if (profile.getExtStorages() != null) {
                     for (Map<String, String> storageParams : profile.getExtStorages().values()) {
-                        storageParams.put("gh_profile", ProfileTools.makeProfileName(RoutingProfileType.getEncoderName(RoutingProfileType.getFromString(convertedProfile.getProfiles())), "fastest", RouteProfileConfiguration.hasTurnCosts(convertedProfile.getEncoderOptions())));
+                        storageParams.put("gh_profile", ProfileTools.makeProfileName(RoutingProfileType.getEncoderName(RoutingProfileType.getFromString(convertedProfile.getProfiles().split(",")[0].trim())), "fastest", RouteProfileConfiguration.hasTurnCosts(convertedProfile.getEncoderOptions())));
                         storageParams.remove("");
                     }
                     convertedProfile.getExtStorages().putAll(profile.getExtStorages());
@@ -150,6 +219,69 @@ public class EngineProperties {
         return convertedProfiles.toArray(new RouteProfileConfiguration[0]);
     }
 
+    public static class CacheProperties {
+        private long maximumSize;
+        private int timeToLive;
+
+        public long getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public int getTimeToLive() {
+            return timeToLive;
+        }
+
+        public void setTimeToLive(int timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+    }
+
+    public static class RouteCacheProperties extends CacheProperties {
+        private boolean timeDependent;
+
+        public boolean isTimeDependent() {
+            return timeDependent;
+        }
+
+        public void setTimeDependent(boolean timeDependent) {
+            this.timeDependent = timeDependent;
+        }
+    }
+
+    public static class WarmUpProperties {
+        private boolean enabled;
+        private int threads;
+        private int queries;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getQueries() {
+            return queries;
+        }
+
+        public void setQueries(int queries) {
+            this.queries = queries;
+        }
+    }
+
     public static class ElevationProperties {
         private boolean preprocessed;
         private boolean cacheClear;
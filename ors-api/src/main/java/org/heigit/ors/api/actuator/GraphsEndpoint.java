@@ -0,0 +1,91 @@
+/*
+ * This file is part of Openrouteservice.
+ *
+ * Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.heigit.ors.api.actuator;
+
+import org.apache.log4j.Logger;
+import org.heigit.ors.api.EngineProperties;
+import org.heigit.ors.api.servlet.listeners.ORSInitContextListener;
+import org.heigit.ors.config.EngineConfig;
+import org.heigit.ors.routing.RoutingProfileManager;
+import org.heigit.ors.routing.RoutingProfileManagerStatus;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint for replacing the loaded graphs without a restart. A {@code POST} to {@code /actuator/graphs},
+ * optionally with a {@code graphsRootPath} pointing to a folder with rebuilt graphs, loads them in the background while
+ * the current graphs keep serving requests, see {@link RoutingProfileManager#reload}. The endpoint has to be exposed
+ * explicitly via {@code management.endpoints.web.exposure.include}.
+ */
+@Component
+@Endpoint(id = "graphs")
+public class GraphsEndpoint {
+    private static final Logger LOGGER = Logger.getLogger(GraphsEndpoint.class);
+    private final EngineProperties engineProperties;
+    private volatile String graphsRootPath;
+    private volatile String lastReload;
+
+    public GraphsEndpoint(EngineProperties engineProperties) {
+        this.engineProperties = engineProperties;
+        this.graphsRootPath = engineProperties.getGraphsRootPath();
+    }
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("ready", RoutingProfileManagerStatus.isReady());
+        status.put("reloading", RoutingProfileManagerStatus.isReady() && RoutingProfileManager.getInstance().isReloading());
+        status.put("graphs_root_path", graphsRootPath);
+        if (lastReload != null)
+            status.put("last_reload", lastReload);
+        return status;
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<Map<String, Object>> reload(@Nullable String graphsRootPath) {
+        if (!RoutingProfileManagerStatus.isReady())
+            return new WebEndpointResponse<>(status(), WebEndpointResponse.STATUS_SERVICE_UNAVAILABLE);
+        RoutingProfileManager manager = RoutingProfileManager.getInstance();
+        if (manager.isReloading())
+            return new WebEndpointResponse<>(status(), 409);
+
+        String path = graphsRootPath == null ? this.graphsRootPath : graphsRootPath;
+        EngineConfig config = ORSInitContextListener.createEngineConfig(engineProperties, path);
+        Thread thread = new Thread(() -> {
+            try {
+                manager.reload(config);
+                this.graphsRootPath = path;
+                lastReload = "succeeded";
+            } catch (InterruptedException e) {
+                lastReload = "interrupted";
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                LOGGER.error("Reloading graphs from '%s' failed: %s".formatted(path, e.getMessage()));
+                lastReload = "failed: " + e.getMessage();
+            }
+        });
+        thread.setName("ORS-Reload");
+        thread.start();
+        return new WebEndpointResponse<>(Map.of("status", "reloading", "graphs_root_path", path), 202);
+    }
+}
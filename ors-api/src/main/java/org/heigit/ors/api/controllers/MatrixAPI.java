@@ -31,20 +31,32 @@ import org.heigit.ors.api.EndpointsProperties;
 import org.heigit.ors.api.SystemMessageProperties;
 import org.heigit.ors.api.errors.CommonResponseEntityExceptionHandler;
 import org.heigit.ors.api.requests.matrix.MatrixRequest;
+import org.heigit.ors.api.responses.matrix.MatrixJobResponse;
 import org.heigit.ors.api.responses.matrix.json.JSONMatrixResponse;
+import org.heigit.ors.api.services.MatrixJobService;
 import org.heigit.ors.api.services.MatrixService;
 import org.heigit.ors.api.util.AppConfigMigration;
 import org.heigit.ors.exceptions.*;
 import org.heigit.ors.matrix.MatrixErrorCodes;
+import org.heigit.ors.matrix.MatrixJob;
 import org.heigit.ors.matrix.MatrixResult;
 import org.heigit.ors.routing.APIEnums;
 import org.springframework.core.convert.ConversionFailedException;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageConversionException;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+
 @RestController
 @Tag(name = "Matrix Service", description = "Obtain one-to-many, many-to-one and many-to-many matrices for time and distance")
 @RequestMapping("/v2/matrix")
@@ -60,11 +72,13 @@ public class MatrixAPI {
     private final EndpointsProperties endpointsProperties;
     private final SystemMessageProperties systemMessageProperties;
     private final MatrixService matrixService;
+    private final MatrixJobService matrixJobService;
 
-    public MatrixAPI(EndpointsProperties endpointsProperties, SystemMessageProperties systemMessageProperties, MatrixService matrixService) {
+    public MatrixAPI(EndpointsProperties endpointsProperties, SystemMessageProperties systemMessageProperties, MatrixService matrixService, MatrixJobService matrixJobService) {
         this.endpointsProperties = AppConfigMigration.overrideEndpointsProperties(endpointsProperties);
         this.systemMessageProperties = systemMessageProperties;
         this.matrixService = matrixService;
+        this.matrixJobService = matrixJobService;
     }
 
     // generic catch methods - when extra info is provided in the url, the other methods are accessed.
@@ -133,6 +147,70 @@ public class MatrixAPI {
         return new JSONMatrixResponse(matrixResult, originalRequest, systemMessageProperties, endpointsProperties);
     }
 
+    @PostMapping(value = "/{profile}/jobs", produces = {"application/json;charset=UTF-8"})
+    @Operation(
+            description = """
+                    Submits a matrix too large for a single request as a job which is computed in the background. \
+                    The status of the job can be polled at the returned location and the result is downloaded in a binary format once it has completed.\
+                    """,
+            summary = "Matrix Job Service"
+    )
+    @ApiResponse(responseCode = "202", description = "The job has been queued.",
+            content = {@Content(mediaType = "application/json;charset=UTF-8", schema = @Schema(implementation = MatrixJobResponse.class))})
+    @ApiResponse(responseCode = "429", description = "Too many jobs are queued.")
+    public ResponseEntity<MatrixJobResponse> submitJob(@Parameter(description = "Specifies the matrix profile.", required = true, example = "driving-car") @PathVariable APIEnums.Profile profile,
+                                                       @Parameter(description = "The request payload", required = true) @RequestBody MatrixRequest request) throws StatusCodeException {
+        request.setProfile(profile);
+        MatrixJob job = matrixJobService.submit(request);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .location(URI.create("/v2/matrix/jobs/" + job.getId()))
+                .body(new MatrixJobResponse(job));
+    }
+
+    @GetMapping(value = "/jobs/{jobId}", produces = {"application/json;charset=UTF-8"})
+    @Operation(summary = "Get the status of a matrix job")
+    @ApiResponse(responseCode = "200", description = "Status of the job.",
+            content = {@Content(mediaType = "application/json;charset=UTF-8", schema = @Schema(implementation = MatrixJobResponse.class))})
+    public MatrixJobResponse getJob(@Parameter(description = "Id of the job", required = true) @PathVariable String jobId) throws StatusCodeException {
+        return new MatrixJobResponse(matrixJobService.getJob(jobId));
+    }
+
+    @GetMapping(value = "/jobs/{jobId}/result", produces = {MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    @Operation(
+            description = """
+                    Returns the result of a completed matrix job. All values are little endian: a header of five int32 \
+                    (magic `ORSM`, format version, number of sources, number of destinations, metrics bit mask with duration 1, distance 2 and weight 4), \
+                    one float32 table with a row per source for each requested metric in that order with -1 for unreachable pairs, \
+                    and the float64 longitude and latitude of the snapped sources followed by the destinations, NaN if a location could not be snapped.\
+                    """,
+            summary = "Get the result of a matrix job"
+    )
+    @ApiResponse(responseCode = "200", description = "The binary matrix.")
+    @ApiResponse(responseCode = "409", description = "The job has not completed.")
+    public ResponseEntity<InputStreamResource> getJobResult(@Parameter(description = "Id of the job", required = true) @PathVariable String jobId) throws StatusCodeException, IOException {
+        FileChannel result = matrixJobService.openResult(jobId);
+        long size;
+        try {
+            size = result.size();
+        } catch (IOException e) {
+            result.close();
+            throw e;
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + jobId + ".matrix\"")
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(size)
+                .body(new InputStreamResource(Channels.newInputStream(result)));
+    }
+
+    @DeleteMapping(value = "/jobs/{jobId}")
+    @Operation(summary = "Cancel a matrix job and delete its result")
+    @ApiResponse(responseCode = "204", description = "The job has been removed.")
+    public ResponseEntity<Void> deleteJob(@Parameter(description = "Id of the job", required = true) @PathVariable String jobId) throws StatusCodeException {
+        matrixJobService.remove(jobId);
+        return ResponseEntity.noContent().build();
+    }
+
     @ExceptionHandler(MissingServletRequestParameterException.class)
     public ResponseEntity<Object> handleMissingParams(final MissingServletRequestParameterException e) {
         return errorHandler.handleStatusCodeException(new MissingParameterException(MatrixErrorCodes.MISSING_PARAMETER, e.getParameterName()));
@@ -25,6 +25,7 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.heigit.ors.api.EndpointsProperties;
 import org.heigit.ors.api.SystemMessageProperties;
@@ -33,6 +34,7 @@ import org.heigit.ors.api.requests.routing.RouteRequest;
 import org.heigit.ors.api.responses.routing.geojson.GeoJSONRouteResponse;
 import org.heigit.ors.api.responses.routing.gpx.GPXRouteResponse;
 import org.heigit.ors.api.responses.routing.json.JSONRouteResponse;
+import org.heigit.ors.api.services.RoutingBatchService;
 import org.heigit.ors.api.services.RoutingService;
 import org.heigit.ors.api.util.AppConfigMigration;
 import org.heigit.ors.exceptions.*;
@@ -47,6 +49,13 @@ import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
 @RestController
 @Tag(name = "Directions Service", description = "Get directions for different modes of transport")
 @RequestMapping("/v2/directions")
@@ -63,11 +72,13 @@ public class RoutingAPI {
     private final EndpointsProperties endpointsProperties;
     private final SystemMessageProperties systemMessageProperties;
     private final RoutingService routingService;
+    private final RoutingBatchService routingBatchService;
 
-    public RoutingAPI(EndpointsProperties endpointsProperties, SystemMessageProperties systemMessageProperties, RoutingService routingService) {
+    public RoutingAPI(EndpointsProperties endpointsProperties, SystemMessageProperties systemMessageProperties, RoutingService routingService, RoutingBatchService routingBatchService) {
         this.endpointsProperties = AppConfigMigration.overrideEndpointsProperties(endpointsProperties);
         this.systemMessageProperties = systemMessageProperties;
         this.routingService = routingService;
+        this.routingBatchService = routingBatchService;
     }
 
     // generic catch methods - when extra info is provided in the url, the other methods are accessed.
@@ -208,6 +219,27 @@ public class RoutingAPI {
         return new GeoJSONRouteResponse(result, request, systemMessageProperties, endpointsProperties);
     }
 
+    @PostMapping(value = "/{profile}/batch", produces = "application/x-ndjson")
+    @Operation(
+            description = """
+                    Returns routes for many independent requests of the same profile. The body contains one request per line (NDJSON) \
+                    in the format of the JSON endpoint. Each output line holds the `index` of the input line, its `id` if set, and either \
+                    the JSON `response` or an `error`. Results are written in input order as soon as they are available.\
+                    """,
+            summary = "Directions Service Batch"
+    )
+    @ApiResponse(responseCode = "200", description = "One result per line (NDJSON).")
+    public void getBatchRoutes(
+            @Parameter(description = "Specifies the route profile.", required = true, example = "driving-car") @PathVariable APIEnums.Profile profile,
+            HttpServletRequest request, HttpServletResponse response) throws StatusCodeException, IOException {
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        // the output is flushed but not closed, so that nothing is committed if the batch is rejected right away
+        BufferedReader input = new BufferedReader(new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8));
+        Writer output = new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8);
+        routingBatchService.process(profile, input, output);
+    }
+
     @ExceptionHandler(MissingServletRequestParameterException.class)
     public ResponseEntity<Object> handleMissingParams(final MissingServletRequestParameterException e) {
         return errorHandler.handleStatusCodeException(new MissingParameterException(RoutingErrorCodes.MISSING_PARAMETER, e.getParameterName()));
@@ -25,6 +25,7 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.heigit.ors.api.EndpointsProperties;
 import org.heigit.ors.api.SystemMessageProperties;
@@ -32,6 +33,7 @@ import org.heigit.ors.api.errors.CommonResponseEntityExceptionHandler;
 import org.heigit.ors.api.requests.snapping.SnappingApiRequest;
 import org.heigit.ors.api.responses.snapping.geojson.GeoJSONSnappingResponse;
 import org.heigit.ors.api.responses.snapping.json.JsonSnappingResponse;
+import org.heigit.ors.api.services.SnappingBatchService;
 import org.heigit.ors.api.services.SnappingService;
 import org.heigit.ors.api.util.AppConfigMigration;
 import org.heigit.ors.exceptions.*;
@@ -45,6 +47,13 @@ import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
 @RestController
 @Tag(name = "Snapping Service", description = "Snap coordinates to the graph edges.")
 @RequestMapping("/v2/snap")
@@ -61,11 +70,13 @@ public class SnappingAPI {
     private final EndpointsProperties endpointsProperties;
     private final SystemMessageProperties systemMessageProperties;
     private final SnappingService snappingService;
+    private final SnappingBatchService snappingBatchService;
 
-    public SnappingAPI(EndpointsProperties endpointsProperties, SystemMessageProperties systemMessageProperties, SnappingService snappingService) {
+    public SnappingAPI(EndpointsProperties endpointsProperties, SystemMessageProperties systemMessageProperties, SnappingService snappingService, SnappingBatchService snappingBatchService) {
         this.endpointsProperties = AppConfigMigration.overrideEndpointsProperties(endpointsProperties);
         this.systemMessageProperties = systemMessageProperties;
         this.snappingService = snappingService;
+        this.snappingBatchService = snappingBatchService;
     }
 
     // generic catch methods - when extra info is provided in the url, the other methods are accessed.
@@ -166,6 +177,28 @@ public class SnappingAPI {
         return new GeoJSONSnappingResponse(result, request, systemMessageProperties, endpointsProperties);
     }
 
+    @PostMapping(value = "/{profile}/batch", produces = "application/x-ndjson")
+    @Operation(
+            description = """
+                    Snaps a large number of locations. The body contains one `[longitude, latitude]` pair per line (NDJSON). \
+                    Each output line holds the results of a chunk of consecutive locations as columns, starting with the location at \
+                    `offset`: the snapped `edge` (-1 if there is none within the radius), the snapped `lon` and `lat` and the `distance` \
+                    in meters. An invalid location is answered with an `error` and ends the output.\
+                    """,
+            summary = "Snapping Service Batch"
+    )
+    @ApiResponse(responseCode = "200", description = "One result per chunk of locations (NDJSON).")
+    public void getBatchSnapping(
+            @Parameter(description = "Specifies the profile.", required = true, example = "driving-car") @PathVariable APIEnums.Profile profile,
+            @Parameter(description = "Maximum radius in meters around the locations to search for graph edges.", required = true, example = "300") @RequestParam(SnappingApiRequest.PARAM_MAXIMUM_SEARCH_RADIUS) double radius,
+            HttpServletRequest request, HttpServletResponse response) throws StatusCodeException, IOException {
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        BufferedReader input = new BufferedReader(new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8));
+        Writer output = new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8);
+        snappingBatchService.process(profile, radius, input, output);
+    }
+
     @ExceptionHandler(MissingServletRequestParameterException.class)
     public ResponseEntity<Object> handleMissingParams(final MissingServletRequestParameterException e) {
         return errorHandler.handleStatusCodeException(new MissingParameterException(SnappingErrorCodes.MISSING_PARAMETER, e.getParameterName()));
@@ -0,0 +1,78 @@
+/*
+ * This file is part of Openrouteservice.
+ *
+ * Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.heigit.ors.api.converters;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.heigit.ors.api.responses.isochrones.IsochronesResponse;
+import org.heigit.ors.api.responses.matrix.MatrixResponse;
+import org.heigit.ors.api.responses.routing.RouteResponse;
+import org.heigit.ors.routing.RoutingProfile;
+import org.heigit.ors.routing.RoutingProfileManager;
+import org.heigit.ors.routing.RoutingProfileType;
+import org.heigit.ors.util.StageMetrics;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Map;
+
+/**
+ * JSON message converter which records the time spent writing route, matrix and isochrone responses as the
+ * {@link StageMetrics.Stage#SERIALIZATION} stage of the requested profile.
+ */
+public class MetricsJsonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+    public MetricsJsonHttpMessageConverter(ObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException, HttpMessageNotWritableException {
+        StageMetrics.Endpoint endpoint = getEndpoint(object);
+        StageMetrics metrics = endpoint == null ? null : getProfileMetrics();
+        if (metrics == null) {
+            super.writeInternal(object, type, outputMessage);
+            return;
+        }
+        long start = System.nanoTime();
+        super.writeInternal(object, type, outputMessage);
+        metrics.recordSince(endpoint, StageMetrics.Stage.SERIALIZATION, start);
+    }
+
+    private static StageMetrics.Endpoint getEndpoint(Object object) {
+        if (object instanceof RouteResponse)
+            return StageMetrics.Endpoint.ROUTES;
+        if (object instanceof MatrixResponse)
+            return StageMetrics.Endpoint.MATRIX;
+        if (object instanceof IsochronesResponse)
+            return StageMetrics.Endpoint.ISOCHRONES;
+        return null;
+    }
+
+    private static StageMetrics getProfileMetrics() {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes))
+            return null;
+        Object variables = attributes.getRequest().getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (!(variables instanceof Map<?, ?> map) || !(map.get("profile") instanceof String profile))
+            return null;
+        RoutingProfile routingProfile = RoutingProfileManager.getInstance().getProfiles().getRouteProfile(RoutingProfileType.getFromString(profile));
+        return routingProfile == null ? null : routingProfile.getMetrics();
+    }
+}
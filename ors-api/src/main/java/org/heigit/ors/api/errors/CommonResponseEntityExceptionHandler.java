@@ -19,6 +19,7 @@ import com.fasterxml.jackson.databind.exc.ValueInstantiationException;
 import org.apache.log4j.Logger;
 import org.heigit.ors.api.util.AppInfo;
 import org.heigit.ors.exceptions.ParameterValueException;
+import org.heigit.ors.exceptions.ServiceOverloadedException;
 import org.heigit.ors.exceptions.StatusCodeException;
 import org.heigit.ors.exceptions.UnknownParameterException;
 import org.heigit.ors.isochrones.IsochronesErrorCodes;
@@ -51,6 +52,8 @@ public class CommonResponseEntityExceptionHandler extends ResponseEntityExceptio
     public ResponseEntity handleStatusCodeException(StatusCodeException exception) {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
+        if (exception instanceof ServiceOverloadedException overloaded)
+            headers.set(HttpHeaders.RETRY_AFTER, Long.toString(overloaded.getRetryAfter()));
         logException(exception);
         return new ResponseEntity(constructErrorBody(exception), headers, convertOrsToSpringHttpCode(exception.getStatusCode()));
     }
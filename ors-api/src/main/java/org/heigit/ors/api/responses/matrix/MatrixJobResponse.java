@@ -0,0 +1,81 @@
+/*
+ * This file is part of Openrouteservice.
+ *
+ * Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ * GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ * of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this library;
+ * if not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.heigit.ors.api.responses.matrix;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.heigit.ors.matrix.MatrixJob;
+
+@Schema(name = "MatrixJobResponse", description = "Status of an asynchronous matrix job.")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MatrixJobResponse {
+    private final MatrixJob job;
+
+    public MatrixJobResponse(MatrixJob job) {
+        this.job = job;
+    }
+
+    @JsonProperty("id")
+    @Schema(description = "Id of the job", example = "3f8c1c2e-8d6b-4a53-b0e4-5c0f0f6f6c9a")
+    public String getId() {
+        return job.getId();
+    }
+
+    @JsonProperty("status")
+    @Schema(description = "One of `queued`, `running`, `completed`, `failed` or `cancelled`", example = "running")
+    public String getStatus() {
+        return job.getStatus().name().toLowerCase();
+    }
+
+    @JsonProperty("sources")
+    public int getSources() {
+        return job.getRequest().getSources().length;
+    }
+
+    @JsonProperty("destinations")
+    public int getDestinations() {
+        return job.getRequest().getDestinations().length;
+    }
+
+    @JsonProperty("tiles")
+    @Schema(description = "Number of tiles the matrix is computed in")
+    public int getTiles() {
+        return job.getTiles();
+    }
+
+    @JsonProperty("completed_tiles")
+    public int getCompletedTiles() {
+        return job.getCompletedTiles();
+    }
+
+    @JsonProperty("created")
+    @Schema(description = "Unix timestamp in milliseconds the job has been submitted at")
+    public long getCreated() {
+        return job.getCreated();
+    }
+
+    @JsonProperty("finished")
+    @Schema(description = "Unix timestamp in milliseconds the job has finished at")
+    public Long getFinished() {
+        return job.getFinished() == 0 ? null : job.getFinished();
+    }
+
+    @JsonProperty("error")
+    public String getError() {
+        return job.getError();
+    }
+}
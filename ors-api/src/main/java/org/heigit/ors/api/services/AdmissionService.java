@@ -0,0 +1,77 @@
+package org.heigit.ors.api.services;
+
+import io.micrometer.core.instrument.Metrics;
+import jakarta.annotation.PreDestroy;
+import org.heigit.ors.api.EndpointsProperties.AdmissionProperties;
+import org.heigit.ors.exceptions.ServiceOverloadedException;
+import org.heigit.ors.routing.RoutingProfileType;
+import org.heigit.ors.util.AdmissionLimiter;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Admission control for the routing, matrix and isochrone endpoints. Each endpoint has one {@link AdmissionLimiter}
+ * shared by all its profiles, except for profiles with limits of their own.
+ */
+@Service
+public class AdmissionService {
+    private static final String ALL_PROFILES = "all";
+    private final Map<String, AdmissionLimiter> limiters = new ConcurrentHashMap<>();
+
+    /**
+     * Waits until the request may be processed.
+     *
+     * @param endpoint    name of the endpoint, used for the meters
+     * @param profileType profile of the request
+     * @param share       estimated cost of the request as a share of the largest request the endpoint accepts, a
+     *                    request with share 1 occupies the whole capacity and one with share 0 a single unit
+     * @return permit to be closed when the request has been processed, or {@code null} if admission control is
+     * disabled for the endpoint
+     * @throws ServiceOverloadedException if the request is rejected
+     */
+    public AdmissionLimiter.Permit admit(String endpoint, AdmissionProperties properties, int profileType, double share) throws ServiceOverloadedException {
+        if (properties == null || !properties.isEnabled())
+            return null;
+        AdmissionLimiter limiter = getLimiter(endpoint, properties, profileType);
+        return limiter.acquire((int) Math.ceil(share * limiter.getCapacity()));
+    }
+
+    /**
+     * Waits until a number of requests may be processed at the same time, e.g. by the workers of a batch. Each of them
+     * costs a single unit, as a request with share 0 passed to {@link #admit}.
+     *
+     * @return permit to be closed when all requests have been processed, or {@code null} if admission control is
+     * disabled for the endpoint
+     * @throws ServiceOverloadedException if the requests are rejected
+     */
+    public AdmissionLimiter.Permit admitConcurrent(String endpoint, AdmissionProperties properties, int profileType, int requests) throws ServiceOverloadedException {
+        if (properties == null || !properties.isEnabled())
+            return null;
+        return getLimiter(endpoint, properties, profileType).acquire(requests);
+    }
+
+    private AdmissionLimiter getLimiter(String endpoint, AdmissionProperties properties, int profileType) {
+        String profileName = RoutingProfileType.getName(profileType);
+        AdmissionProperties profileProperties = properties.getProfiles().get(profileName);
+        String profile = profileProperties == null ? ALL_PROFILES : profileName;
+        return limiters.computeIfAbsent(endpoint + "/" + profile, k -> createLimiter(endpoint, profile, properties, profileProperties));
+    }
+
+    private static AdmissionLimiter createLimiter(String endpoint, String profile, AdmissionProperties properties, AdmissionProperties profileProperties) {
+        AdmissionProperties overrides = profileProperties == null ? properties : profileProperties;
+        int concurrency = overrides.getMaximumConcurrency() > 0 ? overrides.getMaximumConcurrency() : properties.getMaximumConcurrency();
+        int queueSize = overrides.getMaximumQueueSize() > 0 ? overrides.getMaximumQueueSize() : properties.getMaximumQueueSize();
+        long queueTime = overrides.getMaximumQueueTime() > 0 ? overrides.getMaximumQueueTime() : properties.getMaximumQueueTime();
+        if (concurrency <= 0)
+            concurrency = Runtime.getRuntime().availableProcessors();
+        return new AdmissionLimiter(concurrency, queueSize, queueTime, Metrics.globalRegistry, "endpoint", endpoint, "profile", profile);
+    }
+
+    @PreDestroy
+    public void close() {
+        limiters.values().forEach(AdmissionLimiter::close);
+        limiters.clear();
+    }
+}
@@ -19,6 +19,8 @@ import org.heigit.ors.routing.APIEnums;
 import org.heigit.ors.routing.RouteSearchParameters;
 import org.heigit.ors.routing.RoutingProfileManager;
 import org.heigit.ors.routing.RoutingProfileType;
+import org.heigit.ors.routing.RoutingProfilesCollection;
+import org.heigit.ors.util.AdmissionLimiter;
 import org.heigit.ors.util.DistanceUnitUtil;
 import org.locationtech.jts.geom.Coordinate;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -38,9 +40,12 @@ import static org.heigit.ors.common.TravelRangeType.DISTANCE;
 @Service
 public class IsochronesService extends ApiService {
 
+    private final AdmissionService admissionService;
+
     @Autowired
-    public IsochronesService(EndpointsProperties endpointsProperties) {
+    public IsochronesService(EndpointsProperties endpointsProperties, AdmissionService admissionService) {
         this.endpointsProperties = endpointsProperties;
+        this.admissionService = admissionService;
     }
 
     public void generateIsochronesFromRequest(IsochronesRequest isochronesRequest) throws Exception {
@@ -54,12 +59,21 @@ public class IsochronesService extends ApiService {
         if (!travellers.isEmpty()) {
             isochronesRequest.setIsoMaps(new IsochroneMapCollection());
 
-            for (int i = 0; i < travellers.size(); ++i) {
-                IsochroneSearchParameters searchParams = isochronesRequest.getIsochroneRequest().getSearchParameters(i);
-                IsochroneMap isochroneMap = RoutingProfileManager.getInstance().buildIsochrone(searchParams);
-                isochronesRequest.getIsoMaps().add(isochroneMap);
+            int profileType = travellers.get(0).getRouteSearchParameters().getProfileType();
+            try (AdmissionLimiter.Permit permit = admissionService.admit("isochrone", endpointsProperties.getIsochrone().getAdmission(),
+                    profileType, estimateShare(isochronesRequest.getIsochroneRequest(), travellers))) {
+                RoutingProfileManager profileManager = RoutingProfileManager.getInstance();
+                RoutingProfilesCollection profiles = profileManager.acquireProfiles();
+                try {
+                    for (int i = 0; i < travellers.size(); ++i) {
+                        IsochroneSearchParameters searchParams = isochronesRequest.getIsochroneRequest().getSearchParameters(i);
+                        IsochroneMap isochroneMap = profileManager.buildIsochrone(searchParams, profiles);
+                        isochronesRequest.getIsoMaps().add(isochroneMap);
+                    }
+                } finally {
+                    profiles.release();
+                }
             }
-
         }
     }
 
@@ -290,6 +304,19 @@ public class IsochronesService extends ApiService {
 
     }
 
+    /**
+     * Estimates the cost of a request as a share of the largest allowed request. The explored area, and with it the
+     * cost, grows with the square of the range.
+     */
+    private static double estimateShare(IsochroneRequest isochroneRequest, List<TravellerInfo> travellers) {
+        double share = 0;
+        for (TravellerInfo traveller : travellers) {
+            double rangeShare = traveller.getMaximumRange() / Math.max(1, getMaximumRange(traveller, isochroneRequest));
+            share += rangeShare * rangeShare;
+        }
+        return share / Math.max(1, isochroneRequest.getMaximumLocations());
+    }
+
     private static int getMaximumRange(TravellerInfo traveller, IsochroneRequest isochroneRequest) {
         int profileType = traveller.getRouteSearchParameters().getProfileType();
         TravelRangeType range = traveller.getRangeType();
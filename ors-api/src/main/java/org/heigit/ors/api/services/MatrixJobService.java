@@ -0,0 +1,91 @@
+package org.heigit.ors.api.services;
+
+import jakarta.annotation.PreDestroy;
+import org.heigit.ors.api.EndpointsProperties;
+import org.heigit.ors.api.requests.matrix.MatrixRequest;
+import org.heigit.ors.common.StatusCode;
+import org.heigit.ors.exceptions.InternalServerException;
+import org.heigit.ors.exceptions.StatusCodeException;
+import org.heigit.ors.matrix.MatrixErrorCodes;
+import org.heigit.ors.matrix.MatrixJob;
+import org.heigit.ors.matrix.MatrixJobManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+@Service
+public class MatrixJobService {
+    private final EndpointsProperties.EndpointMatrixProperties.MatrixJobsProperties properties;
+    private final MatrixService matrixService;
+    private MatrixJobManager jobManager;
+
+    @Autowired
+    public MatrixJobService(EndpointsProperties endpointsProperties, MatrixService matrixService) {
+        this.properties = endpointsProperties.getMatrix().getJobs();
+        this.matrixService = matrixService;
+    }
+
+    public MatrixJob submit(MatrixRequest matrixRequest) throws StatusCodeException {
+        org.heigit.ors.matrix.MatrixRequest coreRequest = matrixService.convertMatrixRequest(matrixRequest, properties.getMaximumRoutes());
+        return getJobManager().submit(coreRequest);
+    }
+
+    /**
+     * @throws StatusCodeException with {@code 404} if the job does not exist
+     */
+    public MatrixJob getJob(String jobId) throws StatusCodeException {
+        MatrixJob job = getJobManager().getJob(jobId);
+        if (job == null)
+            throw new StatusCodeException(StatusCode.NOT_FOUND, MatrixErrorCodes.JOB_NOT_FOUND, "Matrix job '%s' does not exist.".formatted(jobId));
+        return job;
+    }
+
+    /**
+     * Opens the result of a completed job, see {@link MatrixJobManager#openResult(String)}.
+     *
+     * @throws StatusCodeException with {@code 409} if the job has not completed (yet), or with {@code 404} if it has
+     *                             been removed in the meantime
+     */
+    public FileChannel openResult(String jobId) throws StatusCodeException {
+        MatrixJob job = getJob(jobId);
+        if (job.getStatus() != MatrixJob.Status.COMPLETED)
+            throw new StatusCodeException(StatusCode.CONFLICT, MatrixErrorCodes.JOB_NOT_COMPLETED, "Matrix job '%s' is %s.".formatted(jobId, job.getStatus().name().toLowerCase()));
+        FileChannel result;
+        try {
+            result = getJobManager().openResult(jobId);
+        } catch (IOException e) {
+            throw new InternalServerException(MatrixErrorCodes.UNKNOWN, "Unable to read the result of matrix job '%s': %s".formatted(jobId, e.getMessage()));
+        }
+        if (result == null)
+            throw new StatusCodeException(StatusCode.NOT_FOUND, MatrixErrorCodes.JOB_NOT_FOUND, "Matrix job '%s' does not exist.".formatted(jobId));
+        return result;
+    }
+
+    public void remove(String jobId) throws StatusCodeException {
+        if (!getJobManager().remove(jobId))
+            throw new StatusCodeException(StatusCode.NOT_FOUND, MatrixErrorCodes.JOB_NOT_FOUND, "Matrix job '%s' does not exist.".formatted(jobId));
+    }
+
+    private synchronized MatrixJobManager getJobManager() throws StatusCodeException {
+        if (!properties.isEnabled())
+            throw new StatusCodeException(StatusCode.NOT_IMPLEMENTED, MatrixErrorCodes.UNKNOWN, "Matrix jobs are disabled.");
+        if (jobManager == null) {
+            try {
+                jobManager = new MatrixJobManager(Path.of(properties.getSpoolPath()), properties.getThreads(), properties.getTileSize(),
+                        properties.getMaximumRoutes(), properties.getMaximumJobs(), properties.getResultTimeToLive());
+            } catch (IOException e) {
+                throw new InternalServerException(MatrixErrorCodes.UNKNOWN, "Unable to initialize the matrix job spool: " + e.getMessage());
+            }
+        }
+        return jobManager;
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (jobManager != null)
+            jobManager.close();
+    }
+}
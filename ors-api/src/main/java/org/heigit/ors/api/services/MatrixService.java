@@ -15,6 +15,7 @@ import org.heigit.ors.routing.APIEnums;
 import org.heigit.ors.routing.RoutingErrorCodes;
 import org.heigit.ors.routing.RoutingProfileManager;
 import org.heigit.ors.routing.RoutingProfileType;
+import org.heigit.ors.util.AdmissionLimiter;
 import org.locationtech.jts.geom.Coordinate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -27,15 +28,20 @@ import static org.heigit.ors.api.requests.matrix.MatrixRequest.isFlexibleMode;
 @Service
 public class MatrixService extends ApiService {
 
+    private final AdmissionService admissionService;
+
     @Autowired
-    public MatrixService(EndpointsProperties endpointsProperties) {
+    public MatrixService(EndpointsProperties endpointsProperties, AdmissionService admissionService) {
         this.endpointsProperties = endpointsProperties;
+        this.admissionService = admissionService;
     }
 
     public MatrixResult generateMatrixFromRequest(MatrixRequest matrixRequest) throws StatusCodeException {
         org.heigit.ors.matrix.MatrixRequest coreRequest = this.convertMatrixRequest(matrixRequest);
 
-        try {
+        double share = (double) coreRequest.getSources().length * coreRequest.getDestinations().length
+                / endpointsProperties.getMatrix().getMaximumRoutes(coreRequest.getFlexibleMode());
+        try (AdmissionLimiter.Permit permit = admissionService.admit("matrix", endpointsProperties.getMatrix().getAdmission(), coreRequest.getProfileType(), share)) {
             return RoutingProfileManager.getInstance().computeMatrix(coreRequest);
         } catch (StatusCodeException e) {
             throw e;
@@ -45,6 +51,13 @@ public class MatrixService extends ApiService {
     }
 
     public org.heigit.ors.matrix.MatrixRequest convertMatrixRequest(MatrixRequest matrixRequest) throws StatusCodeException {
+        return convertMatrixRequest(matrixRequest, endpointsProperties.getMatrix().getMaximumRoutes(false));
+    }
+
+    /**
+     * @param maximumRoutes maximum number of routes, differing from the synchronous endpoint for matrix jobs
+     */
+    public org.heigit.ors.matrix.MatrixRequest convertMatrixRequest(MatrixRequest matrixRequest, int maximumRoutes) throws StatusCodeException {
         org.heigit.ors.matrix.MatrixRequest coreRequest = new org.heigit.ors.matrix.MatrixRequest(
                 endpointsProperties.getMatrix().getMaximumSearchRadius(),
                 endpointsProperties.getMatrix().getMaximumVisitedNodes(),
@@ -52,7 +65,7 @@ public class MatrixService extends ApiService {
 
         int numberOfSources = matrixRequest.getSources() == null ? matrixRequest.getLocations().size() : matrixRequest.getSources().length;
         int numberODestinations = matrixRequest.getDestinations() == null ? matrixRequest.getLocations().size() : matrixRequest.getDestinations().length;
-        Coordinate[] locations = convertLocations(matrixRequest.getLocations(), numberOfSources * numberODestinations, endpointsProperties);
+        Coordinate[] locations = convertLocations(matrixRequest.getLocations(), numberOfSources * numberODestinations, maximumRoutes);
 
         coreRequest.setProfileType(convertToMatrixProfileType(matrixRequest.getProfile()));
 
@@ -118,9 +131,12 @@ public class MatrixService extends ApiService {
     }
 
     protected Coordinate[] convertLocations(List<List<Double>> locations, int numberOfRoutes, EndpointsProperties endpointsProperties) throws ParameterValueException, ServerLimitExceededException {
+        return convertLocations(locations, numberOfRoutes, endpointsProperties.getMatrix().getMaximumRoutes(false));
+    }
+
+    protected Coordinate[] convertLocations(List<List<Double>> locations, int numberOfRoutes, int maximumNumberOfRoutes) throws ParameterValueException, ServerLimitExceededException {
         if (locations == null || locations.size() < 2)
             throw new ParameterValueException(MatrixErrorCodes.INVALID_PARAMETER_VALUE, MatrixRequest.PARAM_LOCATIONS);
-        int maximumNumberOfRoutes = endpointsProperties.getMatrix().getMaximumRoutes(false);
         if (numberOfRoutes > maximumNumberOfRoutes)
             throw new ServerLimitExceededException(MatrixErrorCodes.PARAMETER_VALUE_EXCEEDS_MAXIMUM, "Only a total of " + maximumNumberOfRoutes + " routes are allowed.");
         ArrayList<Coordinate> locationCoordinates = new ArrayList<>();
@@ -0,0 +1,102 @@
+package org.heigit.ors.api.services;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Worker pool of a batch endpoint. The chunks of a batch are computed concurrently, and their results are written to
+ * the NDJSON output in input order, keeping at most a given number of chunks pending.
+ */
+class NdjsonBatchExecutor {
+    private final String name;
+    private final String threadName;
+    private ExecutorService executor;
+
+    /**
+     * @param name       name of the batch operation used in messages, e.g. "routing"
+     * @param threadName name of the worker threads
+     */
+    NdjsonBatchExecutor(String name, String threadName) {
+        this.name = name;
+        this.threadName = threadName;
+    }
+
+    /**
+     * Starts a batch writing to {@code output}. The worker pool is created with the given number of threads on first
+     * use.
+     */
+    synchronized <T> Batch<T> start(int threads, ObjectWriter resultWriter, Writer output) {
+        if (executor == null)
+            executor = Executors.newFixedThreadPool(threads, runnable -> new Thread(runnable, threadName));
+        return new Batch<>(executor, resultWriter, output);
+    }
+
+    synchronized void close() {
+        if (executor != null)
+            executor.shutdownNow();
+    }
+
+    /**
+     * Results of the submitted chunks of one batch, which are written in the order of submission.
+     */
+    class Batch<T> implements AutoCloseable {
+        private final ExecutorService workers;
+        private final ObjectWriter resultWriter;
+        private final Writer output;
+        private final Deque<Future<List<T>>> pending = new ArrayDeque<>();
+
+        private Batch(ExecutorService workers, ObjectWriter resultWriter, Writer output) {
+            this.workers = workers;
+            this.resultWriter = resultWriter;
+            this.output = output;
+        }
+
+        void submit(Callable<List<T>> chunk) {
+            pending.add(workers.submit(chunk));
+        }
+
+        /**
+         * Writes the results of the oldest chunks, waiting for them to be computed, until at most {@code keep} chunks
+         * are pending. The output is flushed once all chunks have been written.
+         */
+        void drain(int keep) throws IOException {
+            while (pending.size() > keep) {
+                try {
+                    for (T result : pending.peek().get())
+                        write(result);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Batch %s has been interrupted.".formatted(name), e);
+                } catch (ExecutionException e) {
+                    throw new IOException(e.getCause());
+                }
+                pending.poll();
+            }
+            if (keep == 0)
+                output.flush();
+        }
+
+        void write(T result) throws IOException {
+            output.write(resultWriter.writeValueAsString(result));
+            output.write('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            // only left over if the client has gone away or the thread has been interrupted
+            for (Future<List<T>> future : pending)
+                future.cancel(true);
+            output.flush();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package org.heigit.ors.api.services;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.annotation.PreDestroy;
+import org.apache.log4j.Logger;
+import org.heigit.ors.api.EndpointsProperties;
+import org.heigit.ors.api.SystemMessageProperties;
+import org.heigit.ors.api.requests.routing.RouteRequest;
+import org.heigit.ors.api.responses.routing.json.JSONRouteResponse;
+import org.heigit.ors.common.StatusCode;
+import org.heigit.ors.exceptions.ServerLimitExceededException;
+import org.heigit.ors.exceptions.StatusCodeException;
+import org.heigit.ors.routing.APIEnums;
+import org.heigit.ors.routing.RouteResult;
+import org.heigit.ors.routing.RoutingErrorCodes;
+import org.heigit.ors.routing.graphhopper.extensions.SearchComponentsScope;
+import org.heigit.ors.util.AdmissionLimiter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Computes a stream of independent route requests on a shared worker pool. Every input line holds one request in the
+ * format of the JSON directions endpoint, every output line the response or error for the input line with the same
+ * index.
+ * <p>
+ * The batch is admitted once with one request per worker, so that its requests wait for the workers instead of being
+ * rejected one by one. The workers compute chunks of consecutive requests, which share their weightings and edge
+ * filters if they have the same options.
+ */
+@Service
+public class RoutingBatchService {
+    private static final Logger LOGGER = Logger.getLogger(RoutingBatchService.class);
+
+    private final EndpointsProperties endpointsProperties;
+    private final SystemMessageProperties systemMessageProperties;
+    private final RoutingService routingService;
+    private final AdmissionService admissionService;
+    private final ObjectReader requestReader;
+    private final ObjectWriter resultWriter;
+    private final NdjsonBatchExecutor batchExecutor = new NdjsonBatchExecutor("routing", "ORS-batch-route");
+
+    @Autowired
+    public RoutingBatchService(EndpointsProperties endpointsProperties, SystemMessageProperties systemMessageProperties, RoutingService routingService, AdmissionService admissionService, ObjectMapper objectMapper) {
+        this.endpointsProperties = endpointsProperties;
+        this.systemMessageProperties = systemMessageProperties;
+        this.routingService = routingService;
+        this.admissionService = admissionService;
+        this.requestReader = objectMapper.readerFor(RouteRequest.class);
+        this.resultWriter = objectMapper.writerFor(BatchResult.class);
+    }
+
+    /**
+     * Reads route requests from {@code input} until it is exhausted and writes the results to {@code output} in input
+     * order. Errors of single requests are written as results and do not stop the batch.
+     *
+     * @throws StatusCodeException if batch routing is disabled or the batch is rejected by admission control
+     */
+    public void process(APIEnums.Profile profile, BufferedReader input, Writer output) throws StatusCodeException, IOException {
+        EndpointsProperties.EndpointRoutingProperties.RoutingBatchProperties properties = endpointsProperties.getRouting().getBatch();
+        if (!properties.isEnabled())
+            throw new StatusCodeException(StatusCode.NOT_IMPLEMENTED, RoutingErrorCodes.UNKNOWN, "Batch routing is disabled.");
+        int chunkSize = Math.max(1, properties.getChunkSize());
+        // maximum_pending counts results, not chunks
+        int maximumPendingChunks = Math.max(1, properties.getMaximumPending() / chunkSize);
+        List<String> chunk = new ArrayList<>(chunkSize);
+        int index = 0;
+        try (AdmissionLimiter.Permit permit = admissionService.admitConcurrent("routing", endpointsProperties.getRouting().getAdmission(),
+                ApiService.convertRouteProfileType(profile), properties.getThreads());
+             NdjsonBatchExecutor.Batch<BatchResult> batch = batchExecutor.start(properties.getThreads(), resultWriter, output)) {
+            String line;
+            while ((line = input.readLine()) != null) {
+                if (line.isBlank())
+                    continue;
+                if (index >= properties.getMaximumRequests()) {
+                    if (!chunk.isEmpty())
+                        submit(batch, profile, index - chunk.size(), chunk);
+                    batch.drain(0);
+                    ServerLimitExceededException e = new ServerLimitExceededException(RoutingErrorCodes.REQUEST_EXCEEDS_SERVER_LIMIT,
+                            "Only %d requests are allowed per batch.".formatted(properties.getMaximumRequests()));
+                    batch.write(BatchResult.of(index, null, e));
+                    return;
+                }
+                index++;
+                chunk.add(line);
+                if (chunk.size() == chunkSize) {
+                    submit(batch, profile, index - chunk.size(), chunk);
+                    chunk = new ArrayList<>(chunkSize);
+                    batch.drain(maximumPendingChunks);
+                }
+            }
+            if (!chunk.isEmpty())
+                submit(batch, profile, index - chunk.size(), chunk);
+            batch.drain(0);
+        }
+    }
+
+    private void submit(NdjsonBatchExecutor.Batch<BatchResult> batch, APIEnums.Profile profile, int offset, List<String> lines) {
+        batch.submit(() -> route(profile, offset, lines));
+    }
+
+    private List<BatchResult> route(APIEnums.Profile profile, int offset, List<String> lines) {
+        List<BatchResult> results = new ArrayList<>(lines.size());
+        try (SearchComponentsScope scope = SearchComponentsScope.open()) {
+            for (int i = 0; i < lines.size(); i++)
+                results.add(route(profile, offset + i, lines.get(i)));
+        }
+        return results;
+    }
+
+    private BatchResult route(APIEnums.Profile profile, int index, String json) {
+        String id = null;
+        try {
+            RouteRequest request = requestReader.readValue(json);
+            if (request.hasId())
+                id = request.getId();
+            request.setProfile(profile);
+            request.setResponseType(APIEnums.RouteResponseType.JSON);
+            return new BatchResult(index, id, computeResponse(request), null);
+        } catch (JsonProcessingException e) {
+            return BatchResult.of(index, id, new StatusCodeException(StatusCode.BAD_REQUEST, RoutingErrorCodes.INVALID_JSON_FORMAT, e.getOriginalMessage()));
+        } catch (StatusCodeException e) {
+            return BatchResult.of(index, id, e);
+        } catch (Exception e) {
+            LOGGER.error("Batch route request %d failed".formatted(index), e);
+            return BatchResult.of(index, id, new StatusCodeException(StatusCode.INTERNAL_SERVER_ERROR, RoutingErrorCodes.UNKNOWN, e.getMessage()));
+        }
+    }
+
+    /**
+     * Computes the response to a single request of the batch, which has already been admitted.
+     */
+    Object computeResponse(RouteRequest request) throws StatusCodeException {
+        RouteResult[] result = routingService.computeRoute(request);
+        return new JSONRouteResponse(result, request, systemMessageProperties, endpointsProperties);
+    }
+
+    @PreDestroy
+    public void close() {
+        batchExecutor.close();
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    record BatchResult(int index, String id, Object response, BatchError error) {
+        static BatchResult of(int index, String id, StatusCodeException e) {
+            int code = e.getInternalCode() < 100 ? RoutingErrorCodes.BASE + e.getInternalCode() : e.getInternalCode();
+            return new BatchResult(index, id, null, new BatchError(code, e.getMessage()));
+        }
+    }
+
+    record BatchError(int code, String message) {
+    }
+}
@@ -7,6 +7,7 @@ import org.heigit.ors.common.StatusCode;
 import org.heigit.ors.exceptions.*;
 import org.heigit.ors.localization.LocalizationManager;
 import org.heigit.ors.routing.*;
+import org.heigit.ors.util.AdmissionLimiter;
 import org.locationtech.jts.geom.Coordinate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -20,9 +21,12 @@ import java.util.stream.Stream;
 @Service
 public class RoutingService extends ApiService {
 
+    private final AdmissionService admissionService;
+
     @Autowired
-    public RoutingService(EndpointsProperties endpointsProperties) {
+    public RoutingService(EndpointsProperties endpointsProperties, AdmissionService admissionService) {
         this.endpointsProperties = endpointsProperties;
+        this.admissionService = admissionService;
     }
 
     @Override
@@ -38,6 +42,20 @@ public class RoutingService extends ApiService {
     public RouteResult[] generateRouteFromRequest(RouteRequest request) throws StatusCodeException {
         RoutingRequest routingRequest = this.convertRouteRequest(request);
 
+        try (AdmissionLimiter.Permit permit = admissionService.admit("routing", endpointsProperties.getRouting().getAdmission(),
+                routingRequest.getSearchParameters().getProfileType(), 0)) {
+            return computeRoute(routingRequest);
+        }
+    }
+
+    /**
+     * Computes the route without admission control, for callers which have already been admitted.
+     */
+    public RouteResult[] computeRoute(RouteRequest request) throws StatusCodeException {
+        return computeRoute(this.convertRouteRequest(request));
+    }
+
+    private RouteResult[] computeRoute(RoutingRequest routingRequest) throws StatusCodeException {
         try {
             return RoutingProfileManager.getInstance().computeRoute(routingRequest);
         } catch (StatusCodeException e) {
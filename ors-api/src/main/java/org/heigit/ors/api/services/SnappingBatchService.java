@@ -0,0 +1,211 @@
+package org.heigit.ors.api.services;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.graphhopper.GraphHopper;
+import com.graphhopper.routing.util.EdgeFilter;
+import com.graphhopper.storage.index.LocationIndex;
+import com.graphhopper.storage.index.Snap;
+import com.graphhopper.util.shapes.GHPoint3D;
+import jakarta.annotation.PreDestroy;
+import org.apache.log4j.Logger;
+import org.heigit.ors.api.EndpointsProperties;
+import org.heigit.ors.api.requests.snapping.SnappingApiRequest;
+import org.heigit.ors.common.StatusCode;
+import org.heigit.ors.exceptions.ParameterValueException;
+import org.heigit.ors.exceptions.ServerLimitExceededException;
+import org.heigit.ors.exceptions.StatusCodeException;
+import org.heigit.ors.routing.APIEnums;
+import org.heigit.ors.routing.RoutingProfile;
+import org.heigit.ors.routing.RoutingProfileManager;
+import org.heigit.ors.routing.RoutingProfilesCollection;
+import org.heigit.ors.snapping.SnappingErrorCodes;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Snaps a stream of locations on a shared worker pool. Every input line holds one {@code [lon, lat]} pair. The
+ * locations are snapped in chunks, and every output line holds the results of one chunk as columns, starting with the
+ * location at {@code offset}: the snapped edge, or -1 if there is none within the search radius, the snapped
+ * coordinate and its distance to the input location in meters.
+ * <p>
+ * Every chunk queries the location index directly with a filter built once per chunk, so that the cost per location
+ * is close to that of the index lookup itself. The profiles are acquired once per batch, so that a reload does not
+ * close the graph while the batch is snapped on it.
+ */
+@Service
+public class SnappingBatchService {
+    private static final Logger LOGGER = Logger.getLogger(SnappingBatchService.class);
+
+    private final EndpointsProperties endpointsProperties;
+    private final SnappingService snappingService;
+    private final ObjectWriter resultWriter;
+    private final NdjsonBatchExecutor batchExecutor = new NdjsonBatchExecutor("snapping", "ORS-batch-snap");
+
+    @Autowired
+    public SnappingBatchService(EndpointsProperties endpointsProperties, SnappingService snappingService, ObjectMapper objectMapper) {
+        this.endpointsProperties = endpointsProperties;
+        this.snappingService = snappingService;
+        this.resultWriter = objectMapper.writerFor(BatchResult.class);
+    }
+
+    /**
+     * Reads locations from {@code input} until it is exhausted and writes the results to {@code output} in input
+     * order. An invalid location is answered with an error and stops the batch.
+     *
+     * @param radius maximum distance in meters between a location and its snapped point
+     * @throws StatusCodeException if batch snapping is disabled, the parameters are invalid or the profile is not available
+     */
+    public void process(APIEnums.Profile profile, double radius, BufferedReader input, Writer output) throws StatusCodeException, IOException {
+        EndpointsProperties.EndpointSnapProperties.SnapBatchProperties properties = endpointsProperties.getSnap().getBatch();
+        if (!properties.isEnabled())
+            throw new StatusCodeException(StatusCode.NOT_IMPLEMENTED, SnappingErrorCodes.UNKNOWN, "Batch snapping is disabled.");
+        int profileType;
+        try {
+            profileType = ApiService.convertRouteProfileType(profile);
+        } catch (Exception e) {
+            throw new ParameterValueException(SnappingErrorCodes.INVALID_PARAMETER_VALUE, SnappingApiRequest.PARAM_PROFILE);
+        }
+        if (!(radius > 0))
+            throw new ParameterValueException(SnappingErrorCodes.INVALID_PARAMETER_VALUE, SnappingApiRequest.PARAM_MAXIMUM_SEARCH_RADIUS, Double.toString(radius));
+
+        // all chunks are snapped on the same graph, which a reload must not close until the batch is done
+        RoutingProfilesCollection profiles = acquireProfiles();
+        try {
+            RoutingProfile routingProfile = profiles.getRouteProfile(profileType);
+            if (routingProfile == null)
+                throw new ParameterValueException(SnappingErrorCodes.INVALID_PARAMETER_VALUE, SnappingApiRequest.PARAM_PROFILE, profile.toString());
+            process(routingProfile.getGraphhopper(), profileType, radius, input, output);
+        } finally {
+            profiles.release();
+        }
+    }
+
+    private void process(GraphHopper gh, int profileType, double radius, BufferedReader input, Writer output) throws IOException {
+        EndpointsProperties.EndpointSnapProperties.SnapBatchProperties properties = endpointsProperties.getSnap().getBatch();
+        int chunkSize = Math.max(1, properties.getChunkSize());
+        double[] lons = new double[chunkSize];
+        double[] lats = new double[chunkSize];
+        int size = 0;
+        int index = 0;
+        try (NdjsonBatchExecutor.Batch<BatchResult> batch = batchExecutor.start(properties.getThreads(), resultWriter, output)) {
+            String line;
+            while ((line = input.readLine()) != null) {
+                if (line.isBlank())
+                    continue;
+                StatusCodeException error = null;
+                if (index >= properties.getMaximumLocations()) {
+                    error = new ServerLimitExceededException(SnappingErrorCodes.REQUEST_EXCEEDS_SERVER_LIMIT,
+                            "Only %d locations are allowed per batch.".formatted(properties.getMaximumLocations()));
+                } else if (!parseLocation(line, lons, lats, size)) {
+                    error = new ParameterValueException(SnappingErrorCodes.INVALID_PARAMETER_VALUE, SnappingApiRequest.PARAM_LOCATIONS, line.strip());
+                }
+                if (error != null) {
+                    if (size > 0)
+                        submit(batch, gh, profileType, radius, index - size, lons, lats, size);
+                    batch.drain(0);
+                    batch.write(BatchResult.of(index, error));
+                    return;
+                }
+                index++;
+                if (++size == chunkSize) {
+                    submit(batch, gh, profileType, radius, index - size, lons, lats, size);
+                    lons = new double[chunkSize];
+                    lats = new double[chunkSize];
+                    size = 0;
+                    batch.drain(properties.getMaximumPending());
+                }
+            }
+            if (size > 0)
+                submit(batch, gh, profileType, radius, index - size, lons, lats, size);
+            batch.drain(0);
+        }
+    }
+
+    /**
+     * @return the current profiles, acquired for the duration of a batch
+     */
+    RoutingProfilesCollection acquireProfiles() {
+        return RoutingProfileManager.getInstance().acquireProfiles();
+    }
+
+    /**
+     * Parses a {@code [lon, lat]} pair without the overhead of a JSON parser into position {@code i} of the arrays.
+     *
+     * @return whether the line holds a valid location
+     */
+    static boolean parseLocation(String line, double[] lons, double[] lats, int i) {
+        String location = line.strip();
+        int comma = location.indexOf(',');
+        if (location.length() < 5 || location.charAt(0) != '[' || location.charAt(location.length() - 1) != ']'
+                || comma < 0 || location.indexOf(',', comma + 1) >= 0)
+            return false;
+        double lon;
+        double lat;
+        try {
+            lon = Double.parseDouble(location.substring(1, comma).strip());
+            lat = Double.parseDouble(location.substring(comma + 1, location.length() - 1).strip());
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        // also rejects NaN
+        if (!(Math.abs(lon) <= 180 && Math.abs(lat) <= 90))
+            return false;
+        lons[i] = lon;
+        lats[i] = lat;
+        return true;
+    }
+
+    private void submit(NdjsonBatchExecutor.Batch<BatchResult> batch, GraphHopper gh, int profileType, double radius, int offset, double[] lons, double[] lats, int size) {
+        batch.submit(() -> List.of(snap(gh, profileType, radius, offset, lons, lats, size)));
+    }
+
+    private BatchResult snap(GraphHopper gh, int profileType, double radius, int offset, double[] lons, double[] lats, int size) {
+        try {
+            LocationIndex locationIndex = gh.getLocationIndex();
+            EdgeFilter filter = snappingService.createSnapFilter(gh, profileType);
+            int[] edges = new int[size];
+            Double[] snappedLons = new Double[size];
+            Double[] snappedLats = new Double[size];
+            Double[] distances = new Double[size];
+            for (int i = 0; i < size; i++) {
+                Snap snap = locationIndex.findClosest(lats[i], lons[i], filter);
+                if (!snap.isValid() || snap.getQueryDistance() >= radius) {
+                    edges[i] = -1;
+                    continue;
+                }
+                GHPoint3D point = snap.getSnappedPoint();
+                edges[i] = snap.getClosestEdge().getEdge();
+                snappedLons[i] = Math.round(point.lon * 1e6) / 1e6;
+                snappedLats[i] = Math.round(point.lat * 1e6) / 1e6;
+                distances[i] = Math.round(snap.getQueryDistance() * 100) / 100.0;
+            }
+            return new BatchResult(offset, edges, snappedLons, snappedLats, distances, null);
+        } catch (Exception e) {
+            LOGGER.error("Batch snapping of locations from %d failed".formatted(offset), e);
+            return BatchResult.of(offset, new StatusCodeException(StatusCode.INTERNAL_SERVER_ERROR, SnappingErrorCodes.UNKNOWN, e.getMessage()));
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        batchExecutor.close();
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    record BatchResult(int offset, int[] edge, Double[] lon, Double[] lat, Double[] distance, BatchError error) {
+        static BatchResult of(int offset, StatusCodeException e) {
+            int code = e.getInternalCode() < 100 ? SnappingErrorCodes.BASE + e.getInternalCode() : e.getInternalCode();
+            return new BatchResult(offset, null, null, null, null, new BatchError(code, e.getMessage()));
+        }
+    }
+
+    record BatchError(int code, String message) {
+    }
+}
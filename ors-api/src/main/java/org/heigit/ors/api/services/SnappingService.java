@@ -1,7 +1,10 @@
 package org.heigit.ors.api.services;
 
 import com.graphhopper.GraphHopper;
+import com.graphhopper.routing.ev.Subnetwork;
 import com.graphhopper.routing.util.AccessFilter;
+import com.graphhopper.routing.util.DefaultSnapFilter;
+import com.graphhopper.routing.util.EdgeFilter;
 import com.graphhopper.routing.util.FlagEncoder;
 import com.graphhopper.routing.weighting.Weighting;
 import com.graphhopper.storage.GraphHopperStorage;
@@ -84,10 +87,7 @@ public class SnappingService extends ApiService {
     public SnappingResult computeResult(SnappingRequest snappingRequest, GraphHopper gh) throws Exception {
         String encoderName = RoutingProfileType.getEncoderName(snappingRequest.getProfileType());
         FlagEncoder flagEncoder = gh.getEncodingManager().getEncoder(encoderName);
-        PMap hintsMap = new PMap();
-        int weightingMethod = WeightingMethod.RECOMMENDED; // Only needed to create the profile string
-        ProfileTools.setWeightingMethod(hintsMap, weightingMethod, snappingRequest.getProfileType(), false);
-        ProfileTools.setWeighting(hintsMap, weightingMethod, snappingRequest.getProfileType(), false);
+        PMap hintsMap = createHints(snappingRequest.getProfileType());
         String profileName = ProfileTools.makeProfileName(encoderName, hintsMap.getString("weighting", ""), false);
         GraphHopperStorage ghStorage = gh.getGraphHopperStorage();
         String graphDate = ghStorage.getProperties().get("datareader.import.date");
@@ -98,4 +98,23 @@ public class SnappingService extends ApiService {
         MatrixSearchContext mtxSearchCntx = builder.create(ghStorage.getBaseGraph(), null, weighting, profileName, snappingRequest.getLocations(), snappingRequest.getLocations(), snappingRequest.getMaximumSearchRadius());
         return new SnappingResult(mtxSearchCntx.getSources().getLocations(), graphDate);
     }
+
+    /**
+     * @return filter accepting the same edges as {@link #computeResult}, for direct queries of the location index
+     */
+    public EdgeFilter createSnapFilter(GraphHopper gh, int profileType) {
+        String encoderName = RoutingProfileType.getEncoderName(profileType);
+        PMap hintsMap = createHints(profileType);
+        String profileName = ProfileTools.makeProfileName(encoderName, hintsMap.getString("weighting", ""), false);
+        Weighting weighting = new ORSWeightingFactory(gh.getGraphHopperStorage(), gh.getEncodingManager()).createWeighting(gh.getProfile(profileName), hintsMap, false);
+        return new DefaultSnapFilter(weighting, gh.getEncodingManager().getBooleanEncodedValue(Subnetwork.key(profileName)));
+    }
+
+    private static PMap createHints(int profileType) {
+        PMap hintsMap = new PMap();
+        int weightingMethod = WeightingMethod.RECOMMENDED; // Only needed to create the profile string
+        ProfileTools.setWeightingMethod(hintsMap, weightingMethod, profileType, false);
+        ProfileTools.setWeighting(hintsMap, weightingMethod, profileType, false);
+        return hintsMap;
+    }
 }
@@ -54,14 +54,7 @@ public class ORSInitContextListener implements ServletContextListener {
                 LOGGER.debug("Configuration loaded by ARG, location: " + System.getProperty(ORS_CONFIG_LOCATION_PROPERTY));
             }
         }
-        final EngineConfig config = EngineConfig.EngineConfigBuilder.init()
-            .setInitializationThreads(engineProperties.getInitThreads())
-            .setPreparationMode(engineProperties.isPreparationMode())
-            .setElevationPreprocessed(engineProperties.getElevation().isPreprocessed())
-            .setSourceFile(engineProperties.getSourceFile())
-            .setGraphsRootPath(engineProperties.getGraphsRootPath())
-            .setProfiles(engineProperties.getConvertedProfiles())
-            .buildWithAppConfigOverride();
+        final EngineConfig config = createEngineConfig(engineProperties, engineProperties.getGraphsRootPath());
         Runnable runnable = () -> {
             try {
                 LOGGER.info("Initializing ORS...");
@@ -75,6 +68,33 @@ public class ORSInitContextListener implements ServletContextListener {
         thread.start();
     }
 
+    /**
+     * @param graphsRootPath folder the graphs of the profiles are loaded from, or built in if missing
+     */
+    public static EngineConfig createEngineConfig(EngineProperties engineProperties, String graphsRootPath) {
+        return EngineConfig.EngineConfigBuilder.init()
+            .setInitializationThreads(engineProperties.getInitThreads())
+            .setPreparationMode(engineProperties.isPreparationMode())
+            .setElevationPreprocessed(engineProperties.getElevation().isPreprocessed())
+            .setSourceFile(engineProperties.getSourceFile())
+            .setSharedOsmRead(engineProperties.isSharedOsmRead())
+            .setTimeZonesFile(engineProperties.getTimeZonesFile())
+            .setGraphsRootPath(graphsRootPath)
+            .setProfiles(engineProperties.getConvertedProfiles(graphsRootPath))
+            .setIsochroneCacheMaximumSize(engineProperties.getIsochroneCache().getMaximumSize())
+            .setIsochroneCacheTimeToLive(engineProperties.getIsochroneCache().getTimeToLive())
+            .setRouteCacheMaximumSize(engineProperties.getRouteCache().getMaximumSize())
+            .setRouteCacheTimeToLive(engineProperties.getRouteCache().getTimeToLive())
+            .setRouteCacheTimeDependent(engineProperties.getRouteCache().isTimeDependent())
+            .setSnapCacheMaximumSize((int) engineProperties.getSnapCache().getMaximumSize())
+            .setSnapCacheTimeToLive(engineProperties.getSnapCache().getTimeToLive())
+            .setWarmUpEnabled(engineProperties.getWarmUp().isEnabled())
+            .setWarmUpThreads(engineProperties.getWarmUp().getThreads())
+            .setWarmUpQueries(engineProperties.getWarmUp().getQueries())
+            .setMetricsPercentileHistograms(engineProperties.isMetricsPercentileHistograms())
+            .buildWithAppConfigOverride();
+    }
+
     @Override
     public void contextDestroyed(ServletContextEvent contextEvent) {
         try {
@@ -0,0 +1,140 @@
+package org.heigit.ors.api.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.heigit.ors.api.EndpointsProperties;
+import org.heigit.ors.api.SystemMessageProperties;
+import org.heigit.ors.api.requests.routing.RouteRequest;
+import org.heigit.ors.exceptions.ParameterValueException;
+import org.heigit.ors.exceptions.StatusCodeException;
+import org.heigit.ors.routing.APIEnums;
+import org.heigit.ors.routing.RoutingErrorCodes;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoutingBatchServiceTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private EndpointsProperties endpointsProperties;
+    private RoutingBatchService service;
+
+    /**
+     * Answers each request with the longitude of its start, later requests of a chunk finishing first.
+     */
+    private static class StubBatchService extends RoutingBatchService {
+        StubBatchService(EndpointsProperties endpointsProperties) {
+            super(endpointsProperties, new SystemMessageProperties(), null, new AdmissionService(), MAPPER);
+        }
+
+        @Override
+        Object computeResponse(RouteRequest request) throws StatusCodeException {
+            double lon = request.getCoordinates().get(0).get(0);
+            if (lon < 0)
+                throw new ParameterValueException(RoutingErrorCodes.INVALID_PARAMETER_VALUE, RouteRequest.PARAM_COORDINATES);
+            try {
+                Thread.sleep((long) (10 - lon % 10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Map.of("lon", lon);
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        endpointsProperties = new EndpointsProperties();
+        endpointsProperties.setRouting(new EndpointsProperties.EndpointRoutingProperties());
+        EndpointsProperties.EndpointRoutingProperties.RoutingBatchProperties batch = endpointsProperties.getRouting().getBatch();
+        batch.setEnabled(true);
+        batch.setThreads(4);
+        batch.setChunkSize(3);
+        batch.setMaximumPending(6);
+        service = new StubBatchService(endpointsProperties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.close();
+    }
+
+    private static String request(double lon, String id) {
+        return "{\"id\":\"%s\",\"coordinates\":[[%s,49.4],[8.7,49.41]]}".formatted(id, lon);
+    }
+
+    private List<JsonNode> process(String input) throws StatusCodeException, IOException {
+        StringWriter output = new StringWriter();
+        service.process(APIEnums.Profile.DRIVING_CAR, new BufferedReader(new StringReader(input)), output);
+        String text = output.toString();
+        assertTrue(text.isEmpty() || text.endsWith("\n"));
+        List<JsonNode> results = new ArrayList<>();
+        for (String line : text.split("\n"))
+            if (!line.isEmpty())
+                results.add(MAPPER.readTree(line));
+        return results;
+    }
+
+    @Test
+    void writesOneResultPerRequestInInputOrder() throws Exception {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            input.append(request(i, "r" + i)).append('\n');
+            if (i % 7 == 0)
+                input.append("  \n");
+        }
+        List<JsonNode> results = process(input.toString());
+        assertEquals(50, results.size());
+        for (int i = 0; i < 50; i++) {
+            JsonNode result = results.get(i);
+            assertEquals(i, result.get("index").asInt());
+            assertEquals("r" + i, result.get("id").asText());
+            assertEquals(i, result.get("response").get("lon").asDouble());
+            assertFalse(result.has("error"));
+        }
+    }
+
+    @Test
+    void answersFailedRequestsWithoutStoppingTheBatch() throws Exception {
+        String input = String.join("\n", request(1, "a"), "{\"coordinates\":", request(-1, "c"), request(2, "d"));
+        List<JsonNode> results = process(input);
+        assertEquals(4, results.size());
+        assertEquals(1, results.get(0).get("response").get("lon").asDouble());
+        assertEquals(RoutingErrorCodes.INVALID_JSON_FORMAT, results.get(1).get("error").get("code").asInt());
+        assertFalse(results.get(1).has("response"));
+        assertEquals("c", results.get(2).get("id").asText());
+        assertEquals(RoutingErrorCodes.INVALID_PARAMETER_VALUE, results.get(2).get("error").get("code").asInt());
+        assertEquals(2, results.get(3).get("response").get("lon").asDouble());
+        for (int i = 0; i < 4; i++)
+            assertEquals(i, results.get(i).get("index").asInt());
+    }
+
+    @Test
+    void stopsAtMaximumRequests() throws Exception {
+        endpointsProperties.getRouting().getBatch().setMaximumRequests(4);
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 10; i++)
+            input.append(request(i, "r" + i)).append('\n');
+        List<JsonNode> results = process(input.toString());
+        assertEquals(5, results.size());
+        for (int i = 0; i < 4; i++)
+            assertEquals(i, results.get(i).get("response").get("lon").asDouble());
+        assertEquals(4, results.get(4).get("index").asInt());
+        assertEquals(RoutingErrorCodes.REQUEST_EXCEEDS_SERVER_LIMIT, results.get(4).get("error").get("code").asInt());
+    }
+
+    @Test
+    void rejectsBatchesWhenDisabled() throws Exception {
+        endpointsProperties.getRouting().getBatch().setEnabled(false);
+        assertThrows(StatusCodeException.class, () -> process(request(1, "a")));
+    }
+}
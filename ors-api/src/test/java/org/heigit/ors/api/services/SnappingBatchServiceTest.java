@@ -0,0 +1,61 @@
+package org.heigit.ors.api.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.heigit.ors.api.EndpointsProperties;
+import org.heigit.ors.exceptions.StatusCodeException;
+import org.heigit.ors.routing.APIEnums;
+import org.heigit.ors.routing.RoutingProfilesCollection;
+import org.heigit.ors.snapping.SnappingErrorCodes;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnappingBatchServiceTest {
+    private final double[] lons = new double[2];
+    private final double[] lats = new double[2];
+
+    @Test
+    void parsesLocationIntoPosition() {
+        assertTrue(SnappingBatchService.parseLocation(" [ 8.681495 , 49.41461 ] ", lons, lats, 1));
+        assertEquals(8.681495, lons[1]);
+        assertEquals(49.41461, lats[1]);
+        assertEquals(0, lons[0]);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"8.68,49.41", "[8.68]", "[8.68,49.41,100]", "[a,49.41]", "[181,49.41]", "[8.68,-91]", "[NaN,49.41]", "{\"lon\":8.68}"})
+    void rejectsInvalidLocations(String line) {
+        assertFalse(SnappingBatchService.parseLocation(line, lons, lats, 0));
+    }
+
+    @Test
+    void rejectsProfilesThatAreNotAvailable() {
+        EndpointsProperties endpointsProperties = new EndpointsProperties();
+        endpointsProperties.setSnap(new EndpointsProperties.EndpointSnapProperties());
+        endpointsProperties.getSnap().getBatch().setEnabled(true);
+        RoutingProfilesCollection profiles = new RoutingProfilesCollection();
+        SnappingBatchService service = new SnappingBatchService(endpointsProperties, new SnappingService(), new ObjectMapper()) {
+            @Override
+            RoutingProfilesCollection acquireProfiles() {
+                profiles.acquire();
+                return profiles;
+            }
+        };
+        StringWriter output = new StringWriter();
+        try {
+            StatusCodeException e = assertThrows(StatusCodeException.class, () ->
+                    service.process(APIEnums.Profile.DRIVING_CAR, 300, new BufferedReader(new StringReader("[8.68,49.41]\n")), output));
+            assertEquals(SnappingErrorCodes.INVALID_PARAMETER_VALUE, e.getInternalCode());
+            assertEquals("", output.toString());
+            assertFalse(profiles.isUsed());
+        } finally {
+            service.close();
+        }
+    }
+}
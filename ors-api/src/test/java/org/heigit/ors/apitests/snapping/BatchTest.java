@@ -0,0 +1,92 @@
+package org.heigit.ors.apitests.snapping;
+
+import org.hamcrest.Matchers;
+import org.heigit.ors.apitests.common.EndPointAnnotation;
+import org.heigit.ors.apitests.common.ServiceTest;
+import org.heigit.ors.apitests.common.VersionAnnotation;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.restassured.RestAssured.given;
+import static org.heigit.ors.common.StatusCode.BAD_REQUEST;
+import static org.heigit.ors.snapping.SnappingErrorCodes.INVALID_PARAMETER_VALUE;
+import static org.junit.jupiter.api.Assertions.*;
+
+@EndPointAnnotation(name = "snap")
+@VersionAnnotation(version = "v2")
+class BatchTest extends ServiceTest {
+    private static final String LOCATION_94M = "[8.680916,49.410973]";
+    private static final String LOCATION_2M = "[8.687782,49.424597]";
+    private static final String NO_ROADS = "[0.0,0.0]";
+
+    private List<JSONObject> doBatchRequest(String body) {
+        String output = given()
+                .contentType("application/x-ndjson")
+                .pathParam("profile", "driving-hgv")
+                .queryParam("radius", 300)
+                .body(body)
+                .when()
+                .log().ifValidationFails()
+                .post(getEndPointPath() + "/{profile}/batch")
+                .then()
+                .log().ifValidationFails()
+                .statusCode(200)
+                .extract().asString();
+        List<JSONObject> results = new ArrayList<>();
+        for (String line : output.split("\n"))
+            if (!line.isBlank())
+                results.add(new JSONObject(line));
+        return results;
+    }
+
+    @Test
+    void snapsLocationsInChunks() {
+        // the test configuration snaps chunks of two locations
+        List<JSONObject> results = doBatchRequest(String.join("\n", LOCATION_94M, LOCATION_2M, "", NO_ROADS));
+        assertEquals(2, results.size());
+
+        JSONObject first = results.get(0);
+        assertEquals(0, first.getInt("offset"));
+        assertEquals(2, first.getJSONArray("edge").length());
+        for (int i = 0; i < 2; i++) {
+            assertTrue(first.getJSONArray("edge").getInt(i) >= 0);
+            assertTrue(first.getJSONArray("distance").getDouble(i) < 300);
+        }
+
+        JSONObject second = results.get(1);
+        assertEquals(2, second.getInt("offset"));
+        assertEquals(-1, second.getJSONArray("edge").getInt(0));
+        assertTrue(second.getJSONArray("lon").isNull(0));
+        assertFalse(second.has("error"));
+    }
+
+    @Test
+    void stopsAtInvalidLocation() {
+        List<JSONObject> results = doBatchRequest(String.join("\n", LOCATION_2M, "[8.68]", LOCATION_2M));
+        assertEquals(2, results.size());
+        assertEquals(0, results.get(0).getInt("offset"));
+        assertEquals(1, results.get(0).getJSONArray("edge").length());
+        assertEquals(1, results.get(1).getInt("offset"));
+        assertEquals(INVALID_PARAMETER_VALUE, results.get(1).getJSONObject("error").getInt("code"));
+    }
+
+    @Test
+    void rejectsInvalidRadius() {
+        given()
+                .contentType("application/x-ndjson")
+                .pathParam("profile", "driving-hgv")
+                .queryParam("radius", 0)
+                .body(LOCATION_2M)
+                .when()
+                .log().ifValidationFails()
+                .post(getEndPointPath() + "/{profile}/batch")
+                .then()
+                .log().ifValidationFails()
+                .assertThat()
+                .body("error.code", Matchers.is(INVALID_PARAMETER_VALUE))
+                .statusCode(BAD_REQUEST);
+    }
+}
@@ -0,0 +1,129 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.benchmark;
+
+import com.graphhopper.routing.AlgorithmOptions;
+import com.graphhopper.routing.RoutingAlgorithm;
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.routing.util.FlagEncoder;
+import com.graphhopper.routing.weighting.FastestWeighting;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.CHConfig;
+import com.graphhopper.storage.GraphHopperStorage;
+import com.graphhopper.storage.RoutingCHGraph;
+import com.graphhopper.util.Parameters;
+import org.heigit.ors.common.DistanceUnit;
+import org.heigit.ors.matrix.MatrixLocations;
+import org.heigit.ors.matrix.MatrixMetricsType;
+import org.heigit.ors.matrix.MatrixRequest;
+import org.heigit.ors.matrix.MatrixResult;
+import org.heigit.ors.matrix.algorithms.core.CoreMatrixAlgorithm;
+import org.heigit.ors.routing.graphhopper.extensions.core.CoreRoutingAlgorithmFactory;
+import org.heigit.ors.routing.graphhopper.extensions.core.CoreTestEdgeFilter;
+import org.heigit.ors.routing.graphhopper.extensions.core.PrepareCore;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point-to-point queries with {@code CoreDijkstra} and {@code CoreALT} and many-to-many queries with
+ * {@link CoreMatrixAlgorithm} on a core-contracted generated graph.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CoreBenchmark {
+    private static final int QUERIES = 100;
+    private static final double CORE_SHARE = 0.05;
+
+    @State(Scope.Benchmark)
+    public static class CoreGraph {
+        @Param({"toy", "grid"})
+        public String graph;
+
+        @Param({"10000"})
+        public int size;
+
+        @Param({"25"})
+        public int matrixSize;
+
+        GraphHopperStorage storage;
+        FlagEncoder encoder;
+        Weighting weighting;
+        RoutingCHGraph coreGraph;
+        CoreRoutingAlgorithmFactory algorithmFactory;
+        int[] from;
+        int[] to;
+        MatrixLocations sources;
+        MatrixLocations destinations;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            EncodingManager encodingManager = GraphFixtures.createEncodingManager();
+            encoder = encodingManager.getEncoder("car");
+            weighting = new FastestWeighting(encoder);
+            CHConfig chConfig = new CHConfig("core", weighting, false, CHConfig.TYPE_CORE);
+            storage = GraphFixtures.createGraph(graph, size, encodingManager, chConfig);
+            storage.freeze();
+
+            CoreTestEdgeFilter restrictedEdges = GraphFixtures.restrictedEdges(storage, CORE_SHARE, GraphFixtures.SEED);
+            new PrepareCore(storage, chConfig, restrictedEdges).doWork();
+            coreGraph = storage.getRoutingCHGraph(chConfig.getName());
+            algorithmFactory = new CoreRoutingAlgorithmFactory(coreGraph);
+
+            from = GraphFixtures.randomNodes(storage, QUERIES, GraphFixtures.SEED);
+            to = GraphFixtures.randomNodes(storage, QUERIES, GraphFixtures.SEED + 1);
+            sources = GraphFixtures.locations(GraphFixtures.randomNodes(storage, matrixSize, GraphFixtures.SEED + 2));
+            destinations = GraphFixtures.locations(GraphFixtures.randomNodes(storage, matrixSize, GraphFixtures.SEED + 3));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            storage.close();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Algorithm {
+        /**
+         * {@code dijkstrabi} selects {@code CoreDijkstra}, {@code astarbi} selects {@code CoreALT}
+         */
+        @Param({Parameters.Algorithms.DIJKSTRA_BI, Parameters.Algorithms.ASTAR_BI})
+        public String name;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public double route(CoreGraph g, Algorithm algorithm) {
+        double weight = 0;
+        AlgorithmOptions opts = new AlgorithmOptions().setAlgorithm(algorithm.name);
+        for (int i = 0; i < QUERIES; i++) {
+            RoutingAlgorithm algo = g.algorithmFactory.createAlgo(g.storage.getBaseGraph(), g.weighting, opts);
+            weight += algo.calcPath(g.from[i], g.to[i]).getWeight();
+        }
+        return weight;
+    }
+
+    @Benchmark
+    public MatrixResult matrix(CoreGraph g) throws Exception {
+        MatrixRequest req = new MatrixRequest(Double.MAX_VALUE, Integer.MAX_VALUE, Weighting.INFINITE_U_TURN_COSTS);
+        req.setUnits(DistanceUnit.METERS);
+        req.setMetrics(MatrixMetricsType.DURATION | MatrixMetricsType.DISTANCE);
+        CoreMatrixAlgorithm matrixAlgorithm = new CoreMatrixAlgorithm();
+        matrixAlgorithm.init(req, g.coreGraph, g.encoder, g.weighting, new CoreTestEdgeFilter());
+        return matrixAlgorithm.compute(g.sources, g.destinations, req.getMetrics());
+    }
+}
@@ -0,0 +1,82 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.benchmark;
+
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.routing.weighting.FastestWeighting;
+import com.graphhopper.storage.CHConfig;
+import com.graphhopper.storage.GraphHopperStorage;
+import com.graphhopper.util.PMap;
+import org.heigit.ors.routing.graphhopper.extensions.core.CoreTestEdgeFilter;
+import org.heigit.ors.routing.graphhopper.extensions.core.PrepareCore;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.graphhopper.routing.ch.CHParameters.CONTRACTED_NODES;
+
+/**
+ * Core preparation of a generated graph with the core restrictions evaluated by one or several threads. The
+ * contraction runs on a single thread in either case, so the difference is the time spent evaluating the restrictions.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CorePreparationBenchmark {
+    private static final double CORE_SHARE = 0.05;
+
+    @State(Scope.Benchmark)
+    public static class CorePreparation {
+        @Param({"grid"})
+        public String graph;
+
+        @Param({"40000"})
+        public int size;
+
+        @Param({"1", "4"})
+        public int restrictionThreads;
+
+        GraphHopperStorage storage;
+        PrepareCore prepare;
+
+        @Setup(Level.Invocation)
+        public void setUp() {
+            EncodingManager encodingManager = GraphFixtures.createEncodingManager();
+            CHConfig chConfig = new CHConfig("core", new FastestWeighting(encodingManager.getEncoder("car")), false, CHConfig.TYPE_CORE);
+            storage = GraphFixtures.createGraph(graph, size, encodingManager, chConfig);
+            storage.freeze();
+
+            CoreTestEdgeFilter restrictedEdges = GraphFixtures.restrictedEdges(storage, CORE_SHARE, GraphFixtures.SEED);
+            prepare = new PrepareCore(storage, chConfig, () -> {
+                CoreTestEdgeFilter filter = new CoreTestEdgeFilter();
+                filter.addAll(restrictedEdges);
+                return filter;
+            });
+            prepare.setParams(new PMap(CONTRACTED_NODES + "=99").putObject(PrepareCore.RESTRICTION_THREADS, restrictionThreads));
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() {
+            storage.close();
+        }
+    }
+
+    @Benchmark
+    public PrepareCore prepare(CorePreparation p) {
+        p.prepare.doWork();
+        return p.prepare;
+    }
+}
@@ -0,0 +1,148 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.benchmark;
+
+import com.graphhopper.routing.AlgorithmOptions;
+import com.graphhopper.routing.DijkstraBidirectionRef;
+import com.graphhopper.routing.RoutingAlgorithm;
+import com.graphhopper.routing.lm.LMConfig;
+import com.graphhopper.routing.lm.PrepareLandmarks;
+import com.graphhopper.routing.util.EdgeFilter;
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.routing.util.TraversalMode;
+import com.graphhopper.routing.weighting.FastestWeighting;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.GraphHopperStorage;
+import com.graphhopper.storage.RAMDirectory;
+import com.graphhopper.util.Parameters;
+import org.heigit.ors.routing.graphhopper.extensions.core.CustomizableCore;
+import org.heigit.ors.routing.graphhopper.extensions.core.CustomizedCore;
+import org.heigit.ors.routing.graphhopper.extensions.core.CustomizedCoreSearch;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point-to-point queries on a {@link CustomizedCore} compared with ALT and bidirectional Dijkstra, which answer the
+ * same requests without it, as well as building the topology and customizing it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomizableCoreBenchmark {
+    private static final int QUERIES = 100;
+    private static final int LANDMARKS = 16;
+
+    @State(Scope.Benchmark)
+    public static class CustomizableCoreGraph {
+        @Param({"grid"})
+        public String graph;
+
+        @Param({"10000", "40000"})
+        public int size;
+
+        @Param({"32"})
+        public int maxDegree;
+
+        /**
+         * share of the edges excluded by the edge filter of the requests, as with avoided features
+         */
+        @Param({"0", "0.05"})
+        public double restrictedShare;
+
+        GraphHopperStorage storage;
+        Weighting weighting;
+        EdgeFilter edgeFilter;
+        CustomizableCore core;
+        CustomizedCore customization;
+        PrepareLandmarks landmarks;
+        int[] from;
+        int[] to;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            EncodingManager encodingManager = GraphFixtures.createEncodingManager();
+            weighting = new FastestWeighting(encodingManager.getEncoder("car"));
+            storage = GraphFixtures.createGraph(graph, size, encodingManager);
+            storage.freeze();
+            edgeFilter = restrictedShare > 0 ? GraphFixtures.restrictedEdges(storage, restrictedShare, GraphFixtures.SEED) : EdgeFilter.ALL_EDGES;
+
+            core = CustomizableCore.build(storage.getBaseGraph(), maxDegree, 1);
+            customization = CustomizedCore.customize(core, storage.getBaseGraph(), weighting, edgeFilter);
+            // the landmarks do not know the edge filter of the request, as in the ALT fallback
+            landmarks = new PrepareLandmarks(new RAMDirectory(), storage, new LMConfig("car", weighting), LANDMARKS);
+            landmarks.setMinimumNodes(2);
+            landmarks.doWork();
+
+            from = GraphFixtures.randomNodes(storage, QUERIES, GraphFixtures.SEED);
+            to = GraphFixtures.randomNodes(storage, QUERIES, GraphFixtures.SEED + 1);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            core.close();
+            storage.close();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public double customizedCore(CustomizableCoreGraph g) {
+        double weight = 0;
+        for (int i = 0; i < QUERIES; i++) {
+            CustomizedCoreSearch search = new CustomizedCoreSearch(g.customization, g.storage.getBaseGraph(), g.weighting, g.edgeFilter, Integer.MAX_VALUE);
+            weight += search.calcPath(g.from[i], g.to[i]).getWeight();
+        }
+        return weight;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public double alt(CustomizableCoreGraph g) {
+        double weight = 0;
+        AlgorithmOptions opts = new AlgorithmOptions().setAlgorithm(Parameters.Algorithms.ASTAR_BI).setEdgeFilter(g.edgeFilter);
+        for (int i = 0; i < QUERIES; i++) {
+            RoutingAlgorithm algo = g.landmarks.getRoutingAlgorithmFactory().createAlgo(g.storage.getBaseGraph(), g.weighting, opts);
+            weight += algo.calcPath(g.from[i], g.to[i]).getWeight();
+        }
+        return weight;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public double dijkstra(CustomizableCoreGraph g) {
+        double weight = 0;
+        for (int i = 0; i < QUERIES; i++) {
+            DijkstraBidirectionRef algo = new DijkstraBidirectionRef(g.storage.getBaseGraph(), g.weighting, TraversalMode.NODE_BASED);
+            algo.setEdgeFilter(g.edgeFilter);
+            weight += algo.calcPath(g.from[i], g.to[i]).getWeight();
+        }
+        return weight;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public CustomizableCore build(CustomizableCoreGraph g) {
+        return CustomizableCore.build(g.storage.getBaseGraph(), g.maxDegree, 1);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public CustomizedCore customize(CustomizableCoreGraph g) {
+        return CustomizedCore.customize(g.core, g.storage.getBaseGraph(), g.weighting, g.edgeFilter);
+    }
+}
@@ -0,0 +1,107 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.benchmark;
+
+import com.graphhopper.storage.RAMDirectory;
+import org.heigit.ors.routing.graphhopper.extensions.storages.EdgeAttributesColumn;
+import org.heigit.ors.routing.graphhopper.extensions.storages.EdgeAttributesGraphStorage;
+import org.heigit.ors.routing.graphhopper.extensions.storages.TollwaysGraphStorage;
+import org.heigit.ors.routing.graphhopper.extensions.storages.TrailDifficultyScaleGraphStorage;
+import org.heigit.ors.routing.graphhopper.extensions.storages.WayCategoryGraphStorage;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading several attributes of random edges, as the weightings and the extra info processor do, from columns which
+ * share one record per edge compared with columns which keep a table of their own each.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EdgeAttributesBenchmark {
+    private static final int READS = 10000;
+
+    @State(Scope.Benchmark)
+    public static class EdgeAttributes {
+        /**
+         * {@code shared} for one record per edge, {@code separate} for a table per column
+         */
+        @Param({"shared", "separate"})
+        public String tables;
+
+        @Param({"1000000", "10000000"})
+        public int edges;
+
+        WayCategoryGraphStorage wayCategory;
+        TrailDifficultyScaleGraphStorage trailDifficulty;
+        TollwaysGraphStorage tollways;
+        List<EdgeAttributesColumn> columns;
+        EdgeAttributesGraphStorage attributes;
+        int[] edgeIds;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            wayCategory = new WayCategoryGraphStorage();
+            trailDifficulty = new TrailDifficultyScaleGraphStorage();
+            tollways = new TollwaysGraphStorage();
+            columns = List.of(wayCategory, trailDifficulty, tollways);
+            RAMDirectory dir = new RAMDirectory();
+            if (tables.equals("shared")) {
+                attributes = new EdgeAttributesGraphStorage();
+                for (EdgeAttributesColumn column : columns)
+                    attributes.addColumn(column);
+                attributes.init(null, dir);
+                attributes.create(edges);
+            } else {
+                for (EdgeAttributesColumn column : columns) {
+                    column.init(null, dir);
+                    column.create(edges);
+                }
+            }
+
+            Random random = new Random(GraphFixtures.SEED);
+            for (int edge = 0; edge < edges; edge++) {
+                wayCategory.setEdgeValue(edge, random.nextInt(32));
+                trailDifficulty.setEdgeValue(edge, random.nextInt(7), random.nextInt(7), random.nextInt(7));
+                tollways.setEdgeValue(edge, random.nextInt(4));
+            }
+            edgeIds = new int[READS];
+            for (int i = 0; i < READS; i++)
+                edgeIds[i] = random.nextInt(edges);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            if (attributes != null)
+                attributes.close();
+            else
+                columns.forEach(EdgeAttributesColumn::close);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(READS)
+    public int read(EdgeAttributes a) {
+        byte[] buffer = new byte[2];
+        int sum = 0;
+        for (int edge : a.edgeIds)
+            sum += a.wayCategory.getEdgeValue(edge, buffer) + a.trailDifficulty.getHikingScale(edge, buffer) + a.tollways.getEdgeValue(edge);
+        return sum;
+    }
+}
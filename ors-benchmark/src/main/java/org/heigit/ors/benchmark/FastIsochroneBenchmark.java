@@ -0,0 +1,104 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.benchmark;
+
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.routing.util.FlagEncoder;
+import com.graphhopper.routing.util.TraversalMode;
+import com.graphhopper.routing.weighting.FastestWeighting;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.GraphHopperStorage;
+import org.heigit.ors.fastisochrones.Eccentricity;
+import org.heigit.ors.fastisochrones.FastIsochroneAlgorithm;
+import org.heigit.ors.fastisochrones.partitioning.FastIsochroneParameters;
+import org.heigit.ors.fastisochrones.partitioning.PreparePartition;
+import org.heigit.ors.fastisochrones.partitioning.storage.CellStorage;
+import org.heigit.ors.fastisochrones.partitioning.storage.IsochroneNodeStorage;
+import org.heigit.ors.routing.graphhopper.extensions.edgefilters.EdgeFilterSequence;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Isochrone node sets computed by {@link FastIsochroneAlgorithm} on a partitioned grid graph.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FastIsochroneBenchmark {
+    private static final int QUERIES = 20;
+
+    @Param({"10000"})
+    public int size;
+
+    @Param({"500"})
+    public int maxCellNodes;
+
+    /**
+     * isochrone limit in seconds
+     */
+    @Param({"300", "900"})
+    public double limit;
+
+    private GraphHopperStorage storage;
+    private Weighting weighting;
+    private CellStorage cellStorage;
+    private IsochroneNodeStorage isochroneNodeStorage;
+    private Eccentricity eccentricity;
+    private int[] from;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        EncodingManager encodingManager = GraphFixtures.createEncodingManager();
+        FlagEncoder encoder = encodingManager.getEncoder("car");
+        weighting = new FastestWeighting(encoder);
+        storage = GraphFixtures.createGraph("grid", size, encodingManager);
+        storage.freeze();
+
+        FastIsochroneParameters.setMaxCellNodesNumber(maxCellNodes);
+        PreparePartition partition = new PreparePartition(storage, new EdgeFilterSequence()).prepare();
+        isochroneNodeStorage = partition.getIsochroneNodeStorage();
+        cellStorage = partition.getCellStorage();
+
+        eccentricity = new Eccentricity(storage, null, isochroneNodeStorage, cellStorage);
+        eccentricity.loadExisting(weighting);
+        eccentricity.calcEccentricities(weighting, new EdgeFilterSequence(), encoder);
+        eccentricity.calcBorderNodeDistances(weighting, new EdgeFilterSequence(), encoder);
+
+        from = GraphFixtures.randomNodes(storage, QUERIES, GraphFixtures.SEED);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        storage.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public int isochrone() {
+        int cells = 0;
+        for (int node : from) {
+            FastIsochroneAlgorithm algorithm = new FastIsochroneAlgorithm(storage.getBaseGraph(), weighting,
+                    TraversalMode.NODE_BASED, cellStorage, isochroneNodeStorage,
+                    eccentricity.getEccentricityStorage(weighting), eccentricity.getBorderNodeDistanceStorage(weighting),
+                    null);
+            algorithm.calcIsochroneNodes(node, limit);
+            cells += algorithm.getActiveCellMaps().size() + algorithm.getFullyReachableCells().size();
+        }
+        return cells;
+    }
+}
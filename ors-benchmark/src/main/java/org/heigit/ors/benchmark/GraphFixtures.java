@@ -0,0 +1,132 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.benchmark;
+
+import com.graphhopper.routing.util.AllEdgesIterator;
+import com.graphhopper.routing.util.CarFlagEncoder;
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.routing.util.FlagEncoder;
+import com.graphhopper.storage.CHConfig;
+import com.graphhopper.storage.Graph;
+import com.graphhopper.storage.GraphBuilder;
+import com.graphhopper.storage.GraphHopperStorage;
+import com.graphhopper.storage.NodeAccess;
+import com.graphhopper.util.DistanceCalcEarth;
+import com.graphhopper.util.GHUtility;
+import org.heigit.ors.matrix.MatrixLocations;
+import org.heigit.ors.pbt.GraphGenerator;
+import org.heigit.ors.routing.graphhopper.extensions.core.CoreTestEdgeFilter;
+import org.heigit.ors.util.ToyGraphCreationUtil;
+
+import java.util.Random;
+
+/**
+ * Graphs and query locations shared by the benchmarks. All graphs are created from a fixed seed so that runs are
+ * comparable.
+ */
+public final class GraphFixtures {
+    public static final long SEED = 42;
+    private static final int[] SPEEDS = {30, 50, 70, 100};
+    private static final double CELL_SIZE_LAT = 0.001;
+    private static final double CELL_SIZE_LON = 0.0015;
+
+    private GraphFixtures() {
+    }
+
+    public static EncodingManager createEncodingManager() {
+        return EncodingManager.create(new CarFlagEncoder());
+    }
+
+    /**
+     * Creates a graph of the given kind, without freezing it.
+     *
+     * @param kind {@code toy} for {@link ToyGraphCreationUtil#createMediumGraph}, {@code generated} for a random
+     *             graph from the property based {@link GraphGenerator}, {@code grid} for a perturbed grid with
+     *             coordinates
+     * @param size approximate number of nodes, ignored for {@code toy}
+     */
+    public static GraphHopperStorage createGraph(String kind, int size, EncodingManager encodingManager, CHConfig... chConfigs) {
+        return switch (kind) {
+            case "toy" -> ToyGraphCreationUtil.createMediumGraph(createStorage(encodingManager, chConfigs), encodingManager);
+            case "generated" -> new GraphGenerator(size).create(SEED);
+            case "grid" -> createGrid(createStorage(encodingManager, chConfigs), encodingManager.getEncoder("car"), (int) Math.sqrt(size), SEED);
+            default -> throw new IllegalArgumentException("Unknown graph kind '" + kind + "'.");
+        };
+    }
+
+    private static GraphHopperStorage createStorage(EncodingManager encodingManager, CHConfig... chConfigs) {
+        return new GraphBuilder(encodingManager).setCHConfigs(chConfigs).create();
+    }
+
+    /**
+     * Square grid around Heidelberg with about 10% of the edges removed, a few diagonals added and random speeds, so
+     * that shortest paths are not trivially straight lines.
+     */
+    public static GraphHopperStorage createGrid(GraphHopperStorage g, FlagEncoder encoder, int width, long seed) {
+        Random random = new Random(seed);
+        NodeAccess nodeAccess = g.getNodeAccess();
+        for (int row = 0; row < width; row++) {
+            for (int col = 0; col < width; col++) {
+                nodeAccess.setNode(row * width + col, 49.35 + row * CELL_SIZE_LAT, 8.6 + col * CELL_SIZE_LON);
+            }
+        }
+        for (int row = 0; row < width; row++) {
+            for (int col = 0; col < width; col++) {
+                int node = row * width + col;
+                if (col + 1 < width && random.nextDouble() < 0.9)
+                    addEdge(g, encoder, random, node, node + 1);
+                if (row + 1 < width && random.nextDouble() < 0.9)
+                    addEdge(g, encoder, random, node, node + width);
+                if (col + 1 < width && row + 1 < width && random.nextDouble() < 0.05)
+                    addEdge(g, encoder, random, node, node + width + 1);
+            }
+        }
+        return g;
+    }
+
+    private static void addEdge(GraphHopperStorage g, FlagEncoder encoder, Random random, int from, int to) {
+        NodeAccess nodeAccess = g.getNodeAccess();
+        double distance = DistanceCalcEarth.DIST_EARTH.calcDist(nodeAccess.getLat(from), nodeAccess.getLon(from), nodeAccess.getLat(to), nodeAccess.getLon(to));
+        GHUtility.setSpeed(SPEEDS[random.nextInt(SPEEDS.length)], true, true, encoder, g.edge(from, to).setDistance(distance));
+    }
+
+    /**
+     * @return filter marking the given share of edges as restricted, i.e. to be kept in the core
+     */
+    public static CoreTestEdgeFilter restrictedEdges(Graph graph, double share, long seed) {
+        Random random = new Random(seed);
+        CoreTestEdgeFilter restrictedEdges = new CoreTestEdgeFilter();
+        AllEdgesIterator iter = graph.getAllEdges();
+        while (iter.next()) {
+            if (random.nextDouble() < share)
+                restrictedEdges.add(iter.getEdge());
+        }
+        return restrictedEdges;
+    }
+
+    public static int[] randomNodes(Graph graph, int count, long seed) {
+        Random random = new Random(seed);
+        int[] nodes = new int[count];
+        for (int i = 0; i < count; i++)
+            nodes[i] = random.nextInt(graph.getNodes());
+        return nodes;
+    }
+
+    public static MatrixLocations locations(int[] nodes) {
+        MatrixLocations locations = new MatrixLocations(nodes.length);
+        for (int i = 0; i < nodes.length; i++)
+            locations.setData(i, nodes[i], null);
+        return locations;
+    }
+}
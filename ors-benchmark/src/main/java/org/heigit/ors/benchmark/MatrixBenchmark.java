@@ -0,0 +1,108 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.benchmark;
+
+import com.graphhopper.routing.ch.PrepareContractionHierarchies;
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.routing.util.FlagEncoder;
+import com.graphhopper.routing.weighting.FastestWeighting;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.CHConfig;
+import com.graphhopper.storage.GraphHopperStorage;
+import com.graphhopper.storage.RoutingCHGraph;
+import org.heigit.ors.common.DistanceUnit;
+import org.heigit.ors.matrix.MatrixLocations;
+import org.heigit.ors.matrix.MatrixMetricsType;
+import org.heigit.ors.matrix.MatrixRequest;
+import org.heigit.ors.matrix.MatrixResult;
+import org.heigit.ors.matrix.algorithms.dijkstra.DijkstraMatrixAlgorithm;
+import org.heigit.ors.matrix.algorithms.rphast.RPHASTMatrixAlgorithm;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Many-to-many queries with {@link RPHASTMatrixAlgorithm} on a contracted graph and with
+ * {@link DijkstraMatrixAlgorithm} on the base graph.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MatrixBenchmark {
+    @Param({"toy", "generated", "grid"})
+    public String graph;
+
+    @Param({"10000"})
+    public int size;
+
+    @Param({"25"})
+    public int matrixSize;
+
+    private GraphHopperStorage storage;
+    private FlagEncoder encoder;
+    private Weighting weighting;
+    private RoutingCHGraph chGraph;
+    private MatrixLocations sources;
+    private MatrixLocations destinations;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        EncodingManager encodingManager = GraphFixtures.createEncodingManager();
+        CHConfig requestedConfig = CHConfig.nodeBased("c", new FastestWeighting(encodingManager.getEncoder("car")));
+        storage = GraphFixtures.createGraph(graph, size, encodingManager, requestedConfig);
+        if (!storage.isFrozen())
+            storage.freeze();
+
+        // the generated graphs come with their own encoding manager and CH profile
+        CHConfig chConfig = storage.getCHConfigs().get(0);
+        weighting = chConfig.getWeighting();
+        encoder = storage.getEncodingManager().getEncoder("car");
+        PrepareContractionHierarchies.fromGraphHopperStorage(storage, chConfig).doWork();
+        chGraph = storage.getRoutingCHGraph(chConfig.getName());
+
+        sources = GraphFixtures.locations(GraphFixtures.randomNodes(storage, matrixSize, GraphFixtures.SEED));
+        destinations = GraphFixtures.locations(GraphFixtures.randomNodes(storage, matrixSize, GraphFixtures.SEED + 1));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        storage.close();
+    }
+
+    private MatrixRequest createRequest() {
+        MatrixRequest req = new MatrixRequest(Double.MAX_VALUE, Integer.MAX_VALUE, Weighting.INFINITE_U_TURN_COSTS);
+        req.setUnits(DistanceUnit.METERS);
+        req.setMetrics(MatrixMetricsType.DURATION | MatrixMetricsType.DISTANCE);
+        return req;
+    }
+
+    @Benchmark
+    public MatrixResult rphast() throws Exception {
+        MatrixRequest req = createRequest();
+        RPHASTMatrixAlgorithm algorithm = new RPHASTMatrixAlgorithm();
+        algorithm.init(req, null, chGraph, encoder, weighting);
+        return algorithm.compute(sources, destinations, req.getMetrics());
+    }
+
+    @Benchmark
+    public MatrixResult dijkstra() throws Exception {
+        MatrixRequest req = createRequest();
+        DijkstraMatrixAlgorithm algorithm = new DijkstraMatrixAlgorithm();
+        algorithm.init(req, null, storage.getBaseGraph(), encoder, weighting);
+        return algorithm.compute(sources, destinations, req.getMetrics());
+    }
+}
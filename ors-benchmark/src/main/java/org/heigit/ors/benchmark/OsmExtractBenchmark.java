@@ -0,0 +1,186 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.benchmark;
+
+import com.graphhopper.GHResponse;
+import com.graphhopper.storage.GraphHopperStorage;
+import com.graphhopper.storage.NodeAccess;
+import com.typesafe.config.ConfigFactory;
+import org.apache.commons.io.FileUtils;
+import org.heigit.ors.common.DistanceUnit;
+import org.heigit.ors.common.TravelRangeType;
+import org.heigit.ors.config.EngineConfig;
+import org.heigit.ors.isochrones.IsochroneMap;
+import org.heigit.ors.isochrones.IsochroneSearchParameters;
+import org.heigit.ors.matrix.MatrixMetricsType;
+import org.heigit.ors.matrix.MatrixRequest;
+import org.heigit.ors.matrix.MatrixResult;
+import org.heigit.ors.matrix.MatrixSearchParameters;
+import org.heigit.ors.routing.RouteSearchParameters;
+import org.heigit.ors.routing.RoutingProfile;
+import org.heigit.ors.routing.RoutingProfileLoadContext;
+import org.heigit.ors.routing.RoutingProfileType;
+import org.heigit.ors.routing.configuration.RouteProfileConfiguration;
+import org.locationtech.jts.geom.Coordinate;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end queries through {@link RoutingProfile} on a graph built from a small OSM extract, so that snapping, path
+ * extraction and isochrone polygon building are included in the measurements. The graph is built once per trial with
+ * CH, core and fast isochrone preparations for the fastest weighting.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OsmExtractBenchmark {
+    private static final int QUERIES = 20;
+
+    @State(Scope.Benchmark)
+    public static class Profile {
+        /**
+         * path of the OSM extract, relative to the working directory
+         */
+        @Param({"ors-engine/src/test/files/preprocessed_osm_data.pbf"})
+        public String osmFile;
+
+        @Param({"10"})
+        public int matrixSize;
+
+        File graphDirectory;
+        RoutingProfile routingProfile;
+        Coordinate[] from;
+        Coordinate[] to;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            graphDirectory = Files.createTempDirectory("ors-benchmark").toFile();
+
+            RouteProfileConfiguration rpc = new RouteProfileConfiguration();
+            rpc.setName("car");
+            rpc.setEnabled(true);
+            rpc.setProfiles("driving-car");
+            rpc.setGraphPath(graphDirectory.getAbsolutePath());
+            rpc.setEncoderFlagsSize(8);
+            rpc.setPreparationOpts(ConfigFactory.parseString("""
+                    min_network_size: 10
+                    methods.ch: { enabled: true, threads: 1, weightings: fastest }
+                    methods.core: { enabled: true, threads: 1, weightings: fastest, landmarks: 4, lmsets: allow_all }
+                    """));
+            rpc.setIsochronePreparationOpts(ConfigFactory.parseString("""
+                    enabled: true
+                    threads: 1
+                    weightings: fastest
+                    maxcellnodes: 100
+                    """));
+
+            EngineConfig engineConfig = EngineConfig.EngineConfigBuilder.init()
+                    .setSourceFile(osmFile)
+                    .build();
+            routingProfile = new RoutingProfile(engineConfig, rpc, new RoutingProfileLoadContext());
+
+            GraphHopperStorage storage = routingProfile.getGraphhopper().getGraphHopperStorage();
+            from = coordinates(storage, GraphFixtures.randomNodes(storage, QUERIES, GraphFixtures.SEED));
+            to = coordinates(storage, GraphFixtures.randomNodes(storage, QUERIES, GraphFixtures.SEED + 1));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            routingProfile.close();
+            FileUtils.deleteQuietly(graphDirectory);
+        }
+
+        private static Coordinate[] coordinates(GraphHopperStorage storage, int[] nodes) {
+            NodeAccess nodeAccess = storage.getNodeAccess();
+            Coordinate[] coordinates = new Coordinate[nodes.length];
+            for (int i = 0; i < nodes.length; i++)
+                coordinates[i] = new Coordinate(nodeAccess.getLon(nodes[i]), nodeAccess.getLat(nodes[i]));
+            return coordinates;
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class SearchMode {
+        /**
+         * {@code static} queries run on the CH graph, {@code flexible} ones on the core graph for routes and on the
+         * base graph for matrices
+         */
+        @Param({"static", "flexible"})
+        public String mode;
+
+        <T extends RouteSearchParameters> T apply(T params) throws Exception {
+            params.setProfileType(RoutingProfileType.DRIVING_CAR);
+            params.setFlexibleMode("flexible".equals(mode));
+            return params;
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class IsochroneMethod {
+        @Param({"ConcaveBalls", "FastIsochrone"})
+        public String method;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public double route(Profile profile, SearchMode mode) throws Exception {
+        RouteSearchParameters params = mode.apply(new RouteSearchParameters());
+        double distance = 0;
+        for (int i = 0; i < QUERIES; i++) {
+            Coordinate from = profile.from[i];
+            Coordinate to = profile.to[i];
+            GHResponse response = profile.routingProfile.computeRoute(from.y, from.x, to.y, to.x, null, null, false, params, false);
+            if (!response.hasErrors())
+                distance += response.getBest().getDistance();
+        }
+        return distance;
+    }
+
+    @Benchmark
+    public MatrixResult matrix(Profile profile, SearchMode mode) throws Exception {
+        MatrixSearchParameters params = mode.apply(new MatrixSearchParameters());
+        MatrixRequest req = new MatrixRequest(Double.MAX_VALUE, Integer.MAX_VALUE, 0);
+        req.setProfileType(RoutingProfileType.DRIVING_CAR);
+        req.setFlexibleMode(params.hasFlexibleMode());
+        req.setSearchParameters(params);
+        req.setUnits(DistanceUnit.METERS);
+        req.setMetrics(MatrixMetricsType.DURATION | MatrixMetricsType.DISTANCE);
+        req.setSources(Arrays.copyOf(profile.from, profile.matrixSize));
+        req.setDestinations(Arrays.copyOf(profile.to, profile.matrixSize));
+        return profile.routingProfile.computeMatrix(req);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public int isochrone(Profile profile, IsochroneMethod method) throws Exception {
+        RouteSearchParameters routeParams = new RouteSearchParameters();
+        routeParams.setProfileType(RoutingProfileType.DRIVING_CAR);
+        int count = 0;
+        for (int i = 0; i < QUERIES; i++) {
+            IsochroneSearchParameters params = new IsochroneSearchParameters(0, profile.from[i], new double[]{300});
+            params.setRouteParameters(routeParams);
+            params.setRangeType(TravelRangeType.TIME);
+            params.setCalcMethod(method.method);
+            IsochroneMap map = profile.routingProfile.buildIsochrone(params);
+            count += map.getIsochronesCount();
+        }
+        return count;
+    }
+}
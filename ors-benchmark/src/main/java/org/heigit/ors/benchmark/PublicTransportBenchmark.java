@@ -0,0 +1,114 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.benchmark;
+
+import com.graphhopper.GHResponse;
+import com.graphhopper.gtfs.GHLocation;
+import com.graphhopper.gtfs.GHPointLocation;
+import com.graphhopper.gtfs.PtRouter;
+import com.graphhopper.gtfs.PtRouterImpl;
+import com.graphhopper.gtfs.Request;
+import com.graphhopper.util.TranslationMap;
+import com.graphhopper.util.shapes.GHPoint;
+import org.apache.commons.io.FileUtils;
+import org.heigit.ors.config.EngineConfig;
+import org.heigit.ors.routing.RoutingProfile;
+import org.heigit.ors.routing.RoutingProfileLoadContext;
+import org.heigit.ors.routing.configuration.RouteProfileConfiguration;
+import org.heigit.ors.routing.graphhopper.extensions.ORSGraphHopper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Public transport routes through the router shared by all requests of a profile compared to a router built for every
+ * request, as {@link RoutingProfile} used to do. Run with e.g. {@code -t 4} to measure concurrent requests.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PublicTransportBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Profile {
+        /**
+         * paths of the OSM extract and the GTFS feed covering it, relative to the working directory
+         */
+        @Param({"ors-api/src/test/files/heidelberg.osm.gz"})
+        public String osmFile;
+
+        @Param({"ors-api/src/test/files/vrn_gtfs_cut.zip"})
+        public String gtfsFile;
+
+        /**
+         * {@code shared} routes with the router of the profile, {@code per-request} builds a new one for every route
+         */
+        @Param({"shared", "per-request"})
+        public String router;
+
+        File graphDirectory;
+        RoutingProfile routingProfile;
+        List<GHLocation> points;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            graphDirectory = Files.createTempDirectory("ors-benchmark").toFile();
+
+            RouteProfileConfiguration rpc = new RouteProfileConfiguration();
+            rpc.setName("public-transport");
+            rpc.setEnabled(true);
+            rpc.setProfiles("public-transport");
+            rpc.setGraphPath(graphDirectory.getAbsolutePath());
+            rpc.setEncoderFlagsSize(8);
+            rpc.setGtfsFile(gtfsFile);
+
+            EngineConfig engineConfig = EngineConfig.EngineConfigBuilder.init()
+                    .setSourceFile(osmFile)
+                    .build();
+            routingProfile = new RoutingProfile(engineConfig, rpc, new RoutingProfileLoadContext());
+            points = List.of(new GHPointLocation(new GHPoint(49.4468535, 8.6729581)), new GHPointLocation(new GHPoint(49.3786147, 8.7067204)));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            routingProfile.close();
+            FileUtils.deleteQuietly(graphDirectory);
+        }
+
+        PtRouter router() {
+            if ("shared".equals(router))
+                return routingProfile.getPtRouter();
+            ORSGraphHopper gh = routingProfile.getGraphhopper();
+            return new PtRouterImpl.Factory(gh.getConfig(), new TranslationMap().doImport(), gh.getGraphHopperStorage(), gh.getLocationIndex(), gh.getGtfsStorage())
+                    .createWithoutRealtimeFeed();
+        }
+    }
+
+    @Benchmark
+    public GHResponse route(Profile profile) {
+        Request request = new Request(profile.points, Instant.parse("2022-07-04T13:02:26Z"));
+        request.setLimitStreetTime(Duration.ofMinutes(30));
+        request.setAccessProfile("foot_fastest");
+        request.setEgressProfile("foot_fastest");
+        request.setMaxVisitedNodes(15000);
+        return profile.router().route(request);
+    }
+}
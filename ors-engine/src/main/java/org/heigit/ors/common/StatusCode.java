@@ -56,6 +56,18 @@ public class StatusCode {
      */
     public static final int NOT_FOUND = HttpURLConnection.HTTP_NOT_FOUND;
 
+    /**
+     * Status code (429) indicating that the request was rejected because
+     * too many requests are being processed or waiting already.
+     */
+    public static final int TOO_MANY_REQUESTS = 429;
+
+    /**
+     * Status code (409) indicating that the request conflicts with
+     * the current state of the resource, e.g. a result that is not available yet.
+     */
+    public static final int CONFLICT = HttpURLConnection.HTTP_CONFLICT;
+
     private StatusCode() {
     }
 }
@@ -14,6 +14,19 @@ public class EngineConfig {
     private final String graphsRootPath;
     private final boolean elevationPreprocessed;
     private final RouteProfileConfiguration[] profiles;
+    private final long isochroneCacheMaximumSize;
+    private final int isochroneCacheTimeToLive;
+    private final long routeCacheMaximumSize;
+    private final int routeCacheTimeToLive;
+    private final boolean routeCacheTimeDependent;
+    private final int snapCacheMaximumSize;
+    private final int snapCacheTimeToLive;
+    private final boolean warmUpEnabled;
+    private final int warmUpThreads;
+    private final int warmUpQueries;
+    private final boolean metricsPercentileHistograms;
+    private final boolean sharedOsmRead;
+    private final String timeZonesFile;
 
     public int getInitializationThreads() {
         return initializationThreads;
@@ -39,6 +52,58 @@ public class EngineConfig {
         return profiles;
     }
 
+    public long getIsochroneCacheMaximumSize() {
+        return isochroneCacheMaximumSize;
+    }
+
+    public int getIsochroneCacheTimeToLive() {
+        return isochroneCacheTimeToLive;
+    }
+
+    public long getRouteCacheMaximumSize() {
+        return routeCacheMaximumSize;
+    }
+
+    public int getRouteCacheTimeToLive() {
+        return routeCacheTimeToLive;
+    }
+
+    public boolean isRouteCacheTimeDependent() {
+        return routeCacheTimeDependent;
+    }
+
+    public int getSnapCacheMaximumSize() {
+        return snapCacheMaximumSize;
+    }
+
+    public int getSnapCacheTimeToLive() {
+        return snapCacheTimeToLive;
+    }
+
+    public boolean isWarmUpEnabled() {
+        return warmUpEnabled;
+    }
+
+    public int getWarmUpThreads() {
+        return warmUpThreads;
+    }
+
+    public int getWarmUpQueries() {
+        return warmUpQueries;
+    }
+
+    public boolean isMetricsPercentileHistograms() {
+        return metricsPercentileHistograms;
+    }
+
+    public boolean isSharedOsmRead() {
+        return sharedOsmRead;
+    }
+
+    public String getTimeZonesFile() {
+        return timeZonesFile;
+    }
+
     public EngineConfig(EngineConfigBuilder builder) {
         this.initializationThreads = builder.initializationThreads;
         this.preparationMode = builder.preparationMode;
@@ -46,6 +111,19 @@ public class EngineConfig {
         this.elevationPreprocessed = builder.elevationPreprocessed;
         this.graphsRootPath = builder.graphsRootPath;
         this.profiles = builder.profiles;
+        this.isochroneCacheMaximumSize = builder.isochroneCacheMaximumSize;
+        this.isochroneCacheTimeToLive = builder.isochroneCacheTimeToLive;
+        this.routeCacheMaximumSize = builder.routeCacheMaximumSize;
+        this.routeCacheTimeToLive = builder.routeCacheTimeToLive;
+        this.routeCacheTimeDependent = builder.routeCacheTimeDependent;
+        this.snapCacheMaximumSize = builder.snapCacheMaximumSize;
+        this.snapCacheTimeToLive = builder.snapCacheTimeToLive;
+        this.warmUpEnabled = builder.warmUpEnabled;
+        this.warmUpThreads = builder.warmUpThreads;
+        this.warmUpQueries = builder.warmUpQueries;
+        this.metricsPercentileHistograms = builder.metricsPercentileHistograms;
+        this.sharedOsmRead = builder.sharedOsmRead;
+        this.timeZonesFile = builder.timeZonesFile;
     }
 
 
@@ -57,6 +135,19 @@ public class EngineConfig {
         private String graphsRootPath;
         private boolean elevationPreprocessed;
         private RouteProfileConfiguration[] profiles;
+        private long isochroneCacheMaximumSize;
+        private int isochroneCacheTimeToLive;
+        private long routeCacheMaximumSize;
+        private int routeCacheTimeToLive;
+        private boolean routeCacheTimeDependent;
+        private int snapCacheMaximumSize;
+        private int snapCacheTimeToLive;
+        private boolean warmUpEnabled;
+        private int warmUpThreads = 1;
+        private int warmUpQueries;
+        private boolean metricsPercentileHistograms;
+        private boolean sharedOsmRead;
+        private String timeZonesFile;
 
         public static EngineConfigBuilder init() {
             return new EngineConfigBuilder();
@@ -93,6 +184,71 @@ public class EngineConfig {
             return this;
         }
 
+        public EngineConfigBuilder setIsochroneCacheMaximumSize(long isochroneCacheMaximumSize) {
+            this.isochroneCacheMaximumSize = isochroneCacheMaximumSize;
+            return this;
+        }
+
+        public EngineConfigBuilder setIsochroneCacheTimeToLive(int isochroneCacheTimeToLive) {
+            this.isochroneCacheTimeToLive = isochroneCacheTimeToLive;
+            return this;
+        }
+
+        public EngineConfigBuilder setRouteCacheMaximumSize(long routeCacheMaximumSize) {
+            this.routeCacheMaximumSize = routeCacheMaximumSize;
+            return this;
+        }
+
+        public EngineConfigBuilder setRouteCacheTimeToLive(int routeCacheTimeToLive) {
+            this.routeCacheTimeToLive = routeCacheTimeToLive;
+            return this;
+        }
+
+        public EngineConfigBuilder setRouteCacheTimeDependent(boolean routeCacheTimeDependent) {
+            this.routeCacheTimeDependent = routeCacheTimeDependent;
+            return this;
+        }
+
+        public EngineConfigBuilder setSnapCacheMaximumSize(int snapCacheMaximumSize) {
+            this.snapCacheMaximumSize = snapCacheMaximumSize;
+            return this;
+        }
+
+        public EngineConfigBuilder setSnapCacheTimeToLive(int snapCacheTimeToLive) {
+            this.snapCacheTimeToLive = snapCacheTimeToLive;
+            return this;
+        }
+
+        public EngineConfigBuilder setWarmUpEnabled(boolean warmUpEnabled) {
+            this.warmUpEnabled = warmUpEnabled;
+            return this;
+        }
+
+        public EngineConfigBuilder setWarmUpThreads(int warmUpThreads) {
+            this.warmUpThreads = warmUpThreads;
+            return this;
+        }
+
+        public EngineConfigBuilder setWarmUpQueries(int warmUpQueries) {
+            this.warmUpQueries = warmUpQueries;
+            return this;
+        }
+
+        public EngineConfigBuilder setMetricsPercentileHistograms(boolean metricsPercentileHistograms) {
+            this.metricsPercentileHistograms = metricsPercentileHistograms;
+            return this;
+        }
+
+        public EngineConfigBuilder setSharedOsmRead(boolean sharedOsmRead) {
+            this.sharedOsmRead = sharedOsmRead;
+            return this;
+        }
+
+        public EngineConfigBuilder setTimeZonesFile(String timeZonesFile) {
+            this.timeZonesFile = timeZonesFile;
+            return this;
+        }
+
         public EngineConfig build() {
             return new EngineConfig(this);
         }
@@ -0,0 +1,35 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.exceptions;
+
+/**
+ * Thrown when a request is rejected by admission control, either with {@code 429} because the wait queue is full or
+ * with {@code 503} because it would have to wait longer than allowed.
+ */
+public class ServiceOverloadedException extends StatusCodeException {
+    private static final long serialVersionUID = -2391567834427658801L;
+    private final long retryAfter;
+
+    /**
+     * @param retryAfter seconds after which the request may be retried
+     */
+    public ServiceOverloadedException(int statusCode, long retryAfter, String message) {
+        super(statusCode, message);
+        this.retryAfter = retryAfter;
+    }
+
+    public long getRetryAfter() {
+        return retryAfter;
+    }
+}
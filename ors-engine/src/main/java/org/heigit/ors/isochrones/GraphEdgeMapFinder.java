@@ -18,6 +18,7 @@ import com.graphhopper.GraphHopper;
 import com.graphhopper.routing.SPTEntry;
 import com.graphhopper.routing.ev.Subnetwork;
 import com.graphhopper.routing.querygraph.QueryGraph;
+import com.graphhopper.routing.querygraph.QueryRoutingCHGraph;
 import com.graphhopper.routing.util.DefaultSnapFilter;
 import com.graphhopper.routing.util.EdgeFilter;
 import com.graphhopper.routing.util.FlagEncoder;
@@ -26,39 +27,60 @@ import com.graphhopper.routing.weighting.FastestWeighting;
 import com.graphhopper.routing.weighting.ShortestWeighting;
 import com.graphhopper.routing.weighting.Weighting;
 import com.graphhopper.storage.GraphHopperStorage;
+import com.graphhopper.storage.RoutingCHGraph;
 import com.graphhopper.storage.index.Snap;
+import com.graphhopper.util.PMap;
 import com.graphhopper.util.shapes.GHPoint3D;
 import org.heigit.ors.common.TravelRangeType;
 import org.heigit.ors.exceptions.InternalServerException;
 import org.heigit.ors.routing.RouteSearchContext;
 import org.heigit.ors.routing.algorithms.DijkstraCostCondition;
+import org.heigit.ors.routing.algorithms.PHASTAlgorithm;
 import org.heigit.ors.routing.algorithms.TDDijkstraCostCondition;
 import org.heigit.ors.routing.graphhopper.extensions.AccessibilityMap;
 import org.heigit.ors.routing.graphhopper.extensions.ORSEdgeFilterFactory;
+import org.heigit.ors.routing.graphhopper.extensions.ORSGraphHopper;
 import org.heigit.ors.routing.traffic.TrafficSpeedCalculator;
 import org.heigit.ors.util.ProfileTools;
 import org.locationtech.jts.geom.Coordinate;
 
+import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 public class GraphEdgeMapFinder {
+    private static final String[] FILTER_PROPERTIES = {"avoid_areas", "avoid_features", "avoid_borders", "edgefilter_hgv", "edgefilter_wheelchair"};
+
     private GraphEdgeMapFinder() {
     }
 
+    /**
+     * Snaps the start location with the edge filter {@link #findEdgeMap} searches with.
+     */
+    public static Snap findStart(RouteSearchContext searchCntx, IsochroneSearchParameters parameters) {
+        Coordinate loc = parameters.getLocation();
+        return searchCntx.getGraphHopper().getLocationIndex().findClosest(loc.y, loc.x, createEdgeFilter(searchCntx, createWeighting(parameters, searchCntx.getEncoder())));
+    }
+
+    private static EdgeFilter createEdgeFilter(RouteSearchContext searchCntx, Weighting weighting) {
+        FlagEncoder encoder = searchCntx.getEncoder();
+        String profileName = ProfileTools.makeProfileName(encoder.toString(), weighting.getName(), false);
+        GraphHopperStorage graph = searchCntx.getGraphHopper().getGraphHopperStorage();
+        EdgeFilter defaultSnapFilter = new DefaultSnapFilter(weighting, graph.getEncodingManager().getBooleanEncodedValue(Subnetwork.key(profileName)));
+        ORSEdgeFilterFactory edgeFilterFactory = new ORSEdgeFilterFactory();
+        return edgeFilterFactory.createEdgeFilter(searchCntx.getProperties(), encoder, graph, defaultSnapFilter);
+    }
+
     public static AccessibilityMap findEdgeMap(RouteSearchContext searchCntx, IsochroneSearchParameters parameters) throws Exception {
         GraphHopper gh = searchCntx.getGraphHopper();
         FlagEncoder encoder = searchCntx.getEncoder();
         Weighting weighting = createWeighting(parameters, encoder);
-        String profileName = ProfileTools.makeProfileName(encoder.toString(), weighting.getName(), false);
         GraphHopperStorage graph = gh.getGraphHopperStorage();
-        EdgeFilter defaultSnapFilter = new DefaultSnapFilter(weighting, graph.getEncodingManager().getBooleanEncodedValue(Subnetwork.key(profileName)));
-        ORSEdgeFilterFactory edgeFilterFactory = new ORSEdgeFilterFactory();
-        EdgeFilter edgeFilter = edgeFilterFactory.createEdgeFilter(searchCntx.getProperties(), encoder, graph, defaultSnapFilter);
+        EdgeFilter edgeFilter = createEdgeFilter(searchCntx, weighting);
 
         Coordinate loc = parameters.getLocation();
-        Snap res = gh.getLocationIndex().findClosest(loc.y, loc.x, edgeFilter);
+        Snap res = parameters.getSnap() != null ? parameters.getSnap() : gh.getLocationIndex().findClosest(loc.y, loc.x, edgeFilter);
         List<Snap> snaps = new ArrayList<>(1);
         snaps.add(res);
         QueryGraph queryGraph = QueryGraph.create(graph, snaps);
@@ -70,8 +92,17 @@ public class GraphEdgeMapFinder {
         if (fromId == -1)
             throw new InternalServerException(IsochronesErrorCodes.UNKNOWN, "The closest node is null.");
 
+        String isochroneProfileName = ProfileTools.makeIsochroneProfileName(encoder.toString(), weighting.getName());
         if (parameters.isTimeDependent()) {
-            return calculateTimeDependentAccessibilityMap(parameters, encoder, graph, edgeFilter, queryGraph, snappedPosition, fromId, weighting);
+            ZoneId zone = searchCntx.getTimeZoneResolver().resolve(loc.y, loc.x);
+            return calculateTimeDependentAccessibilityMap(parameters, encoder, graph, edgeFilter, queryGraph, snappedPosition, fromId, weighting, zone);
+        } else if (gh instanceof ORSGraphHopper orsGraphHopper && isPHASTApplicable(graph, isochroneProfileName, searchCntx.getProperties())) {
+            RoutingCHGraph chGraph = new QueryRoutingCHGraph(graph.getRoutingCHGraph(isochroneProfileName), queryGraph);
+            PHASTAlgorithm phast = new PHASTAlgorithm(chGraph, queryGraph,
+                    orsGraphHopper.getPHASTDownwardEdges(isochroneProfileName, parameters.getReverseDirection()),
+                    parameters.getMaximumRange(), parameters.getReverseDirection());
+            phast.setEdgeFilter(edgeFilter);
+            return new AccessibilityMap(phast.calcTree(fromId), snappedPosition);
         } else {
             // IMPORTANT: It only works with TraversalMode.NODE_BASED.
             DijkstraCostCondition dijkstraAlg = new DijkstraCostCondition(queryGraph, weighting, parameters.getMaximumRange(), parameters.getReverseDirection(),
@@ -95,9 +126,10 @@ public class GraphEdgeMapFinder {
      * @param snappedPosition Position the query has been snapped to on the querygraph
      * @param fromId          origin of query
      * @param weighting       weighting to be used
+     * @param zone            time zone of the departure time, resolved at the location of the query
      * @return accessibility map containing all reachable nodes
      */
-    private static AccessibilityMap calculateTimeDependentAccessibilityMap(IsochroneSearchParameters parameters, FlagEncoder encoder, GraphHopperStorage graph, EdgeFilter edgeFilter, QueryGraph queryGraph, GHPoint3D snappedPosition, int fromId, Weighting weighting) {
+    private static AccessibilityMap calculateTimeDependentAccessibilityMap(IsochroneSearchParameters parameters, FlagEncoder encoder, GraphHopperStorage graph, EdgeFilter edgeFilter, QueryGraph queryGraph, GHPoint3D snappedPosition, int fromId, Weighting weighting, ZoneId zone) {
         //Time-dependent means traffic dependent for isochrones (for now)
         TrafficSpeedCalculator trafficSpeedCalculator = new TrafficSpeedCalculator(weighting.getSpeedCalculator());
         trafficSpeedCalculator.init(graph, encoder);
@@ -105,9 +137,7 @@ public class GraphEdgeMapFinder {
         TDDijkstraCostCondition tdDijkstraCostCondition = new TDDijkstraCostCondition(queryGraph, weighting, parameters.getMaximumRange(), parameters.getReverseDirection(),
                 TraversalMode.NODE_BASED);
         tdDijkstraCostCondition.setEdgeFilter(edgeFilter);
-        //Time is defined to be in UTC + 1 because original implementation was for German traffic data
-        //If changed, this needs to be adapted in the traffic storage, too
-        ZonedDateTime zdt = parameters.getRouteParameters().getDeparture().atZone(trafficSpeedCalculator.getZoneId());
+        ZonedDateTime zdt = parameters.getRouteParameters().getDeparture().atZone(zone);
         trafficSpeedCalculator.setZonedDateTime(zdt);
         int toId = parameters.getReverseDirection() ? fromId : Integer.MIN_VALUE;
         fromId = parameters.getReverseDirection() ? Integer.MIN_VALUE : fromId;
@@ -116,6 +146,24 @@ public class GraphEdgeMapFinder {
         return new AccessibilityMap(edgeMap, tdDijkstraCostCondition.getCurrentEdge(), snappedPosition);
     }
 
+    /**
+     * PHAST requires a CH graph prepared with the isochrone weighting, and cannot apply the edge filters of avoid
+     * options or vehicle restrictions, for which the Dijkstra search is used. The snap filter excluding small
+     * subnetworks is applied to the tree PHAST builds on the base graph. As PHAST only visits the nodes within the
+     * range, it is used for any range.
+     */
+    private static boolean isPHASTApplicable(GraphHopperStorage graph, String isochroneProfileName, PMap properties) {
+        if (!graph.getCHGraphNames().contains(isochroneProfileName))
+            return false;
+        if (properties == null)
+            return true;
+        for (String key : FILTER_PROPERTIES) {
+            if (properties.has(key))
+                return false;
+        }
+        return true;
+    }
+
     private static Weighting createWeighting(IsochroneSearchParameters parameters, FlagEncoder encoder) {
         return parameters.getRangeType() == TravelRangeType.TIME ? new FastestWeighting(encoder)
                 : new ShortestWeighting(encoder);
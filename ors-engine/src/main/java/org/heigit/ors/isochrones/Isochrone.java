@@ -40,6 +40,13 @@ public class Isochrone {
         this.meanRadius = meanRadius;
     }
 
+    /**
+     * Creates a copy of the geometry and range of the given isochrone without any computed attributes.
+     */
+    public Isochrone(Isochrone other) {
+        this(other.geometry, other.value, other.meanRadius);
+    }
+
     public Geometry getGeometry() {
         return geometry;
     }
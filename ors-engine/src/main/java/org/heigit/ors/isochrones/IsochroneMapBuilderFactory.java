@@ -29,10 +29,16 @@ public class IsochroneMapBuilderFactory {
 
 
     public IsochroneMap buildMap(IsochroneSearchParameters parameters) throws Exception {
-        IsochroneMapBuilder isochroneBuilder = createIsochroneMapBuilder(parameters);
+        return createBuilder(parameters).compute(parameters);
+    }
 
+    /**
+     * @return the initialized builder for the calculation method of the parameters
+     */
+    public IsochroneMapBuilder createBuilder(IsochroneSearchParameters parameters) {
+        IsochroneMapBuilder isochroneBuilder = createIsochroneMapBuilder(parameters);
         isochroneBuilder.initialize(searchContext);
-        return isochroneBuilder.compute(parameters);
+        return isochroneBuilder;
     }
 
     private IsochroneMapBuilder createIsochroneMapBuilder(IsochroneSearchParameters parameters) throws IllegalArgumentException {
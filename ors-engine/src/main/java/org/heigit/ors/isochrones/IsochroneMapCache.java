@@ -0,0 +1,146 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.isochrones;
+
+import com.graphhopper.storage.index.Snap;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Metrics;
+import org.heigit.ors.common.TravelRangeType;
+import org.heigit.ors.routing.RouteSearchParameters;
+import org.heigit.ors.util.LruCache;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Per-profile in-memory cache of computed {@link IsochroneMap}s, bounded by the estimated size of the cached geometries.
+ * <p>
+ * Entries are keyed by the snapped start location rather than the raw input coordinate, so that requests for the same
+ * location geocoded slightly differently share results. The snap is the one the builder computes the map from, so the
+ * start location is snapped once per request. Requests whose result depends on the departure time or on
+ * parameters that cannot be compared cheaply (avoid polygons, profile parameters) are not cached. Cached maps hold
+ * the isochrone geometries only, statistics and area attributes are computed per request on a copy.
+ * Hit, miss and eviction counts are published as Micrometer meters tagged with the profile name.
+ */
+public class IsochroneMapCache {
+    private static final long BYTES_PER_COORDINATE = 48;
+    private static final long BYTES_PER_ISOCHRONE = 256;
+
+    private final LruCache<Key, IsochroneMap> cache;
+    private final String profileName;
+    private List<Meter> meters;
+
+    public IsochroneMapCache(String profileName, long maximumSize, int timeToLive) {
+        cache = new LruCache<>(maximumSize, timeToLive * 1000L, IsochroneMapCache::estimateSize);
+        this.profileName = profileName;
+        meters = cache.registerMeters(Metrics.globalRegistry, "ors.isochrones.cache", "profile", profileName);
+    }
+
+    /**
+     * @return whether the result of the request may be served from the cache
+     */
+    public static boolean isCacheable(IsochroneSearchParameters parameters) {
+        RouteSearchParameters routeParams = parameters.getRouteParameters();
+        return !parameters.isTimeDependent() && !routeParams.hasAvoidAreas() && routeParams.getProfileParameters() == null;
+    }
+
+    /**
+     * Creates the cache key for a request from the start location snapped by the isochrone builder that serves it.
+     *
+     * @param snap      the start location as returned by {@link org.heigit.ors.isochrones.builders.IsochroneMapBuilder#findStart}
+     * @param graphDate the import date of the graph, so that a reloaded graph does not share entries with the former one
+     * @return the key, or {@code null} if the request must not be served from the cache
+     */
+    public static Key createKey(Snap snap, IsochroneSearchParameters parameters, String graphDate) {
+        if (!isCacheable(parameters) || snap == null || !snap.isValid())
+            return null;
+
+        RouteSearchParameters routeParams = parameters.getRouteParameters();
+        return new Key(snap.getClosestEdge().getEdge(),
+                Math.round(snap.getSnappedPoint().lat * 1e6),
+                Math.round(snap.getSnappedPoint().lon * 1e6),
+                Math.round(snap.getQueryDistance()),
+                routeParams.getProfileType(),
+                routeParams.getWeightingMethod(),
+                routeParams.getAvoidFeatureTypes(),
+                routeParams.getVehicleType(),
+                Arrays.toString(routeParams.getAvoidCountries()),
+                routeParams.getAvoidBorders().name(),
+                routeParams.hasMaximumSpeed() ? routeParams.getMaximumSpeed() : -1,
+                routeParams.hasFlexibleMode(),
+                parameters.getReverseDirection(),
+                parameters.getRangeType(),
+                Arrays.toString(parameters.getRanges()),
+                parameters.getSmoothingFactor(),
+                parameters.getCalcMethod() == null ? "" : parameters.getCalcMethod().toLowerCase(),
+                graphDate);
+    }
+
+    /**
+     * @return a copy of the cached map for the given traveller, or {@code null} if there is no valid entry
+     */
+    public IsochroneMap get(Key key, int travellerId) {
+        IsochroneMap cached = cache.get(key);
+        return cached == null ? null : copy(cached, travellerId);
+    }
+
+    public void put(Key key, IsochroneMap map) {
+        cache.put(key, copy(map, map.getTravellerId()));
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    /**
+     * Registers the meters of this cache again, replacing those of a cache for the same profile that has been
+     * superseded by a graph reload.
+     */
+    public void registerMeters() {
+        removeMeters();
+        meters = cache.registerMeters(Metrics.globalRegistry, "ors.isochrones.cache", "profile", profileName);
+    }
+
+    public void removeMeters() {
+        for (Meter meter : meters)
+            Metrics.globalRegistry.remove(meter);
+        meters = List.of();
+    }
+
+    public void close() {
+        cache.clear();
+        removeMeters();
+    }
+
+    private static IsochroneMap copy(IsochroneMap map, int travellerId) {
+        IsochroneMap res = new IsochroneMap(travellerId, map.getCenter());
+        res.setGraphDate(map.getGraphDate());
+        for (Isochrone isochrone : map.getIsochrones())
+            res.addIsochrone(new Isochrone(isochrone));
+        return res;
+    }
+
+    private static long estimateSize(IsochroneMap map) {
+        long size = BYTES_PER_ISOCHRONE;
+        for (Isochrone isochrone : map.getIsochrones())
+            size += BYTES_PER_ISOCHRONE + BYTES_PER_COORDINATE * isochrone.getGeometry().getNumPoints();
+        return size;
+    }
+
+    public record Key(int edge, long lat, long lon, long queryDistance, int profileType, int weightingMethod,
+                      int avoidFeatures, int vehicleType, String avoidCountries, String avoidBorders,
+                      double maximumSpeed, boolean flexibleMode, boolean reverseDirection, TravelRangeType rangeType,
+                      String ranges, float smoothingFactor, String calcMethod, String graphDate) {
+    }
+}
@@ -13,6 +13,7 @@
  */
 package org.heigit.ors.isochrones;
 
+import com.graphhopper.storage.index.Snap;
 import org.heigit.ors.common.TravelRangeType;
 import org.heigit.ors.isochrones.statistics.StatisticsProviderConfiguration;
 import org.heigit.ors.routing.RouteSearchParameters;
@@ -33,6 +34,7 @@ public class IsochroneSearchParameters {
     private String units;
     private String areaUnits;
     private Map<String, StatisticsProviderConfiguration> statsProviders;
+    private Snap snap;
 
     public boolean hasAttribute(String attr) {
         if (attributes == null || attr == null)
@@ -61,6 +63,7 @@ public class IsochroneSearchParameters {
 
     public void setLocation(Coordinate location) {
         this.location = location;
+        this.snap = null;
     }
 
     public Boolean getReverseDirection() {
@@ -161,4 +164,16 @@ public class IsochroneSearchParameters {
     public void setStatsProviders(Map<String, StatisticsProviderConfiguration> statsProviders) {
         this.statsProviders = statsProviders;
     }
+
+    /**
+     * @return the start location snapped by {@link org.heigit.ors.isochrones.builders.IsochroneMapBuilder#findStart},
+     * or {@code null} if the builder has to snap it itself
+     */
+    public Snap getSnap() {
+        return snap;
+    }
+
+    public void setSnap(Snap snap) {
+        this.snap = snap;
+    }
 }
@@ -13,6 +13,7 @@
  */
 package org.heigit.ors.isochrones.builders;
 
+import com.graphhopper.storage.index.Snap;
 import org.heigit.ors.isochrones.IsochroneMap;
 import org.heigit.ors.isochrones.IsochroneSearchParameters;
 import org.heigit.ors.routing.RouteSearchContext;
@@ -21,5 +22,11 @@ public interface IsochroneMapBuilder {
 
     void initialize(RouteSearchContext searchContext);
 
+    /**
+     * Snaps the start location with the edge filter the builder searches with. {@link #compute} uses the snap set in
+     * the parameters instead of snapping again.
+     */
+    Snap findStart(IsochroneSearchParameters parameters) throws Exception;
+
     IsochroneMap compute(IsochroneSearchParameters parameters) throws Exception;
 }
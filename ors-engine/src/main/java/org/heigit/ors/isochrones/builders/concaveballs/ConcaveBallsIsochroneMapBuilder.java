@@ -21,6 +21,7 @@ import com.graphhopper.routing.util.FlagEncoder;
 import com.graphhopper.routing.util.HikeFlagEncoder;
 import com.graphhopper.storage.GraphHopperStorage;
 import com.graphhopper.storage.NodeAccess;
+import com.graphhopper.storage.index.Snap;
 import com.graphhopper.util.*;
 import com.graphhopper.util.shapes.GHPoint3D;
 import org.apache.log4j.Logger;
@@ -37,6 +38,7 @@ import org.heigit.ors.routing.graphhopper.extensions.flagencoders.ORSAbstractFla
 import org.heigit.ors.routing.graphhopper.extensions.flagencoders.WheelchairFlagEncoder;
 import org.heigit.ors.routing.graphhopper.extensions.flagencoders.bike.CommonBikeFlagEncoder;
 import org.heigit.ors.util.GeomUtility;
+import org.heigit.ors.util.StageMetrics;
 import org.locationtech.jts.geom.*;
 import org.locationtech.jts.index.quadtree.Quadtree;
 import org.opensphere.geometry.algorithm.ConcaveHullOpenSphere;
@@ -65,6 +67,10 @@ public class ConcaveBallsIsochroneMapBuilder implements IsochroneMapBuilder {
         this.searchContext = searchContext;
     }
 
+    public Snap findStart(IsochroneSearchParameters parameters) {
+        return GraphEdgeMapFinder.findStart(searchContext, parameters);
+    }
+
     public IsochroneMap compute(IsochroneSearchParameters parameters) throws Exception {
         StopWatch swTotal = null;
         StopWatch sw = null;
@@ -99,7 +105,9 @@ public class ConcaveBallsIsochroneMapBuilder implements IsochroneMapBuilder {
             meanSpeed = flagEncoder.getMeanSpeed();
         }
 
+        long searchStart = System.nanoTime();
         AccessibilityMap edgeMap = GraphEdgeMapFinder.findEdgeMap(searchContext, parameters);
+        StageMetrics.accumulate(StageMetrics.Stage.SEARCH, System.nanoTime() - searchStart);
 
         GHPoint3D point = edgeMap.getSnappedPosition();
 
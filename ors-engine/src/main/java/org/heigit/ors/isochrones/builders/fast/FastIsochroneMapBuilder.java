@@ -16,7 +16,6 @@ package org.heigit.ors.isochrones.builders.fast;
 import com.carrotsearch.hppc.IntHashSet;
 import com.carrotsearch.hppc.IntObjectMap;
 import com.carrotsearch.hppc.cursors.IntObjectCursor;
-import com.graphhopper.GraphHopper;
 import com.graphhopper.coll.GHIntObjectHashMap;
 import com.graphhopper.routing.SPTEntry;
 import com.graphhopper.routing.ev.Subnetwork;
@@ -57,6 +56,7 @@ import org.heigit.ors.routing.graphhopper.extensions.flagencoders.ORSAbstractFla
 import org.heigit.ors.routing.graphhopper.extensions.flagencoders.WheelchairFlagEncoder;
 import org.heigit.ors.util.DebugUtility;
 import org.heigit.ors.util.GeomUtility;
+import org.heigit.ors.util.StageMetrics;
 import org.locationtech.jts.geom.*;
 import org.locationtech.jts.index.quadtree.Quadtree;
 import org.locationtech.jts.operation.union.UnaryUnionOp;
@@ -140,15 +140,13 @@ public class FastIsochroneMapBuilder implements IsochroneMapBuilder {
 
         Coordinate loc = parameters.getLocation();
 
-        FlagEncoder encoder = searchcontext.getEncoder();
-        String profileName = ProfileTools.makeProfileName(encoder.toString(), weighting.getName(), false);
-        GraphHopper gh = searchcontext.getGraphHopper();
-        GraphHopperStorage graphHopperStorage = gh.getGraphHopperStorage();
-        EdgeFilter defaultSnapFilter = new DefaultSnapFilter(weighting, graphHopperStorage.getEncodingManager().getBooleanEncodedValue(Subnetwork.key(profileName)));
-
-        ORSEdgeFilterFactory edgeFilterFactory = new ORSEdgeFilterFactory();
-        EdgeFilterSequence edgeFilterSequence = getEdgeFilterSequence(edgeFilterFactory, defaultSnapFilter);
-        Snap res = searchcontext.getGraphHopper().getLocationIndex().findClosest(loc.y, loc.x, edgeFilterSequence);
+        EdgeFilterSequence edgeFilterSequence = createEdgeFilter(weighting);
+        Snap res = parameters.getSnap();
+        if (res == null) {
+            long snapStart = System.nanoTime();
+            res = searchcontext.getGraphHopper().getLocationIndex().findClosest(loc.y, loc.x, edgeFilterSequence);
+            StageMetrics.accumulate(StageMetrics.Stage.SNAPPING, System.nanoTime() - snapStart);
+        }
         List<Snap> snaps = new ArrayList<>(1);
         snaps.add(res);
         //Needed to get the cell of the start point (preprocessed information, so no info on virtual nodes)
@@ -183,7 +181,9 @@ public class FastIsochroneMapBuilder implements IsochroneMapBuilder {
             if (isolimit <= 0)
                 throw new IllegalStateException("Distance of query to snapped position is greater than isochrone limit!");
 
+            long searchStart = System.nanoTime();
             fastIsochroneAlgorithm.calcIsochroneNodes(from, nonvirtualClosestNode, isolimit);
+            StageMetrics.accumulate(StageMetrics.Stage.SEARCH, System.nanoTime() - searchStart);
 
             Set<Geometry> isochroneGeometries = new HashSet<>();
 
@@ -266,6 +266,20 @@ public class FastIsochroneMapBuilder implements IsochroneMapBuilder {
         return isochroneMap;
     }
 
+    public Snap findStart(IsochroneSearchParameters parameters) throws Exception {
+        Weighting weighting = ORSWeightingFactory.createIsochroneWeighting(searchcontext, parameters.getRangeType());
+        Coordinate loc = parameters.getLocation();
+        return searchcontext.getGraphHopper().getLocationIndex().findClosest(loc.y, loc.x, createEdgeFilter(weighting));
+    }
+
+    private EdgeFilterSequence createEdgeFilter(Weighting weighting) throws Exception {
+        FlagEncoder encoder = searchcontext.getEncoder();
+        String profileName = ProfileTools.makeProfileName(encoder.toString(), weighting.getName(), false);
+        GraphHopperStorage graphHopperStorage = searchcontext.getGraphHopper().getGraphHopperStorage();
+        EdgeFilter defaultSnapFilter = new DefaultSnapFilter(weighting, graphHopperStorage.getEncodingManager().getBooleanEncodedValue(Subnetwork.key(profileName)));
+        return getEdgeFilterSequence(new ORSEdgeFilterFactory(), defaultSnapFilter);
+    }
+
     private EdgeFilterSequence getEdgeFilterSequence(ORSEdgeFilterFactory edgeFilterFactory, EdgeFilter prependFilter) throws Exception {
         EdgeFilterSequence edgeFilterSequence = new EdgeFilterSequence();
         EdgeFilter edgeFilter = edgeFilterFactory.createEdgeFilter(searchcontext.getProperties(), searchcontext.getEncoder(), searchcontext.getGraphHopper().getGraphHopperStorage(), prependFilter);
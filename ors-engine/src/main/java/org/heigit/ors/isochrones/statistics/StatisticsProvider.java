@@ -22,6 +22,7 @@ package org.heigit.ors.isochrones.statistics;
 
 import org.heigit.ors.isochrones.Isochrone;
 
+import java.util.List;
 import java.util.Map;
 
 public interface StatisticsProvider {
@@ -32,4 +33,16 @@ public interface StatisticsProvider {
     String getName();
 
     double[] getStatistics(Isochrone isochrone, String[] properties) throws Exception;
+
+    /**
+     * Computes the statistics for several isochrones at once. Providers backed by a remote data source should override
+     * this to answer all isochrones of a request in a single round trip.
+     */
+    default double[][] getStatistics(List<Isochrone> isochrones, String[] properties) throws Exception {
+        double[][] res = new double[isochrones.size()][];
+        for (int i = 0; i < res.length; i++) {
+            res[i] = getStatistics(isochrones.get(i), properties);
+        }
+        return res;
+    }
 }
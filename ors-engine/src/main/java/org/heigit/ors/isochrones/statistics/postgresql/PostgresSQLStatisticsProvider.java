@@ -21,11 +21,19 @@ import org.heigit.ors.exceptions.InternalServerException;
 import org.heigit.ors.isochrones.Isochrone;
 import org.heigit.ors.isochrones.IsochronesErrorCodes;
 import org.heigit.ors.isochrones.statistics.StatisticsProvider;
+import org.heigit.ors.util.LruCache;
+import org.locationtech.jts.io.WKBWriter;
 import org.postgresql.ds.PGSimpleDataSource;
 
+import java.nio.ByteBuffer;
+import java.sql.Array;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -39,11 +47,19 @@ public class PostgresSQLStatisticsProvider implements StatisticsProvider {
     private static final Logger LOGGER = Logger.getLogger(PostgresSQLStatisticsProvider.class.getName());
 
     private static final String PARAM_KEY_PASS = "password";
+    private static final String PARAM_KEY_CACHE_SIZE = "cache_size";
+    private static final String PARAM_KEY_CACHE_TTL = "cache_ttl";
+    private static final String KEY_TOTAL_POP = "total_pop";
+    private static final String COLUMN_IDX = "idx";
+    private static final int DEFAULT_CACHE_SIZE = 10000;
+    private static final int DEFAULT_CACHE_TTL = 3600;
 
     private String tableName = null;
     private String geomColumn = null;
     private HikariDataSource dataSource;
     private String postgisVersion = null;
+    private String totalPopSql = null;
+    private LruCache<CacheKey, double[]> cache;
 
     /**
      * This function initializes the connection to the server according to the settings in the ors-config.json.
@@ -77,6 +93,16 @@ public class PostgresSQLStatisticsProvider implements StatisticsProvider {
         else
             postgisVersion = value;
 
+        totalPopSql = createTotalPopSql(tableName, geomColumn, postgisVersion);
+
+        int cacheSize = DEFAULT_CACHE_SIZE;
+        if (parameters.containsKey(PARAM_KEY_CACHE_SIZE))
+            cacheSize = (Integer) parameters.get(PARAM_KEY_CACHE_SIZE);
+        int cacheTtl = DEFAULT_CACHE_TTL;
+        if (parameters.containsKey(PARAM_KEY_CACHE_TTL))
+            cacheTtl = (Integer) parameters.get(PARAM_KEY_CACHE_TTL);
+        cache = cacheSize > 0 ? new LruCache<>(cacheSize, cacheTtl * 1000L) : null;
+
         //https://github.com/pgjdbc/pgjdbc/pull/772
         org.postgresql.Driver.isRegistered();
 
@@ -111,6 +137,31 @@ public class PostgresSQLStatisticsProvider implements StatisticsProvider {
             dataSource.close();
             dataSource = null;
         }
+        if (cache != null) {
+            cache.clear();
+            cache = null;
+        }
+    }
+
+    /**
+     * Builds the statement computing the population of a {@code bytea[]} of WKB polygons in EPSG:4326. Each polygon is
+     * transformed once and the result rows are keyed by the 1-based position of the polygon in the array.
+     */
+    static String createTotalPopSql(String tableName, String geomColumn, String postgisVersion) {
+        String polys;
+        String sum;
+        // Newer versions of PostGIS have different summary methods
+        if (postgisVersion != null && Float.parseFloat(postgisVersion) > 2.4) {
+            polys = "SELECT " + COLUMN_IDX + ", ST_Transform(ST_SetSRID(ST_GeomFromWKB(wkb), 4326), 54009) AS poly";
+            sum = "ROUND((ST_SummaryStatsAgg(ST_Clip(" + geomColumn + ", polys.poly), 1, TRUE, 1)).sum::numeric, 0)";
+        } else {
+            polys = "SELECT " + COLUMN_IDX + ", ST_Transform(ST_SetSRID(ST_GeomFromWKB(wkb), 4326), 954009) AS poly";
+            sum = "ROUND(SUM((ST_SummaryStats(ST_Clip(" + geomColumn + ", polys.poly))).sum))";
+        }
+        return "WITH polys AS (" + polys + " FROM unnest(?::bytea[]) WITH ORDINALITY AS t(wkb, " + COLUMN_IDX + ")) "
+                + "SELECT polys." + COLUMN_IDX + ", " + sum + " AS " + KEY_TOTAL_POP
+                + " FROM polys JOIN " + tableName + " ON ST_Intersects(polys.poly, " + geomColumn + ")"
+                + " GROUP BY polys." + COLUMN_IDX + ";";
     }
 
     /**
@@ -124,60 +175,86 @@ public class PostgresSQLStatisticsProvider implements StatisticsProvider {
      */
     @Override
     public double[] getStatistics(Isochrone isochrone, String[] properties) throws Exception {
-        int nProperties = properties.length;
-        double[] res = new double[nProperties];
-        Connection connection = null;
-        PreparedStatement preparedStatement = null;
-        try {
-            String sql = null;
-            for (String property : properties) {
-                String polyGeom = isochrone.getGeometry().toText();
-                if ("total_pop".equals(property)) {
-                    // Newer versions of PostGIS have different summary methods
-                    if (postgisVersion != null && Float.parseFloat(postgisVersion) > 2.4) {
-                        sql = "SELECT ROUND((ST_SummaryStatsAgg(ST_Clip(" + geomColumn + ", poly), 1, TRUE, 1)).sum::numeric, 0) AS total_pop FROM " + tableName + ", ST_Transform(ST_GeomFromText('" + polyGeom + "', 4326), 54009) AS poly WHERE ST_Intersects(poly, " + geomColumn + ") GROUP BY poly;";
-                    } else {
-                        sql = "SELECT ROUND(SUM((ST_SummaryStats(ST_Clip(" + geomColumn + ", poly))).sum)) AS total_pop FROM " + tableName + ", ST_Transform(ST_GeomFromText('" + polyGeom + "', 4326), 954009) AS poly WHERE ST_Intersects(poly, " + geomColumn + ") GROUP BY poly;";
-                    }
-                }
+        return getStatistics(List.of(isochrone), properties)[0];
+    }
+
+    /**
+     * Computes the statistics of all given isochrones with a single SQL statement on a single connection. The polygons
+     * are bound as a WKB {@code bytea[]} parameter, results of previous queries are served from the cache.
+     *
+     * @param isochrones {@link List} of {@link Isochrone}s as input.
+     * @param properties {@link String}[] as input holding the attributes parameters.
+     * @return Returns one double[] per isochrone holding the desired values in the order that was asked for in the attributes.
+     * @throws Exception If the query doesn't return any values or the sql is corrupt, an {@link Exception} will be thrown.
+     */
+    @Override
+    public double[][] getStatistics(List<Isochrone> isochrones, String[] properties) throws Exception {
+        if (!Arrays.asList(properties).contains(KEY_TOTAL_POP))
+            throw new InternalServerException(IsochronesErrorCodes.UNKNOWN, "Unable to retrieve data from the data source.");
+
+        double[][] res = new double[isochrones.size()][];
+
+        String propertiesKey = String.join(",", properties);
+        WKBWriter wkbWriter = new WKBWriter();
+        List<Integer> queryIndices = new ArrayList<>();
+        List<byte[]> queryGeometries = new ArrayList<>();
+        List<CacheKey> queryKeys = new ArrayList<>();
+        for (int i = 0; i < res.length; i++) {
+            byte[] wkb = wkbWriter.write(isochrones.get(i).getGeometry());
+            CacheKey key = new CacheKey(ByteBuffer.wrap(wkb), propertiesKey);
+            double[] cached = cache == null ? null : cache.get(key);
+            if (cached != null) {
+                res[i] = cached.clone();
+            } else {
+                queryIndices.add(i);
+                queryGeometries.add(wkb);
+                queryKeys.add(key);
             }
-            connection = dataSource.getConnection();
-            connection.setAutoCommit(false);
-            preparedStatement = connection.prepareStatement(sql);
+        }
 
+        if (queryIndices.isEmpty())
+            return res;
+
+        for (int index : queryIndices)
+            res[index] = new double[properties.length];
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(totalPopSql)) {
+            connection.setAutoCommit(false);
+            Array wkbArray = connection.createArrayOf("bytea", queryGeometries.toArray(new byte[0][]));
+            preparedStatement.setArray(1, wkbArray);
             try (ResultSet resultSet = preparedStatement.executeQuery()) {
-                // check if the resultSet contains values
-                if (resultSet.next()) {
-                    // check for each property if the result contains a value
-                    int propertyCounter = 0;
-                    for (String property : properties) {
-                        int i = 0;
-                        // check each value
-                        while (i < nProperties) {
-                            // Get the column name
-                            String columnName = resultSet.getMetaData().getColumnName(i + 1);
-                            // If a value fits the current property it is set in the correct place in the result[]
-                            if (columnName.equals(property))
-                                res[propertyCounter] = resultSet.getDouble(i + 1);
-                            i++;
-                        }
-                        propertyCounter++;
+                ResultSetMetaData metaData = resultSet.getMetaData();
+                int[] columns = new int[properties.length];
+                for (int p = 0; p < properties.length; p++) {
+                    columns[p] = -1;
+                    for (int c = 1; c <= metaData.getColumnCount(); c++) {
+                        if (metaData.getColumnName(c).equals(properties[p]))
+                            columns[p] = c;
                     }
                 }
+                while (resultSet.next()) {
+                    // ordinality of the unnested array is 1-based
+                    int index = queryIndices.get(resultSet.getInt(COLUMN_IDX) - 1);
+                    for (int p = 0; p < properties.length; p++) {
+                        if (columns[p] != -1)
+                            res[index][p] = resultSet.getDouble(columns[p]);
+                    }
+                }
+            } finally {
+                wkbArray.free();
             }
+            connection.commit();
         } catch (Exception ex) {
             LOGGER.error(ex);
             throw new InternalServerException(IsochronesErrorCodes.UNKNOWN, "Unable to retrieve data from the data source.");
-        } finally {
-            if (preparedStatement != null) {
-                preparedStatement.close();
-            }
-            if (connection != null) {
-                connection.close();
-            }
         }
-        return res;
 
+        if (cache != null) {
+            for (int i = 0; i < queryIndices.size(); i++)
+                cache.put(queryKeys.get(i), res[queryIndices.get(i)].clone());
+        }
+        return res;
     }
 
     /**
@@ -189,4 +266,7 @@ public class PostgresSQLStatisticsProvider implements StatisticsProvider {
     public String getName() {
         return "postgresql";
     }
+
+    private record CacheKey(ByteBuffer geometry, String properties) {
+    }
 }
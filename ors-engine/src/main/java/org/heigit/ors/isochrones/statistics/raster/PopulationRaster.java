@@ -0,0 +1,375 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.isochrones.statistics.raster;
+
+import org.heigit.ors.util.LruCache;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.Polygon;
+
+import java.io.BufferedReader;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Memory-mapped single band float raster in EPSG:4326 used to sum up population counts within polygons.
+ * <p>
+ * The file consists of a fixed size header followed by the cell values as little endian float32 in row-major order,
+ * starting at the north-west corner. Polygon sums are computed by scanline rasterisation, a cell is counted when its
+ * center lies inside the polygon. Row spans are summed using prefix sums over the part of a row within one tile, which
+ * are built lazily and kept in a bounded cache, so that only the rows actually crossed by polygons are cached.
+ * <p>
+ * Reading is thread-safe. {@link #close()} waits for the sums which are still being computed, later reads fail with an
+ * {@link IllegalStateException} instead of touching the released buffers.
+ */
+public class PopulationRaster implements Closeable {
+    private static final int MAGIC = 0x4F525350; // "ORSP"
+    private static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+
+    private final int width;
+    private final int height;
+    private final int tileSize;
+    private final double minX;
+    private final double maxY;
+    private final double cellWidth;
+    private final double cellHeight;
+    private final int rowsPerBand;
+    private final int tilesX;
+    private final MappedByteBuffer[] bands;
+    private final LruCache<Long, double[]> rowPrefixSums;
+    // readers hold the read lock while using the buffers, closing takes the write lock
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private boolean closed;
+
+    private PopulationRaster(Path file, int rowCacheSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != MAGIC)
+                throw new IOException("'" + file + "' is not a population raster file.");
+            int version = header.getInt();
+            if (version != VERSION)
+                throw new IOException("Unsupported population raster version " + version + ".");
+            width = header.getInt();
+            height = header.getInt();
+            tileSize = header.getInt();
+            minX = header.getDouble();
+            maxY = header.getDouble();
+            cellWidth = header.getDouble();
+            cellHeight = header.getDouble();
+
+            long expectedSize = HEADER_SIZE + (long) width * height * Float.BYTES;
+            if (channel.size() < expectedSize)
+                throw new IOException("Population raster '" + file + "' is truncated.");
+
+            // a single mapping is limited to 2GB, so larger rasters are mapped in bands of whole rows
+            rowsPerBand = Math.max(1, Integer.MAX_VALUE / (width * Float.BYTES));
+            int nBands = (height + rowsPerBand - 1) / rowsPerBand;
+            bands = new MappedByteBuffer[nBands];
+            for (int i = 0; i < nBands; i++) {
+                int rows = Math.min(rowsPerBand, height - i * rowsPerBand);
+                long offset = HEADER_SIZE + (long) i * rowsPerBand * width * Float.BYTES;
+                bands[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, (long) rows * width * Float.BYTES);
+                bands[i].order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+        tilesX = (width + tileSize - 1) / tileSize;
+        rowPrefixSums = new LruCache<>(rowCacheSize, 0);
+    }
+
+    /**
+     * @param rowCacheSize maximum number of cached prefix sums, each covering the cells of one row within one tile
+     */
+    public static PopulationRaster open(Path file, int rowCacheSize) throws IOException {
+        return new PopulationRaster(file, rowCacheSize);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public float getValue(int row, int col) {
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            return value(row, col);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private float value(int row, int col) {
+        int band = row / rowsPerBand;
+        return bands[band].getFloat(((row - band * rowsPerBand) * width + col) * Float.BYTES);
+    }
+
+    /**
+     * Sums up the values of all cells whose centers lie within the given polygonal geometry.
+     *
+     * @param geometry {@link Polygon} or {@link org.locationtech.jts.geom.MultiPolygon} in EPSG:4326
+     * @return sum of the cell values
+     */
+    public double sum(Geometry geometry) {
+        double[] edges = collectEdges(geometry);
+        if (edges.length == 0)
+            return 0;
+
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            return sum(geometry, edges);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed)
+            throw new IllegalStateException("The population raster has been closed.");
+    }
+
+    private double sum(Geometry geometry, double[] edges) {
+
+        Envelope env = geometry.getEnvelopeInternal();
+        int firstRow = Math.max(0, (int) Math.floor((maxY - env.getMaxY()) / cellHeight));
+        int lastRow = Math.min(height - 1, (int) Math.floor((maxY - env.getMinY()) / cellHeight));
+
+        double[] crossings = new double[edges.length / 4];
+        double sum = 0;
+        for (int row = firstRow; row <= lastRow; row++) {
+            double y = maxY - (row + 0.5) * cellHeight;
+            int n = 0;
+            for (int e = 0; e < edges.length; e += 4) {
+                double y1 = edges[e + 1];
+                double y2 = edges[e + 3];
+                if ((y1 <= y) != (y2 <= y)) {
+                    double x1 = edges[e];
+                    crossings[n++] = x1 + (y - y1) * (edges[e + 2] - x1) / (y2 - y1);
+                }
+            }
+            if (n < 2)
+                continue;
+            Arrays.sort(crossings, 0, n);
+            for (int i = 0; i + 1 < n; i += 2) {
+                int firstCol = Math.max(0, (int) Math.ceil((crossings[i] - minX) / cellWidth - 0.5));
+                int lastCol = Math.min(width - 1, (int) Math.ceil((crossings[i + 1] - minX) / cellWidth - 0.5) - 1);
+                if (firstCol <= lastCol)
+                    sum += sumRow(row, firstCol, lastCol);
+            }
+        }
+        return sum;
+    }
+
+    private double sumRow(int row, int firstCol, int lastCol) {
+        double sum = 0;
+        for (int tileCol = firstCol / tileSize; tileCol <= lastCol / tileSize; tileCol++) {
+            int tileStart = tileCol * tileSize;
+            int from = Math.max(firstCol, tileStart) - tileStart;
+            int to = Math.min(lastCol, tileStart + tileSize - 1) - tileStart;
+            double[] prefix = getRowPrefixSums(row, tileCol);
+            sum += prefix[to + 1] - prefix[from];
+        }
+        return sum;
+    }
+
+    private double[] getRowPrefixSums(int row, int tileCol) {
+        long key = (long) row * tilesX + tileCol;
+        double[] prefix = rowPrefixSums.get(key);
+        if (prefix == null) {
+            int cols = Math.min(tileSize, width - tileCol * tileSize);
+            prefix = new double[cols + 1];
+            for (int c = 0; c < cols; c++)
+                prefix[c + 1] = prefix[c] + value(row, tileCol * tileSize + c);
+            rowPrefixSums.put(key, prefix);
+        }
+        return prefix;
+    }
+
+    private static double[] collectEdges(Geometry geometry) {
+        int nEdges = 0;
+        for (int g = 0; g < geometry.getNumGeometries(); g++) {
+            Geometry part = geometry.getGeometryN(g);
+            if (part instanceof Polygon polygon) {
+                nEdges += polygon.getExteriorRing().getNumPoints() - 1;
+                for (int h = 0; h < polygon.getNumInteriorRing(); h++)
+                    nEdges += polygon.getInteriorRingN(h).getNumPoints() - 1;
+            }
+        }
+        double[] edges = new double[Math.max(0, nEdges) * 4];
+        int pos = 0;
+        for (int g = 0; g < geometry.getNumGeometries(); g++) {
+            Geometry part = geometry.getGeometryN(g);
+            if (part instanceof Polygon polygon) {
+                pos = addRing(polygon.getExteriorRing(), edges, pos);
+                for (int h = 0; h < polygon.getNumInteriorRing(); h++)
+                    pos = addRing(polygon.getInteriorRingN(h), edges, pos);
+            }
+        }
+        return edges;
+    }
+
+    private static int addRing(LineString ring, double[] edges, int pos) {
+        Coordinate[] coords = ring.getCoordinates();
+        for (int i = 0; i + 1 < coords.length; i++) {
+            edges[pos++] = coords[i].x;
+            edges[pos++] = coords[i].y;
+            edges[pos++] = coords[i + 1].x;
+            edges[pos++] = coords[i + 1].y;
+        }
+        return pos;
+    }
+
+    /**
+     * Releases the buffers once the sums which are still being computed have finished.
+     */
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            closed = true;
+            rowPrefixSums.clear();
+            Arrays.fill(bands, null);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Writes a population raster file. No-data cells should be passed as 0.
+     *
+     * @param values cell values in row-major order starting at the north-west corner
+     */
+    public static void write(Path file, int width, int height, double minX, double maxY, double cellWidth, double cellHeight, int tileSize, float[] values) throws IOException {
+        if (values.length != width * height)
+            throw new IllegalArgumentException("Number of values does not match the raster size.");
+        try (RasterWriter writer = new RasterWriter(file, width, height, minX, maxY, cellWidth, cellHeight, tileSize)) {
+            for (float value : values)
+                writer.write(value);
+        }
+    }
+
+    /**
+     * Converts an ESRI ASCII grid in EPSG:4326 into a population raster file. Other formats such as GeoTIFF can be
+     * converted into an ASCII grid first, e.g. with {@code gdal_translate -of AAIGrid}.
+     */
+    public static void convertAsciiGrid(Path source, Path target, int tileSize) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(source)) {
+            int width = 0;
+            int height = 0;
+            double x = 0;
+            double y = 0;
+            double cellSize = 0;
+            boolean center = false;
+            Double noData = null;
+            String token = nextToken(reader);
+            while (token != null && Character.isLetter(token.charAt(0))) {
+                String value = nextToken(reader);
+                if (value == null)
+                    throw new IOException("Unexpected end of ASCII grid header.");
+                switch (token.toLowerCase(Locale.ROOT)) {
+                    case "ncols" -> width = Integer.parseInt(value);
+                    case "nrows" -> height = Integer.parseInt(value);
+                    case "xllcorner" -> x = Double.parseDouble(value);
+                    case "yllcorner" -> y = Double.parseDouble(value);
+                    case "xllcenter" -> {
+                        x = Double.parseDouble(value);
+                        center = true;
+                    }
+                    case "yllcenter" -> {
+                        y = Double.parseDouble(value);
+                        center = true;
+                    }
+                    case "cellsize" -> cellSize = Double.parseDouble(value);
+                    case "nodata_value" -> noData = Double.parseDouble(value);
+                    default -> throw new IOException("Unknown ASCII grid header entry '" + token + "'.");
+                }
+                token = nextToken(reader);
+            }
+            if (width <= 0 || height <= 0 || cellSize <= 0)
+                throw new IOException("Invalid ASCII grid header.");
+            if (center) {
+                x -= cellSize / 2;
+                y -= cellSize / 2;
+            }
+            try (RasterWriter writer = new RasterWriter(target, width, height, x, y + height * cellSize, cellSize, cellSize, tileSize)) {
+                for (long i = 0; i < (long) width * height; i++) {
+                    if (token == null)
+                        throw new IOException("Unexpected end of ASCII grid data.");
+                    double value = Double.parseDouble(token);
+                    writer.write(Double.isNaN(value) || (noData != null && value == noData) || value < 0 ? 0f : (float) value);
+                    token = nextToken(reader);
+                }
+            }
+        }
+    }
+
+    private static String nextToken(BufferedReader reader) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        int c = reader.read();
+        while (c != -1 && Character.isWhitespace(c))
+            c = reader.read();
+        while (c != -1 && !Character.isWhitespace(c)) {
+            sb.append((char) c);
+            c = reader.read();
+        }
+        return sb.isEmpty() ? null : sb.toString();
+    }
+
+    private static class RasterWriter implements Closeable {
+        private final DataOutputStream out;
+        private final ByteBuffer buffer = ByteBuffer.allocate(Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+        RasterWriter(Path file, int width, int height, double minX, double maxY, double cellWidth, double cellHeight, int tileSize) throws IOException {
+            if (tileSize <= 0)
+                throw new IllegalArgumentException("tileSize must be greater than 0.");
+            OutputStream os = Files.newOutputStream(file);
+            out = new DataOutputStream(new BufferedOutputStream(os, 1 << 16));
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height).putInt(tileSize);
+            header.putDouble(minX).putDouble(maxY).putDouble(cellWidth).putDouble(cellHeight);
+            out.write(header.array());
+        }
+
+        void write(float value) throws IOException {
+            buffer.clear();
+            buffer.putFloat(value);
+            out.write(buffer.array());
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.isochrones.statistics.raster;
+
+import com.graphhopper.util.Helper;
+import org.apache.log4j.Logger;
+import org.heigit.ors.exceptions.InternalServerException;
+import org.heigit.ors.isochrones.Isochrone;
+import org.heigit.ors.isochrones.IsochronesErrorCodes;
+import org.heigit.ors.isochrones.statistics.StatisticsProvider;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+
+/**
+ * Computes population statistics in-process from a local {@link PopulationRaster} file, so that no external database
+ * is needed. ESRI ASCII grids given as {@code file} are converted into the raster format on first use. The converted
+ * raster is written to {@code cache_path}, by default next to the grid or, if that directory is not writable, into the
+ * temporary directory, and converted again whenever the grid is newer.
+ */
+public class RasterStatisticsProvider implements StatisticsProvider {
+    private static final Logger LOGGER = Logger.getLogger(RasterStatisticsProvider.class.getName());
+
+    private static final String PARAM_KEY_FILE = "file";
+    private static final String PARAM_KEY_TILE_SIZE = "tile_size";
+    private static final String PARAM_KEY_ROW_CACHE_SIZE = "row_cache_size";
+    private static final String PARAM_KEY_CACHE_PATH = "cache_path";
+    private static final String KEY_TOTAL_POP = "total_pop";
+    private static final String RASTER_FILE_EXTENSION = ".orsraster";
+    private static final int DEFAULT_TILE_SIZE = 256;
+    // prefix sums of one row within a tile, about 34 MB with the default tile size
+    private static final int DEFAULT_ROW_CACHE_SIZE = 16384;
+
+    private volatile PopulationRaster raster;
+
+    @Override
+    public void init(Map<String, Object> parameters) throws Exception {
+        raster = null;
+
+        String value = (String) parameters.get(PARAM_KEY_FILE);
+        if (Helper.isEmpty(value))
+            throw new InternalServerException(IsochronesErrorCodes.UNKNOWN, "'file' parameter can not be null or empty.");
+        Path file = Paths.get(value);
+
+        int tileSize = DEFAULT_TILE_SIZE;
+        if (parameters.containsKey(PARAM_KEY_TILE_SIZE))
+            tileSize = (Integer) parameters.get(PARAM_KEY_TILE_SIZE);
+        int rowCacheSize = DEFAULT_ROW_CACHE_SIZE;
+        if (parameters.containsKey(PARAM_KEY_ROW_CACHE_SIZE))
+            rowCacheSize = (Integer) parameters.get(PARAM_KEY_ROW_CACHE_SIZE);
+
+        if (value.toLowerCase().endsWith(".asc")) {
+            String cachePath = (String) parameters.get(PARAM_KEY_CACHE_PATH);
+            file = convert(file, Helper.isEmpty(cachePath) ? null : Paths.get(cachePath), tileSize);
+        }
+
+        raster = PopulationRaster.open(file, rowCacheSize);
+        LOGGER.info("Loaded population raster '" + file + "' with " + raster.getWidth() + "x" + raster.getHeight() + " cells.");
+    }
+
+    static Path convert(Path grid, Path cachePath, int tileSize) throws IOException {
+        Path directory = cachePath;
+        if (directory == null) {
+            directory = grid.toAbsolutePath().getParent();
+            if (!Files.isWritable(directory))
+                directory = Paths.get(System.getProperty("java.io.tmpdir"));
+        }
+        String name = grid.getFileName().toString();
+        Path converted = directory.resolve(name.substring(0, name.length() - 4) + RASTER_FILE_EXTENSION);
+        if (Files.exists(converted) && !Files.getLastModifiedTime(grid).toInstant().isAfter(Files.getLastModifiedTime(converted).toInstant()))
+            return converted;
+
+        LOGGER.info("Converting population grid '" + grid + "' to '" + converted + "'.");
+        Files.createDirectories(directory);
+        // a partially written raster must not be picked up by the next start
+        Path partial = Files.createTempFile(directory, name, ".part");
+        try {
+            PopulationRaster.convertAsciiGrid(grid, partial, tileSize);
+            Files.move(partial, converted, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+        return converted;
+    }
+
+    @Override
+    public void close() {
+        PopulationRaster closing = raster;
+        raster = null;
+        if (closing != null)
+            closing.close();
+    }
+
+    @Override
+    public String getName() {
+        return "raster";
+    }
+
+    /**
+     * Sums up the population of all raster cells whose centers lie within the isochrone. Only {@code total_pop} is
+     * supported.
+     */
+    @Override
+    public double[] getStatistics(Isochrone isochrone, String[] properties) throws Exception {
+        PopulationRaster current = raster;
+        if (current == null)
+            throw new InternalServerException(IsochronesErrorCodes.UNKNOWN, "The population raster is not available.");
+        double[] res = new double[properties.length];
+        for (int i = 0; i < properties.length; i++) {
+            if (!KEY_TOTAL_POP.equals(properties[i]))
+                throw new InternalServerException(IsochronesErrorCodes.UNKNOWN, "Unable to retrieve data from the data source.");
+            res[i] = Math.round(current.sum(isochrone.getGeometry()));
+        }
+        return res;
+    }
+}
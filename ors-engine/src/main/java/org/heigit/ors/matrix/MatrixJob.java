@@ -0,0 +1,138 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.matrix;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * State of an asynchronously computed matrix, see {@link MatrixJobManager}.
+ */
+public class MatrixJob {
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED;
+
+        public boolean isFinished() {
+            return this == COMPLETED || this == FAILED || this == CANCELLED;
+        }
+    }
+
+    private final String id;
+    private final MatrixRequest request;
+    private final Path resultFile;
+    private final int tiles;
+    private final AtomicInteger completedTiles = new AtomicInteger();
+    private final long created = System.currentTimeMillis();
+    private volatile Status status = Status.QUEUED;
+    private volatile String error;
+    private volatile long finished;
+    private volatile Future<?> future;
+    private volatile List<Future<?>> tileFutures = List.of();
+
+    MatrixJob(String id, MatrixRequest request, Path resultFile, int tiles) {
+        this.id = id;
+        this.request = request;
+        this.resultFile = resultFile;
+        this.tiles = tiles;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public MatrixRequest getRequest() {
+        return request;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * @return message describing why the job failed, or {@code null}
+     */
+    public String getError() {
+        return error;
+    }
+
+    public int getTiles() {
+        return tiles;
+    }
+
+    public int getCompletedTiles() {
+        return completedTiles.get();
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    /**
+     * @return time the job has finished at, or 0 if it is still queued or running
+     */
+    public long getFinished() {
+        return finished;
+    }
+
+    /**
+     * @return file with the binary result, only present if the job has completed, see {@link MatrixJobManager}
+     */
+    public Path getResultFile() {
+        return resultFile;
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    void setTileFutures(List<Future<?>> tileFutures) {
+        this.tileFutures = tileFutures;
+    }
+
+    void tileCompleted() {
+        completedTiles.incrementAndGet();
+    }
+
+    /**
+     * @return whether the job has been started, i.e. it has not been cancelled before
+     */
+    synchronized boolean start() {
+        if (status != Status.QUEUED)
+            return false;
+        status = Status.RUNNING;
+        return true;
+    }
+
+    synchronized void finish(Status status, String error) {
+        if (this.status.isFinished())
+            return;
+        this.status = status;
+        this.error = error;
+        this.finished = System.currentTimeMillis();
+    }
+
+    void cancel() {
+        finish(Status.CANCELLED, null);
+        cancelTiles();
+        if (future != null)
+            future.cancel(true);
+    }
+
+    void cancelTiles() {
+        for (Future<?> tile : tileFutures)
+            tile.cancel(true);
+    }
+}
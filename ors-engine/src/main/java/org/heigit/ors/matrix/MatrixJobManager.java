@@ -0,0 +1,426 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.matrix;
+
+import org.apache.log4j.Logger;
+import org.heigit.ors.common.StatusCode;
+import org.heigit.ors.exceptions.ServerLimitExceededException;
+import org.heigit.ors.exceptions.ServiceOverloadedException;
+import org.heigit.ors.routing.RoutingProfileManager;
+import org.heigit.ors.routing.RoutingProfilesCollection;
+import org.heigit.ors.routing.graphhopper.extensions.SnapCache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Computes very large matrices in the background. A job is split into tiles of at most {@code tileSize} sources and
+ * destinations which are computed in parallel by the regular matrix algorithms and share a snap cache, so that every
+ * location is snapped once per job instead of once per tile.
+ * <p>
+ * Results are spooled to a file {@code <job id>.matrix} in little endian byte order:
+ * <ul>
+ *     <li>header: int32 magic {@code ORSM}, int32 format version, int32 number of sources, int32 number of
+ *     destinations, int32 metrics bit mask as in {@link MatrixMetricsType}</li>
+ *     <li>one float32 table per requested metric, in the order duration, distance, weight, with one row per source;
+ *     unreachable pairs are {@code -1}</li>
+ *     <li>float64 longitude and latitude of the snapped sources followed by those of the destinations, {@code NaN}
+ *     for locations which could not be snapped</li>
+ * </ul>
+ * Jobs are only kept in memory; finished jobs and their files are removed after {@code resultTimeToLive} and any
+ * files left over from a previous run are deleted on start.
+ */
+public class MatrixJobManager {
+    private static final Logger LOGGER = Logger.getLogger(MatrixJobManager.class);
+    public static final int MAGIC = 0x4F52534D;
+    public static final int FORMAT_VERSION = 1;
+    public static final int HEADER_SIZE = 5 * Integer.BYTES;
+    private static final String RESULT_EXTENSION = ".matrix";
+    private static final String PART_EXTENSION = ".part";
+    private static final int[] METRICS = {MatrixMetricsType.DURATION, MatrixMetricsType.DISTANCE, MatrixMetricsType.WEIGHT};
+
+    /**
+     * Computes the tiles of a job, by default with
+     * {@link RoutingProfileManager#computeMatrix(MatrixRequest, SnapCache, RoutingProfilesCollection)} on profiles
+     * which are acquired for the whole job. This keeps a reload from closing the graphs between two tiles and computes
+     * all tiles on the graphs the locations in the shared snap cache refer to. The computer is closed once the job has
+     * finished.
+     */
+    @FunctionalInterface
+    public interface TileComputer extends AutoCloseable {
+        MatrixResult compute(MatrixRequest tile, SnapCache snapCache) throws Exception;
+
+        @Override
+        default void close() {
+        }
+    }
+
+    private final Path spoolPath;
+    private final int tileSize;
+    private final int maximumRoutes;
+    private final int maximumJobs;
+    private final long resultTimeToLive;
+    private final Supplier<TileComputer> tileComputers;
+    private final Map<String, MatrixJob> jobs = new ConcurrentHashMap<>();
+    private final ExecutorService jobExecutor;
+    private final ExecutorService tileExecutor;
+    private final ScheduledExecutorService purgeExecutor;
+
+    /**
+     * @param resultTimeToLive seconds for which the result of a finished job is kept
+     */
+    public MatrixJobManager(Path spoolPath, int threads, int tileSize, int maximumRoutes, int maximumJobs, long resultTimeToLive) throws IOException {
+        this(spoolPath, threads, tileSize, maximumRoutes, maximumJobs, resultTimeToLive, MatrixJobManager::createProfilesTileComputer);
+    }
+
+    public MatrixJobManager(Path spoolPath, int threads, int tileSize, int maximumRoutes, int maximumJobs, long resultTimeToLive, TileComputer tileComputer) throws IOException {
+        this(spoolPath, threads, tileSize, maximumRoutes, maximumJobs, resultTimeToLive, () -> tileComputer);
+    }
+
+    /**
+     * @param tileComputers creates the tile computer of a job when it starts
+     */
+    public MatrixJobManager(Path spoolPath, int threads, int tileSize, int maximumRoutes, int maximumJobs, long resultTimeToLive, Supplier<TileComputer> tileComputers) throws IOException {
+        this.spoolPath = spoolPath;
+        this.tileSize = tileSize;
+        this.maximumRoutes = maximumRoutes;
+        this.maximumJobs = maximumJobs;
+        this.resultTimeToLive = resultTimeToLive * 1000L;
+        this.tileComputers = tileComputers;
+
+        Files.createDirectories(spoolPath);
+        deleteSpoolFiles();
+
+        jobExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "ORS-matrix-job"));
+        tileExecutor = Executors.newFixedThreadPool(threads, runnable -> new Thread(runnable, "ORS-matrix-tile"));
+        purgeExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ORS-matrix-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1000L, Math.min(this.resultTimeToLive, 60_000L));
+        purgeExecutor.scheduleAtFixedRate(this::purge, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queues the computation of the given matrix.
+     *
+     * @throws ServerLimitExceededException if the matrix has more than {@code maximumRoutes} cells
+     * @throws ServiceOverloadedException   if {@code maximumJobs} jobs are already queued or running
+     */
+    public MatrixJob submit(MatrixRequest req) throws ServerLimitExceededException, ServiceOverloadedException {
+        long routes = (long) req.getSources().length * req.getDestinations().length;
+        if (routes > maximumRoutes)
+            throw new ServerLimitExceededException(MatrixErrorCodes.PARAMETER_VALUE_EXCEEDS_MAXIMUM,
+                    "Only a total of %d routes are allowed for matrix jobs.".formatted(maximumRoutes));
+
+        synchronized (jobs) {
+            long unfinished = jobs.values().stream().filter(job -> !job.getStatus().isFinished()).count();
+            if (unfinished >= maximumJobs)
+                throw new ServiceOverloadedException(StatusCode.TOO_MANY_REQUESTS, 60, "Too many matrix jobs are queued, please try again later.");
+
+            String id = UUID.randomUUID().toString();
+            int tiles = tileCount(req.getSources().length) * tileCount(req.getDestinations().length);
+            MatrixJob job = new MatrixJob(id, req, spoolPath.resolve(id + RESULT_EXTENSION), tiles);
+            jobs.put(id, job);
+            job.setFuture(jobExecutor.submit(() -> run(job)));
+            return job;
+        }
+    }
+
+    /**
+     * @return the job with the given id, or {@code null} if it does not exist or has been purged
+     */
+    public MatrixJob getJob(String id) {
+        return jobs.get(id);
+    }
+
+    /**
+     * Cancels the job if it is still queued or running and removes it together with its result.
+     *
+     * @return whether the job existed
+     */
+    public boolean remove(String id) {
+        synchronized (jobs) {
+            MatrixJob job = jobs.remove(id);
+            if (job == null)
+                return false;
+            job.cancel();
+            deleteFiles(job);
+            return true;
+        }
+    }
+
+    /**
+     * Opens the result of a completed job. The job is looked up and its result opened under the same lock that purging
+     * and removing jobs take, so the result cannot be deleted in between; once opened, it can be read to the end even
+     * if the job is removed meanwhile.
+     *
+     * @return the result, or {@code null} if the job does not exist (anymore) or has not completed
+     */
+    public FileChannel openResult(String id) throws IOException {
+        synchronized (jobs) {
+            MatrixJob job = jobs.get(id);
+            if (job == null || job.getStatus() != MatrixJob.Status.COMPLETED)
+                return null;
+            return FileChannel.open(job.getResultFile(), StandardOpenOption.READ);
+        }
+    }
+
+    public void close() {
+        purgeExecutor.shutdownNow();
+        jobExecutor.shutdownNow();
+        tileExecutor.shutdownNow();
+        for (MatrixJob job : jobs.values()) {
+            job.cancel();
+            deleteFiles(job);
+        }
+        jobs.clear();
+    }
+
+    private static TileComputer createProfilesTileComputer() {
+        RoutingProfileManager profileManager = RoutingProfileManager.getInstance();
+        RoutingProfilesCollection profiles = profileManager.acquireProfiles();
+        return new TileComputer() {
+            @Override
+            public MatrixResult compute(MatrixRequest tile, SnapCache snapCache) throws Exception {
+                return profileManager.computeMatrix(tile, snapCache, profiles);
+            }
+
+            @Override
+            public void close() {
+                profiles.release();
+            }
+        };
+    }
+
+    private int tileCount(int locations) {
+        return (locations + tileSize - 1) / tileSize;
+    }
+
+    private void run(MatrixJob job) {
+        if (!job.start())
+            return;
+        MatrixRequest req = job.getRequest();
+        int sources = req.getSources().length;
+        int destinations = req.getDestinations().length;
+        Path partFile = partFile(job);
+        long started = System.currentTimeMillis();
+        RunningTiles runningTiles = new RunningTiles();
+        try (TileComputer tileComputer = tileComputers.get();
+             FileChannel channel = FileChannel.open(partFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            List<Future<?>> tiles = new ArrayList<>(job.getTiles());
+            try {
+                writeHeader(channel, req);
+                SnapCache snapCache = new SnapCache(sources + destinations);
+                for (int srcFrom = 0; srcFrom < sources; srcFrom += tileSize) {
+                    for (int dstFrom = 0; dstFrom < destinations; dstFrom += tileSize) {
+                        int srcTo = Math.min(srcFrom + tileSize, sources);
+                        int dstTo = Math.min(dstFrom + tileSize, destinations);
+                        int tileSrcFrom = srcFrom;
+                        int tileDstFrom = dstFrom;
+                        tiles.add(tileExecutor.submit(() -> {
+                            if (!runningTiles.start())
+                                return null;
+                            try {
+                                computeTile(tileComputer, channel, req, snapCache, tileSrcFrom, srcTo, tileDstFrom, dstTo);
+                            } finally {
+                                runningTiles.finish();
+                            }
+                            job.tileCompleted();
+                            return null;
+                        }));
+                    }
+                }
+                job.setTileFutures(tiles);
+                for (Future<?> tile : tiles)
+                    tile.get();
+                channel.force(false);
+            } finally {
+                // the algorithms do not react to interrupts, so tiles still running after a cancellation or a failed
+                // tile have to complete before the channel is closed and the profiles are released
+                for (Future<?> tile : tiles)
+                    tile.cancel(true);
+                runningTiles.close();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.finish(MatrixJob.Status.CANCELLED, null);
+        } catch (CancellationException e) {
+            job.finish(MatrixJob.Status.CANCELLED, null);
+        } catch (ExecutionException e) {
+            fail(job, e.getCause());
+        } catch (Exception e) {
+            fail(job, e);
+        }
+
+        if (job.getStatus() == MatrixJob.Status.RUNNING) {
+            try {
+                Files.move(partFile, job.getResultFile(), StandardCopyOption.ATOMIC_MOVE);
+                job.finish(MatrixJob.Status.COMPLETED, null);
+                LOGGER.info("Matrix job %s with %d x %d locations completed in %d ms.".formatted(job.getId(), sources, destinations, System.currentTimeMillis() - started));
+            } catch (IOException e) {
+                fail(job, e);
+            }
+        }
+        if (job.getStatus() != MatrixJob.Status.COMPLETED)
+            deleteFiles(job);
+    }
+
+    /**
+     * Counts the tiles of a job whose computation has started. Once closed, no further tile starts and
+     * {@link #close()} returns when the running ones have finished.
+     */
+    private static class RunningTiles {
+        private int running;
+        private boolean closed;
+
+        synchronized boolean start() {
+            if (closed)
+                return false;
+            running++;
+            return true;
+        }
+
+        synchronized void finish() {
+            running--;
+            notifyAll();
+        }
+
+        synchronized void close() {
+            closed = true;
+            boolean interrupted = false;
+            while (running > 0) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+    }
+
+    private void fail(MatrixJob job, Throwable e) {
+        LOGGER.warn("Matrix job %s failed: %s".formatted(job.getId(), e.getMessage()));
+        job.finish(MatrixJob.Status.FAILED, e.getMessage());
+        job.cancelTiles();
+    }
+
+    private void computeTile(TileComputer tileComputer, FileChannel channel, MatrixRequest req, SnapCache snapCache, int srcFrom, int srcTo, int dstFrom, int dstTo) throws Exception {
+        MatrixResult result = tileComputer.compute(req.getTile(srcFrom, srcTo, dstFrom, dstTo), snapCache);
+        int sources = req.getSources().length;
+        int destinations = req.getDestinations().length;
+        int rows = srcTo - srcFrom;
+        int cols = dstTo - dstFrom;
+        long tableSize = (long) sources * destinations * Float.BYTES;
+
+        ByteBuffer row = ByteBuffer.allocate(cols * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        long tableOffset = HEADER_SIZE;
+        for (int metric : METRICS) {
+            if (!MatrixMetricsType.isSet(req.getMetrics(), metric))
+                continue;
+            float[] values = result.getTable(metric);
+            for (int i = 0; i < rows; i++) {
+                row.clear();
+                for (int j = 0; j < cols; j++)
+                    row.putFloat(values[i * cols + j]);
+                row.flip();
+                writeFully(channel, row, tableOffset + ((long) (srcFrom + i) * destinations + dstFrom) * Float.BYTES);
+            }
+            tableOffset += tableSize;
+        }
+
+        // every source is part of one tile in the first column and every destination of one in the first row
+        if (dstFrom == 0)
+            writeLocations(channel, result.getSources(), tableOffset + (long) srcFrom * 2 * Double.BYTES);
+        if (srcFrom == 0)
+            writeLocations(channel, result.getDestinations(), tableOffset + ((long) sources + dstFrom) * 2 * Double.BYTES);
+    }
+
+    private static void writeHeader(FileChannel channel, MatrixRequest req) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(req.getSources().length)
+                .putInt(req.getDestinations().length).putInt(req.getMetrics());
+        header.flip();
+        writeFully(channel, header, 0);
+    }
+
+    private static void writeLocations(FileChannel channel, ResolvedLocation[] locations, long offset) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(locations.length * 2 * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (ResolvedLocation location : locations) {
+            if (location == null) {
+                buffer.putDouble(Double.NaN).putDouble(Double.NaN);
+            } else {
+                buffer.putDouble(location.getCoordinate().x).putDouble(location.getCoordinate().y);
+            }
+        }
+        buffer.flip();
+        writeFully(channel, buffer, offset);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining())
+            position += channel.write(buffer, position);
+    }
+
+    private Path partFile(MatrixJob job) {
+        return spoolPath.resolve(job.getId() + PART_EXTENSION);
+    }
+
+    private void deleteFiles(MatrixJob job) {
+        try {
+            Files.deleteIfExists(partFile(job));
+            Files.deleteIfExists(job.getResultFile());
+        } catch (IOException e) {
+            LOGGER.warn("Unable to delete the files of matrix job %s: %s".formatted(job.getId(), e.getMessage()));
+        }
+    }
+
+    private void deleteSpoolFiles() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(spoolPath, "*{" + RESULT_EXTENSION + "," + PART_EXTENSION + "}")) {
+            for (Path file : files)
+                Files.delete(file);
+        }
+    }
+
+    private void purge() {
+        long now = System.currentTimeMillis();
+        synchronized (jobs) {
+            Iterator<MatrixJob> iter = jobs.values().iterator();
+            while (iter.hasNext()) {
+                MatrixJob job = iter.next();
+                if (job.getStatus().isFinished() && now - job.getFinished() > resultTimeToLive) {
+                    iter.remove();
+                    deleteFiles(job);
+                }
+            }
+        }
+    }
+}
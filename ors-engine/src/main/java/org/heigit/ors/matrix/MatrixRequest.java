@@ -18,6 +18,8 @@ import org.heigit.ors.common.DistanceUnit;
 import org.heigit.ors.common.ServiceRequest;
 import org.locationtech.jts.geom.Coordinate;
 
+import java.util.Arrays;
+
 public class MatrixRequest extends ServiceRequest {
     private int profileType = -1;
     private Coordinate[] sources;
@@ -150,4 +152,24 @@ public class MatrixRequest extends ServiceRequest {
     public void setInfiniteUTurnCosts(boolean hasInfiniteUTurnCosts) {
         this.hasInfiniteUTurnCosts = hasInfiniteUTurnCosts;
     }
+
+    /**
+     * @return copy of this request restricted to the sources and destinations in the given index ranges
+     */
+    public MatrixRequest getTile(int sourcesFrom, int sourcesTo, int destinationsFrom, int destinationsTo) {
+        MatrixRequest tile = new MatrixRequest(maximumSearchRadius, maximumVisitedNodes, 0);
+        tile.setId(getId());
+        tile.profileType = profileType;
+        tile.sources = Arrays.copyOfRange(sources, sourcesFrom, sourcesTo);
+        tile.destinations = Arrays.copyOfRange(destinations, destinationsFrom, destinationsTo);
+        tile.metrics = metrics;
+        tile.weightingMethod = weightingMethod;
+        tile.units = units;
+        tile.resolveLocations = resolveLocations;
+        tile.flexibleMode = flexibleMode;
+        tile.algorithm = algorithm;
+        tile.searchParameters = searchParameters;
+        tile.hasInfiniteUTurnCosts = hasInfiniteUTurnCosts;
+        return tile;
+    }
 }
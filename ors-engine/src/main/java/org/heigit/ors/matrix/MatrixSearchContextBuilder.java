@@ -27,6 +27,7 @@ import com.graphhopper.storage.index.Snap;
 import com.graphhopper.util.shapes.BBox;
 import com.graphhopper.util.shapes.GHPoint3D;
 import org.heigit.ors.exceptions.PointNotFoundException;
+import org.heigit.ors.routing.graphhopper.extensions.SnapCache;
 import org.locationtech.jts.geom.Coordinate;
 
 import java.util.*;
@@ -38,6 +39,7 @@ public class MatrixSearchContextBuilder {
     private Map<Coordinate, LocationEntry> locationCache;
     private final GraphHopperStorage graphHopperStorage;
     private Weighting weighting;
+    private SnapCache snapCache;
 
     public MatrixSearchContextBuilder(GraphHopperStorage graphHopperStorage, LocationIndex index, EdgeFilter edgeFilter, boolean resolveNames) {
         locIndex = index;
@@ -46,6 +48,14 @@ public class MatrixSearchContextBuilder {
         this.graphHopperStorage = graphHopperStorage;
     }
 
+    /**
+     * Sets a profile-scoped cache which is consulted before snapping a location that has not been resolved in the
+     * current request yet.
+     */
+    public void setSnapCache(SnapCache snapCache) {
+        this.snapCache = snapCache;
+    }
+
     public MatrixSearchContext create(Graph graph, RoutingCHGraph chGraph, Weighting weighting, String profileName, Coordinate[] sources, Coordinate[] destinations, double maxSearchRadius) throws Exception {
         if (locationCache == null)
             locationCache = new HashMap<>();
@@ -123,7 +133,7 @@ public class MatrixSearchContextBuilder {
         for (Coordinate p : coords) {
             LocationEntry ld = locationCache.get(p);
             if (ld == null) {
-                Snap qr = locIndex.findClosest(p.y, p.x, getSnapFilter(profileName));
+                Snap qr = findClosest(profileName, p);
 
                 ld = new LocationEntry();
                 ld.snap = qr;
@@ -142,6 +152,12 @@ public class MatrixSearchContextBuilder {
         }
     }
 
+    private Snap findClosest(String profileName, Coordinate p) {
+        if (snapCache == null)
+            return locIndex.findClosest(p.y, p.x, getSnapFilter(profileName));
+        return snapCache.findClosest(locIndex, graphHopperStorage, p.y, p.x, getSnapFilter(profileName), profileName + "|" + weighting.getName());
+    }
+
     protected EdgeFilter getSnapFilter(String profileName) {
         EdgeFilter defaultSnapFilter = new DefaultSnapFilter(weighting, this.graphHopperStorage.getEncodingManager().getBooleanEncodedValue(Subnetwork.key(profileName)));
         //TODO when Matrix supports additional parameters such as avoidables in the future, the corresponding filters need to be added here for snapping
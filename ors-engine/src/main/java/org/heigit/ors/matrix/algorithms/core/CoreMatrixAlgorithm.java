@@ -36,6 +36,7 @@ import org.heigit.ors.routing.graphhopper.extensions.core.CoreMatrixFilter;
 import org.heigit.ors.routing.graphhopper.extensions.storages.AveragedMultiTreeSPEntry;
 import org.heigit.ors.routing.graphhopper.extensions.storages.MultiTreeSPEntryItem;
 import org.heigit.ors.routing.graphhopper.extensions.util.GraphUtils;
+import org.heigit.ors.util.StageMetrics;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -399,6 +400,7 @@ public class CoreMatrixAlgorithm extends AbstractContractedMatrixAlgorithm {
         int[] entryPoints = coreEntryPoints.toArray();
         int[] exitPoints = coreExitPoints.toArray();
         algorithm.calcPaths(entryPoints, exitPoints);
+        StageMetrics.accumulateSettledCoreNodes((long) algorithm.getVisitedNodes() - visitedNodes);
         visitedNodes = algorithm.getVisitedNodes();
     }
 
@@ -52,6 +52,30 @@ public class RouteResult {
         legs = new ArrayList<>();
     }
 
+    /**
+     * Creates a copy of the given result which can be modified without affecting it. The segments, legs, extra infos
+     * and warnings are shared, as they are not modified once the result has been built.
+     */
+    public RouteResult(RouteResult other) {
+        if (other.geometry != null) {
+            geometry = new Coordinate[other.geometry.length];
+            for (int i = 0; i < geometry.length; i++)
+                geometry[i] = other.geometry[i].copy();
+        }
+        segments = new ArrayList<>(other.segments);
+        legs = new ArrayList<>(other.legs);
+        if (other.extraInfo != null)
+            extraInfo = new ArrayList<>(other.extraInfo);
+        if (other.pointlist != null)
+            addPointlist(other.pointlist);
+        graphDate = other.graphDate;
+        wayPointsIndices = new ArrayList<>(other.wayPointsIndices);
+        routeWarnings = new ArrayList<>(other.routeWarnings);
+        summary = new RouteSummary(other.summary);
+        departure = other.departure;
+        arrival = other.arrival;
+    }
+
     public void addSegment(RouteSegment seg) {
         segments.add(seg);
     }
@@ -0,0 +1,216 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.routing;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Metrics;
+import org.heigit.ors.routing.parameters.ProfileParameters;
+import org.heigit.ors.routing.parameters.VehicleParameters;
+import org.heigit.ors.routing.parameters.WheelchairParameters;
+import org.heigit.ors.util.LruCache;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Polygon;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Opt-in cache of {@link RouteResult}s for identical routing requests, bounded by the estimated size of the results.
+ * <p>
+ * The key is a normalized string representation of all {@link RoutingRequest} and {@link RouteSearchParameters}
+ * fields that influence the result, together with the profile name and its graph build date. Requests with a
+ * departure or arrival time are only cached if explicitly enabled, round trips only if they have a fixed seed.
+ * Results are copied when they are put into and taken from the cache, so that a request modifying its results does not
+ * affect the cached ones. The copies share the segments, legs and extra infos, which are not modified once built.
+ */
+public class RouteResultCache {
+    private static final long BYTES_PER_COORDINATE = 48;
+    private static final long BYTES_PER_STEP = 512;
+    private static final long BYTES_PER_ROUTE = 1024;
+    private static final char SEPARATOR = '|';
+
+    private final LruCache<String, RouteResult[]> cache;
+    private final List<Meter> meters;
+    private final boolean cacheTimeDependent;
+
+    public RouteResultCache(long maximumSize, int timeToLive, boolean cacheTimeDependent) {
+        this.cache = new LruCache<>(maximumSize, timeToLive * 1000L, RouteResultCache::estimateSize);
+        this.meters = cache.registerMeters(Metrics.globalRegistry, "ors.routing.cache");
+        this.cacheTimeDependent = cacheTimeDependent;
+    }
+
+    /**
+     * @return the normalized key of the request, or {@code null} if its result must not be cached
+     */
+    public String createKey(RoutingRequest req, RoutingProfile rp) {
+        return createKey(req, rp.getConfiguration().getName(), rp.getGraphProperties().get("datareader.import.date"));
+    }
+
+    /**
+     * @param profileName the name of the profile computing the route
+     * @param graphDate   the import date of its graph, so that a reloaded graph does not share entries with the former one
+     * @return the normalized key of the request, or {@code null} if its result must not be cached
+     */
+    public String createKey(RoutingRequest req, String profileName, String graphDate) {
+        RouteSearchParameters params = req.getSearchParameters();
+        if (params.isTimeDependent() && !cacheTimeDependent)
+            return null;
+        if (params.getRoundTripLength() > 0 && params.getRoundTripSeed() < 0)
+            return null;
+
+        StringBuilder sb = new StringBuilder(256);
+        append(sb, profileName);
+        append(sb, graphDate);
+        for (Coordinate c : req.getCoordinates()) {
+            sb.append(c.x).append(',').append(c.y).append(SEPARATOR);
+        }
+        append(sb, req.getUnits());
+        append(sb, req.getLanguage());
+        append(sb, req.getGeometryFormat());
+        append(sb, req.getGeometrySimplify());
+        append(sb, req.getInstructionsFormat());
+        append(sb, req.getIncludeInstructions());
+        append(sb, req.getIncludeElevation());
+        append(sb, req.getIncludeGeometry());
+        append(sb, req.getIncludeManeuvers());
+        append(sb, req.getIncludeRoundaboutExits());
+        append(sb, Arrays.toString(req.getAttributes()));
+        append(sb, req.getExtraInfo());
+        append(sb, req.getContinueStraight());
+        append(sb, req.getSkipSegments());
+        append(sb, req.getIncludeCountryInfo());
+        append(sb, req.getMaximumSpeed());
+        append(sb, req.getResponseFormat());
+
+        append(sb, params.getProfileType());
+        append(sb, params.getWeightingMethod());
+        append(sb, params.getConsiderTurnRestrictions());
+        if (params.hasAvoidAreas()) {
+            for (Polygon polygon : params.getAvoidAreas())
+                append(sb, polygon.toText());
+        }
+        append(sb, params.getAvoidFeatureTypes());
+        append(sb, Arrays.toString(params.getAvoidCountries()));
+        append(sb, params.getAvoidBorders());
+        append(sb, params.getVehicleType());
+        appendProfileParameters(sb, params.getProfileParameters());
+        if (params.getBearings() != null) {
+            for (WayPointBearing bearing : params.getBearings())
+                append(sb, bearing == null ? null : bearing.getValue());
+        }
+        append(sb, params.hasContinueStraight());
+        append(sb, Arrays.toString(params.getMaximumRadiuses()));
+        append(sb, params.hasFlexibleMode());
+        append(sb, params.getOptimized());
+        append(sb, params.getExtraInfo());
+        append(sb, params.getSuppressWarnings());
+        append(sb, params.getAlternativeRoutesCount());
+        append(sb, params.getAlternativeRoutesWeightFactor());
+        append(sb, params.getAlternativeRoutesShareFactor());
+        append(sb, params.getRoundTripLength());
+        append(sb, params.getRoundTripPoints());
+        append(sb, params.getRoundTripSeed());
+        append(sb, params.hasMaximumSpeed() ? params.getMaximumSpeed() : null);
+        append(sb, params.getDeparture());
+        append(sb, params.getArrival());
+        append(sb, params.getSchedule());
+        append(sb, params.hasScheduleRows() ? params.getScheduleRows() : null);
+        append(sb, params.getScheduleDuaration());
+        append(sb, params.getIgnoreTransfers());
+        append(sb, params.getWalkingTime());
+        return sb.toString();
+    }
+
+    private static void appendProfileParameters(StringBuilder sb, ProfileParameters profileParams) {
+        if (profileParams == null) {
+            append(sb, null);
+            return;
+        }
+        append(sb, profileParams.getClass().getSimpleName());
+        if (profileParams instanceof VehicleParameters vehicleParams) {
+            append(sb, vehicleParams.getLength());
+            append(sb, vehicleParams.getHeight());
+            append(sb, vehicleParams.getWidth());
+            append(sb, vehicleParams.getWeight());
+            append(sb, vehicleParams.getAxleload());
+            append(sb, vehicleParams.getLoadCharacteristics());
+        } else if (profileParams instanceof WheelchairParameters wheelchairParams) {
+            append(sb, wheelchairParams.getMaximumIncline());
+            append(sb, wheelchairParams.getSurfaceType());
+            append(sb, wheelchairParams.getMaximumSlopedKerb());
+            append(sb, wheelchairParams.getTrackType());
+            append(sb, wheelchairParams.getSmoothnessType());
+            append(sb, wheelchairParams.getMinimumWidth());
+            append(sb, wheelchairParams.isRequireSurfaceQualityKnown());
+            append(sb, wheelchairParams.allowUnsuitable());
+        }
+        if (profileParams.hasWeightings()) {
+            Iterator<ProfileWeighting> iterator = profileParams.getWeightings().getIterator();
+            while (iterator.hasNext()) {
+                ProfileWeighting weighting = iterator.next();
+                append(sb, weighting.getName());
+                Map<String, Object> sorted = new TreeMap<>(weighting.getParameters().toMap());
+                append(sb, sorted);
+            }
+        }
+    }
+
+    private static void append(StringBuilder sb, Object value) {
+        sb.append(value).append(SEPARATOR);
+    }
+
+    /**
+     * @return a copy of the cached results, or {@code null} if there is no valid entry
+     */
+    public RouteResult[] get(String key) {
+        RouteResult[] cached = cache.get(key);
+        return cached == null ? null : copy(cached);
+    }
+
+    public void put(String key, RouteResult[] result) {
+        cache.put(key, copy(result));
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    public void close() {
+        cache.clear();
+        for (Meter meter : meters)
+            Metrics.globalRegistry.remove(meter);
+    }
+
+    private static RouteResult[] copy(RouteResult[] results) {
+        RouteResult[] res = new RouteResult[results.length];
+        for (int i = 0; i < results.length; i++)
+            res[i] = new RouteResult(results[i]);
+        return res;
+    }
+
+    private static long estimateSize(RouteResult[] results) {
+        long size = 0;
+        for (RouteResult result : results) {
+            size += BYTES_PER_ROUTE;
+            if (result.getGeometry() != null)
+                size += BYTES_PER_COORDINATE * result.getGeometry().length;
+            for (RouteSegment segment : result.getSegments())
+                size += BYTES_PER_STEP * segment.getSteps().size();
+        }
+        return size;
+    }
+}
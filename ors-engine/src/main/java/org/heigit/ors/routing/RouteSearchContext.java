@@ -16,6 +16,7 @@ package org.heigit.ors.routing;
 import com.graphhopper.GraphHopper;
 import com.graphhopper.routing.util.FlagEncoder;
 import com.graphhopper.util.PMap;
+import org.heigit.ors.routing.timezone.TimeZoneResolver;
 
 public class RouteSearchContext {
     private final GraphHopper graphhopper;
@@ -23,6 +24,7 @@ public class RouteSearchContext {
     private final String profileName;
     private final String profileNameCH;
     private PMap properties;
+    private TimeZoneResolver timeZoneResolver = TimeZoneResolver.DEFAULT;
 
     public RouteSearchContext(GraphHopper gh, FlagEncoder encoder, String profileName, String profileNameCH) {
         graphhopper = gh;
@@ -47,6 +49,14 @@ public class RouteSearchContext {
         properties = value;
     }
 
+    public TimeZoneResolver getTimeZoneResolver() {
+        return timeZoneResolver;
+    }
+
+    public void setTimeZoneResolver(TimeZoneResolver timeZoneResolver) {
+        this.timeZoneResolver = timeZoneResolver;
+    }
+
     public String profileName() {
         return profileName;
     }
@@ -26,6 +26,20 @@ public class RouteSummary {
     private int transfers;
     private int fare;
 
+    public RouteSummary() {
+    }
+
+    public RouteSummary(RouteSummary other) {
+        distance = other.distance;
+        duration = other.duration;
+        ascent = other.ascent;
+        descent = other.descent;
+        avgSpeed = other.avgSpeed;
+        bbox = other.bbox == null ? null : other.bbox.clone();
+        transfers = other.transfers;
+        fare = other.fare;
+    }
+
     public double getDistance() {
         return distance;
     }
@@ -27,7 +27,10 @@ import com.graphhopper.routing.util.FlagEncoder;
 import com.graphhopper.routing.weighting.Weighting;
 import com.graphhopper.storage.*;
 import com.graphhopper.storage.index.LocationIndex;
+import com.graphhopper.storage.index.Snap;
 import com.graphhopper.util.*;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
 import com.graphhopper.util.shapes.BBox;
 import com.graphhopper.util.shapes.GHPoint;
 import com.typesafe.config.Config;
@@ -42,6 +45,7 @@ import org.heigit.ors.export.ExportRequest;
 import org.heigit.ors.export.ExportResult;
 import org.heigit.ors.export.ExportWarning;
 import org.heigit.ors.isochrones.*;
+import org.heigit.ors.isochrones.builders.IsochroneMapBuilder;
 import org.heigit.ors.isochrones.statistics.StatisticsProvider;
 import org.heigit.ors.isochrones.statistics.StatisticsProviderConfiguration;
 import org.heigit.ors.isochrones.statistics.StatisticsProviderFactory;
@@ -51,6 +55,8 @@ import org.heigit.ors.matrix.algorithms.dijkstra.DijkstraMatrixAlgorithm;
 import org.heigit.ors.matrix.algorithms.rphast.RPHASTMatrixAlgorithm;
 import org.heigit.ors.routing.configuration.RouteProfileConfiguration;
 import org.heigit.ors.routing.graphhopper.extensions.*;
+import org.heigit.ors.routing.graphhopper.extensions.core.CustomizableCore;
+import org.heigit.ors.routing.graphhopper.extensions.core.PrepareCore;
 import org.heigit.ors.routing.graphhopper.extensions.flagencoders.FlagEncoderNames;
 import org.heigit.ors.routing.graphhopper.extensions.storages.GraphStorageUtils;
 import org.heigit.ors.routing.graphhopper.extensions.storages.OsmIdGraphStorage;
@@ -59,9 +65,13 @@ import org.heigit.ors.routing.graphhopper.extensions.storages.builders.BordersGr
 import org.heigit.ors.routing.graphhopper.extensions.storages.builders.GraphStorageBuilder;
 import org.heigit.ors.routing.graphhopper.extensions.util.ORSParameters;
 import org.heigit.ors.routing.parameters.ProfileParameters;
+import org.heigit.ors.routing.parameters.VehicleParameters;
+import org.heigit.ors.routing.parameters.WheelchairParameters;
 import org.heigit.ors.routing.pathprocessors.ORSPathProcessorFactory;
+import org.heigit.ors.routing.timezone.TimeZoneResolver;
 import org.heigit.ors.util.DebugUtility;
 import org.heigit.ors.util.ProfileTools;
+import org.heigit.ors.util.StageMetrics;
 import org.heigit.ors.util.StringUtility;
 import org.heigit.ors.util.TimeUtility;
 import org.locationtech.jts.geom.Coordinate;
@@ -85,6 +95,7 @@ import java.util.*;
 public class RoutingProfile {
     private static final Logger LOGGER = Logger.getLogger(RoutingProfile.class);
     private static final Object lockObj = new Object();
+    static final String GRAPH_DATA_ACCESS = "RAM_STORE";
     private static int profileIdentifier = 0;
     private final Integer[] mRoutePrefs;
     private final RouteProfileConfiguration config;
@@ -92,6 +103,13 @@ public class RoutingProfile {
     private Integer mUseCounter;
     private String astarApproximation;
     private Double astarEpsilon;
+    private IsochroneMapCache isochroneCache;
+    private StageMetrics metrics;
+    private StageMetrics warmUpMetrics;
+    private final boolean metricsPercentileHistograms;
+    private volatile boolean warmingUp;
+    private PtRouter ptRouter;
+    private TimeZoneResolver timeZoneResolver;
 
     public RoutingProfile(EngineConfig engineConfig, RouteProfileConfiguration rpc, RoutingProfileLoadContext loadCntx) throws Exception {
         mRoutePrefs = rpc.getProfilesTypes();
@@ -100,6 +118,7 @@ public class RoutingProfile {
         mGraphHopper = initGraphHopper(engineConfig, rpc, loadCntx);
 
         config = rpc;
+        timeZoneResolver = loadCntx.getTimeZoneResolver();
 
         Config optsExecute = config.getExecutionOpts();
         if (optsExecute != null) {
@@ -108,6 +127,23 @@ public class RoutingProfile {
             if (optsExecute.hasPath("methods.astar.epsilon"))
                 astarEpsilon = Double.parseDouble(optsExecute.getString("methods.astar.epsilon"));
         }
+
+        if (engineConfig.getIsochroneCacheMaximumSize() > 0)
+            isochroneCache = new IsochroneMapCache(config.getName(), engineConfig.getIsochroneCacheMaximumSize(), engineConfig.getIsochroneCacheTimeToLive());
+        metricsPercentileHistograms = engineConfig.isMetricsPercentileHistograms();
+        metrics = new StageMetrics(Metrics.globalRegistry, config.getName(), metricsPercentileHistograms);
+        if (!config.getGtfsFile().isEmpty())
+            ptRouter = createPtRouter(mGraphHopper);
+    }
+
+    /**
+     * Builds the public transport router of a graph. This loads the translations and derives the transfer tables of
+     * all GTFS feeds, which is why it is only done once per graph. The router keeps all per-request state in the
+     * request handler it creates for each route, so it can be shared by concurrent requests.
+     */
+    public static PtRouter createPtRouter(ORSGraphHopper gh) {
+        return new PtRouterImpl.Factory(gh.getConfig(), gh.getTranslationMap(), gh.getGraphHopperStorage(), gh.getLocationIndex(), gh.getGtfsStorage())
+                .createWithoutRealtimeFeed();
     }
 
     public static ORSGraphHopper initGraphHopper(EngineConfig engineConfig, RouteProfileConfiguration config, RoutingProfileLoadContext loadCntx) throws Exception {
@@ -150,6 +186,9 @@ public class RoutingProfile {
             loadCntx.setElevationProvider(gh.getElevationProvider());
         }
         gh.setGraphStorageFactory(new ORSGraphStorageFactory(gpc.getStorageBuilders()));
+        gh.setSharedOSMReader(loadCntx.getSharedOSMReader());
+        if (engineConfig.getSnapCacheMaximumSize() > 0)
+            gh.setSnapCache(new SnapCache(config.getName(), engineConfig.getSnapCacheMaximumSize(), engineConfig.getSnapCacheTimeToLive()));
 
         gh.importOrLoad();
         // store CountryBordersReader for later use
@@ -178,7 +217,7 @@ public class RoutingProfile {
 
     private static ORSGraphHopperConfig createGHSettings(String sourceFile, RouteProfileConfiguration config) {
         ORSGraphHopperConfig ghConfig = new ORSGraphHopperConfig();
-        ghConfig.putObject("graph.dataaccess", "RAM_STORE");
+        ghConfig.putObject("graph.dataaccess", GRAPH_DATA_ACCESS);
         ghConfig.putObject("datareader.file", sourceFile);
         ghConfig.putObject("graph.location", config.getGraphPath());
         ghConfig.putObject("graph.bytes_for_flags", config.getEncoderFlagsSize());
@@ -204,26 +243,25 @@ public class RoutingProfile {
         Integer[] profilesTypes = config.getProfilesTypes();
         Map<String, Profile> profiles = new LinkedHashMap<>();
 
-        // TODO Future improvement : Multiple profiles were used to share the graph  for several
-        //       bike profiles. We don't use this feature now but it might be
-        //       desireable in the future. However, this behavior is standard
-        //       in original GH through an already existing mechanism.
-        if (profilesTypes.length != 1)
-            throw new IllegalStateException("Expected single profile in config");
-
-        String vehicle = RoutingProfileType.getEncoderName(profilesTypes[0]);
+        // Several profile types in one configuration share the base graph, geometry and location index, while every
+        // vehicle keeps its own encoded values and CH/LM/core preparations
+        checkSharedGraph(config, profilesTypes);
+        String[] vehicles = Arrays.stream(profilesTypes).map(RoutingProfileType::getEncoderName).toArray(String[]::new);
+        String vehicle = vehicles[0];
 
         boolean hasTurnCosts = config.isTurnCostEnabled();
 
         // TODO Future improvement : make this list of weightings configurable for each vehicle as in GH
         String[] weightings = {ProfileTools.VAL_FASTEST, ProfileTools.VAL_SHORTEST, ProfileTools.VAL_RECOMMENDED};
-        for (String weighting : weightings) {
-            if (hasTurnCosts) {
-                String profileName = ProfileTools.makeProfileName(vehicle, weighting, true);
-                profiles.put(profileName, new Profile(profileName).setVehicle(vehicle).setWeighting(weighting).setTurnCosts(true));
+        for (String v : vehicles) {
+            for (String weighting : weightings) {
+                if (hasTurnCosts) {
+                    String profileName = ProfileTools.makeProfileName(v, weighting, true);
+                    profiles.put(profileName, new Profile(profileName).setVehicle(v).setWeighting(weighting).setTurnCosts(true));
+                }
+                String profileName = ProfileTools.makeProfileName(v, weighting, false);
+                profiles.put(profileName, new Profile(profileName).setVehicle(v).setWeighting(weighting).setTurnCosts(false));
             }
-            String profileName = ProfileTools.makeProfileName(vehicle, weighting, false);
-            profiles.put(profileName, new Profile(profileName).setVehicle(vehicle).setWeighting(weighting).setTurnCosts(false));
         }
 
         ghConfig.putObject(ProfileTools.KEY_PREPARE_CORE_WEIGHTINGS, "no");
@@ -287,13 +325,29 @@ public class RoutingProfile {
                     if (prepareCH) {
                         if (chOpts.hasPath(ProfileTools.KEY_THREADS))
                             ghConfig.putObject("prepare.ch.threads", chOpts.getInt(ProfileTools.KEY_THREADS));
+                        List<CHProfile> chProfiles = new ArrayList<>();
                         if (chOpts.hasPath(ProfileTools.KEY_WEIGHTINGS)) {
-                            List<CHProfile> chProfiles = new ArrayList<>();
                             String chWeightingsString = StringUtility.trimQuotes(chOpts.getString(ProfileTools.KEY_WEIGHTINGS));
-                            for (String weighting : chWeightingsString.split(","))
-                                chProfiles.add(new CHProfile(ProfileTools.makeProfileName(vehicle, weighting, false)));
-                            ghConfig.setCHProfiles(chProfiles);
+                            for (String v : vehicles) {
+                                for (String weighting : chWeightingsString.split(","))
+                                    chProfiles.add(new CHProfile(ProfileTools.makeProfileName(v, weighting, false)));
+                            }
+                        }
+                        // CH graphs with the plain fastest or shortest weighting of concave balls isochrones, which
+                        // can then be searched one-to-all with PHAST instead of Dijkstra
+                        if (chOpts.hasPath(ProfileTools.KEY_ISOCHRONE_WEIGHTINGS)) {
+                            String isochroneWeightingsString = StringUtility.trimQuotes(chOpts.getString(ProfileTools.KEY_ISOCHRONE_WEIGHTINGS));
+                            for (String v : vehicles) {
+                                for (String weighting : isochroneWeightingsString.split(",")) {
+                                    String profileName = ProfileTools.makeIsochroneProfileName(v, weighting.trim());
+                                    profiles.put(profileName, new Profile(profileName).setVehicle(v).setWeighting(weighting.trim()).setTurnCosts(false)
+                                            .putHint(ProfileTools.KEY_ISOCHRONE_WEIGHTING, true));
+                                    chProfiles.add(new CHProfile(profileName));
+                                }
+                            }
                         }
+                        if (!chProfiles.isEmpty())
+                            ghConfig.setCHProfiles(chProfiles);
                     }
                 }
 
@@ -311,8 +365,10 @@ public class RoutingProfile {
                         if (lmOpts.hasPath(ProfileTools.KEY_WEIGHTINGS)) {
                             List<LMProfile> lmProfiles = new ArrayList<>();
                             String lmWeightingsString = StringUtility.trimQuotes(lmOpts.getString(ProfileTools.KEY_WEIGHTINGS));
-                            for (String weighting : lmWeightingsString.split(","))
-                                lmProfiles.add(new LMProfile(ProfileTools.makeProfileName(vehicle, weighting, hasTurnCosts)));
+                            for (String v : vehicles) {
+                                for (String weighting : lmWeightingsString.split(","))
+                                    lmProfiles.add(new LMProfile(ProfileTools.makeProfileName(v, weighting, hasTurnCosts)));
+                            }
                             ghConfig.setLMProfiles(lmProfiles);
                         }
                         if (lmOpts.hasPath(ProfileTools.KEY_LANDMARKS))
@@ -338,6 +394,8 @@ public class RoutingProfile {
                             ghConfig.putObject("prepare.core.threads", threadsCH);
                             ghConfig.putObject("prepare.corelm.threads", threadsLM);
                         }
+                        if (coreOpts.hasPath(ProfileTools.KEY_RESTRICTION_THREADS))
+                            ghConfig.putObject(PrepareCore.RESTRICTION_THREADS, coreOpts.getInt(ProfileTools.KEY_RESTRICTION_THREADS));
                         if (coreOpts.hasPath(ProfileTools.KEY_WEIGHTINGS)) {
                             List<CHProfile> coreProfiles = new ArrayList<>();
                             List<LMProfile> coreLMProfiles = new ArrayList<>();
@@ -351,10 +409,12 @@ public class RoutingProfile {
                                 PMap configMap = new PMap(configStr);
                                 boolean considerTurnRestrictions = configMap.getBool("edge_based", hasTurnCosts);
 
-                                String profileName = ProfileTools.makeProfileName(vehicle, weighting, considerTurnRestrictions);
-                                profiles.put(profileName, new Profile(profileName).setVehicle(vehicle).setWeighting(weighting).setTurnCosts(considerTurnRestrictions));
-                                coreProfiles.add(new CHProfile(profileName));
-                                coreLMProfiles.add(new LMProfile(profileName));
+                                for (String v : vehicles) {
+                                    String profileName = ProfileTools.makeProfileName(v, weighting, considerTurnRestrictions);
+                                    profiles.put(profileName, new Profile(profileName).setVehicle(v).setWeighting(weighting).setTurnCosts(considerTurnRestrictions));
+                                    coreProfiles.add(new CHProfile(profileName));
+                                    coreLMProfiles.add(new LMProfile(profileName));
+                                }
                             }
                             ghConfig.setCoreProfiles(coreProfiles);
                             ghConfig.setCoreLMProfiles(coreLMProfiles);
@@ -365,6 +425,20 @@ public class RoutingProfile {
                             ghConfig.putObject("prepare.corelm.landmarks", coreOpts.getInt(ProfileTools.KEY_LANDMARKS));
                     }
                 }
+
+                if (opts.hasPath(ProfileTools.KEY_METHODS_CUSTOMIZABLE_CORE)) {
+                    Config customizableCoreOpts = opts.getConfig(ProfileTools.KEY_METHODS_CUSTOMIZABLE_CORE);
+                    if (!customizableCoreOpts.hasPath(ProfileTools.KEY_ENABLED) || customizableCoreOpts.getBoolean(ProfileTools.KEY_ENABLED)) {
+                        // the customizable core is node based, it cannot answer requests with turn restrictions
+                        if (hasTurnCosts) {
+                            LOGGER.warn("Customizable core is not supported with turn costs and is disabled for profiles '%s'.".formatted(config.getProfiles()));
+                        } else {
+                            ghConfig.putObject("prepare.customizable_core.enabled", true);
+                            if (customizableCoreOpts.hasPath(ProfileTools.KEY_MAX_DEGREE))
+                                ghConfig.putObject("prepare.customizable_core.max_degree", customizableCoreOpts.getInt(ProfileTools.KEY_MAX_DEGREE));
+                        }
+                    }
+                }
             }
         }
 
@@ -383,6 +457,11 @@ public class RoutingProfile {
                 if (lmOpts.hasPath(ProfileTools.KEY_ACTIVE_LANDMARKS))
                     ghConfig.putObject("routing.lm.active_landmarks", lmOpts.getInt(ProfileTools.KEY_ACTIVE_LANDMARKS));
             }
+            if (opts.hasPath(ProfileTools.KEY_METHODS_CUSTOMIZABLE_CORE)) {
+                Config customizableCoreOpts = opts.getConfig(ProfileTools.KEY_METHODS_CUSTOMIZABLE_CORE);
+                if (customizableCoreOpts.hasPath(ProfileTools.KEY_CACHE_SIZE))
+                    ghConfig.putObject("routing.customizable_core.cache_size", customizableCoreOpts.getInt(ProfileTools.KEY_CACHE_SIZE));
+            }
         }
 
         if (config.getOptimize() && !prepareCH)
@@ -391,11 +470,15 @@ public class RoutingProfile {
         if (!config.getGtfsFile().isEmpty())
             ghConfig.putObject("gtfs.file", config.getGtfsFile());
 
-        String flagEncoder = vehicle;
-        if (!Helper.isEmpty(config.getEncoderOptions()))
-            flagEncoder += "|" + config.getEncoderOptions();
+        StringJoiner flagEncoders = new StringJoiner(",");
+        for (String v : vehicles) {
+            String flagEncoder = v;
+            if (!Helper.isEmpty(config.getEncoderOptions()))
+                flagEncoder += "|" + config.getEncoderOptions();
+            flagEncoders.add(flagEncoder);
+        }
 
-        ghConfig.putObject("graph.flag_encoders", flagEncoder.toLowerCase());
+        ghConfig.putObject("graph.flag_encoders", flagEncoders.toString().toLowerCase());
         ghConfig.putObject("index.high_resolution", config.getLocationIndexResolution());
         ghConfig.putObject("index.max_region_search", config.getLocationIndexSearchIterations());
         ghConfig.setProfiles(new ArrayList<>(profiles.values()));
@@ -403,6 +486,30 @@ public class RoutingProfile {
         return ghConfig;
     }
 
+    /**
+     * Profile types can only share a graph if they are of the same kind of traffic, i.e. their flag encoders accept
+     * largely the same ways, and if no preparation depending on a single encoder is configured.
+     */
+    private static void checkSharedGraph(RouteProfileConfiguration config, Integer[] profilesTypes) {
+        if (profilesTypes.length == 0)
+            throw new IllegalStateException("No valid profile type in '%s' for profile '%s'".formatted(config.getProfiles(), config.getName()));
+        if (profilesTypes.length == 1)
+            return;
+        int first = profilesTypes[0];
+        for (int profileType : profilesTypes) {
+            boolean compatible = RoutingProfileType.isDriving(profileType) && RoutingProfileType.isDriving(first)
+                    || RoutingProfileType.isCycling(profileType) && RoutingProfileType.isCycling(first)
+                    || RoutingProfileType.isPedestrian(profileType) && RoutingProfileType.isPedestrian(first);
+            if (!compatible)
+                throw new IllegalStateException("Profile '%s' combines incompatible profile types '%s' and '%s' in one graph".formatted(
+                        config.getName(), RoutingProfileType.getName(first), RoutingProfileType.getName(profileType)));
+        }
+        if (!config.getGtfsFile().isEmpty())
+            throw new IllegalStateException("Profile '%s' with a GTFS file cannot share its graph".formatted(config.getName()));
+        if (config.getIsochronePreparationOpts() != null && (!config.getIsochronePreparationOpts().hasPath(ProfileTools.KEY_ENABLED) || config.getIsochronePreparationOpts().getBoolean(ProfileTools.KEY_ENABLED)))
+            throw new IllegalStateException("Fast isochrones are not supported for profile '%s' sharing its graph".formatted(config.getName()));
+    }
+
     private static boolean supportWeightingMethod(int profileType) {
         return RoutingProfileType.isDriving(profileType) || RoutingProfileType.isCycling(profileType) || RoutingProfileType.isPedestrian(profileType);
     }
@@ -429,6 +536,10 @@ public class RoutingProfile {
         return mGraphHopper.getMemoryUsage();
     }
 
+    public long getBaseGraphMemoryUsage() {
+        return mGraphHopper.getBaseGraphMemoryUsage();
+    }
+
     public ORSGraphHopper getGraphhopper() {
         return mGraphHopper;
     }
@@ -441,6 +552,13 @@ public class RoutingProfile {
         return mGraphHopper.getGraphHopperStorage().getProperties();
     }
 
+    /**
+     * @return the public transport router, or {@code null} if the profile has no GTFS feed
+     */
+    public PtRouter getPtRouter() {
+        return ptRouter;
+    }
+
     public RouteProfileConfiguration getConfiguration() {
         return config;
     }
@@ -461,11 +579,56 @@ public class RoutingProfile {
         return mGraphHopper != null && mGraphHopper.getCHPreparationHandler().isEnabled();
     }
 
+    public StageMetrics getMetrics() {
+        return warmingUp ? warmUpMetrics : metrics;
+    }
+
+    /**
+     * Keeps the synthetic queries of {@link RoutingProfileWarmUp} out of the snap and isochrone caches and out of the
+     * request metrics, so that they neither evict entries nor skew the statistics gathered from real traffic. While
+     * warming up, the metrics are recorded into a registry without any backing registry, which discards them.
+     */
+    public void setWarmingUp(boolean warmingUp) {
+        if (warmingUp && warmUpMetrics == null)
+            warmUpMetrics = new StageMetrics(new CompositeMeterRegistry(), config.getName());
+        if (mGraphHopper.getSnapCache() != null)
+            mGraphHopper.getSnapCache().setBypassed(warmingUp);
+        this.warmingUp = warmingUp;
+    }
+
+    /**
+     * Registers the meters of this profile again, replacing those of a profile with the same name which has been
+     * superseded by a graph reload and whose meters have been removed with {@link #removeMeters()}.
+     */
+    public void registerMeters() {
+        metrics.close();
+        metrics = new StageMetrics(Metrics.globalRegistry, config.getName(), metricsPercentileHistograms);
+        if (isochroneCache != null)
+            isochroneCache.registerMeters();
+        if (mGraphHopper.getSnapCache() != null)
+            mGraphHopper.getSnapCache().registerMeters();
+    }
+
+    public void removeMeters() {
+        metrics.close();
+        if (isochroneCache != null)
+            isochroneCache.removeMeters();
+        if (mGraphHopper.getSnapCache() != null)
+            mGraphHopper.getSnapCache().removeMeters();
+    }
+
     public void close() {
+        removeMeters();
+        if (isochroneCache != null)
+            isochroneCache.close();
+        if (mGraphHopper.getSnapCache() != null)
+            mGraphHopper.getSnapCache().close();
+        if (mGraphHopper.getCustomizableCore() != null)
+            mGraphHopper.getCustomizableCore().close();
         mGraphHopper.close();
     }
 
-    private synchronized boolean isGHUsed() {
+    synchronized boolean isGHUsed() {
         return mUseCounter > 0;
     }
 
@@ -519,9 +682,7 @@ public class RoutingProfile {
 
         try {
             RouteSearchContext searchCntx = createSearchContext(parameters.getRouteParameters());
-
-            IsochroneMapBuilderFactory isochroneMapBuilderFactory = new IsochroneMapBuilderFactory(searchCntx);
-            result = isochroneMapBuilderFactory.buildMap(parameters);
+            result = computeIsochroneMap(searchCntx, parameters);
 
             endUseGH();
         } catch (Exception ex) {
@@ -555,9 +716,11 @@ public class RoutingProfile {
                     StatisticsProvider provider = StatisticsProviderFactory.getProvider(provConfig.getName(), provConfig.getParameters());
                     String[] provAttrs = provConfig.getMappedProperties(entry.getValue());
 
-                    for (Isochrone isochrone : result.getIsochrones()) {
-                        double[] attrValues = provider.getStatistics(isochrone, provAttrs);
-                        isochrone.setAttributes(entry.getValue(), attrValues, provConfig.getAttribution());
+                    List<Isochrone> isochrones = new ArrayList<>(result.getIsochronesCount());
+                    result.getIsochrones().forEach(isochrones::add);
+                    double[][] attrValues = provider.getStatistics(isochrones, provAttrs);
+                    for (int i = 0; i < isochrones.size(); i++) {
+                        isochrones.get(i).setAttributes(entry.getValue(), attrValues[i], provConfig.getAttribution());
                     }
                 }
 
@@ -581,6 +744,13 @@ public class RoutingProfile {
      * @throws Exception
      */
     public MatrixResult computeMatrix(MatrixRequest req) throws Exception {
+        return computeMatrix(req, mGraphHopper.getSnapCache());
+    }
+
+    /**
+     * @param snapCache cache to snap the locations with, e.g. one shared by all tiles of a large matrix, or {@code null}
+     */
+    public MatrixResult computeMatrix(MatrixRequest req, SnapCache snapCache) throws Exception {
         GraphHopper gh = getGraphhopper();
         String encoderName = RoutingProfileType.getEncoderName(req.getProfileType());
         FlagEncoder flagEncoder = gh.getEncodingManager().getEncoder(encoderName);
@@ -591,20 +761,25 @@ public class RoutingProfile {
         String CHProfileName = ProfileTools.makeProfileName(encoderName, hintsMap.getString("weighting", ""), false);
         String CoreProfileName = ProfileTools.makeProfileName(encoderName, hintsMap.getString("weighting", ""), true);
 
+        getMetrics().recordMatrixSize((long) req.getSources().length * req.getDestinations().length);
+
         //TODO Refactoring : probably remove MatrixAlgorithmFactory alltogether as the checks for algorithm choice have to be performed here again. Or combine in a single check nicely
         try {
             // RPHAST
             if (!req.getFlexibleMode() && gh.getCHPreparationHandler().isEnabled() && hasCHProfile(CHProfileName)) {
-                return computeRPHASTMatrix(req, gh, flagEncoder, CHProfileName);
+                return computeRPHASTMatrix(req, gh, flagEncoder, CHProfileName, snapCache);
             }
             // Core
             else if (req.getSearchParameters().getDynamicSpeeds() && mGraphHopper.isCoreAvailable(CoreProfileName)) {
-                return computeCoreMatrix(req, gh, flagEncoder, hintsMap, CoreProfileName);
+                StageMetrics.reset();
+                MatrixResult result = computeCoreMatrix(req, gh, flagEncoder, hintsMap, CoreProfileName, snapCache);
+                getMetrics().recordSettledCoreNodes(StageMetrics.takeSettledCoreNodes());
+                return result;
             }
             // Dijkstra
             else {
                 // use CHProfileName (w/o turn costs) since Dijkstra is node-based so turn restrictions are not used.
-                return computeDijkstraMatrix(req, gh, flagEncoder, hintsMap, CHProfileName);
+                return computeDijkstraMatrix(req, gh, flagEncoder, hintsMap, CHProfileName, snapCache);
             }
         } catch (PointNotFoundException e) {
             throw e;
@@ -622,17 +797,23 @@ public class RoutingProfile {
      * @param gh
      * @param flagEncoder
      * @param profileName
+     * @param snapCache
      * @return
      * @throws Exception
      */
-    private MatrixResult computeRPHASTMatrix(MatrixRequest req, GraphHopper gh, FlagEncoder flagEncoder, String profileName) throws Exception {
+    private MatrixResult computeRPHASTMatrix(MatrixRequest req, GraphHopper gh, FlagEncoder flagEncoder, String profileName, SnapCache snapCache) throws Exception {
         RoutingCHGraph routingCHGraph = gh.getGraphHopperStorage().getRoutingCHGraph(profileName);
         MatrixSearchContextBuilder builder = new MatrixSearchContextBuilder(gh.getGraphHopperStorage(), gh.getLocationIndex(), AccessFilter.allEdges(flagEncoder.getAccessEnc()), req.getResolveLocations());
+        builder.setSnapCache(snapCache);
+        long start = System.nanoTime();
         MatrixSearchContext mtxSearchCntx = builder.create(routingCHGraph.getBaseGraph(), routingCHGraph, routingCHGraph.getWeighting(), profileName, req.getSources(), req.getDestinations(), req.getMaximumSearchRadius());
+        start = getMetrics().recordSince(StageMetrics.Endpoint.MATRIX, StageMetrics.Stage.SNAPPING, start);
 
         RPHASTMatrixAlgorithm algorithm = new RPHASTMatrixAlgorithm();
         algorithm.init(req, gh, mtxSearchCntx.getRoutingCHGraph(), flagEncoder, routingCHGraph.getWeighting());
-        return algorithm.compute(mtxSearchCntx.getSources(), mtxSearchCntx.getDestinations(), req.getMetrics());
+        MatrixResult result = algorithm.compute(mtxSearchCntx.getSources(), mtxSearchCntx.getDestinations(), req.getMetrics());
+        getMetrics().recordSince(StageMetrics.Endpoint.MATRIX, StageMetrics.Stage.SEARCH, start);
+        return result;
     }
 
     /**
@@ -640,7 +821,7 @@ public class RoutingProfile {
      *
      * @return
      */
-    private MatrixResult computeCoreMatrix(MatrixRequest req, GraphHopper gh, FlagEncoder flagEncoder, PMap hintsMap, String profileName) throws Exception {
+    private MatrixResult computeCoreMatrix(MatrixRequest req, GraphHopper gh, FlagEncoder flagEncoder, PMap hintsMap, String profileName, SnapCache snapCache) throws Exception {
         Weighting weighting = new ORSWeightingFactory(gh.getGraphHopperStorage(), gh.getEncodingManager()).createWeighting(gh.getProfile(profileName), hintsMap, false);
         RoutingCHGraph graph = ((ORSGraphHopperStorage) gh.getGraphHopperStorage()).getCoreGraph(profileName);
         RouteSearchContext searchCntx = createSearchContext(req.getSearchParameters());
@@ -648,11 +829,16 @@ public class RoutingProfile {
         EdgeFilter edgeFilter = new ORSEdgeFilterFactory().createEdgeFilter(additionalHints, flagEncoder, gh.getGraphHopperStorage());
 
         MatrixSearchContextBuilder builder = new MatrixSearchContextBuilder(gh.getGraphHopperStorage(), gh.getLocationIndex(), edgeFilter, req.getResolveLocations());
+        builder.setSnapCache(snapCache);
+        long start = System.nanoTime();
         MatrixSearchContext mtxSearchCntx = builder.create(graph.getBaseGraph(), graph, weighting, profileName, req.getSources(), req.getDestinations(), req.getMaximumSearchRadius());
+        start = getMetrics().recordSince(StageMetrics.Endpoint.MATRIX, StageMetrics.Stage.SNAPPING, start);
 
         CoreMatrixAlgorithm algorithm = new CoreMatrixAlgorithm();
         algorithm.init(req, gh, mtxSearchCntx.getRoutingCHGraph(), flagEncoder, weighting, edgeFilter);
-        return algorithm.compute(mtxSearchCntx.getSources(), mtxSearchCntx.getDestinations(), req.getMetrics());
+        MatrixResult result = algorithm.compute(mtxSearchCntx.getSources(), mtxSearchCntx.getDestinations(), req.getMetrics());
+        getMetrics().recordSince(StageMetrics.Endpoint.MATRIX, StageMetrics.Stage.SEARCH, start);
+        return result;
     }
 
     /**
@@ -663,18 +849,24 @@ public class RoutingProfile {
      * @param flagEncoder
      * @param hintsMap
      * @param profileName
+     * @param snapCache
      * @return
      * @throws Exception
      */
-    private MatrixResult computeDijkstraMatrix(MatrixRequest req, GraphHopper gh, FlagEncoder flagEncoder, PMap hintsMap, String profileName) throws Exception {
+    private MatrixResult computeDijkstraMatrix(MatrixRequest req, GraphHopper gh, FlagEncoder flagEncoder, PMap hintsMap, String profileName, SnapCache snapCache) throws Exception {
         Graph graph = gh.getGraphHopperStorage().getBaseGraph();
         Weighting weighting = new ORSWeightingFactory(gh.getGraphHopperStorage(), gh.getEncodingManager()).createWeighting(gh.getProfile(profileName), hintsMap, false);
         MatrixSearchContextBuilder builder = new MatrixSearchContextBuilder(gh.getGraphHopperStorage(), gh.getLocationIndex(), AccessFilter.allEdges(flagEncoder.getAccessEnc()), req.getResolveLocations());
+        builder.setSnapCache(snapCache);
+        long start = System.nanoTime();
         MatrixSearchContext mtxSearchCntx = builder.create(graph, null, weighting, profileName, req.getSources(), req.getDestinations(), req.getMaximumSearchRadius());
+        start = getMetrics().recordSince(StageMetrics.Endpoint.MATRIX, StageMetrics.Stage.SNAPPING, start);
 
         DijkstraMatrixAlgorithm algorithm = new DijkstraMatrixAlgorithm();
         algorithm.init(req, gh, mtxSearchCntx.getGraph(), flagEncoder, weighting);
-        return algorithm.compute(mtxSearchCntx.getSources(), mtxSearchCntx.getDestinations(), req.getMetrics());
+        MatrixResult result = algorithm.compute(mtxSearchCntx.getSources(), mtxSearchCntx.getDestinations(), req.getMetrics());
+        getMetrics().recordSince(StageMetrics.Endpoint.MATRIX, StageMetrics.Stage.SEARCH, start);
+        return result;
     }
 
     public ExportResult computeExport(ExportRequest req) throws Exception {
@@ -838,6 +1030,7 @@ public class RoutingProfile {
         String profileNameCH = ProfileTools.makeProfileName(encoderName, WeightingMethod.getName(searchParams.getWeightingMethod()), false);
         RouteSearchContext searchCntx = new RouteSearchContext(mGraphHopper, flagEncoder, profileName, profileNameCH);
         searchCntx.setProperties(props);
+        searchCntx.setTimeZoneResolver(timeZoneResolver);
 
         return searchCntx;
     }
@@ -922,11 +1115,10 @@ public class RoutingProfile {
             int profileType = searchParams.getProfileType();
             if (profileType == RoutingProfileType.PUBLIC_TRANSPORT) {
                 StopWatch stopWatch = (new StopWatch()).start();
-                PtRouter ptRouter = new PtRouterImpl.Factory(mGraphHopper.getConfig(), new TranslationMap().doImport(), mGraphHopper.getGraphHopperStorage(), mGraphHopper.getLocationIndex(), mGraphHopper.getGtfsStorage())
-                        .createWithoutRealtimeFeed();
                 Request ptRequest = createPTRequest(lat0, lon0, lat1, lon1, searchParams);
                 GHResponse res = ptRouter.route(ptRequest);
                 res.addDebugInfo("Request total:" + stopWatch.stop().getSeconds() + "s");
+                endUseGH();
                 return res;
             }
             int weightingMethod = searchParams.getWeightingMethod();
@@ -978,20 +1170,21 @@ public class RoutingProfile {
             if (flexibleMode == ProfileTools.KEY_FLEX_FULLY)
                 setSpeedups(req, false, false, true, searchCntx.profileNameCH());
 
+            ZoneId departureZone = null;
+            ZoneId arrivalZone = null;
             if (searchParams.isTimeDependent()) {
                 req.setAlgorithm(Parameters.Algorithms.TD_ASTAR);
 
-                String key;
-                LocalDateTime time;
-                if (searchParams.hasDeparture()) {
-                    key = RouteRequestParameterNames.PARAM_DEPARTURE;
-                    time = searchParams.getDeparture();
-                } else {
-                    key = RouteRequestParameterNames.PARAM_ARRIVAL;
-                    time = searchParams.getArrival();
-                }
+                // departure and arrival are given in the local time of the start and the destination respectively
+                departureZone = timeZoneResolver.resolve(lat0, lon0);
+                arrivalZone = timeZoneResolver.resolve(lat1, lon1);
+                req.getHints().putObject(RouteResult.KEY_TIMEZONE_DEPARTURE, departureZone.getId());
+                req.getHints().putObject(RouteResult.KEY_TIMEZONE_ARRIVAL, arrivalZone.getId());
 
-                req.getHints().putObject(key, time.atZone(ZoneId.of("Europe/Berlin")).toInstant());
+                if (searchParams.hasDeparture())
+                    req.getHints().putObject(RouteRequestParameterNames.PARAM_DEPARTURE, searchParams.getDeparture().atZone(departureZone).toInstant());
+                else
+                    req.getHints().putObject(RouteRequestParameterNames.PARAM_ARRIVAL, searchParams.getArrival().atZone(arrivalZone).toInstant());
             }
 
             if (astarEpsilon != null)
@@ -1011,12 +1204,29 @@ public class RoutingProfile {
                 req.getHints().putObject("maximum_speed_lower_bound", config.getMaximumSpeedLowerBound());
             }
 
+            // requests which would otherwise be answered with ALT use a customization of the customizable core if available
+            if (mGraphHopper.getCustomizableCore() != null
+                    && req.getHints().getBool(ProfileTools.KEY_CH_DISABLE, false) && req.getHints().getBool(ProfileTools.KEY_CORE_DISABLE, false)) {
+                String customizationKey = createCustomizationKey(req, searchParams);
+                if (customizationKey != null)
+                    req.getHints().putObject(CustomizableCore.KEY_CUSTOMIZATION, customizationKey);
+            }
+
+            StageMetrics.reset();
+            long start = System.nanoTime();
             if (directedSegment) {
                 resp = mGraphHopper.constructFreeHandRoute(req);
             } else {
                 mGraphHopper.getRouterConfig().setSimplifyResponse(geometrySimplify);
                 resp = mGraphHopper.route(req);
             }
+            recordRouteMetrics(resp, System.nanoTime() - start);
+            if (departureZone != null) {
+                if (!resp.getHints().has(RouteResult.KEY_TIMEZONE_DEPARTURE))
+                    resp.getHints().putObject(RouteResult.KEY_TIMEZONE_DEPARTURE, departureZone.getId());
+                if (!resp.getHints().has(RouteResult.KEY_TIMEZONE_ARRIVAL))
+                    resp.getHints().putObject(RouteResult.KEY_TIMEZONE_ARRIVAL, arrivalZone.getId());
+            }
             if (DebugUtility.isDebug() && !directedSegment) {
                 LOGGER.info("visited nodes: " + resp.getHints().getObject("visited_nodes.sum", null));
             }
@@ -1035,6 +1245,23 @@ public class RoutingProfile {
         return resp;
     }
 
+    /**
+     * Splits the time spent in GraphHopper into snapping, extra info processing and the remaining search (including
+     * path unpacking and instructions).
+     */
+    private void recordRouteMetrics(GHResponse resp, long nanos) {
+        long snapping = StageMetrics.take(StageMetrics.Stage.SNAPPING);
+        long extraInfo = StageMetrics.take(StageMetrics.Stage.EXTRA_INFO);
+        getMetrics().record(StageMetrics.Endpoint.ROUTES, StageMetrics.Stage.SNAPPING, snapping);
+        getMetrics().record(StageMetrics.Endpoint.ROUTES, StageMetrics.Stage.EXTRA_INFO, extraInfo);
+        getMetrics().record(StageMetrics.Endpoint.ROUTES, StageMetrics.Stage.SEARCH, Math.max(0, nanos - snapping - extraInfo));
+        if (resp.getHints().getObject("visited_nodes.sum", null) instanceof Number visitedNodes)
+            getMetrics().recordVisitedNodes(visitedNodes.longValue());
+        long settledCoreNodes = StageMetrics.takeSettledCoreNodes();
+        if (settledCoreNodes > 0)
+            getMetrics().recordSettledCoreNodes(settledCoreNodes);
+    }
+
     private Request createPTRequest(double lat0, double lon0, double lat1, double lon1, RouteSearchParameters params) throws IncompatibleParameterException {
         List<GHLocation> points = Arrays.asList(new GHPointLocation(new GHPoint(lat0, lon0)), new GHPointLocation(new GHPoint(lat1, lon1)));
 
@@ -1125,6 +1352,42 @@ public class RoutingProfile {
         return flexibleMode;
     }
 
+    /**
+     * @return a key describing everything the weighting and edge filters of the request depend on, or {@code null} if
+     * the request cannot be answered with a customization of the customizable core
+     */
+    private static String createCustomizationKey(GHRequest req, RouteSearchParameters searchParams) {
+        ProfileParameters profileParams = searchParams.getProfileParameters();
+        if (searchParams.hasAvoidAreas() || searchParams.hasBearings() || searchParams.hasContinueStraight()
+                || searchParams.getAlternativeRoutesCount() > 0 || searchParams.isTimeDependent()
+                || profileParams instanceof WheelchairParameters)
+            return null;
+
+        StringJoiner key = new StringJoiner("|").add(req.getProfile()).add(req.getHints().getString("weighting_method", ""));
+        if (searchParams.hasAvoidFeatures())
+            key.add("avoid_features=" + searchParams.getAvoidFeatureTypes());
+        if (searchParams.hasAvoidBorders())
+            key.add("avoid_borders=" + searchParams.getAvoidBorders());
+        if (searchParams.hasAvoidCountries())
+            key.add("avoid_countries=" + Arrays.toString(searchParams.getAvoidCountries()));
+        if (searchParams.isProfileTypeHeavyVehicle())
+            key.add("vehicle_type=" + searchParams.getVehicleType());
+        if (searchParams.hasMaximumSpeed())
+            key.add("maximum_speed=" + searchParams.getMaximumSpeed());
+        if (profileParams instanceof VehicleParameters vehicleParams) {
+            key.add("vehicle=%s,%s,%s,%s,%s,%d".formatted(vehicleParams.getLength(), vehicleParams.getHeight(), vehicleParams.getWidth(),
+                    vehicleParams.getWeight(), vehicleParams.getAxleload(), vehicleParams.getLoadCharacteristics()));
+        }
+        if (profileParams != null && profileParams.hasWeightings()) {
+            Iterator<ProfileWeighting> iterator = profileParams.getWeightings().getIterator();
+            while (iterator.hasNext()) {
+                ProfileWeighting weighting = iterator.next();
+                key.add(weighting.getName() + "=" + new TreeMap<>(weighting.getParameters().toMap()));
+            }
+        }
+        return key.toString();
+    }
+
     /**
      * Set the speedup techniques used for calculating the route.
      * Reults in usage of CH, Core or ALT/AStar, if they are enabled.
@@ -1190,8 +1453,7 @@ public class RoutingProfile {
         beginUseGH();
         try {
             RouteSearchContext searchCntx = createSearchContext(parameters.getRouteParameters());
-            IsochroneMapBuilderFactory isochroneMapBuilderFactory = new IsochroneMapBuilderFactory(searchCntx);
-            result = isochroneMapBuilderFactory.buildMap(parameters);
+            result = computeIsochroneMap(searchCntx, parameters);
             endUseGH();
         } catch (Exception ex) {
             endUseGH();
@@ -1216,11 +1478,11 @@ public class RoutingProfile {
                         StatisticsProvider provider = StatisticsProviderFactory.getProvider(provConfig.getName(), provConfig.getParameters());
                         String[] provAttrs = provConfig.getMappedProperties(entry.getValue());
 
-                        for (Isochrone isochrone : result.getIsochrones()) {
-
-                            double[] attrValues = provider.getStatistics(isochrone, provAttrs);
-                            isochrone.setAttributes(entry.getValue(), attrValues, provConfig.getAttribution());
-
+                        List<Isochrone> isochrones = new ArrayList<>(result.getIsochronesCount());
+                        result.getIsochrones().forEach(isochrones::add);
+                        double[][] attrValues = provider.getStatistics(isochrones, provAttrs);
+                        for (int i = 0; i < isochrones.size(); i++) {
+                            isochrones.get(i).setAttributes(entry.getValue(), attrValues[i], provConfig.getAttribution());
                         }
                     }
                 } catch (Exception ex) {
@@ -1250,6 +1512,38 @@ public class RoutingProfile {
         return result;
     }
 
+    /**
+     * Builds the {@link IsochroneMap} for the given parameters or takes it from the isochrone cache if enabled.
+     */
+    private IsochroneMap computeIsochroneMap(RouteSearchContext searchCntx, IsochroneSearchParameters parameters) throws Exception {
+        StageMetrics.reset();
+        long start = System.nanoTime();
+        IsochroneMapBuilder isochroneMapBuilder = new IsochroneMapBuilderFactory(searchCntx).createBuilder(parameters);
+        IsochroneMapCache.Key cacheKey = null;
+        if (isochroneCache != null && !warmingUp && IsochroneMapCache.isCacheable(parameters)) {
+            Snap snap = isochroneMapBuilder.findStart(parameters);
+            StageMetrics.accumulate(StageMetrics.Stage.SNAPPING, System.nanoTime() - start);
+            parameters.setSnap(snap);
+            cacheKey = IsochroneMapCache.createKey(snap, parameters, mGraphHopper.getGraphHopperStorage().getProperties().get("datareader.import.date"));
+            if (cacheKey != null) {
+                IsochroneMap cached = isochroneCache.get(cacheKey, parameters.getTravellerId());
+                if (cached != null)
+                    return cached;
+            }
+        }
+
+        IsochroneMap result = isochroneMapBuilder.compute(parameters);
+        long snapping = StageMetrics.take(StageMetrics.Stage.SNAPPING);
+        long search = StageMetrics.take(StageMetrics.Stage.SEARCH);
+        getMetrics().record(StageMetrics.Endpoint.ISOCHRONES, StageMetrics.Stage.SNAPPING, snapping);
+        getMetrics().record(StageMetrics.Endpoint.ISOCHRONES, StageMetrics.Stage.SEARCH, search);
+        getMetrics().record(StageMetrics.Endpoint.ISOCHRONES, StageMetrics.Stage.ISOCHRONE_HULL, Math.max(0, System.nanoTime() - start - snapping - search));
+
+        if (cacheKey != null)
+            isochroneCache.put(cacheKey, result);
+        return result;
+    }
+
     public boolean equals(Object o) {
         return o != null && o.getClass().equals(RoutingProfile.class) && this.hashCode() == o.hashCode();
     }
@@ -56,6 +56,20 @@ public class RoutingProfileCategory {
         return RoutingProfileCategory.UNKNOWN;
     }
 
+    /**
+     * @return the category of a single flag encoder, for graphs shared by several encoders
+     */
+    public static int getFromEncoderName(String encoderName) {
+        return switch (encoderName) {
+            case FlagEncoderNames.CAR_ORS, FlagEncoderNames.HEAVYVEHICLE -> RoutingProfileCategory.DRIVING;
+            case FlagEncoderNames.BIKE_ORS, FlagEncoderNames.MTB_ORS, FlagEncoderNames.ROADBIKE_ORS, FlagEncoderNames.BIKE_ELECTRO ->
+                    RoutingProfileCategory.CYCLING;
+            case FlagEncoderNames.PEDESTRIAN_ORS, FlagEncoderNames.HIKING_ORS -> RoutingProfileCategory.WALKING;
+            case FlagEncoderNames.WHEELCHAIR -> RoutingProfileCategory.WHEELCHAIR;
+            default -> RoutingProfileCategory.UNKNOWN;
+        };
+    }
+
     private RoutingProfileCategory() {
     }
 }
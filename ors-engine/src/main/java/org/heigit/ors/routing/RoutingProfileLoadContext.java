@@ -14,6 +14,8 @@
 package org.heigit.ors.routing;
 
 import com.graphhopper.reader.dem.ElevationProvider;
+import org.heigit.ors.routing.graphhopper.extensions.reader.SharedOSMReader;
+import org.heigit.ors.routing.timezone.TimeZoneResolver;
 
 /**
  * Holds resources shared between instances of {@link RoutingProfile}.
@@ -22,6 +24,8 @@ import com.graphhopper.reader.dem.ElevationProvider;
 public class RoutingProfileLoadContext {
     // add here any other shared resources
     private ElevationProvider elevationProvider = null;
+    private SharedOSMReader sharedOSMReader = null;
+    private TimeZoneResolver timeZoneResolver = TimeZoneResolver.DEFAULT;
 
     public ElevationProvider getElevationProvider() {
         return elevationProvider;
@@ -33,6 +37,35 @@ public class RoutingProfileLoadContext {
         }
     }
 
+    /**
+     * @return reader parsing the OSM file once for all profiles being imported, or {@code null} if every profile
+     * parses it on its own
+     */
+    public SharedOSMReader getSharedOSMReader() {
+        return sharedOSMReader;
+    }
+
+    public void setSharedOSMReader(SharedOSMReader sharedOSMReader) {
+        this.sharedOSMReader = sharedOSMReader;
+    }
+
+    public TimeZoneResolver getTimeZoneResolver() {
+        return timeZoneResolver;
+    }
+
+    public void setTimeZoneResolver(TimeZoneResolver timeZoneResolver) {
+        this.timeZoneResolver = timeZoneResolver;
+    }
+
+    /**
+     * Called for every profile once it has been loaded or failed to load.
+     */
+    public void profileLoaded() {
+        if (sharedOSMReader != null) {
+            sharedOSMReader.readerFinished();
+        }
+    }
+
     public void releaseElevationProviderCacheAfterAllVehicleProfilesHaveBeenProcessed() {
         if (elevationProvider != null) {
             elevationProvider.release();
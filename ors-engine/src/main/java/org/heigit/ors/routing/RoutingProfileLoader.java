@@ -38,6 +38,10 @@ public class RoutingProfileLoader implements Callable<RoutingProfile> {
     @Override
     public RoutingProfile call() throws Exception {
         Thread.currentThread().setName("ORS-pl-" + rpc.getName());
-        return new RoutingProfile(engineConfig, rpc, loadCntx);
+        try {
+            return new RoutingProfile(engineConfig, rpc, loadCntx);
+        } finally {
+            loadCntx.profileLoaded();
+        }
     }
 }
\ No newline at end of file
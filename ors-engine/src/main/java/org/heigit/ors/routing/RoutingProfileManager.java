@@ -14,9 +14,11 @@
 package org.heigit.ors.routing;
 
 import com.graphhopper.GHResponse;
+import com.graphhopper.storage.DAType;
 import com.graphhopper.util.*;
 import com.graphhopper.util.exceptions.ConnectionNotFoundException;
 import com.graphhopper.util.exceptions.MaximumNodesExceededException;
+import org.apache.commons.io.FileUtils;
 import org.apache.log4j.Logger;
 import org.heigit.ors.config.EngineConfig;
 import org.heigit.ors.exceptions.*;
@@ -29,20 +31,33 @@ import org.heigit.ors.mapmatching.MapMatchingRequest;
 import org.heigit.ors.matrix.*;
 import org.heigit.ors.routing.configuration.RouteProfileConfiguration;
 import org.heigit.ors.routing.configuration.RoutingManagerConfiguration;
+import org.heigit.ors.routing.graphhopper.extensions.SnapCache;
+import org.heigit.ors.routing.graphhopper.extensions.reader.SharedOSMReader;
 import org.heigit.ors.routing.pathprocessors.ExtraInfoProcessor;
+import org.heigit.ors.routing.timezone.TimeZoneResolver;
 import org.heigit.ors.util.*;
 import org.locationtech.jts.geom.Coordinate;
 
+import java.io.File;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 public class RoutingProfileManager {
     private static final Logger LOGGER = Logger.getLogger(RoutingProfileManager.class.getName());
     public static final String KEY_SKIPPED_EXTRA_INFO = "skipped_extra_info";
-    private RoutingProfilesCollection routingProfiles;
+    private static final double RELOAD_MEMORY_FACTOR = 1.25;
+    private static final long RELOAD_GRACE_PERIOD = 1000;
+    private static final long RELOAD_DRAIN_WARNING_INTERVAL = 300000;
+    private static final int SHARED_OSM_READ_WORKER_THREADS = 4;
+    private static final long SHARED_OSM_READ_JOIN_TIMEOUT = 60000;
+    private volatile RoutingProfilesCollection routingProfiles;
+    private RouteResultCache routeCache;
+    private final AtomicBoolean reloading = new AtomicBoolean();
     private static RoutingProfileManager instance;
 
     public RoutingProfileManager(EngineConfig config) {
@@ -63,12 +78,7 @@ public class RoutingProfileManager {
         RuntimeUtility.printRAMInfo("", LOGGER);
         long startTime = System.currentTimeMillis();
         try {
-            // RoutingManagerConfiguration can be thrown away entirely after config migration
-            RoutingManagerConfiguration rmc = RoutingManagerConfiguration.loadFromFile(config.getGraphsRootPath());
-            RouteProfileConfiguration[] routeProfileConfigurations = rmc.getProfiles();
-            if (routeProfileConfigurations.length == 0) {
-                routeProfileConfigurations = config.getProfiles();
-            }
+            RouteProfileConfiguration[] routeProfileConfigurations = getProfileConfigurations(config);
             if (routeProfileConfigurations.length == 0) {
                 fail("No profiles configured. Exiting.");
                 return;
@@ -78,28 +88,68 @@ public class RoutingProfileManager {
                     config.getSourceFile(), initializationThreads));
 
             routingProfiles = new RoutingProfilesCollection();
-            int nRouteInstances = routeProfileConfigurations.length;
+            if (config.getRouteCacheMaximumSize() > 0)
+                routeCache = new RouteResultCache(config.getRouteCacheMaximumSize(), config.getRouteCacheTimeToLive(), config.isRouteCacheTimeDependent());
+            loadProfiles(config, routeProfileConfigurations, routingProfiles);
 
-            RoutingProfileLoadContext loadCntx = new RoutingProfileLoadContext();
-            ExecutorService executor = Executors.newFixedThreadPool(initializationThreads);
-            ExecutorCompletionService<RoutingProfile> compService = new ExecutorCompletionService<>(executor);
+            if (config.isWarmUpEnabled())
+                new RoutingProfileWarmUp(config.getWarmUpThreads(), config.getWarmUpQueries()).run(routingProfiles.getUniqueProfiles());
 
-            int nTotalTasks = 0;
+            LOGGER.info("Total time: " + TimeUtility.getElapsedTime(startTime, true) + ".");
+            LOGGER.info("========================================================================");
+            RoutingProfileManagerStatus.setReady(true);
+        } catch (ExecutionException ex) {
+            fail("Configured source file: '" + config.getSourceFile() + "' does not appear to be a valid OSM data file! Exiting.");
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception ex) {
+            fail("Failed to initialize RoutingProfileManager instance. " + ex.getMessage());
+            Thread.currentThread().interrupt();
+            return;
+        }
+        RuntimeUtility.clearMemory(LOGGER);
 
-            for (int i = 0; i < nRouteInstances; i++) {
-                RouteProfileConfiguration rpc = routeProfileConfigurations[i];
-                if (!rpc.getEnabled())
-                    continue;
+        if (LOGGER.isInfoEnabled())
+            routingProfiles.printStatistics(LOGGER);
+    }
 
-                if (rpc.getProfilesTypes() != null) {
-                    Callable<RoutingProfile> task = new RoutingProfileLoader(config, rpc, loadCntx);
-                    compService.submit(task);
-                    nTotalTasks++;
-                }
-            }
+    private static RouteProfileConfiguration[] getProfileConfigurations(EngineConfig config) throws Exception {
+        // RoutingManagerConfiguration can be thrown away entirely after config migration
+        RoutingManagerConfiguration rmc = RoutingManagerConfiguration.loadFromFile(config.getGraphsRootPath());
+        RouteProfileConfiguration[] routeProfileConfigurations = rmc.getProfiles();
+        if (routeProfileConfigurations.length == 0) {
+            routeProfileConfigurations = config.getProfiles();
+        }
+        return routeProfileConfigurations;
+    }
 
-            LOGGER.info("%d profile configurations submitted as tasks.".formatted(nTotalTasks));
+    private static void loadProfiles(EngineConfig config, RouteProfileConfiguration[] routeProfileConfigurations, RoutingProfilesCollection profiles) throws Exception {
+        RoutingProfileLoadContext loadCntx = new RoutingProfileLoadContext();
+        loadCntx.setTimeZoneResolver(TimeZoneResolver.create(config.getTimeZonesFile()));
+        ExecutorService executor = Executors.newFixedThreadPool(config.getInitializationThreads());
+        ExecutorCompletionService<RoutingProfile> compService = new ExecutorCompletionService<>(executor);
+
+        List<RouteProfileConfiguration> tasks = new ArrayList<>();
+        for (RouteProfileConfiguration rpc : routeProfileConfigurations) {
+            if (rpc.getEnabled() && rpc.getProfilesTypes() != null)
+                tasks.add(rpc);
+        }
+        if (config.isSharedOsmRead() && tasks.size() > 1 && config.getInitializationThreads() > 1) {
+            int workerThreads = Math.min(SHARED_OSM_READ_WORKER_THREADS, Runtime.getRuntime().availableProcessors());
+            loadCntx.setSharedOSMReader(new SharedOSMReader(new File(config.getSourceFile()), workerThreads, tasks.size(),
+                    config.getInitializationThreads(), SHARED_OSM_READ_JOIN_TIMEOUT));
+        }
 
+        int nTotalTasks = 0;
+        for (RouteProfileConfiguration rpc : tasks) {
+            Callable<RoutingProfile> task = new RoutingProfileLoader(config, rpc, loadCntx);
+            compService.submit(task);
+            nTotalTasks++;
+        }
+
+        LOGGER.info("%d profile configurations submitted as tasks.".formatted(nTotalTasks));
+
+        try {
             int nCompletedTasks = 0;
             while (nCompletedTasks < nTotalTasks) {
                 Future<RoutingProfile> future = compService.take();
@@ -107,7 +157,7 @@ public class RoutingProfileManager {
                 try {
                     RoutingProfile rp = future.get();
                     nCompletedTasks++;
-                    if (!routingProfiles.add(rp))
+                    if (!profiles.add(rp))
                         LOGGER.warn("Routing profile has already been added.");
                 } catch (ExecutionException e) {
                     LOGGER.error(e);
@@ -117,29 +167,128 @@ public class RoutingProfileManager {
                     Thread.currentThread().interrupt();
                 }
             }
-
+        } finally {
             executor.shutdown();
-            loadCntx.releaseElevationProviderCacheAfterAllVehicleProfilesHaveBeenProcessed();
+        }
+        loadCntx.releaseElevationProviderCacheAfterAllVehicleProfilesHaveBeenProcessed();
+    }
 
-            LOGGER.info("Total time: " + TimeUtility.getElapsedTime(startTime, true) + ".");
+    /**
+     * Loads the profiles of {@code config}, typically pointing to a folder with rebuilt graphs, while the current
+     * profiles keep serving requests. The new profiles are warmed up if configured and then replace the current ones
+     * in a single step. The replaced profiles are closed as soon as the requests using them have completed.
+     * <p>
+     * As both sets of graphs are held in memory at the same time, the reload is refused if the free heap is not
+     * sufficient for the new graphs. Their size is estimated from the size of existing graph files, and from the
+     * memory used by the current profile of the same name for graphs which have to be built. Memory mapped graphs do
+     * not take heap memory, for these only a warning is logged if they exceed the free physical memory.
+     *
+     * @throws IllegalStateException if the profiles have not been initialized yet, another reload is in progress or
+     *                               the free heap memory is not sufficient
+     */
+    public void reload(EngineConfig config) throws Exception {
+        if (!RoutingProfileManagerStatus.isReady())
+            throw new IllegalStateException("Profiles have not been initialized yet.");
+        if (!reloading.compareAndSet(false, true))
+            throw new IllegalStateException("A reload is already in progress.");
+        try {
+            long startTime = System.currentTimeMillis();
+            RouteProfileConfiguration[] routeProfileConfigurations = getProfileConfigurations(config);
+            checkMemoryHeadroom(routeProfileConfigurations);
+            LOGGER.info("====> Reloading profiles from '%s' ...".formatted(config.getGraphsRootPath()));
+
+            RoutingProfilesCollection newProfiles = new RoutingProfilesCollection();
+            try {
+                loadProfiles(config, routeProfileConfigurations, newProfiles);
+                if (newProfiles.size() == 0)
+                    throw new IllegalStateException("No profiles have been loaded.");
+                if (config.isWarmUpEnabled())
+                    new RoutingProfileWarmUp(config.getWarmUpThreads(), config.getWarmUpQueries()).run(newProfiles.getUniqueProfiles());
+            } catch (Exception e) {
+                newProfiles.destroy();
+                throw e;
+            }
+
+            RoutingProfilesCollection oldProfiles = routingProfiles;
+            for (RoutingProfile rp : oldProfiles.getUniqueProfiles())
+                rp.removeMeters();
+            for (RoutingProfile rp : newProfiles.getUniqueProfiles())
+                rp.registerMeters();
+            routingProfiles = newProfiles;
+            if (routeCache != null)
+                routeCache.clear();
+            LOGGER.info("Profiles replaced after " + TimeUtility.getElapsedTime(startTime, true) + ".");
+
+            closeWhenUnused(oldProfiles, RELOAD_GRACE_PERIOD, RELOAD_DRAIN_WARNING_INTERVAL);
             LOGGER.info("========================================================================");
-            RoutingProfileManagerStatus.setReady(true);
-        } catch (ExecutionException ex) {
-            fail("Configured source file: '" + config.getSourceFile() + "' does not appear to be a valid OSM data file! Exiting.");
-            Thread.currentThread().interrupt();
-            return;
-        } catch (Exception ex) {
-            fail("Failed to initialize RoutingProfileManager instance. " + ex.getMessage());
-            Thread.currentThread().interrupt();
+        } finally {
+            reloading.set(false);
+        }
+    }
+
+    public boolean isReloading() {
+        return reloading.get();
+    }
+
+    private void checkMemoryHeadroom(RouteProfileConfiguration[] routeProfileConfigurations) {
+        long required = 0;
+        for (RouteProfileConfiguration rpc : routeProfileConfigurations) {
+            if (!rpc.getEnabled())
+                continue;
+            File graphDirectory = rpc.getGraphPath() == null ? null : new File(rpc.getGraphPath());
+            long graphSize = graphDirectory != null && graphDirectory.isDirectory() ? FileUtils.sizeOfDirectory(graphDirectory) : 0;
+            if (graphSize == 0) {
+                graphSize = routingProfiles.getUniqueProfiles().stream()
+                        .filter(rp -> rp.getConfiguration().getName().equals(rpc.getName()))
+                        .mapToLong(RoutingProfile::getMemoryUsage)
+                        .sum();
+            }
+            required += graphSize;
+        }
+
+        if (DAType.fromString(RoutingProfile.GRAPH_DATA_ACCESS).isMMap()) {
+            // memory mapped graphs are held in the page cache instead of the heap and paged in from disk on demand
+            long free = ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean()).getFreeMemorySize();
+            if (required > free)
+                LOGGER.warn("Reloading maps about %s of graphs, but only %s of physical memory are free. Requests will be slower until the new graphs have been paged in.".formatted(
+                        RuntimeUtility.getMemorySize(required), RuntimeUtility.getMemorySize(free)));
             return;
         }
+
         RuntimeUtility.clearMemory(LOGGER);
+        Runtime runtime = Runtime.getRuntime();
+        long available = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+        if (required * RELOAD_MEMORY_FACTOR > available)
+            throw new IllegalStateException("Reloading requires about %s of heap memory, but only %s are available.".formatted(
+                    RuntimeUtility.getMemorySize((long) (required * RELOAD_MEMORY_FACTOR)), RuntimeUtility.getMemorySize(available)));
+    }
 
-        if (LOGGER.isInfoEnabled())
-            routingProfiles.printStatistics(LOGGER);
+    /**
+     * Waits until no request uses the given profiles any more and closes them then. Profiles still in use are never
+     * closed, as the requests would fail on the released graphs. Instead, a warning is logged every
+     * {@code warningInterval} milliseconds for as long as they are in use.
+     */
+    static void closeWhenUnused(RoutingProfilesCollection profiles, long gracePeriod, long warningInterval) throws InterruptedException {
+        // requests which have not acquired the profiles may have looked up a profile right before the swap without
+        // having started to use it
+        Thread.sleep(gracePeriod);
+        long start = System.currentTimeMillis();
+        long nextWarning = start + warningInterval;
+        while (profiles.isUsed() || profiles.getUniqueProfiles().stream().anyMatch(RoutingProfile::isGHUsed)) {
+            if (System.currentTimeMillis() > nextWarning) {
+                LOGGER.warn("Replaced profiles are still in use after %d s, waiting for the requests using them to complete before closing them.".formatted(
+                        (System.currentTimeMillis() - start) / 1000));
+                nextWarning += warningInterval;
+            }
+            Thread.sleep(100);
+        }
+        profiles.destroy();
+        RuntimeUtility.clearMemory(LOGGER);
     }
 
     public void destroy() {
+        if (routeCache != null)
+            routeCache.close();
         routingProfiles.destroy();
     }
 
@@ -154,15 +303,32 @@ public class RoutingProfileManager {
         return routingProfiles;
     }
 
+    /**
+     * Returns the current profiles and keeps a reload from closing them until
+     * {@link RoutingProfilesCollection#release()} is called. Requests which use the profiles several times, e.g. for
+     * the segments of a route, the locations of an isochrones request or the tiles of a matrix job, acquire them once,
+     * so that all parts are computed on the same graphs and these are not closed in between.
+     */
+    public RoutingProfilesCollection acquireProfiles() {
+        while (true) {
+            RoutingProfilesCollection profiles = routingProfiles;
+            profiles.acquire();
+            if (profiles == routingProfiles)
+                return profiles;
+            // replaced in the meantime, the reload might already have found them unused
+            profiles.release();
+        }
+    }
+
     public RouteResult matchTrack(MapMatchingRequest req) throws Exception {
         LOGGER.error("mapmatching not implemented. " + req);
         throw new UnsupportedOperationException("mapmatching not implemented. " + req);
     }
 
-    public RouteResult[] computeRoundTripRoute(RoutingRequest req) throws Exception {
+    private RouteResult[] computeRoundTripRoute(RoutingRequest req, RoutingProfilesCollection profiles) throws Exception {
         List<GHResponse> routes = new ArrayList<>();
 
-        RoutingProfile rp = getRouteProfile(req, false);
+        RoutingProfile rp = getRouteProfile(req, false, profiles);
         RouteSearchParameters searchParams = req.getSearchParameters();
         RouteProfileConfiguration config = rp.getConfiguration();
 
@@ -234,22 +400,39 @@ public class RoutingProfileManager {
         routes.add(gr);
 
         List<RouteExtraInfo> extraInfos = extraInfoProcessor != null ? extraInfoProcessor.getExtras() : null;
-        return new RouteResultBuilder().createRouteResults(routes, req, new List[]{extraInfos});
+        return createRouteResults(rp, routes, req, new List[]{extraInfos});
     }
 
     public RouteResult[] computeRoute(RoutingRequest req) throws Exception {
-        if (req.getSearchParameters().getRoundTripLength() > 0) {
-            return computeRoundTripRoute(req);
-        } else {
-            return computeLinearRoute(req);
+        RoutingProfilesCollection profiles = acquireProfiles();
+        try {
+            String cacheKey = routeCache == null ? null : routeCache.createKey(req, getRouteProfile(req, false, profiles));
+            if (cacheKey != null) {
+                RouteResult[] cached = routeCache.get(cacheKey);
+                if (cached != null)
+                    return cached;
+            }
+
+            RouteResult[] result;
+            if (req.getSearchParameters().getRoundTripLength() > 0) {
+                result = computeRoundTripRoute(req, profiles);
+            } else {
+                result = computeLinearRoute(req, profiles);
+            }
+
+            if (cacheKey != null)
+                routeCache.put(cacheKey, result);
+            return result;
+        } finally {
+            profiles.release();
         }
     }
 
-    public RouteResult[] computeLinearRoute(RoutingRequest req) throws Exception {
+    private RouteResult[] computeLinearRoute(RoutingRequest req, RoutingProfilesCollection profiles) throws Exception {
         List<Integer> skipSegments = req.getSkipSegments();
         List<GHResponse> routes = new ArrayList<>();
 
-        RoutingProfile rp = getRouteProfile(req, false);
+        RoutingProfile rp = getRouteProfile(req, false, profiles);
         RouteSearchParameters searchParams = req.getSearchParameters();
 
         Coordinate[] coords = req.getCoordinates();
@@ -289,7 +472,7 @@ public class RoutingProfileManager {
                 radiuses[1] = searchParams.getMaximumRadiuses()[i];
             } else {
                 try {
-                    int maximumSnappingRadius = routingProfiles.getRouteProfile(profileType).getConfiguration().getMaximumSnappingRadius();
+                    int maximumSnappingRadius = profiles.getRouteProfile(profileType).getConfiguration().getMaximumSnappingRadius();
                     radiuses = new double[2];
                     radiuses[0] = maximumSnappingRadius;
                     radiuses[1] = maximumSnappingRadius;
@@ -361,7 +544,7 @@ public class RoutingProfileManager {
                                 // -1 is used to indicate the use of internal limits instead of specifying it in the request.
                                 // we should therefore let them know that they are already using the limit.
                                 if (pointRadius == -1) {
-                                    pointRadius = routingProfiles.getRouteProfile(profileType).getConfiguration().getMaximumSnappingRadius();
+                                    pointRadius = profiles.getRouteProfile(profileType).getConfiguration().getMaximumSnappingRadius();
                                     message.append("Could not find routable point within the maximum possible radius of %.1f meters of specified coordinate %d: %s.".formatted(
                                             pointRadius,
                                             pointReference,
@@ -433,7 +616,14 @@ public class RoutingProfileManager {
             extraInfos[i] = e != null ? e.getExtras() : null;
             i++;
         }
-        return new RouteResultBuilder().createRouteResults(routes, req, extraInfos);
+        return createRouteResults(rp, routes, req, extraInfos);
+    }
+
+    private RouteResult[] createRouteResults(RoutingProfile rp, List<GHResponse> routes, RoutingRequest req, List<RouteExtraInfo>[] extraInfos) throws Exception {
+        long start = System.nanoTime();
+        RouteResult[] results = new RouteResultBuilder().createRouteResults(routes, req, extraInfos);
+        rp.getMetrics().recordSince(StageMetrics.Endpoint.ROUTES, StageMetrics.Stage.PATH_EXTRACTION, start);
+        return results;
     }
 
     /**
@@ -500,6 +690,10 @@ public class RoutingProfileManager {
     }
 
     public RoutingProfile getRouteProfile(RoutingRequest req, boolean oneToMany) throws Exception {
+        return getRouteProfile(req, oneToMany, routingProfiles);
+    }
+
+    private RoutingProfile getRouteProfile(RoutingRequest req, boolean oneToMany, RoutingProfilesCollection profiles) throws Exception {
         RouteSearchParameters searchParams = req.getSearchParameters();
         int profileType = searchParams.getProfileType();
 
@@ -507,10 +701,10 @@ public class RoutingProfileManager {
         boolean dynamicWeights = searchParams.requiresDynamicPreprocessedWeights();
         boolean useAlternativeRoutes = searchParams.getAlternativeRoutesCount() > 1;
 
-        RoutingProfile rp = routingProfiles.getRouteProfile(profileType, !dynamicWeights);
+        RoutingProfile rp = profiles.getRouteProfile(profileType, !dynamicWeights);
 
         if (rp == null && !dynamicWeights)
-            rp = routingProfiles.getRouteProfile(profileType, false);
+            rp = profiles.getRouteProfile(profileType, false);
 
         if (rp == null)
             throw new InternalServerException(RoutingErrorCodes.UNKNOWN, "Unable to get an appropriate route profile for RoutePreference = " + RoutingProfileType.getName(req.getSearchParameters().getProfileType()));
@@ -583,28 +777,63 @@ public class RoutingProfileManager {
      * @throws Exception
      */
     public IsochroneMap buildIsochrone(IsochroneSearchParameters parameters) throws Exception {
+        RoutingProfilesCollection profiles = acquireProfiles();
+        try {
+            return buildIsochrone(parameters, profiles);
+        } finally {
+            profiles.release();
+        }
+    }
+
+    /**
+     * @param profiles profiles acquired with {@link #acquireProfiles()} for all locations of a request
+     */
+    public IsochroneMap buildIsochrone(IsochroneSearchParameters parameters, RoutingProfilesCollection profiles) throws Exception {
 
         int profileType = parameters.getRouteParameters().getProfileType();
-        RoutingProfile rp = routingProfiles.getRouteProfile(profileType, false);
+        RoutingProfile rp = profiles.getRouteProfile(profileType, false);
 
         return rp.buildIsochrone(parameters);
     }
 
     public MatrixResult computeMatrix(MatrixRequest req) throws Exception {
-        RoutingProfile rp = routingProfiles.getRouteProfile(req.getProfileType(), !req.getFlexibleMode());
+        RoutingProfilesCollection profiles = acquireProfiles();
+        try {
+            return getMatrixProfile(req, profiles).computeMatrix(req);
+        } finally {
+            profiles.release();
+        }
+    }
+
+    /**
+     * @param snapCache cache to snap the locations with, e.g. one shared by all tiles of a large matrix
+     * @param profiles  profiles acquired with {@link #acquireProfiles()} for all tiles of the matrix, which the
+     *                  locations in {@code snapCache} refer to
+     */
+    public MatrixResult computeMatrix(MatrixRequest req, SnapCache snapCache, RoutingProfilesCollection profiles) throws Exception {
+        return getMatrixProfile(req, profiles).computeMatrix(req, snapCache);
+    }
+
+    private RoutingProfile getMatrixProfile(MatrixRequest req, RoutingProfilesCollection profiles) throws InternalServerException {
+        RoutingProfile rp = profiles.getRouteProfile(req.getProfileType(), !req.getFlexibleMode());
 
         if (rp == null)
             throw new InternalServerException(MatrixErrorCodes.UNKNOWN, "Unable to find an appropriate routing profile.");
 
-        return rp.computeMatrix(req);
+        return rp;
     }
 
     public ExportResult computeExport(ExportRequest req) throws Exception {
-        RoutingProfile rp = routingProfiles.getRouteProfile((req.getProfileType()));
+        RoutingProfilesCollection profiles = acquireProfiles();
+        try {
+            RoutingProfile rp = profiles.getRouteProfile((req.getProfileType()));
 
-        if (rp == null)
-            throw new InternalServerException(ExportErrorCodes.UNKNOWN, "Unable to find an appropriate routing profile.");
-        return rp.computeExport(req);
+            if (rp == null)
+                throw new InternalServerException(ExportErrorCodes.UNKNOWN, "Unable to find an appropriate routing profile.");
+            return rp.computeExport(req);
+        } finally {
+            profiles.release();
+        }
     }
 
 }
@@ -0,0 +1,222 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.routing;
+
+import com.graphhopper.GHResponse;
+import com.graphhopper.storage.GraphHopperStorage;
+import com.graphhopper.storage.NodeAccess;
+import io.micrometer.core.instrument.Metrics;
+import org.apache.log4j.Logger;
+import org.heigit.ors.common.DistanceUnit;
+import org.heigit.ors.common.TravelRangeType;
+import org.heigit.ors.isochrones.IsochroneSearchParameters;
+import org.heigit.ors.matrix.MatrixMetricsType;
+import org.heigit.ors.matrix.MatrixRequest;
+import org.heigit.ors.matrix.MatrixSearchParameters;
+import org.heigit.ors.util.TimeUtility;
+import org.locationtech.jts.geom.Coordinate;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+
+/**
+ * Warms up loaded profiles before the service reports ready.
+ * <p>
+ * First, all files of the profiles' graph directories (base graph, CH and core graphs, landmarks, fast isochrone
+ * cells) are read once, so that memory mapped data access is served from the page cache instead of faulting on the
+ * first requests. Then a fixed set of synthetic routes, matrices and isochrones between random graph nodes is
+ * computed per profile, so that the hot code paths are compiled by the JIT. Failing synthetic queries, e.g. for
+ * disconnected nodes or disabled isochrones, are ignored. The synthetic queries bypass the snap and isochrone caches
+ * and are not recorded in the request metrics, see {@link RoutingProfile#setWarmingUp(boolean)}; they do not go
+ * through the route result cache of the {@link RoutingProfileManager} either.
+ */
+public class RoutingProfileWarmUp {
+    private static final Logger LOGGER = Logger.getLogger(RoutingProfileWarmUp.class.getName());
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int MATRIX_SIZE = 10;
+    private static final double[] ISOCHRONE_RANGES = {300, 600};
+    private static final long SEED = 42;
+    private static final ThreadLocal<ByteBuffer> BUFFER = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+
+    private final int threads;
+    private final int queries;
+
+    /**
+     * @param threads number of threads used for reading graph files and running synthetic queries, 1 runs them
+     *                sequentially
+     * @param queries number of synthetic routes per profile and search mode, a tenth as many matrices and isochrones
+     *                are computed
+     */
+    public RoutingProfileWarmUp(int threads, int queries) {
+        this.threads = Math.max(1, threads);
+        this.queries = Math.max(0, queries);
+    }
+
+    public void run(List<RoutingProfile> profiles) {
+        long startTime = System.currentTimeMillis();
+        LOGGER.info("====> Warming up %d profiles (%d threads) ...".formatted(profiles.size(), threads));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (RoutingProfile profile : profiles)
+            profile.setWarmingUp(true);
+        try {
+            long phaseStart = System.nanoTime();
+            long bytes = 0;
+            for (Future<Long> future : executor.invokeAll(createReadTasks(profiles)))
+                bytes += getQuietly(future, 0L);
+            recordPhase("prefault", phaseStart);
+            LOGGER.info("Read %d MB of graph files in %s.".formatted(bytes >> 20, TimeUtility.getElapsedTime(startTime, true)));
+
+            long queriesStart = System.currentTimeMillis();
+            phaseStart = System.nanoTime();
+            List<Callable<Long>> queryTasks = new ArrayList<>();
+            for (RoutingProfile profile : profiles)
+                queryTasks.add(() -> runQueries(profile));
+            for (Future<Long> future : executor.invokeAll(queryTasks))
+                getQuietly(future, 0L);
+            recordPhase("queries", phaseStart);
+            LOGGER.info("Ran synthetic queries in %s.".formatted(TimeUtility.getElapsedTime(queriesStart, true)));
+        } catch (InterruptedException e) {
+            LOGGER.warn("Warm-up has been interrupted.");
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+            for (RoutingProfile profile : profiles)
+                profile.setWarmingUp(false);
+        }
+        LOGGER.info("Warm-up time: " + TimeUtility.getElapsedTime(startTime, true) + ".");
+    }
+
+    private List<Callable<Long>> createReadTasks(List<RoutingProfile> profiles) {
+        List<Callable<Long>> tasks = new ArrayList<>();
+        for (RoutingProfile profile : profiles) {
+            Path location = Path.of(profile.getGraphhopper().getGraphHopperStorage().getDirectory().getLocation());
+            try (Stream<Path> files = Files.walk(location)) {
+                files.filter(Files::isRegularFile).forEach(file -> tasks.add(() -> readFully(file)));
+            } catch (IOException e) {
+                LOGGER.warn("Unable to list graph files in '%s': %s".formatted(location, e.getMessage()));
+            }
+        }
+        return tasks;
+    }
+
+    static long readFully(Path file) throws IOException {
+        ByteBuffer buffer = BUFFER.get();
+        long bytes = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            int read;
+            while ((read = channel.read(buffer.clear())) >= 0)
+                bytes += read;
+        }
+        return bytes;
+    }
+
+    private long runQueries(RoutingProfile profile) {
+        Integer[] preferences = profile.getPreferences();
+        if (preferences == null || preferences.length == 0 || queries == 0)
+            return 0;
+        int profileType = preferences[0];
+        Random random = new Random(SEED);
+        GraphHopperStorage storage = profile.getGraphhopper().getGraphHopperStorage();
+        long succeeded = 0;
+        for (boolean flexible : new boolean[]{false, true}) {
+            for (int i = 0; i < queries; i++) {
+                Coordinate from = randomCoordinate(storage, random);
+                Coordinate to = randomCoordinate(storage, random);
+                if (succeeds(() -> profile.computeRoute(from.y, from.x, to.y, to.x, null, null, false,
+                        searchParameters(new RouteSearchParameters(), profileType, flexible), false)))
+                    succeeded++;
+            }
+            for (int i = 0; i < Math.max(1, queries / 10); i++) {
+                if (succeeds(() -> profile.computeMatrix(matrixRequest(storage, random, profileType, flexible))))
+                    succeeded++;
+            }
+        }
+        for (int i = 0; i < Math.max(1, queries / 10); i++) {
+            Coordinate location = randomCoordinate(storage, random);
+            if (succeeds(() -> profile.buildIsochrone(isochroneParameters(location, profileType))))
+                succeeded++;
+        }
+        if (LOGGER.isDebugEnabled())
+            LOGGER.debug("Profile '%s': %d synthetic queries succeeded.".formatted(profile.getConfiguration().getName(), succeeded));
+        return succeeded;
+    }
+
+    private static <T extends RouteSearchParameters> T searchParameters(T params, int profileType, boolean flexible) throws Exception {
+        params.setProfileType(profileType);
+        params.setFlexibleMode(flexible);
+        return params;
+    }
+
+    private static IsochroneSearchParameters isochroneParameters(Coordinate location, int profileType) throws Exception {
+        IsochroneSearchParameters params = new IsochroneSearchParameters(0, location, ISOCHRONE_RANGES);
+        params.setRouteParameters(searchParameters(new RouteSearchParameters(), profileType, false));
+        params.setRangeType(TravelRangeType.TIME);
+        return params;
+    }
+
+    private static MatrixRequest matrixRequest(GraphHopperStorage storage, Random random, int profileType, boolean flexible) throws Exception {
+        MatrixRequest req = new MatrixRequest(Double.MAX_VALUE, Integer.MAX_VALUE, 0);
+        req.setProfileType(profileType);
+        req.setFlexibleMode(flexible);
+        req.setSearchParameters(searchParameters(new MatrixSearchParameters(), profileType, flexible));
+        req.setUnits(DistanceUnit.METERS);
+        req.setMetrics(MatrixMetricsType.DURATION | MatrixMetricsType.DISTANCE);
+        Coordinate[] sources = new Coordinate[MATRIX_SIZE];
+        Coordinate[] destinations = new Coordinate[MATRIX_SIZE];
+        for (int i = 0; i < MATRIX_SIZE; i++) {
+            sources[i] = randomCoordinate(storage, random);
+            destinations[i] = randomCoordinate(storage, random);
+        }
+        req.setSources(sources);
+        req.setDestinations(destinations);
+        return req;
+    }
+
+    private static Coordinate randomCoordinate(GraphHopperStorage storage, Random random) {
+        NodeAccess nodeAccess = storage.getNodeAccess();
+        int node = random.nextInt(storage.getNodes());
+        return new Coordinate(nodeAccess.getLon(node), nodeAccess.getLat(node));
+    }
+
+    private static boolean succeeds(Callable<?> query) {
+        try {
+            Object result = query.call();
+            return !(result instanceof GHResponse response) || !response.hasErrors();
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static <T> T getQuietly(Future<T> future, T fallback) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            LOGGER.warn("Warm-up task failed: " + e.getCause());
+            return fallback;
+        }
+    }
+
+    private static void recordPhase(String phase, long startNanos) {
+        Metrics.timer("ors.warmup", "phase", phase).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+}
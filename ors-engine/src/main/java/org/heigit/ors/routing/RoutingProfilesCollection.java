@@ -23,6 +23,7 @@ import java.util.List;
 public class RoutingProfilesCollection {
     private final HashMap<Integer, RoutingProfile> routeProfiles;
     private final ArrayList<RoutingProfile> uniqueProfiles;
+    private int users;
 
     public RoutingProfilesCollection() {
         routeProfiles = new HashMap<>();
@@ -36,6 +37,22 @@ public class RoutingProfilesCollection {
         routeProfiles.clear();
     }
 
+    /**
+     * Registers a request using these profiles, which keeps a reload from closing them until {@link #release()} is
+     * called. See {@link RoutingProfileManager#acquireProfiles()}.
+     */
+    public synchronized void acquire() {
+        users++;
+    }
+
+    public synchronized void release() {
+        users--;
+    }
+
+    public synchronized boolean isUsed() {
+        return users > 0;
+    }
+
     public List<RoutingProfile> getUniqueProfiles() {
         return uniqueProfiles;
     }
@@ -152,6 +169,14 @@ public class RoutingProfilesCollection {
             long profileMemory = profile.getMemoryUsage();
             totalProfilesMemory += profileMemory;
             logger.info("[%d] %s (%.1f%%)".formatted(i, RuntimeUtility.getMemorySize(profileMemory), ((double) profileMemory / totalUsedMemory) * 100));
+            int vehicles = profile.getPreferences().length;
+            if (vehicles > 1) {
+                // an estimate rather than a measurement: every vehicle beyond the first would otherwise hold its own
+                // copy of the base graph, though separate graphs would drop the ways only the other vehicles can use
+                long baseGraphMemory = profile.getBaseGraphMemoryUsage();
+                logger.info("    %d profiles share %s of base graph and location index, an estimated saving of %s".formatted(
+                        vehicles, RuntimeUtility.getMemorySize(baseGraphMemory), RuntimeUtility.getMemorySize(baseGraphMemory * (vehicles - 1))));
+            }
         }
         logger.info("Total: %s (%.1f%%)".formatted(RuntimeUtility.getMemorySize(totalProfilesMemory), ((double) totalProfilesMemory / totalUsedMemory) * 100));
         logger.info("========================================================================");
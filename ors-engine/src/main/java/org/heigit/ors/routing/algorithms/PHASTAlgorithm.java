@@ -0,0 +1,320 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.routing.algorithms;
+
+import com.carrotsearch.hppc.IntArrayDeque;
+import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.IntDoubleHashMap;
+import com.carrotsearch.hppc.IntObjectMap;
+import com.carrotsearch.hppc.cursors.IntCursor;
+import com.carrotsearch.hppc.cursors.IntDoubleCursor;
+import com.carrotsearch.hppc.cursors.IntObjectCursor;
+import com.graphhopper.coll.GHIntObjectHashMap;
+import com.graphhopper.routing.SPTEntry;
+import com.graphhopper.routing.util.EdgeFilter;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.Graph;
+import com.graphhopper.storage.RoutingCHEdgeExplorer;
+import com.graphhopper.storage.RoutingCHEdgeIterator;
+import com.graphhopper.storage.RoutingCHGraph;
+import com.graphhopper.util.EdgeExplorer;
+import com.graphhopper.util.EdgeIterator;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * One-to-all search on a contraction hierarchy (PHAST), bounded by a maximum weight.
+ * <p>
+ * An upward search from the start node is followed by a downward search, which settles the nodes in descending order
+ * of their CH level, so that every node takes its final weight from the higher nodes before passing it on along its
+ * downward edges. Unlike the sweep over all nodes of the original PHAST, only the nodes reached within the limit are
+ * visited, so the work grows with the range rather than with the graph. The nodes within the limit are finally linked
+ * to a node based shortest path tree on the base graph, including the entries just beyond the limit, so that the
+ * result can be used in place of the map of a {@link DijkstraCostCondition}.
+ * <p>
+ * The CH graph has to be fully contracted, and the weighting of the base graph has to be the one the CH graph has been
+ * prepared with.
+ */
+public class PHASTAlgorithm {
+    private final RoutingCHGraph chGraph;
+    private final Graph graph;
+    private final Weighting weighting;
+    private final DownwardEdges downwardEdges;
+    private final double weightLimit;
+    private final boolean reverseDirection;
+    private EdgeFilter edgeFilter = EdgeFilter.ALL_EDGES;
+    private int visitedNodes;
+
+    /**
+     * @param chGraph          CH graph, including the virtual nodes of {@code graph}
+     * @param graph            base graph the tree is built on, e.g. a query graph
+     * @param downwardEdges    downward edges of the CH graph in the search direction, see
+     *                         {@link DownwardEdges#create(RoutingCHGraph, boolean)}
+     * @param reverseDirection search towards the start node instead of away from it
+     */
+    public PHASTAlgorithm(RoutingCHGraph chGraph, Graph graph, DownwardEdges downwardEdges, double weightLimit, boolean reverseDirection) {
+        this.chGraph = chGraph;
+        this.graph = graph;
+        this.weighting = chGraph.getWeighting();
+        this.downwardEdges = downwardEdges;
+        this.weightLimit = weightLimit;
+        this.reverseDirection = reverseDirection;
+    }
+
+    /**
+     * Restricts the shortest path tree to the edges of the base graph accepted by the given filter. The CH graph has
+     * no such restriction, so nodes are dropped from the tree if they can only be linked to it over rejected edges.
+     */
+    public PHASTAlgorithm setEdgeFilter(EdgeFilter edgeFilter) {
+        this.edgeFilter = edgeFilter;
+        return this;
+    }
+
+    /**
+     * @return number of nodes settled by the last search
+     */
+    public int getVisitedNodes() {
+        return visitedNodes;
+    }
+
+    /**
+     * @return shortest path tree of all nodes within the weight limit and the nodes adjacent to them, by node id
+     */
+    public IntObjectMap<SPTEntry> calcTree(int from) {
+        visitedNodes = 0;
+        IntDoubleHashMap weights = new IntDoubleHashMap();
+        runUpwardSearch(from, weights);
+        runDownwardSearch(weights);
+        return buildTree(from, weights);
+    }
+
+    private void runUpwardSearch(int from, IntDoubleHashMap weights) {
+        int baseNodes = downwardEdges.getNodes();
+        RoutingCHEdgeExplorer explorer = reverseDirection ? chGraph.createInEdgeExplorer() : chGraph.createOutEdgeExplorer();
+        PriorityQueue<SPTEntry> queue = new PriorityQueue<>();
+        weights.put(from, 0);
+        queue.add(new SPTEntry(EdgeIterator.NO_EDGE, from, 0));
+        while (!queue.isEmpty()) {
+            SPTEntry entry = queue.poll();
+            int node = entry.adjNode;
+            if (entry.weight > weights.get(node))
+                continue;
+            if (entry.weight > weightLimit)
+                break;
+            visitedNodes++;
+            int level = node < baseNodes ? chGraph.getLevel(node) : -1;
+            RoutingCHEdgeIterator iter = explorer.setBaseNode(node);
+            while (iter.next()) {
+                int adj = iter.getAdjNode();
+                // edges from and to virtual nodes are always followed, as in the bidirectional CH search
+                if (adj < baseNodes && level > chGraph.getLevel(adj))
+                    continue;
+                double weight = entry.weight + iter.getWeight(reverseDirection);
+                if (weight < getWeight(weights, adj)) {
+                    weights.put(adj, weight);
+                    queue.add(new SPTEntry(iter.getEdge(), adj, weight));
+                }
+            }
+        }
+    }
+
+    private void runDownwardSearch(IntDoubleHashMap weights) {
+        int baseNodes = downwardEdges.getNodes();
+        // a node is only settled once all higher nodes are, as only those can improve its weight
+        PriorityQueue<Integer> queue = new PriorityQueue<>((a, b) -> Integer.compare(chGraph.getLevel(b), chGraph.getLevel(a)));
+        for (IntDoubleCursor cursor : weights) {
+            if (cursor.key < baseNodes)
+                queue.add(cursor.key);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            double weight = weights.get(node);
+            // nodes beyond the limit cannot bring any node back within it
+            if (weight > weightLimit)
+                continue;
+            visitedNodes++;
+            for (int i = downwardEdges.offsets[node]; i < downwardEdges.offsets[node + 1]; i++) {
+                int adj = downwardEdges.adjNodes[i];
+                double adjWeight = weight + chGraph.getEdgeIteratorState(downwardEdges.edges[i], adj).getWeight(reverseDirection);
+                if (adjWeight > weightLimit)
+                    continue;
+                int index = weights.indexOf(adj);
+                if (index < 0) {
+                    weights.indexInsert(index, adj, adjWeight);
+                    queue.add(adj);
+                } else if (adjWeight < weights.indexGet(index)) {
+                    weights.indexReplace(index, adjWeight);
+                }
+            }
+        }
+    }
+
+    private IntObjectMap<SPTEntry> buildTree(int from, IntDoubleHashMap weights) {
+        IntObjectMap<SPTEntry> entries = new GHIntObjectHashMap<>();
+        for (IntDoubleCursor cursor : weights) {
+            if (cursor.value <= weightLimit) {
+                SPTEntry entry = new SPTEntry(EdgeIterator.NO_EDGE, cursor.key, cursor.value);
+                entry.originalEdge = EdgeIterator.NO_EDGE;
+                entries.put(cursor.key, entry);
+            }
+        }
+
+        EdgeExplorer explorer = graph.createEdgeExplorer();
+        IntObjectMap<IntArrayList> children = new GHIntObjectHashMap<>();
+        for (IntObjectCursor<SPTEntry> cursor : entries) {
+            if (cursor.key == from)
+                continue;
+            SPTEntry entry = cursor.value;
+            double bestWeight = Double.POSITIVE_INFINITY;
+            EdgeIterator iter = explorer.setBaseNode(cursor.key);
+            while (iter.next()) {
+                SPTEntry adjEntry = entries.get(iter.getAdjNode());
+                if (adjEntry == null || !edgeFilter.accept(iter))
+                    continue;
+                // candidate parent, the edge is traversed from adj towards node in search direction
+                double weight = adjEntry.weight + weighting.calcEdgeWeightWithAccess(iter, !reverseDirection);
+                if (weight < bestWeight) {
+                    bestWeight = weight;
+                    entry.edge = iter.getEdge();
+                    entry.originalEdge = iter.getOrigEdge();
+                    entry.parent = adjEntry;
+                }
+            }
+            if (entry.parent != null) {
+                IntArrayList siblings = children.get(entry.parent.adjNode);
+                if (siblings == null) {
+                    siblings = new IntArrayList();
+                    children.put(entry.parent.adjNode, siblings);
+                }
+                siblings.add(cursor.key);
+            }
+        }
+
+        // only the nodes linked to the start node are kept
+        IntObjectMap<SPTEntry> map = new GHIntObjectHashMap<>();
+        IntArrayDeque pending = new IntArrayDeque();
+        if (entries.containsKey(from))
+            pending.addLast(from);
+        while (!pending.isEmpty()) {
+            int node = pending.removeFirst();
+            map.put(node, entries.get(node));
+            IntArrayList nodeChildren = children.get(node);
+            if (nodeChildren != null) {
+                for (IntCursor child : nodeChildren)
+                    pending.addLast(child.value);
+            }
+        }
+
+        IntObjectMap<SPTEntry> frontier = new GHIntObjectHashMap<>();
+        for (IntObjectCursor<SPTEntry> cursor : map) {
+            SPTEntry entry = cursor.value;
+            EdgeIterator iter = explorer.setBaseNode(cursor.key);
+            while (iter.next()) {
+                int adj = iter.getAdjNode();
+                if (entries.containsKey(adj) || !edgeFilter.accept(iter))
+                    continue;
+                double weight = entry.weight + weighting.calcEdgeWeightWithAccess(iter, reverseDirection);
+                if (Double.isInfinite(weight))
+                    continue;
+                SPTEntry adjEntry = frontier.get(adj);
+                if (adjEntry == null) {
+                    adjEntry = new SPTEntry(iter.getEdge(), adj, weight);
+                    frontier.put(adj, adjEntry);
+                } else if (weight < adjEntry.weight) {
+                    adjEntry.edge = iter.getEdge();
+                    adjEntry.weight = weight;
+                } else {
+                    continue;
+                }
+                adjEntry.originalEdge = iter.getOrigEdge();
+                adjEntry.parent = entry;
+            }
+        }
+        map.putAll(frontier);
+        return map;
+    }
+
+    private static double getWeight(IntDoubleHashMap weights, int node) {
+        return weights.getOrDefault(node, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Edges of a CH graph leading from each base node to its lower neighbours in the direction of a search. Shortcuts
+     * are only stored at their lower node, so they are collected once per CH graph to be followed from the higher one.
+     * This takes two ints per edge and shortcut of the CH graph.
+     */
+    public static final class DownwardEdges {
+        private final int[] offsets;
+        private final int[] edges;
+        private final int[] adjNodes;
+
+        private DownwardEdges(int[] offsets, int[] edges, int[] adjNodes) {
+            this.offsets = offsets;
+            this.edges = edges;
+            this.adjNodes = adjNodes;
+        }
+
+        /**
+         * @param reverseDirection collect the edges for a search towards the start node instead of away from it
+         */
+        public static DownwardEdges create(RoutingCHGraph chGraph, boolean reverseDirection) {
+            int nodes = chGraph.getNodes();
+            // edges leading down in search direction are the ones leading up against it at their lower node
+            RoutingCHEdgeExplorer explorer = reverseDirection ? chGraph.createOutEdgeExplorer() : chGraph.createInEdgeExplorer();
+            int[] offsets = new int[nodes + 1];
+            for (int node = 0; node < nodes; node++) {
+                int level = chGraph.getLevel(node);
+                RoutingCHEdgeIterator iter = explorer.setBaseNode(node);
+                while (iter.next()) {
+                    if (chGraph.getLevel(iter.getAdjNode()) > level)
+                        offsets[iter.getAdjNode() + 1]++;
+                }
+            }
+            for (int i = 1; i <= nodes; i++)
+                offsets[i] += offsets[i - 1];
+
+            int[] edges = new int[offsets[nodes]];
+            int[] adjNodes = new int[offsets[nodes]];
+            int[] next = Arrays.copyOf(offsets, nodes);
+            for (int node = 0; node < nodes; node++) {
+                int level = chGraph.getLevel(node);
+                RoutingCHEdgeIterator iter = explorer.setBaseNode(node);
+                while (iter.next()) {
+                    int adj = iter.getAdjNode();
+                    if (chGraph.getLevel(adj) > level) {
+                        int i = next[adj]++;
+                        edges[i] = iter.getEdge();
+                        adjNodes[i] = node;
+                    }
+                }
+            }
+            return new DownwardEdges(offsets, edges, adjNodes);
+        }
+
+        /**
+         * @return number of base nodes of the CH graph
+         */
+        public int getNodes() {
+            return offsets.length - 1;
+        }
+
+        /**
+         * @return the lower neighbours of the given node
+         */
+        int[] getAdjNodes(int node) {
+            return Arrays.copyOfRange(adjNodes, offsets[node], offsets[node + 1]);
+        }
+    }
+}
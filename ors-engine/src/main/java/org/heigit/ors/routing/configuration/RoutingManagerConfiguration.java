@@ -157,7 +157,7 @@ public class RoutingManagerConfiguration {
                                     storageParams.put(entry.getKey(), StringUtility.trimQuotes(entry.getValue().toString()));
                                 }
 
-                                storageParams.put("gh_profile", ProfileTools.makeProfileName(RoutingProfileType.getEncoderName(RoutingProfileType.getFromString(profile.getProfiles())), "fastest", RouteProfileConfiguration.hasTurnCosts(profile.getEncoderOptions())));
+                                storageParams.put("gh_profile", ProfileTools.makeProfileName(RoutingProfileType.getEncoderName(RoutingProfileType.getFromString(profile.getProfiles().split(",")[0].trim())), "fastest", RouteProfileConfiguration.hasTurnCosts(profile.getEncoderOptions())));
 
                                 profile.getExtStorages().put(storageEntry.getKey(), storageParams);
                             }
@@ -17,6 +17,8 @@ import com.graphhopper.routing.*;
 import com.graphhopper.routing.querygraph.QueryGraph;
 import com.graphhopper.routing.weighting.Weighting;
 import com.graphhopper.util.StopWatch;
+import org.heigit.ors.routing.graphhopper.extensions.core.AbstractCoreRoutingAlgorithm;
+import org.heigit.ors.util.StageMetrics;
 
 import java.util.List;
 
@@ -76,6 +78,8 @@ public class CorePathCalculator implements PathCalculator {
         if (algo.getVisitedNodes() >= algoOpts.getMaxVisitedNodes())
             throw new IllegalArgumentException("No path found due to maximum nodes exceeded " + algoOpts.getMaxVisitedNodes());
         visitedNodes = algo.getVisitedNodes();
+        if (algo instanceof AbstractCoreRoutingAlgorithm coreAlgo)
+            StageMetrics.accumulateSettledCoreNodes(coreAlgo.getVisitedNodesPhase2());
         debug += ", " + algo.getName() + "-routing:" + sw.stop().getMillis() + " ms";
         return paths;
     }
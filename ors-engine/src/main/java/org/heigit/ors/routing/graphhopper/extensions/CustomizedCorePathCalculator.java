@@ -0,0 +1,72 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.routing.graphhopper.extensions;
+
+import com.graphhopper.routing.*;
+import com.graphhopper.routing.querygraph.QueryGraph;
+import com.graphhopper.routing.util.EdgeFilter;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.util.StopWatch;
+import org.heigit.ors.routing.graphhopper.extensions.core.CustomizedCore;
+import org.heigit.ors.routing.graphhopper.extensions.core.CustomizedCoreSearch;
+
+import java.util.Collections;
+import java.util.List;
+
+public class CustomizedCorePathCalculator implements PathCalculator {
+    private final QueryGraph queryGraph;
+    private final CustomizedCore customization;
+    private final Weighting weighting;
+    private final EdgeFilter edgeFilter;
+    private final int maxVisitedNodes;
+    private String debug;
+    private int visitedNodes;
+
+    public CustomizedCorePathCalculator(QueryGraph queryGraph, CustomizedCore customization, Weighting weighting, EdgeFilter edgeFilter, int maxVisitedNodes) {
+        this.queryGraph = queryGraph;
+        this.customization = customization;
+        this.weighting = weighting;
+        this.edgeFilter = edgeFilter;
+        this.maxVisitedNodes = maxVisitedNodes;
+    }
+
+    //@Override
+    public List<Path> calcPaths(int from, int to, EdgeRestrictions edgeRestrictions) {
+        return calcPaths(from, to, -1, edgeRestrictions);
+    }
+
+    @Override
+    public List<Path> calcPaths(int from, int to, long at, EdgeRestrictions edgeRestrictions) {
+        if (!edgeRestrictions.getUnfavoredEdges().isEmpty())
+            throw new IllegalArgumentException("Using unfavored edges is currently not supported for customized core routing");
+        StopWatch sw = new StopWatch().start();
+        CustomizedCoreSearch search = new CustomizedCoreSearch(customization, queryGraph, weighting, edgeFilter, maxVisitedNodes);
+        Path path = search.calcPath(from, to);
+        if (search.getVisitedNodes() >= maxVisitedNodes)
+            throw new IllegalArgumentException("No path found due to maximum nodes exceeded " + maxVisitedNodes);
+        visitedNodes = search.getVisitedNodes();
+        debug = ", customized-core-routing:" + sw.stop().getMillis() + " ms";
+        return Collections.singletonList(path);
+    }
+
+    @Override
+    public String getDebugString() {
+        return debug;
+    }
+
+    @Override
+    public int getVisitedNodes() {
+        return visitedNodes;
+    }
+}
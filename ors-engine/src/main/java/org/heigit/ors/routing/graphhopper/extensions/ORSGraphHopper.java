@@ -34,6 +34,7 @@ import com.graphhopper.storage.CHConfig;
 import com.graphhopper.storage.GraphHopperStorage;
 import com.graphhopper.storage.RoutingCHGraph;
 import com.graphhopper.storage.index.LocationIndex;
+import com.graphhopper.storage.index.LocationIndexTree;
 import com.graphhopper.storage.index.Snap;
 import com.graphhopper.util.*;
 import com.graphhopper.util.details.PathDetailsBuilderFactory;
@@ -48,13 +49,16 @@ import org.heigit.ors.fastisochrones.partitioning.storage.IsochroneNodeStorage;
 import org.heigit.ors.routing.AvoidFeatureFlags;
 import org.heigit.ors.routing.RouteSearchContext;
 import org.heigit.ors.routing.RouteSearchParameters;
+import org.heigit.ors.routing.algorithms.PHASTAlgorithm;
 import org.heigit.ors.routing.graphhopper.extensions.core.*;
 import org.heigit.ors.routing.graphhopper.extensions.edgefilters.AvoidFeaturesEdgeFilter;
 import org.heigit.ors.routing.graphhopper.extensions.edgefilters.EdgeFilterSequence;
 import org.heigit.ors.routing.graphhopper.extensions.edgefilters.HeavyVehicleEdgeFilter;
 import org.heigit.ors.routing.graphhopper.extensions.edgefilters.core.LMEdgeFilterSequence;
 import org.heigit.ors.routing.graphhopper.extensions.flagencoders.FlagEncoderNames;
+import org.heigit.ors.routing.graphhopper.extensions.reader.SharedOSMReader;
 import org.heigit.ors.routing.graphhopper.extensions.storages.BordersGraphStorage;
+import org.heigit.ors.routing.graphhopper.extensions.storages.EdgeRestrictionFlags;
 import org.heigit.ors.routing.graphhopper.extensions.storages.GraphStorageUtils;
 import org.heigit.ors.routing.graphhopper.extensions.storages.HeavyVehicleAttributesGraphStorage;
 import org.heigit.ors.routing.graphhopper.extensions.storages.TrafficGraphStorage;
@@ -73,6 +77,7 @@ import org.slf4j.LoggerFactory;
 import java.io.*;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import static java.util.Collections.emptyList;
@@ -90,6 +95,10 @@ public class ORSGraphHopper extends GraphHopperGtfs {
 
     private int minNetworkSize = 200;
     private int minOneWayNetworkSize = 0;
+    private boolean customizableCoreEnabled = false;
+    private int customizableCoreMaxDegree = 32;
+    private int customizableCoreCacheSize = 8;
+    private CustomizableCore customizableCore;
 
     private final CorePreparationHandler corePreparationHandler = new CorePreparationHandler();
     private final CoreLMPreparationHandler coreLMPreparationHandler = new CoreLMPreparationHandler();
@@ -101,6 +110,9 @@ public class ORSGraphHopper extends GraphHopperGtfs {
     }
 
     private GraphHopperConfig config;
+    private SnapCache snapCache;
+    private SharedOSMReader sharedOSMReader;
+    private final Map<String, PHASTAlgorithm.DownwardEdges> phastDownwardEdges = new ConcurrentHashMap<>();
 
     public ORSGraphHopper(GraphProcessContext procCntx) {
         processContext = procCntx;
@@ -112,6 +124,26 @@ public class ORSGraphHopper extends GraphHopperGtfs {
         // used to initialize tests more easily without the need to create GraphProcessContext etc. when they're anyway not used in the tested functions.
     }
 
+    public SnapCache getSnapCache() {
+        return snapCache;
+    }
+
+    public void setSnapCache(SnapCache snapCache) {
+        this.snapCache = snapCache;
+    }
+
+    public void setSharedOSMReader(SharedOSMReader sharedOSMReader) {
+        this.sharedOSMReader = sharedOSMReader;
+    }
+
+    /**
+     * @return the downward edges of the given CH graph followed by the {@link PHASTAlgorithm}, collected on first use
+     */
+    public PHASTAlgorithm.DownwardEdges getPHASTDownwardEdges(String chProfileName, boolean reverseDirection) {
+        return phastDownwardEdges.computeIfAbsent(chProfileName + (reverseDirection ? "|reverse" : "|forward"),
+                key -> PHASTAlgorithm.DownwardEdges.create(getGraphHopperStorage().getRoutingCHGraph(chProfileName), reverseDirection));
+    }
+
     @Override
     public GraphHopper init(GraphHopperConfig ghConfig) {
         GraphHopper ret = super.init(ghConfig);
@@ -125,6 +157,9 @@ public class ORSGraphHopper extends GraphHopperGtfs {
 
         minNetworkSize = ghConfig.getInt("prepare.min_network_size", minNetworkSize);
         minOneWayNetworkSize = ghConfig.getInt("prepare.min_one_way_network_size", minOneWayNetworkSize);
+        customizableCoreEnabled = ghConfig.getBool("prepare.customizable_core.enabled", customizableCoreEnabled);
+        customizableCoreMaxDegree = ghConfig.getInt("prepare.customizable_core.max_degree", customizableCoreMaxDegree);
+        customizableCoreCacheSize = ghConfig.getInt("routing.customizable_core.cache_size", customizableCoreCacheSize);
         config = ghConfig;
         return ret;
     }
@@ -152,7 +187,9 @@ public class ORSGraphHopper extends GraphHopperGtfs {
 
     @Override
     protected OSMReader createOSMReader() {
-        return new ORSOSMReader(getGraphHopperStorage(), processContext);
+        ORSOSMReader reader = new ORSOSMReader(getGraphHopperStorage(), processContext);
+        reader.setSharedReader(sharedOSMReader);
+        return reader;
     }
 
     @Override
@@ -199,6 +236,9 @@ public class ORSGraphHopper extends GraphHopperGtfs {
     protected Router doCreateRouter(GraphHopperStorage ghStorage, LocationIndex locationIndex, Map<String, Profile> profilesByName,
                                     PathDetailsBuilderFactory pathBuilderFactory, TranslationMap trMap, RouterConfig routerConfig,
                                     WeightingFactory weightingFactory, Map<String, RoutingCHGraph> chGraphs, Map<String, LandmarkStorage> landmarks) {
+        if (snapCache != null)
+            locationIndex = new SnapCachingLocationIndex(locationIndex, ghStorage, snapCache);
+        locationIndex = new TimedLocationIndex(locationIndex);
         ORSRouter r = new ORSRouter(ghStorage, locationIndex, profilesByName, pathBuilderFactory, trMap, routerConfig, weightingFactory, chGraphs, landmarks);
         r.setEdgeFilterFactory(new ORSEdgeFilterFactory());
         r.setPathProcessorFactory(pathProcessorFactory);
@@ -218,6 +258,7 @@ public class ORSGraphHopper extends GraphHopperGtfs {
             coreLandmarks.put(preparation.getLMConfig().getName(), (PrepareCoreLandmarks) preparation);
         }
         r.setCoreLandmarks(coreLandmarks);
+        r.setCustomizableCore(customizableCore);
 
         return r;
     }
@@ -374,6 +415,8 @@ public class ORSGraphHopper extends GraphHopperGtfs {
 
         //Create the core
         GraphHopperStorage gs = getGraphHopperStorage();
+        if (gs instanceof ORSGraphHopperStorage orsStorage)
+            orsStorage.setEdgeRestrictionFlags(EdgeRestrictionFlags.build(gs));
         if (corePreparationHandler.isEnabled())
             corePreparationHandler.setProcessContext(processContext).createPreparations(gs);
         if (isCorePrepared()) {
@@ -394,6 +437,11 @@ public class ORSGraphHopper extends GraphHopperGtfs {
         }
         loadOrPrepareCoreLM();
 
+        // the topology of the customizable core does not depend on any weighting, it is built once for all profiles
+        // of the graph and stored with it
+        if (customizableCoreEnabled)
+            customizableCore = CustomizableCore.loadOrBuild(gs.getBaseGraph(), gs.getDirectory(), customizableCoreMaxDegree, customizableCoreCacheSize);
+
         if (fastIsochroneFactory.isEnabled()) {
             EdgeFilterSequence partitioningEdgeFilter = new EdgeFilterSequence();
             try {
@@ -464,6 +512,13 @@ public class ORSGraphHopper extends GraphHopperGtfs {
         return corePreparationHandler.isEnabled();
     }
 
+    /**
+     * @return the customizable core, or {@code null} if it is disabled
+     */
+    public CustomizableCore getCustomizableCore() {
+        return customizableCore;
+    }
+
     public final CorePreparationHandler getCorePreparationHandler() {
         return corePreparationHandler;
     }
@@ -658,4 +713,22 @@ public class ORSGraphHopper extends GraphHopperGtfs {
         }
         return mem + getGraphHopperStorage().getCapacity();
     }
+
+    /**
+     * @return memory used by nodes, edges, geometry and the location index, i.e. the part of the graph which is
+     * shared by all vehicles of this instance. Unlike {@link #getMemoryUsage()} this includes the location index.
+     */
+    public long getBaseGraphMemoryUsage() {
+        GraphHopperStorage ghs = getGraphHopperStorage();
+        long mem = ghs.getCapacity();
+        for (String chName : ghs.getCHGraphNames())
+            mem -= ghs.getCHStore(chName).getCapacity();
+        if (ghs instanceof ORSGraphHopperStorage orsStorage) {
+            for (String coreName : orsStorage.getCoreGraphNames())
+                mem -= orsStorage.getCoreStore(coreName).getCapacity();
+        }
+        if (getLocationIndex() instanceof LocationIndexTree locationIndex)
+            mem += locationIndex.getCapacity();
+        return mem;
+    }
 }
@@ -15,6 +15,7 @@ package org.heigit.ors.routing.graphhopper.extensions;
 
 import com.graphhopper.routing.util.EncodingManager;
 import com.graphhopper.storage.*;
+import org.heigit.ors.routing.graphhopper.extensions.storages.EdgeRestrictionFlags;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -23,6 +24,7 @@ import java.util.stream.Collectors;
 
 public class ORSGraphHopperStorage extends GraphHopperStorage {
     private final Collection<CHEntry> coreEntries;
+    private EdgeRestrictionFlags edgeRestrictionFlags;
 
     public ORSGraphHopperStorage(Directory dir, EncodingManager encodingManager, boolean withElevation, boolean withTurnCosts, int segmentSize) {
         super(dir, encodingManager, withElevation, withTurnCosts, segmentSize);
@@ -74,6 +76,14 @@ public class ORSGraphHopperStorage extends GraphHopperStorage {
         return null;
     }
 
+    public EdgeRestrictionFlags getEdgeRestrictionFlags() {
+        return edgeRestrictionFlags;
+    }
+
+    public void setEdgeRestrictionFlags(EdgeRestrictionFlags edgeRestrictionFlags) {
+        this.edgeRestrictionFlags = edgeRestrictionFlags;
+    }
+
     public List<String> getCoreGraphNames() {
         return coreEntries.stream().map(ch -> ch.chConfig.getName()).collect(Collectors.toList());
     }
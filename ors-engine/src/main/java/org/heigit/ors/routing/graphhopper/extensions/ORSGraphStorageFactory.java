@@ -17,6 +17,8 @@ import com.graphhopper.GraphHopper;
 import com.graphhopper.routing.util.EncodingManager;
 import com.graphhopper.storage.*;
 import org.apache.log4j.Logger;
+import org.heigit.ors.routing.graphhopper.extensions.storages.EdgeAttributesColumn;
+import org.heigit.ors.routing.graphhopper.extensions.storages.EdgeAttributesGraphStorage;
 import org.heigit.ors.routing.graphhopper.extensions.storages.builders.GraphStorageBuilder;
 
 import java.util.ArrayList;
@@ -51,6 +53,17 @@ public class ORSGraphStorageFactory implements GraphStorageFactory {
             }
         }
 
+        // the storages with a few bytes per edge share one record per edge
+        EdgeAttributesGraphStorage edgeAttributes = new EdgeAttributesGraphStorage();
+        for (GraphExtension ext : graphExtensions) {
+            if (ext instanceof EdgeAttributesColumn column)
+                edgeAttributes.addColumn(column);
+        }
+        if (!edgeAttributes.isEmpty()) {
+            graphExtensions.add(edgeAttributes);
+            LOGGER.info("Storing %d bytes of attributes per edge in %s".formatted(edgeAttributes.getRecordBytes(), EdgeAttributesGraphStorage.NAME));
+        }
+
         GraphHopperStorage ghs = new ORSGraphHopperStorage(dir, encodingManager, gh.hasElevation(), true, -1);
         ExtendedStorageSequence extendedStorages = new ExtendedStorageSequence(graphExtensions);
         extendedStorages.init(ghs.getBaseGraph(), dir);
@@ -16,17 +16,22 @@ package org.heigit.ors.routing.graphhopper.extensions;
 import com.carrotsearch.hppc.LongArrayList;
 import com.graphhopper.reader.ReaderNode;
 import com.graphhopper.reader.ReaderWay;
+import com.graphhopper.reader.osm.OSMInput;
 import com.graphhopper.reader.osm.OSMReader;
 import com.graphhopper.storage.GraphHopperStorage;
 import com.graphhopper.storage.IntsRef;
 import com.graphhopper.util.EdgeIteratorState;
 import com.graphhopper.util.shapes.GHPoint;
 import org.apache.log4j.Logger;
+import org.heigit.ors.routing.graphhopper.extensions.reader.SharedOSMReader;
 import org.heigit.ors.routing.graphhopper.extensions.reader.osmfeatureprocessors.OSMFeatureFilter;
 import org.heigit.ors.routing.graphhopper.extensions.reader.osmfeatureprocessors.WheelchairWayFilter;
 import org.heigit.ors.routing.graphhopper.extensions.storages.builders.*;
 import org.locationtech.jts.geom.Coordinate;
 
+import javax.xml.stream.XMLStreamException;
+import java.io.File;
+import java.io.IOException;
 import java.io.InvalidObjectException;
 import java.util.*;
 import java.util.Map.Entry;
@@ -53,6 +58,8 @@ public class ORSOSMReader extends OSMReader {
 
     private final HashSet<String> extraTagKeys;
 
+    private SharedOSMReader sharedReader;
+
     public ORSOSMReader(GraphHopperStorage storage, GraphProcessContext procCntx) {
         super(storage);
 
@@ -103,6 +110,25 @@ public class ORSOSMReader extends OSMReader {
         }
     }
 
+    /**
+     * Reads the OSM file through a parse shared with other profiles instead of parsing it on its own.
+     */
+    public void setSharedReader(SharedOSMReader sharedReader) {
+        this.sharedReader = sharedReader;
+    }
+
+    @Override
+    protected OSMInput openOsmInputFile(File osmFile) throws XMLStreamException, IOException {
+        if (sharedReader == null)
+            return super.openOsmInputFile(osmFile);
+        try {
+            return sharedReader.open();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the shared OSM read.", e);
+        }
+    }
+
     @Override
     public ReaderNode onProcessNode(ReaderNode node) {
         // On OSM, nodes are seperate entities which are used to make up ways. So basically, a node is read before a
@@ -29,9 +29,12 @@ import com.graphhopper.util.PMap;
 import com.graphhopper.util.TranslationMap;
 import com.graphhopper.util.details.PathDetailsBuilderFactory;
 import org.heigit.ors.routing.graphhopper.extensions.core.CoreRoutingAlgorithmFactory;
+import org.heigit.ors.routing.graphhopper.extensions.core.CustomizableCore;
+import org.heigit.ors.routing.graphhopper.extensions.core.CustomizedCore;
 import org.heigit.ors.routing.graphhopper.extensions.core.PrepareCoreLandmarks;
 
 import java.util.Map;
+import java.util.TreeMap;
 
 public class ORSRouter extends Router {
     private final GraphHopperStorage ghStorage;
@@ -41,6 +44,7 @@ public class ORSRouter extends Router {
     private final WeightingFactory weightingFactory;
     private Map<String, RoutingCHGraph> coreGraphs;
     private Map<String, PrepareCoreLandmarks> coreLandmarks;
+    private CustomizableCore customizableCore;
 
     public ORSRouter(GraphHopperStorage ghStorage, LocationIndex locationIndex, Map<String, Profile> profilesByName, PathDetailsBuilderFactory pathDetailsBuilderFactory, TranslationMap translationMap, RouterConfig routerConfig, WeightingFactory weightingFactory, Map<String, RoutingCHGraph> chGraphs, Map<String, LandmarkStorage> landmarks) {
         super(ghStorage, locationIndex, profilesByName, pathDetailsBuilderFactory, translationMap, routerConfig, weightingFactory, chGraphs, landmarks);
@@ -59,12 +63,29 @@ public class ORSRouter extends Router {
         this.coreLandmarks = coreLandmarks;
     }
 
+    public void setCustomizableCore(CustomizableCore customizableCore) {
+        this.customizableCore = customizableCore;
+    }
+
     private static boolean getDisableCore(PMap hints) {
         return hints.getBool("core.disable", true);
     }
 
     @Override
     protected Router.Solver createSolver(GHRequest request, EdgeFilterFactory edgeFilterFactory) {
+        String customizationKey = request.getHints().getString(CustomizableCore.KEY_CUSTOMIZATION, "");
+        if (customizableCore != null && !customizationKey.isEmpty()) {
+            CustomizedCore customization = customizableCore.getCustomization(customizationKey);
+            if (customization != null)
+                return new CustomizedCoreSolver(request, this.profilesByName, this.routerConfig, this.encodingManager, this.weightingFactory, this.ghStorage, this.coreGraphs, this.coreLandmarks, customization).setEdgeFilterFactory(edgeFilterFactory);
+            // the request is answered without the customization, which is then available to the following requests
+            Profile profile = profilesByName.get(request.getProfile());
+            if (profile != null && edgeFilterFactory != null) {
+                Weighting weighting = weightingFactory.createWeighting(profile, request.getHints(), false);
+                EdgeFilter edgeFilter = edgeFilterFactory.createEdgeFilter(request.getAdditionalHints(), weighting.getFlagEncoder(), ghStorage);
+                customizableCore.customizeLater(customizationKey, ghStorage.getBaseGraph(), weighting, edgeFilter);
+            }
+        }
         boolean disableCore = getDisableCore(request.getHints());
         if (!disableCore) {
             return new ORSRouter.CoreSolver(request, this.profilesByName, this.routerConfig, this.encodingManager, this.weightingFactory, this.ghStorage, this.coreGraphs, this.coreLandmarks).setEdgeFilterFactory(edgeFilterFactory);
@@ -94,7 +115,9 @@ public class ORSRouter extends Router {
         }
 
         protected Weighting createWeighting() {
-            return weightingFactory.createWeighting(profile, request.getHints(), false);
+            String key = describe(new StringBuilder(profile.getName()), request.getHints());
+            return SearchComponentsScope.get(ghStorage, "weighting", key,
+                    () -> weightingFactory.createWeighting(profile, request.getHints(), false));
         }
 
         protected PathCalculator createPathCalculator(QueryGraph queryGraph) {
@@ -111,17 +134,56 @@ public class ORSRouter extends Router {
                     setHints(request.getHints());
 
             if (edgeFilterFactory != null)
-                algoOpts.setEdgeFilter(edgeFilterFactory.createEdgeFilter(request.getAdditionalHints(), weighting.getFlagEncoder(), ghStorage));
+                algoOpts.setEdgeFilter(SearchComponentsScope.get(ghStorage, "edgeFilter", createFilterKey(),
+                        () -> edgeFilterFactory.createEdgeFilter(request.getAdditionalHints(), weighting.getFlagEncoder(), ghStorage)));
 
             return algoOpts;
         }
 
         @Override
         protected EdgeFilter getSnapFilter() {
+            return SearchComponentsScope.get(ghStorage, "snapFilter", createFilterKey(), this::createSnapFilter);
+        }
+
+        private EdgeFilter createSnapFilter() {
             EdgeFilter defaultSnapFilter = new DefaultSnapFilter(weighting, lookup.getBooleanEncodedValue(Subnetwork.key(profile.getName())));
-            if (edgeFilterFactory != null)
-                return edgeFilterFactory.createEdgeFilter(request.getAdditionalHints(), weighting.getFlagEncoder(), ghStorage, defaultSnapFilter);
-            return defaultSnapFilter;
+            if (edgeFilterFactory == null)
+                return defaultSnapFilter;
+            EdgeFilter snapFilter = edgeFilterFactory.createEdgeFilter(request.getAdditionalHints(), weighting.getFlagEncoder(), ghStorage, defaultSnapFilter);
+            String cacheKey = createSnapCacheKey(profile.getName(), weighting, request.getAdditionalHints());
+            return cacheKey == null ? snapFilter : new SnapCachingLocationIndex.KeyedSnapFilter(snapFilter, cacheKey);
+        }
+
+        /**
+         * @return a key describing the edge filters of the request, or {@code null} if they must not be shared
+         */
+        private String createFilterKey() {
+            StringBuilder sb = new StringBuilder(profile.getName()).append('|').append(weighting.getName());
+            String key = describe(sb, request.getHints());
+            return key == null ? null : describe(sb.append('|'), request.getAdditionalHints());
+        }
+
+        /**
+         * @return a key describing the snap filter, or {@code null} if the hints contain values such as avoid areas
+         * or profile parameters which cannot be compared cheaply
+         */
+        private static String createSnapCacheKey(String profileName, Weighting weighting, PMap hints) {
+            return describe(new StringBuilder(profileName).append('|').append(weighting.getName()), hints);
+        }
+
+        /**
+         * Appends the hints to {@code sb}.
+         *
+         * @return the description, or {@code null} if the hints contain values which cannot be compared cheaply
+         */
+        private static String describe(StringBuilder sb, PMap hints) {
+            for (Map.Entry<String, Object> entry : new TreeMap<>(hints.toMap()).entrySet()) {
+                Object value = entry.getValue();
+                if (value != null && !(value instanceof String || value instanceof Number || value instanceof Boolean))
+                    return null;
+                sb.append('|').append(entry.getKey()).append('=').append(value);
+            }
+            return sb.toString();
         }
 
         private RoutingCHGraph getRoutingCHGraph(String profileName) {
@@ -151,4 +213,20 @@ public class ORSRouter extends Router {
             }
         }
     }
+
+    private static class CustomizedCoreSolver extends CoreSolver {
+        private final CustomizedCore customization;
+
+        CustomizedCoreSolver(GHRequest request, Map<String, Profile> profilesByName, RouterConfig routerConfig, EncodedValueLookup lookup, WeightingFactory weightingFactory, GraphHopperStorage ghStorage, Map<String, RoutingCHGraph> chGraphs, Map<String, PrepareCoreLandmarks> landmarks, CustomizedCore customization) {
+            super(request, profilesByName, routerConfig, lookup, weightingFactory, ghStorage, chGraphs, landmarks);
+            this.customization = customization;
+        }
+
+        @Override
+        protected PathCalculator createPathCalculator(QueryGraph queryGraph) {
+            AlgorithmOptions algoOpts = getAlgoOpts();
+            EdgeFilter edgeFilter = algoOpts.getEdgeFilter() == null ? EdgeFilter.ALL_EDGES : algoOpts.getEdgeFilter();
+            return new CustomizedCorePathCalculator(queryGraph, customization, weighting, edgeFilter, algoOpts.getMaxVisitedNodes());
+        }
+    }
 }
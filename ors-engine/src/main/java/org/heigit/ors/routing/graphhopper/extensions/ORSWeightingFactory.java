@@ -14,12 +14,14 @@ import com.graphhopper.util.Parameters;
 import org.heigit.ors.common.TravelRangeType;
 import org.heigit.ors.routing.ProfileWeighting;
 import org.heigit.ors.routing.RouteRequestParameterNames;
+import org.heigit.ors.routing.RouteResult;
 import org.heigit.ors.routing.RouteSearchContext;
 import org.heigit.ors.routing.graphhopper.extensions.storages.GraphStorageUtils;
 import org.heigit.ors.routing.graphhopper.extensions.storages.TrafficGraphStorage;
 import org.heigit.ors.routing.graphhopper.extensions.util.MaximumSpeedCalculator;
 import org.heigit.ors.routing.graphhopper.extensions.weighting.*;
 import org.heigit.ors.routing.traffic.RoutingTrafficSpeedCalculator;
+import org.heigit.ors.util.ProfileTools;
 
 import java.time.Instant;
 import java.time.ZoneId;
@@ -58,6 +60,9 @@ public class ORSWeightingFactory implements WeightingFactory {
         // for LM/CH. Later we should also limit the number of parameters that can be used to modify the profile.
         // todo: since we are not dealing with block_area here yet we cannot really apply any merging rules
         // for it, see discussion here: https://github.com/graphhopper/graphhopper/pull/1958#discussion_r395462901
+        if (profile.getHints().getBool(ProfileTools.KEY_ISOCHRONE_WEIGHTING, false))
+            return createIsochroneWeighting(profile, requestHints);
+
         PMap hints = new PMap();
         hints.putAll(profile.getHints());
         hints.putAll(requestHints);
@@ -158,9 +163,10 @@ public class ORSWeightingFactory implements WeightingFactory {
                 weighting.setSpeedCalculator(new ConditionalSpeedCalculator(weighting.getSpeedCalculator(), ghStorage, encoder));
 
             // traffic data
-            Instant time = requestHints.getObject(requestHints.has(RouteRequestParameterNames.PARAM_DEPARTURE) ?
-                    RouteRequestParameterNames.PARAM_DEPARTURE : RouteRequestParameterNames.PARAM_ARRIVAL, null);
-            addTrafficSpeedCalculator(weighting, ghStorage, time);
+            boolean departure = requestHints.has(RouteRequestParameterNames.PARAM_DEPARTURE);
+            Instant time = requestHints.getObject(departure ? RouteRequestParameterNames.PARAM_DEPARTURE : RouteRequestParameterNames.PARAM_ARRIVAL, null);
+            String zone = requestHints.getString(departure ? RouteResult.KEY_TIMEZONE_DEPARTURE : RouteResult.KEY_TIMEZONE_ARRIVAL, RouteResult.DEFAULT_TIMEZONE);
+            addTrafficSpeedCalculator(weighting, ghStorage, time == null ? null : time.atZone(ZoneId.of(zone)));
         }
 
         if (requestHints.has("maximum_speed")) {
@@ -236,17 +242,14 @@ public class ORSWeightingFactory implements WeightingFactory {
             addTrafficSpeedCalculator(weighting, ghStorage, null);
     }
 
-    private static void addTrafficSpeedCalculator(Weighting weighting, GraphHopperStorage ghStorage, Instant time) {
+    private static void addTrafficSpeedCalculator(Weighting weighting, GraphHopperStorage ghStorage, ZonedDateTime time) {
         TrafficGraphStorage trafficGraphStorage = GraphStorageUtils.getGraphExtension(ghStorage, TrafficGraphStorage.class);
 
         if (trafficGraphStorage != null) {
             RoutingTrafficSpeedCalculator routingTrafficSpeedCalculator = new RoutingTrafficSpeedCalculator(weighting.getSpeedCalculator(), ghStorage, weighting.getFlagEncoder());
 
-            if (time != null) {
-                //Use fixed time zone because original implementation was for German traffic data
-                ZonedDateTime zdt = time.atZone(ZoneId.of("Europe/Berlin"));
-                routingTrafficSpeedCalculator.setZonedDateTime(zdt);
-            }
+            if (time != null)
+                routingTrafficSpeedCalculator.setZonedDateTime(time);
 
             weighting.setSpeedCalculator(routingTrafficSpeedCalculator);
         }
@@ -0,0 +1,77 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.routing.graphhopper.extensions;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Lets the requests computed one after another by the same thread share their weightings and edge filters. Outside of
+ * an open scope every request creates its own components as before.
+ * <p>
+ * Components are only shared between requests with equal keys, so the key has to describe everything the component
+ * depends on. Query graphs are not shared, as they are built from the snapped points of each request.
+ */
+public class SearchComponentsScope implements AutoCloseable {
+    private static final ThreadLocal<SearchComponentsScope> CURRENT = new ThreadLocal<>();
+    private static final SearchComponentsScope NESTED = new SearchComponentsScope();
+
+    private final Map<Key, Object> components = new HashMap<>();
+
+    private SearchComponentsScope() {
+    }
+
+    /**
+     * Opens a scope for the current thread. A scope opened within another one has no effect, the components are kept
+     * until the outer scope is closed.
+     */
+    public static SearchComponentsScope open() {
+        if (CURRENT.get() != null)
+            return NESTED;
+        SearchComponentsScope scope = new SearchComponentsScope();
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /**
+     * @param owner   object the component belongs to, e.g. the graph storage, so that components of a reloaded graph
+     *                are not mixed up with those of the previous one
+     * @param kind    kind of the component
+     * @param key     description of everything the component depends on, or {@code null} if it must not be shared
+     * @param factory creates the component if none has been created within the scope yet
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T get(Object owner, String kind, String key, Supplier<T> factory) {
+        SearchComponentsScope scope = CURRENT.get();
+        if (scope == null || key == null)
+            return factory.get();
+        return (T) scope.components.computeIfAbsent(new Key(owner, kind, key), k -> factory.get());
+    }
+
+    static boolean isOpen() {
+        return CURRENT.get() != null;
+    }
+
+    @Override
+    public void close() {
+        if (this == NESTED)
+            return;
+        components.clear();
+        CURRENT.remove();
+    }
+
+    private record Key(Object owner, String kind, String key) {
+    }
+}
@@ -0,0 +1,137 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.routing.graphhopper.extensions;
+
+import com.graphhopper.routing.util.EdgeFilter;
+import com.graphhopper.storage.Graph;
+import com.graphhopper.storage.index.LocationIndex;
+import com.graphhopper.storage.index.Snap;
+import com.graphhopper.util.DistancePlaneProjection;
+import com.graphhopper.util.EdgeIteratorState;
+import com.graphhopper.util.shapes.GHPoint3D;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Metrics;
+import org.heigit.ors.util.LruCache;
+
+import java.util.List;
+
+/**
+ * Per-profile cache of {@link LocationIndex#findClosest} results for frequently requested coordinates such as depots
+ * or hubs.
+ * <p>
+ * Coordinates are quantised to 1e-6 degrees and combined with a key describing the snap filter. Only the snapped edge,
+ * its orientation and the snap position are cached; every lookup builds a fresh {@link Snap} for the actual query
+ * point, because {@link com.graphhopper.routing.querygraph.QueryGraph} modifies the snaps it is created from.
+ * The cache belongs to the graph it was filled from and is discarded together with it.
+ */
+public class SnapCache {
+    private static final double QUANTISATION = 1e6;
+
+    private final LruCache<Key, Entry> cache;
+    private final String profileName;
+    private List<Meter> meters;
+    private volatile boolean bypassed;
+
+    public SnapCache(String profileName, int maximumSize, int timeToLive) {
+        cache = new LruCache<>(maximumSize, timeToLive * 1000L);
+        this.profileName = profileName;
+        meters = cache.registerMeters(Metrics.globalRegistry, "ors.snap.cache", "profile", profileName);
+    }
+
+    /**
+     * Creates a cache without meters and expiry for the locations of a single job, e.g. a tiled matrix.
+     */
+    public SnapCache(int maximumSize) {
+        cache = new LruCache<>(maximumSize, 0);
+        profileName = null;
+        meters = List.of();
+    }
+
+    /**
+     * Equivalent to {@code index.findClosest(lat, lon, filter)}, served from the cache if the location has been
+     * snapped with the same filter before.
+     *
+     * @param filterKey string uniquely describing the behaviour of {@code filter}
+     */
+    public Snap findClosest(LocationIndex index, Graph graph, double lat, double lon, EdgeFilter filter, String filterKey) {
+        if (bypassed)
+            return index.findClosest(lat, lon, filter);
+        Key key = new Key(Math.round(lat * QUANTISATION), Math.round(lon * QUANTISATION), filterKey);
+        Entry entry = cache.get(key);
+        if (entry != null)
+            return entry.toSnap(graph, lat, lon);
+
+        Snap snap = index.findClosest(lat, lon, filter);
+        cache.put(key, Entry.of(snap));
+        return snap;
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    /**
+     * While bypassed, lookups go straight to the index and neither read nor fill the cache, e.g. for the synthetic
+     * queries of the warm-up.
+     */
+    public void setBypassed(boolean bypassed) {
+        this.bypassed = bypassed;
+    }
+
+    /**
+     * Registers the meters of this cache again, replacing those of a cache for the same profile that has been
+     * superseded by a graph reload.
+     */
+    public void registerMeters() {
+        removeMeters();
+        meters = cache.registerMeters(Metrics.globalRegistry, "ors.snap.cache", "profile", profileName);
+    }
+
+    public void removeMeters() {
+        for (Meter meter : meters)
+            Metrics.globalRegistry.remove(meter);
+        meters = List.of();
+    }
+
+    public void close() {
+        cache.clear();
+        removeMeters();
+    }
+
+    private record Key(long lat, long lon, String filterKey) {
+    }
+
+    private record Entry(int closestNode, int edge, int adjNode, int wayIndex, Snap.Position position) {
+        static Entry of(Snap snap) {
+            if (!snap.isValid())
+                return new Entry(Snap.INVALID_NODE, -1, -1, -1, null);
+            EdgeIteratorState closestEdge = snap.getClosestEdge();
+            return new Entry(snap.getClosestNode(), closestEdge.getEdge(), closestEdge.getAdjNode(), snap.getWayIndex(), snap.getSnappedPosition());
+        }
+
+        Snap toSnap(Graph graph, double lat, double lon) {
+            Snap snap = new Snap(lat, lon);
+            if (closestNode == Snap.INVALID_NODE)
+                return snap;
+            snap.setClosestNode(closestNode);
+            snap.setClosestEdge(graph.getEdgeIteratorState(edge, adjNode));
+            snap.setWayIndex(wayIndex);
+            snap.setSnappedPosition(position);
+            snap.calcSnappedPoint(DistancePlaneProjection.DIST_PLANE);
+            GHPoint3D snapped = snap.getSnappedPoint();
+            snap.setQueryDistance(DistancePlaneProjection.DIST_PLANE.calcDist(lat, lon, snapped.lat, snapped.lon));
+            return snap;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.routing.graphhopper.extensions;
+
+import com.graphhopper.routing.util.EdgeFilter;
+import com.graphhopper.storage.Graph;
+import com.graphhopper.storage.index.LocationIndex;
+import com.graphhopper.storage.index.Snap;
+import com.graphhopper.util.EdgeIteratorState;
+import com.graphhopper.util.shapes.BBox;
+
+/**
+ * {@link LocationIndex} handed to the router which serves lookups through a {@link SnapCache}. Only lookups with a
+ * {@link KeyedSnapFilter} are cached, any other filter (e.g. the heading or snap prevention filters wrapped around it
+ * by GraphHopper) falls through to the underlying index.
+ */
+public class SnapCachingLocationIndex implements LocationIndex {
+    private final LocationIndex index;
+    private final Graph graph;
+    private final SnapCache snapCache;
+
+    public SnapCachingLocationIndex(LocationIndex index, Graph graph, SnapCache snapCache) {
+        this.index = index;
+        this.graph = graph;
+        this.snapCache = snapCache;
+    }
+
+    @Override
+    public Snap findClosest(double lat, double lon, EdgeFilter edgeFilter) {
+        if (edgeFilter instanceof KeyedSnapFilter keyedFilter)
+            return snapCache.findClosest(index, graph, lat, lon, keyedFilter, keyedFilter.getKey());
+        return index.findClosest(lat, lon, edgeFilter);
+    }
+
+    @Override
+    public void query(BBox queryBBox, Visitor function) {
+        index.query(queryBBox, function);
+    }
+
+    public void close() {
+        // the underlying index is owned and closed by GraphHopper
+    }
+
+    /**
+     * Snap filter with a string key uniquely describing its behaviour, so that its results can be cached.
+     */
+    public static class KeyedSnapFilter implements EdgeFilter {
+        private final EdgeFilter filter;
+        private final String key;
+
+        public KeyedSnapFilter(EdgeFilter filter, String key) {
+            this.filter = filter;
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public boolean accept(EdgeIteratorState edgeState) {
+            return filter.accept(edgeState);
+        }
+    }
+}
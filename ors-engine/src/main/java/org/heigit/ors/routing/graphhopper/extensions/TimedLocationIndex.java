@@ -0,0 +1,49 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.routing.graphhopper.extensions;
+
+import com.graphhopper.routing.util.EdgeFilter;
+import com.graphhopper.storage.index.LocationIndex;
+import com.graphhopper.storage.index.Snap;
+import com.graphhopper.util.shapes.BBox;
+import org.heigit.ors.util.StageMetrics;
+
+/**
+ * {@link LocationIndex} handed to the router which adds the time spent in {@link #findClosest} to the
+ * {@link StageMetrics.Stage#SNAPPING} stage of the current request.
+ */
+public class TimedLocationIndex implements LocationIndex {
+    private final LocationIndex index;
+
+    public TimedLocationIndex(LocationIndex index) {
+        this.index = index;
+    }
+
+    @Override
+    public Snap findClosest(double lat, double lon, EdgeFilter edgeFilter) {
+        long start = System.nanoTime();
+        Snap snap = index.findClosest(lat, lon, edgeFilter);
+        StageMetrics.accumulate(StageMetrics.Stage.SNAPPING, System.nanoTime() - start);
+        return snap;
+    }
+
+    @Override
+    public void query(BBox queryBBox, Visitor function) {
+        index.query(queryBBox, function);
+    }
+
+    public void close() {
+        // the underlying index is owned and closed by GraphHopper
+    }
+}
@@ -67,14 +67,19 @@ public abstract class AbstractCoreRoutingAlgorithm extends AbstractRoutingAlgori
             hasTurnWeighting = true;
         }
 
-        int size = Math.min(2000, Math.max(200, graph.getNodes() / 10));
-        initCollections(size);
-
         coreNodeLevel = GraphUtils.getBaseGraph(chGraph).getNodes();
         turnRestrictedNodeLevel = coreNodeLevel + 1;
     }
 
-    protected abstract void initCollections(int size);
+    /**
+     * Sets up the priority queues and best weight maps of a query, see {@link CoreSearchScratch}.
+     */
+    protected abstract void initCollections();
+
+    /**
+     * Hands the collections set up by {@link #initCollections()} back for reuse by the next query.
+     */
+    protected abstract void releaseCollections();
 
     protected SPTEntry bestFwdEntry;
     protected SPTEntry bestBwdEntry;
@@ -161,10 +166,15 @@ public abstract class AbstractCoreRoutingAlgorithm extends AbstractRoutingAlgori
     @Override
     public Path calcPath(int from, int to, long at) {
         checkAlreadyRun();
-        initFrom(from, 0, at);
-        initTo(to, 0, at);
-        runAlgo();
-        return extractPath();
+        initCollections();
+        try {
+            initFrom(from, 0, at);
+            initTo(to, 0, at);
+            runAlgo();
+            return extractPath();
+        } finally {
+            releaseCollections();
+        }
     }
 
     @Override
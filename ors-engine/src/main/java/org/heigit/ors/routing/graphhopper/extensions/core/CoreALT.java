@@ -13,8 +13,6 @@
  */
 package org.heigit.ors.routing.graphhopper.extensions.core;
 
-import com.carrotsearch.hppc.IntObjectMap;
-import com.graphhopper.coll.GHIntObjectHashMap;
 import com.graphhopper.routing.ch.CHEntry;
 import com.graphhopper.routing.weighting.BalancedWeightApproximator;
 import com.graphhopper.routing.weighting.BeelineWeightApproximator;
@@ -48,13 +46,14 @@ public class CoreALT extends AbstractCoreRoutingAlgorithm {
     PriorityQueue<AStarEntry> fromPriorityQueueCore;
     PriorityQueue<AStarEntry> toPriorityQueueCore;
 
-    IntObjectMap<AStarEntry> bestWeightMapFromCH;
-    IntObjectMap<AStarEntry> bestWeightMapToCH;
-    IntObjectMap<AStarEntry> bestWeightMapOtherCH;
+    NodeEntryMap<AStarEntry> bestWeightMapFromCH;
+    NodeEntryMap<AStarEntry> bestWeightMapToCH;
+    NodeEntryMap<AStarEntry> bestWeightMapOtherCH;
 
-    IntObjectMap<List<AStarEntry>> bestWeightMapFromCore;
-    IntObjectMap<List<AStarEntry>> bestWeightMapToCore;
-    IntObjectMap<List<AStarEntry>> bestWeightMapOtherCore;
+    NodeEntryMap<List<AStarEntry>> bestWeightMapFromCore;
+    NodeEntryMap<List<AStarEntry>> bestWeightMapToCore;
+    NodeEntryMap<List<AStarEntry>> bestWeightMapOtherCore;
+    private CoreSearchScratch<AStarEntry> scratch;
 
     protected AStarEntry currFrom;
     protected AStarEntry currTo;
@@ -76,16 +75,22 @@ public class CoreALT extends AbstractCoreRoutingAlgorithm {
     }
 
     @Override
-    protected void initCollections(int size) {
-        fromPriorityQueueCH = new PriorityQueue<>(size);
-        toPriorityQueueCH = new PriorityQueue<>(size);
-        fromPriorityQueueCore = new PriorityQueue<>(size);
-        toPriorityQueueCore = new PriorityQueue<>(size);
-
-        bestWeightMapFromCH = new GHIntObjectHashMap<>(size);
-        bestWeightMapToCH = new GHIntObjectHashMap<>(size);
-        bestWeightMapFromCore = new GHIntObjectHashMap<>(size);
-        bestWeightMapToCore = new GHIntObjectHashMap<>(size);
+    protected void initCollections() {
+        scratch = CoreSearchScratch.acquire();
+        fromPriorityQueueCH = scratch.fromQueueCH;
+        toPriorityQueueCH = scratch.toQueueCH;
+        fromPriorityQueueCore = scratch.fromQueueCore;
+        toPriorityQueueCore = scratch.toQueueCore;
+
+        bestWeightMapFromCH = scratch.fromMapCH;
+        bestWeightMapToCH = scratch.toMapCH;
+        bestWeightMapFromCore = scratch.fromMapCore;
+        bestWeightMapToCore = scratch.toMapCore;
+    }
+
+    @Override
+    protected void releaseCollections() {
+        scratch.release();
     }
 
     /**
@@ -169,7 +174,7 @@ public class CoreALT extends AbstractCoreRoutingAlgorithm {
         return true;
     }
 
-    List<AStarEntry> initBestWeightMapEntryList(IntObjectMap<List<AStarEntry>> bestWeightMap, int traversalId) {
+    List<AStarEntry> initBestWeightMapEntryList(NodeEntryMap<List<AStarEntry>> bestWeightMap, int traversalId) {
         if (bestWeightMap.get(traversalId) != null)
             throw new IllegalStateException("Core entry point already exists in best weight map.");
 
@@ -249,7 +254,7 @@ public class CoreALT extends AbstractCoreRoutingAlgorithm {
         return currFrom.weight + currTo.weight >= bestWeight + approximatorOffset;
     }
 
-    void fillEdgesCH(AStarEntry currEdge, PriorityQueue<AStarEntry> prioQueue, IntObjectMap<AStarEntry> bestWeightMap,
+    void fillEdgesCH(AStarEntry currEdge, PriorityQueue<AStarEntry> prioQueue, NodeEntryMap<AStarEntry> bestWeightMap,
                      RoutingCHEdgeExplorer explorer, boolean reverse) {
         RoutingCHEdgeIterator iter = explorer.setBaseNode(currEdge.adjNode);
         while (iter.next()) {
@@ -312,7 +317,7 @@ public class CoreALT extends AbstractCoreRoutingAlgorithm {
         return true;
     }
 
-    private void fillEdgesCore(AStarEntry currEdge, PriorityQueue<AStarEntry> prioQueue, IntObjectMap<AStarEntry> bestWeightMap, IntObjectMap<List<AStarEntry>> bestWeightMapCore, RoutingCHEdgeExplorer explorer, boolean reverse) {
+    private void fillEdgesCore(AStarEntry currEdge, PriorityQueue<AStarEntry> prioQueue, NodeEntryMap<AStarEntry> bestWeightMap, NodeEntryMap<List<AStarEntry>> bestWeightMapCore, RoutingCHEdgeExplorer explorer, boolean reverse) {
         RoutingCHEdgeIterator iter = explorer.setBaseNode(currEdge.adjNode);
         while (iter.next()) {
             if (!accept(iter, currEdge, reverse))
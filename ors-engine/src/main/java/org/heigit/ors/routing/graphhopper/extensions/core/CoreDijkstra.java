@@ -13,8 +13,6 @@
  */
 package org.heigit.ors.routing.graphhopper.extensions.core;
 
-import com.carrotsearch.hppc.IntObjectMap;
-import com.graphhopper.coll.GHIntObjectHashMap;
 import com.graphhopper.routing.ch.CHEntry;
 import com.graphhopper.routing.weighting.Weighting;
 import com.graphhopper.storage.RoutingCHEdgeExplorer;
@@ -42,13 +40,14 @@ public class CoreDijkstra extends AbstractCoreRoutingAlgorithm {
     PriorityQueue<CHEntry> fromPriorityQueueCore;
     PriorityQueue<CHEntry> toPriorityQueueCore;
 
-    IntObjectMap<CHEntry> bestWeightMapFromCH;
-    IntObjectMap<CHEntry> bestWeightMapToCH;
-    IntObjectMap<CHEntry> bestWeightMapOtherCH;
+    NodeEntryMap<CHEntry> bestWeightMapFromCH;
+    NodeEntryMap<CHEntry> bestWeightMapToCH;
+    NodeEntryMap<CHEntry> bestWeightMapOtherCH;
 
-    IntObjectMap<List<CHEntry>> bestWeightMapFromCore;
-    IntObjectMap<List<CHEntry>> bestWeightMapToCore;
-    IntObjectMap<List<CHEntry>> bestWeightMapOtherCore;
+    NodeEntryMap<List<CHEntry>> bestWeightMapFromCore;
+    NodeEntryMap<List<CHEntry>> bestWeightMapToCore;
+    NodeEntryMap<List<CHEntry>> bestWeightMapOtherCore;
+    private CoreSearchScratch<CHEntry> scratch;
 
     CHEntry currFrom;
     CHEntry currTo;
@@ -58,16 +57,22 @@ public class CoreDijkstra extends AbstractCoreRoutingAlgorithm {
     }
 
     @Override
-    protected void initCollections(int size) {
-        fromPriorityQueueCH = new PriorityQueue<>(size);
-        toPriorityQueueCH = new PriorityQueue<>(size);
-        fromPriorityQueueCore = new PriorityQueue<>(size);
-        toPriorityQueueCore = new PriorityQueue<>(size);
-
-        bestWeightMapFromCH = new GHIntObjectHashMap<>(size);
-        bestWeightMapToCH = new GHIntObjectHashMap<>(size);
-        bestWeightMapFromCore = new GHIntObjectHashMap<>(size);
-        bestWeightMapToCore = new GHIntObjectHashMap<>(size);
+    protected void initCollections() {
+        scratch = CoreSearchScratch.acquire();
+        fromPriorityQueueCH = scratch.fromQueueCH;
+        toPriorityQueueCH = scratch.toQueueCH;
+        fromPriorityQueueCore = scratch.fromQueueCore;
+        toPriorityQueueCore = scratch.toQueueCore;
+
+        bestWeightMapFromCH = scratch.fromMapCH;
+        bestWeightMapToCH = scratch.toMapCH;
+        bestWeightMapFromCore = scratch.fromMapCore;
+        bestWeightMapToCore = scratch.toMapCore;
+    }
+
+    @Override
+    protected void releaseCollections() {
+        scratch.release();
     }
 
     @Override
@@ -136,7 +141,7 @@ public class CoreDijkstra extends AbstractCoreRoutingAlgorithm {
         return true;
     }
 
-    List<CHEntry> initBestWeightMapEntryList(IntObjectMap<List<CHEntry>> bestWeightMap, int traversalId) {
+    List<CHEntry> initBestWeightMapEntryList(NodeEntryMap<List<CHEntry>> bestWeightMap, int traversalId) {
         if (bestWeightMap.get(traversalId) != null)
             throw new IllegalStateException("Core entry point already exists in best weight map.");
 
@@ -216,7 +221,7 @@ public class CoreDijkstra extends AbstractCoreRoutingAlgorithm {
         return currFrom.weight + currTo.weight >= bestWeight;
     }
 
-    void fillEdges(CHEntry currEdge, PriorityQueue<CHEntry> prioQueue, IntObjectMap<CHEntry> bestWeightMap, IntObjectMap<List<CHEntry>> bestWeightMapCore, RoutingCHEdgeExplorer explorer, boolean reverse) {
+    void fillEdges(CHEntry currEdge, PriorityQueue<CHEntry> prioQueue, NodeEntryMap<CHEntry> bestWeightMap, NodeEntryMap<List<CHEntry>> bestWeightMapCore, RoutingCHEdgeExplorer explorer, boolean reverse) {
         RoutingCHEdgeIterator iter = explorer.setBaseNode(currEdge.adjNode);
         while (iter.next()) {
             if (!accept(iter, currEdge, reverse))
@@ -63,8 +63,8 @@ public class CorePreparationHandler extends CHPreparationHandler {
 
     @Override
     protected PrepareContractionHierarchies createCHPreparation(GraphHopperStorage ghStorage, CHConfig chConfig) {
-        EdgeFilter restrictionFilter = createCoreEdgeFilter(chConfig, ghStorage, processContext);
-        PrepareContractionHierarchies pch = new PrepareCore(ghStorage, chConfig, restrictionFilter);
+        SharedTurnRestrictions turnRestrictions = hasTurnRestrictions(chConfig) ? new SharedTurnRestrictions(chConfig.getWeighting().getFlagEncoder(), ghStorage) : null;
+        PrepareContractionHierarchies pch = new PrepareCore(ghStorage, chConfig, () -> createCoreEdgeFilter(chConfig, ghStorage, processContext, turnRestrictions));
         pch.setParams(pMap);
         return pch;
     }
@@ -74,16 +74,22 @@ public class CorePreparationHandler extends CHPreparationHandler {
         return this;
     }
 
-    private EdgeFilter createCoreEdgeFilter(CHConfig chProfile, GraphHopperStorage gs, GraphProcessContext processContext) {
+    /**
+     * The core filters depend on the vehicle of the preparation only, so that the cores of a graph shared by several
+     * vehicles do not contain the restrictions of the other vehicles.
+     */
+    private EdgeFilter createCoreEdgeFilter(CHConfig chProfile, GraphHopperStorage gs, GraphProcessContext processContext, SharedTurnRestrictions turnRestrictions) {
         EncodingManager encodingManager = gs.getEncodingManager();
+        FlagEncoder flagEncoder = chProfile.getWeighting().getFlagEncoder();
+        String encoderName = flagEncoder.toString();
 
-        int routingProfileCategory = RoutingProfileCategory.getFromEncoder(encodingManager);
+        int routingProfileCategory = RoutingProfileCategory.getFromEncoderName(encoderName);
 
         /* Initialize edge filter sequence */
         EdgeFilterSequence edgeFilterSequence = new EdgeFilterSequence();
 
         /* Heavy vehicle filter */
-        if (encodingManager.hasEncoder(FlagEncoderNames.HEAVYVEHICLE)) {
+        if (encoderName.equals(FlagEncoderNames.HEAVYVEHICLE)) {
             edgeFilterSequence.add(new HeavyVehicleCoreEdgeFilter(gs));
         }
 
@@ -102,22 +108,15 @@ public class CorePreparationHandler extends CHPreparationHandler {
         }
 
         /* Maximum speed & turn restrictions */
-        if ((routingProfileCategory & RoutingProfileCategory.DRIVING) != 0) {
-            String[] encoders = {FlagEncoderNames.CAR_ORS, FlagEncoderNames.HEAVYVEHICLE};
-            for (String encoderName : encoders) {
-                if (encodingManager.hasEncoder(encoderName)) {
-                    FlagEncoder flagEncoder = encodingManager.getEncoder(encoderName);
-                    edgeFilterSequence.add(new MaximumSpeedCoreEdgeFilter(flagEncoder, processContext.getMaximumSpeedLowerBound()));
-                    if (chProfile.isEdgeBased() && flagEncoder.supportsTurnCosts())
-                        edgeFilterSequence.add(new TurnRestrictionsCoreEdgeFilter(flagEncoder, gs));
-                    break;
-                }
-            }
+        if (encoderName.equals(FlagEncoderNames.CAR_ORS) || encoderName.equals(FlagEncoderNames.HEAVYVEHICLE)) {
+            edgeFilterSequence.add(new MaximumSpeedCoreEdgeFilter(flagEncoder, processContext.getMaximumSpeedLowerBound()));
+            if (turnRestrictions != null)
+                edgeFilterSequence.add(turnRestrictions.get());
         }
 
         /* Conditional edges */
-        if (TimeDependentCoreEdgeFilter.hasConditionals(encodingManager)) {
-            edgeFilterSequence.add(new TimeDependentCoreEdgeFilter(gs));
+        if (TimeDependentCoreEdgeFilter.hasConditionals(encodingManager, flagEncoder)) {
+            edgeFilterSequence.add(new TimeDependentCoreEdgeFilter(gs, flagEncoder));
         }
 
         if (TrafficSpeedCoreEdgeFilter.hasTrafficGraphStorage(gs)) {
@@ -127,4 +126,32 @@ public class CorePreparationHandler extends CHPreparationHandler {
         return edgeFilterSequence;
     }
 
+    private static boolean hasTurnRestrictions(CHConfig chProfile) {
+        FlagEncoder flagEncoder = chProfile.getWeighting().getFlagEncoder();
+        String encoderName = flagEncoder.toString();
+        return (encoderName.equals(FlagEncoderNames.CAR_ORS) || encoderName.equals(FlagEncoderNames.HEAVYVEHICLE))
+                && chProfile.isEdgeBased() && flagEncoder.supportsTurnCosts();
+    }
+
+    /**
+     * Collects the turn restrictions in a pass over the turn costs when the first restriction filter of a preparation
+     * is created. The filter only reads its bit set, so the filters of all restriction threads share it.
+     */
+    private static class SharedTurnRestrictions {
+        private final FlagEncoder flagEncoder;
+        private final GraphHopperStorage graphStorage;
+        private TurnRestrictionsCoreEdgeFilter filter;
+
+        SharedTurnRestrictions(FlagEncoder flagEncoder, GraphHopperStorage graphStorage) {
+            this.flagEncoder = flagEncoder;
+            this.graphStorage = graphStorage;
+        }
+
+        synchronized TurnRestrictionsCoreEdgeFilter get() {
+            if (filter == null)
+                filter = new TurnRestrictionsCoreEdgeFilter(flagEncoder, graphStorage);
+            return filter;
+        }
+    }
+
 }
@@ -0,0 +1,86 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.routing.graphhopper.extensions.core;
+
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Priority queues and best weight maps of a bidirectional core search, kept per thread and reused by consecutive
+ * queries instead of being allocated for each one. For short routes setting up these collections costs about as much
+ * as the search itself.
+ * <p>
+ * A search {@link #acquire() acquires} the scratch of its thread and {@link #release() releases} it when done. Should
+ * the scratch of the thread be in use already, a fresh one is handed out which is discarded after the search.
+ */
+final class CoreSearchScratch<E> {
+    private static final int INITIAL_SIZE = 2000;
+    /**
+     * Maps grown beyond this capacity by a long search are not kept, so that a single long route does not pin its
+     * memory to the thread. A map of this capacity takes about 2 MB.
+     */
+    private static final int MAXIMUM_RETAINED_CAPACITY = 1 << 17;
+    private static final ThreadLocal<CoreSearchScratch<?>> SCRATCH = new ThreadLocal<>();
+
+    final PriorityQueue<E> fromQueueCH = new PriorityQueue<>(INITIAL_SIZE);
+    final PriorityQueue<E> toQueueCH = new PriorityQueue<>(INITIAL_SIZE);
+    final PriorityQueue<E> fromQueueCore = new PriorityQueue<>(INITIAL_SIZE);
+    final PriorityQueue<E> toQueueCore = new PriorityQueue<>(INITIAL_SIZE);
+    final NodeEntryMap<E> fromMapCH = new NodeEntryMap<>(INITIAL_SIZE);
+    final NodeEntryMap<E> toMapCH = new NodeEntryMap<>(INITIAL_SIZE);
+    final NodeEntryMap<List<E>> fromMapCore = new NodeEntryMap<>(INITIAL_SIZE);
+    final NodeEntryMap<List<E>> toMapCore = new NodeEntryMap<>(INITIAL_SIZE);
+    private boolean inUse;
+
+    private CoreSearchScratch() {
+    }
+
+    /**
+     * @return cleared collections for a search on the current thread
+     */
+    @SuppressWarnings("unchecked")
+    static <E> CoreSearchScratch<E> acquire() {
+        CoreSearchScratch<E> scratch = (CoreSearchScratch<E>) SCRATCH.get();
+        if (scratch == null) {
+            scratch = new CoreSearchScratch<>();
+            SCRATCH.set(scratch);
+        } else if (scratch.inUse) {
+            return new CoreSearchScratch<>();
+        }
+        scratch.inUse = true;
+        return scratch;
+    }
+
+    /**
+     * Clears the collections and returns them to the thread.
+     */
+    void release() {
+        fromQueueCH.clear();
+        toQueueCH.clear();
+        fromQueueCore.clear();
+        toQueueCore.clear();
+        fromMapCH.clear();
+        toMapCH.clear();
+        fromMapCore.clear();
+        toMapCore.clear();
+        inUse = false;
+        if (SCRATCH.get() == this && isOversized())
+            SCRATCH.remove();
+    }
+
+    private boolean isOversized() {
+        return fromMapCH.capacity() > MAXIMUM_RETAINED_CAPACITY || toMapCH.capacity() > MAXIMUM_RETAINED_CAPACITY
+                || fromMapCore.capacity() > MAXIMUM_RETAINED_CAPACITY || toMapCore.capacity() > MAXIMUM_RETAINED_CAPACITY;
+    }
+}
@@ -0,0 +1,541 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.routing.graphhopper.extensions.core;
+
+import com.carrotsearch.hppc.IntArrayList;
+import com.graphhopper.routing.util.AllEdgesIterator;
+import com.graphhopper.routing.util.EdgeFilter;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.DataAccess;
+import com.graphhopper.storage.Directory;
+import com.graphhopper.storage.Graph;
+import com.graphhopper.util.StopWatch;
+import org.apache.log4j.Logger;
+import org.heigit.ors.util.LruCache;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metric-independent contraction of a graph, whose arc weights are customized per weighting and edge filter.
+ * <p>
+ * Nodes are eliminated in the order of their degree without any witness search: eliminating a node connects all of
+ * its remaining neighbours with each other. The resulting arcs are therefore valid for every weighting, an arc gets
+ * its weight only in the customization as the shortest connection over its original edges and the nodes eliminated
+ * before both of its ends, see {@link CustomizedCore}. The elimination stops as soon as every remaining node has more
+ * neighbours than the maximum degree. The remaining nodes form the core, which is searched with all of its arcs.
+ * <p>
+ * Every arc is stored once at its lower ranked end, together with the original edges between its two ends.
+ */
+public class CustomizableCore {
+    private static final Logger LOGGER = Logger.getLogger(CustomizableCore.class);
+    /**
+     * Request hint identifying the weighting and edge filter of a request, requests with equal keys share a
+     * customization
+     */
+    public static final String KEY_CUSTOMIZATION = "customizable_core.key";
+    /**
+     * Version of the stored topology, part of the file name so that a topology stored in another layout is rebuilt
+     */
+    private static final int VERSION = 1;
+    private static final long CLOSE_WARNING_INTERVAL = 10;
+
+    private final int nodes;
+    private final int[] rank;
+    private final int[] order;
+    private final int coreRank;
+    private final int[] firstArc;
+    private final int[] arcTail;
+    private final int[] arcHead;
+    private final int[] firstInArc;
+    private final int[] inArcs;
+    private final int[] firstEdge;
+    private final int[] arcEdges;
+
+    private final LruCache<String, CustomizedCore> customizations;
+    private final Set<String> pendingCustomizations = new HashSet<>();
+    private final int cacheSize;
+    private ExecutorService customizer;
+    private boolean closed;
+
+    private CustomizableCore(int[] rank, int coreRank, int[] firstArc, int[] arcHead, int[] firstEdge, int[] arcEdges, int cacheSize) {
+        this.nodes = rank.length;
+        this.rank = rank;
+        this.coreRank = coreRank;
+        this.firstArc = firstArc;
+        this.arcHead = arcHead;
+        this.firstEdge = firstEdge;
+        this.arcEdges = arcEdges;
+        this.cacheSize = Math.max(1, cacheSize);
+
+        order = new int[nodes];
+        for (int node = 0; node < nodes; node++)
+            order[rank[node]] = node;
+
+        int arcs = arcHead.length;
+        arcTail = new int[arcs];
+        firstInArc = new int[nodes + 1];
+        for (int node = 0; node < nodes; node++) {
+            for (int arc = firstArc[node]; arc < firstArc[node + 1]; arc++) {
+                arcTail[arc] = node;
+                firstInArc[arcHead[arc] + 1]++;
+            }
+        }
+        for (int node = 0; node < nodes; node++)
+            firstInArc[node + 1] += firstInArc[node];
+        inArcs = new int[arcs];
+        int[] next = Arrays.copyOf(firstInArc, nodes);
+        for (int arc = 0; arc < arcs; arc++)
+            inArcs[next[arcHead[arc]]++] = arc;
+
+        customizations = new LruCache<>(this.cacheSize, 0);
+    }
+
+    /**
+     * Loads the topology stored with the graph, or builds and stores it if there is none yet. The topology depends on
+     * the graph and the maximum degree only, so it is built once per graph and shared by all of its profiles.
+     *
+     * @param maxDegree nodes with more remaining neighbours are not eliminated but stay in the core
+     * @param cacheSize number of customizations kept at the same time
+     */
+    public static CustomizableCore loadOrBuild(Graph graph, Directory dir, int maxDegree, int cacheSize) {
+        DataAccess data = dir.find("customizable_core_%d_%d".formatted(VERSION, maxDegree));
+        try {
+            if (data.loadExisting()) {
+                if (data.getHeader(0) == graph.getNodes() && data.getHeader(4) == graph.getEdges()) {
+                    CustomizableCore core = load(data, cacheSize);
+                    LOGGER.info("Loaded customizable core: %d of %d nodes eliminated, %d arcs".formatted(
+                            core.coreRank, core.nodes, core.getArcs()));
+                    return core;
+                }
+                LOGGER.warn("Stored customizable core does not match the graph and is not used, it is rebuilt in memory");
+                return build(graph, maxDegree, cacheSize);
+            }
+            CustomizableCore core = build(graph, maxDegree, cacheSize);
+            core.store(data, graph.getEdges());
+            return core;
+        } finally {
+            // the arrays are held in memory
+            data.close();
+        }
+    }
+
+    private static CustomizableCore load(DataAccess data, int cacheSize) {
+        int nodes = data.getHeader(0);
+        int coreRank = data.getHeader(8);
+        int arcs = data.getHeader(12);
+        int arcEdgeCount = data.getHeader(16);
+        long[] pos = {0};
+        int[] rank = readInts(data, pos, nodes);
+        int[] firstArc = readInts(data, pos, nodes + 1);
+        int[] arcHead = readInts(data, pos, arcs);
+        int[] firstEdge = readInts(data, pos, arcs + 1);
+        int[] arcEdges = readInts(data, pos, arcEdgeCount);
+        return new CustomizableCore(rank, coreRank, firstArc, arcHead, firstEdge, arcEdges, cacheSize);
+    }
+
+    private static int[] readInts(DataAccess data, long[] pos, int count) {
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++, pos[0] += 4)
+            values[i] = data.getInt(pos[0]);
+        return values;
+    }
+
+    private void store(DataAccess data, int edges) {
+        int[][] arrays = {rank, firstArc, arcHead, firstEdge, arcEdges};
+        long bytes = 0;
+        for (int[] values : arrays)
+            bytes += 4L * values.length;
+        data.create(Math.max(bytes, 4));
+        data.setHeader(0, nodes);
+        data.setHeader(4, edges);
+        data.setHeader(8, coreRank);
+        data.setHeader(12, arcHead.length);
+        data.setHeader(16, arcEdges.length);
+        long pos = 0;
+        for (int[] values : arrays) {
+            for (int value : values) {
+                data.setInt(pos, value);
+                pos += 4;
+            }
+        }
+        data.flush();
+    }
+
+    /**
+     * Builds the topology without storing it.
+     *
+     * @param maxDegree nodes with more remaining neighbours are not eliminated but stay in the core
+     * @param cacheSize number of customizations kept at the same time
+     */
+    public static CustomizableCore build(Graph graph, int maxDegree, int cacheSize) {
+        StopWatch sw = new StopWatch().start();
+        int nodes = graph.getNodes();
+        Adjacency adjacency = new Adjacency(graph);
+        int[] mark = new int[nodes];
+        int stamp = 0;
+
+        // minimum degree elimination with a bucket queue, entries whose degree has changed in between are skipped
+        int[] rank = new int[nodes];
+        Arrays.fill(rank, -1);
+        IntArrayList[] buckets = new IntArrayList[maxDegree + 1];
+        for (int d = 0; d <= maxDegree; d++)
+            buckets[d] = new IntArrayList();
+        for (int node = 0; node < nodes; node++) {
+            if (adjacency.size[node] <= maxDegree)
+                buckets[adjacency.size[node]].add(node);
+        }
+        int[] heads = new int[maxDegree];
+        int nextRank = 0;
+        int minDegree = 0;
+        while (true) {
+            while (minDegree <= maxDegree && buckets[minDegree].isEmpty())
+                minDegree++;
+            if (minDegree > maxDegree)
+                break;
+            IntArrayList bucket = buckets[minDegree];
+            int node = bucket.get(bucket.size() - 1);
+            bucket.removeAt(bucket.size() - 1);
+            if (rank[node] >= 0 || adjacency.size[node] != minDegree)
+                continue;
+
+            // the neighbours of an eliminated node are not changed anymore, they are its upward arcs
+            rank[node] = nextRank++;
+            int degree = adjacency.size[node];
+            System.arraycopy(adjacency.pool, adjacency.start[node], heads, 0, degree);
+            for (int i = 0; i < degree; i++) {
+                int u = heads[i];
+                adjacency.remove(u, node);
+                stamp++;
+                for (int j = adjacency.start[u], end = j + adjacency.size[u]; j < end; j++)
+                    mark[adjacency.pool[j]] = stamp;
+                for (int j = 0; j < degree; j++) {
+                    int w = heads[j];
+                    if (w != u && mark[w] != stamp) {
+                        adjacency.add(u, w);
+                        mark[w] = stamp;
+                    }
+                }
+                int degreeU = adjacency.size[u];
+                if (degreeU <= maxDegree) {
+                    buckets[degreeU].add(u);
+                    minDegree = Math.min(minDegree, degreeU);
+                }
+            }
+        }
+        int coreRank = nextRank;
+        for (int node = 0; node < nodes; node++) {
+            if (rank[node] < 0)
+                rank[node] = nextRank++;
+        }
+
+        // arcs lead to the higher ranked neighbours, which are all remaining neighbours of an eliminated node
+        int[] firstArc = new int[nodes + 1];
+        for (int node = 0; node < nodes; node++) {
+            int count = 0;
+            for (int j = adjacency.start[node], end = j + adjacency.size[node]; j < end; j++) {
+                if (rank[adjacency.pool[j]] > rank[node])
+                    count++;
+            }
+            firstArc[node + 1] = firstArc[node] + count;
+        }
+        int[] arcHead = new int[firstArc[nodes]];
+        for (int node = 0; node < nodes; node++) {
+            int arc = firstArc[node];
+            for (int j = adjacency.start[node], end = j + adjacency.size[node]; j < end; j++) {
+                if (rank[adjacency.pool[j]] > rank[node])
+                    arcHead[arc++] = adjacency.pool[j];
+            }
+            Arrays.sort(arcHead, firstArc[node], arc);
+        }
+
+        int[] edgeArcs = new int[graph.getEdges()];
+        int[] firstEdge = new int[arcHead.length + 1];
+        AllEdgesIterator iter = graph.getAllEdges();
+        while (iter.next()) {
+            int arc = findArc(firstArc, arcHead, rank, iter.getBaseNode(), iter.getAdjNode());
+            edgeArcs[iter.getEdge()] = arc;
+            if (arc >= 0)
+                firstEdge[arc + 1]++;
+        }
+        for (int arc = 0; arc < arcHead.length; arc++)
+            firstEdge[arc + 1] += firstEdge[arc];
+        int[] arcEdges = new int[firstEdge[arcHead.length]];
+        int[] next = Arrays.copyOf(firstEdge, arcHead.length);
+        for (int edge = 0; edge < edgeArcs.length; edge++) {
+            if (edgeArcs[edge] >= 0)
+                arcEdges[next[edgeArcs[edge]]++] = edge;
+        }
+
+        CustomizableCore core = new CustomizableCore(rank, coreRank, firstArc, arcHead, firstEdge, arcEdges, cacheSize);
+        LOGGER.info("Built customizable core: %d of %d nodes eliminated, %d arcs, took %.1fs".formatted(
+                coreRank, nodes, arcHead.length, sw.stop().getSeconds()));
+        return core;
+    }
+
+    /**
+     * Neighbours of all nodes during the elimination. The neighbours of a node are a slice of one shared array, which is
+     * moved to the end of the array when it runs out of space.
+     */
+    private static class Adjacency {
+        private final int[] start;
+        private final int[] size;
+        private final int[] capacity;
+        private int[] pool;
+        private int poolSize;
+
+        /**
+         * Collects the neighbours of every node in the graph without duplicates.
+         */
+        private Adjacency(Graph graph) {
+            int nodes = graph.getNodes();
+            start = new int[nodes];
+            size = new int[nodes];
+            capacity = new int[nodes];
+            AllEdgesIterator iter = graph.getAllEdges();
+            while (iter.next()) {
+                if (iter.getBaseNode() != iter.getAdjNode()) {
+                    capacity[iter.getBaseNode()]++;
+                    capacity[iter.getAdjNode()]++;
+                }
+            }
+            for (int node = 0; node < nodes; node++) {
+                start[node] = poolSize;
+                poolSize += capacity[node];
+            }
+            pool = new int[Math.max(16, poolSize + poolSize / 2)];
+            int[] last = new int[nodes];
+            Arrays.fill(last, -1);
+            iter = graph.getAllEdges();
+            while (iter.next()) {
+                int base = iter.getBaseNode();
+                int adj = iter.getAdjNode();
+                if (base != adj) {
+                    pool[start[base] + size[base]++] = adj;
+                    pool[start[adj] + size[adj]++] = base;
+                }
+            }
+            // parallel edges lead to the same neighbour more than once
+            for (int node = 0; node < nodes; node++) {
+                int count = 0;
+                for (int j = start[node], end = j + size[node]; j < end; j++) {
+                    int adj = pool[j];
+                    if (last[adj] != node) {
+                        last[adj] = node;
+                        pool[start[node] + count++] = adj;
+                    }
+                }
+                size[node] = count;
+            }
+        }
+
+        private void add(int node, int adj) {
+            if (size[node] == capacity[node]) {
+                int newCapacity = Math.max(4, 2 * capacity[node]);
+                if (poolSize + newCapacity > pool.length)
+                    pool = Arrays.copyOf(pool, Math.max(2 * pool.length, poolSize + newCapacity));
+                System.arraycopy(pool, start[node], pool, poolSize, size[node]);
+                start[node] = poolSize;
+                capacity[node] = newCapacity;
+                poolSize += newCapacity;
+            }
+            pool[start[node] + size[node]++] = adj;
+        }
+
+        private void remove(int node, int adj) {
+            int end = start[node] + size[node] - 1;
+            for (int j = start[node]; j <= end; j++) {
+                if (pool[j] == adj) {
+                    pool[j] = pool[end];
+                    size[node]--;
+                    return;
+                }
+            }
+        }
+    }
+
+    private static int findArc(int[] firstArc, int[] arcHead, int[] rank, int a, int b) {
+        if (a == b)
+            return -1;
+        int tail = rank[a] < rank[b] ? a : b;
+        int head = tail == a ? b : a;
+        int index = Arrays.binarySearch(arcHead, firstArc[tail], firstArc[tail + 1], head);
+        return index >= 0 ? index : -1;
+    }
+
+    /**
+     * @return the customization with the given key, or {@code null} if it is not available (yet)
+     */
+    public CustomizedCore getCustomization(String key) {
+        return customizations.get(key);
+    }
+
+    /**
+     * Customizes the arc weights for the given weighting and edge filter in the background, unless a customization
+     * with the same key exists or is already under way. Requests are dropped while as many customizations as fit into
+     * the cache are pending.
+     * <p>
+     * The weighting and edge filter are used by the background thread only and must not be shared.
+     */
+    public synchronized void customizeLater(String key, Graph graph, Weighting weighting, EdgeFilter edgeFilter) {
+        if (closed || pendingCustomizations.contains(key) || pendingCustomizations.size() >= cacheSize || customizations.get(key) != null)
+            return;
+        pendingCustomizations.add(key);
+        if (customizer == null) {
+            customizer = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "ORS-customize-core");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        customizer.execute(() -> {
+            try {
+                StopWatch sw = new StopWatch().start();
+                CustomizedCore customization = CustomizedCore.customize(this, graph, weighting, edgeFilter);
+                LOGGER.info("Customized core for '%s', took %.1fs".formatted(key, sw.stop().getSeconds()));
+                synchronized (this) {
+                    if (!closed)
+                        customizations.put(key, customization);
+                }
+            } catch (CancellationException e) {
+                LOGGER.debug("Customizing core for '%s' has been cancelled".formatted(key));
+            } catch (Exception e) {
+                LOGGER.error("Customizing core for '%s' failed".formatted(key), e);
+            } finally {
+                synchronized (this) {
+                    pendingCustomizations.remove(key);
+                }
+            }
+        });
+    }
+
+    /**
+     * Stops the customizations under way and drops the cached ones, e.g. when the graph is closed on a reload. Returns
+     * once the background thread has stopped reading the graph.
+     */
+    public void close() {
+        ExecutorService stopping;
+        synchronized (this) {
+            closed = true;
+            stopping = customizer;
+            customizations.clear();
+        }
+        if (stopping == null)
+            return;
+        // not under the lock, which a stopping customization takes to leave
+        stopping.shutdownNow();
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (stopping.awaitTermination(CLOSE_WARNING_INTERVAL, TimeUnit.SECONDS))
+                    break;
+                LOGGER.warn("Waiting for the core customization to stop before closing the graph.");
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    public int getNodes() {
+        return nodes;
+    }
+
+    public int getArcs() {
+        return arcHead.length;
+    }
+
+    public int getRank(int node) {
+        return rank[node];
+    }
+
+    /**
+     * @return node with the given rank, nodes with ranks below {@link #getCoreRank()} in the order of their elimination
+     */
+    public int getNode(int rank) {
+        return order[rank];
+    }
+
+    /**
+     * @return rank of the lowest core node, which is the number of eliminated nodes
+     */
+    public int getCoreRank() {
+        return coreRank;
+    }
+
+    public boolean isCoreNode(int node) {
+        return rank[node] >= coreRank;
+    }
+
+    /**
+     * @return first arc at the given node as tail, arcs at the same tail are numbered consecutively up to
+     * {@link #getArcsEnd(int)}
+     */
+    public int getArcsStart(int node) {
+        return firstArc[node];
+    }
+
+    public int getArcsEnd(int node) {
+        return firstArc[node + 1];
+    }
+
+    public int getInArcsStart(int node) {
+        return firstInArc[node];
+    }
+
+    public int getInArcsEnd(int node) {
+        return firstInArc[node + 1];
+    }
+
+    /**
+     * @param index index between {@link #getInArcsStart(int)} and {@link #getInArcsEnd(int)} of a node
+     * @return arc with that node as head
+     */
+    public int getInArc(int index) {
+        return inArcs[index];
+    }
+
+    public int getTail(int arc) {
+        return arcTail[arc];
+    }
+
+    public int getHead(int arc) {
+        return arcHead[arc];
+    }
+
+    public int getEdgesStart(int arc) {
+        return firstEdge[arc];
+    }
+
+    public int getEdgesEnd(int arc) {
+        return firstEdge[arc + 1];
+    }
+
+    public int getEdge(int index) {
+        return arcEdges[index];
+    }
+
+    /**
+     * @return arc between the given nodes, or -1 if there is none
+     */
+    public int findArc(int a, int b) {
+        return findArc(firstArc, arcHead, rank, a, b);
+    }
+}
@@ -0,0 +1,165 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.routing.graphhopper.extensions.core;
+
+import com.carrotsearch.hppc.IntArrayList;
+import com.graphhopper.routing.util.EdgeFilter;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.Graph;
+import com.graphhopper.util.EdgeIteratorState;
+
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Arc weights of a {@link CustomizableCore} for one weighting and edge filter.
+ * <p>
+ * The weights are computed bottom-up in the order of elimination: an arc starts with the weight of its best original
+ * edge, and every eliminated node offers a detour between each pair of its higher ranked neighbours. Weights are kept
+ * as floats to halve the memory of a customization, the paths are unpacked by recomputing the same float sums.
+ */
+public class CustomizedCore {
+    private static final int INTERRUPT_CHECK_MASK = 1023;
+
+    private final CustomizableCore core;
+    private final float[] upWeights;
+    private final float[] downWeights;
+
+    private CustomizedCore(CustomizableCore core, float[] upWeights, float[] downWeights) {
+        this.core = core;
+        this.upWeights = upWeights;
+        this.downWeights = downWeights;
+    }
+
+    /**
+     * @throws CancellationException if the thread is interrupted, e.g. as the core is being closed; the interrupt
+     *                               status is kept
+     */
+    public static CustomizedCore customize(CustomizableCore core, Graph graph, Weighting weighting, EdgeFilter edgeFilter) {
+        int arcs = core.getArcs();
+        float[] up = new float[arcs];
+        float[] down = new float[arcs];
+        Arrays.fill(up, Float.POSITIVE_INFINITY);
+        Arrays.fill(down, Float.POSITIVE_INFINITY);
+        for (int arc = 0; arc < arcs; arc++) {
+            if ((arc & INTERRUPT_CHECK_MASK) == 0)
+                checkInterrupted();
+            int tail = core.getTail(arc);
+            int head = core.getHead(arc);
+            for (int i = core.getEdgesStart(arc); i < core.getEdgesEnd(arc); i++) {
+                int edge = core.getEdge(i);
+                up[arc] = Math.min(up[arc], calcEdgeWeight(graph.getEdgeIteratorState(edge, head), weighting, edgeFilter));
+                down[arc] = Math.min(down[arc], calcEdgeWeight(graph.getEdgeIteratorState(edge, tail), weighting, edgeFilter));
+            }
+        }
+
+        for (int rank = 0; rank < core.getCoreRank(); rank++) {
+            checkInterrupted();
+            int node = core.getNode(rank);
+            int end = core.getArcsEnd(node);
+            for (int i = core.getArcsStart(node); i < end; i++) {
+                for (int j = i + 1; j < end; j++) {
+                    int lower = core.getRank(core.getHead(i)) < core.getRank(core.getHead(j)) ? i : j;
+                    int upper = lower == i ? j : i;
+                    int arc = core.findArc(core.getHead(lower), core.getHead(upper));
+                    // lower end -> node -> upper end, and back
+                    up[arc] = Math.min(up[arc], down[lower] + up[upper]);
+                    down[arc] = Math.min(down[arc], down[upper] + up[lower]);
+                }
+            }
+        }
+        return new CustomizedCore(core, up, down);
+    }
+
+    private static void checkInterrupted() {
+        if (Thread.currentThread().isInterrupted())
+            throw new CancellationException("Customization has been interrupted.");
+    }
+
+    static float calcEdgeWeight(EdgeIteratorState edge, Weighting weighting, EdgeFilter edgeFilter) {
+        if (!edgeFilter.accept(edge))
+            return Float.POSITIVE_INFINITY;
+        return (float) weighting.calcEdgeWeightWithAccess(edge, false);
+    }
+
+    public CustomizableCore getCore() {
+        return core;
+    }
+
+    /**
+     * @return weight of the given arc from {@code from} to its other end
+     */
+    public float getWeight(int arc, int from) {
+        return from == core.getTail(arc) ? upWeights[arc] : downWeights[arc];
+    }
+
+    /**
+     * Appends the original edges along the given arc from {@code from} to its other end to {@code edges}, each one
+     * followed by the node it leads to.
+     *
+     * @param weighting  the weighting the arc weights have been customized with
+     * @param edgeFilter the edge filter the arc weights have been customized with
+     */
+    public void unpack(int arc, int from, Graph graph, Weighting weighting, EdgeFilter edgeFilter, IntArrayList edges) {
+        // stack of arcs to unpack, each followed by the node it is traversed from
+        IntArrayList stack = new IntArrayList();
+        stack.add(arc, from);
+        while (!stack.isEmpty()) {
+            int start = stack.get(stack.size() - 1);
+            int current = stack.get(stack.size() - 2);
+            stack.elementsCount -= 2;
+            int to = core.getTail(current) == start ? core.getHead(current) : core.getTail(current);
+            float weight = getWeight(current, start);
+
+            int edge = findOriginalEdge(current, to, weight, graph, weighting, edgeFilter);
+            if (edge >= 0) {
+                edges.add(edge, to);
+                continue;
+            }
+            int middle = findMiddleNode(current, start, to, weight);
+            if (middle < 0)
+                throw new IllegalStateException("Cannot unpack arc %d from node %d".formatted(current, start));
+            // second half first, so that the first half is unpacked next
+            stack.add(core.findArc(middle, to), middle);
+            stack.add(core.findArc(start, middle), start);
+        }
+    }
+
+    private int findOriginalEdge(int arc, int to, float weight, Graph graph, Weighting weighting, EdgeFilter edgeFilter) {
+        for (int i = core.getEdgesStart(arc); i < core.getEdgesEnd(arc); i++) {
+            int edge = core.getEdge(i);
+            if (calcEdgeWeight(graph.getEdgeIteratorState(edge, to), weighting, edgeFilter) == weight)
+                return edge;
+        }
+        return -1;
+    }
+
+    private int findMiddleNode(int arc, int from, int to, float weight) {
+        // the nodes of the lower triangles of an arc are the lower ranked neighbours of both of its ends
+        int tail = core.getTail(arc);
+        int head = core.getHead(arc);
+        for (int i = core.getInArcsStart(tail); i < core.getInArcsEnd(tail); i++) {
+            int tailArc = core.getInArc(i);
+            int middle = core.getTail(tailArc);
+            int headArc = core.findArc(middle, head);
+            if (headArc < 0)
+                continue;
+            int fromArc = from == tail ? tailArc : headArc;
+            int toArc = from == tail ? headArc : tailArc;
+            if (getWeight(fromArc, from) + getWeight(toArc, middle) == weight)
+                return middle;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,238 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.routing.graphhopper.extensions.core;
+
+import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.IntObjectMap;
+import com.carrotsearch.hppc.cursors.IntObjectCursor;
+import com.graphhopper.coll.GHIntObjectHashMap;
+import com.graphhopper.routing.Path;
+import com.graphhopper.routing.util.EdgeFilter;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.Graph;
+import com.graphhopper.util.EdgeExplorer;
+import com.graphhopper.util.EdgeIterator;
+import com.graphhopper.util.EdgeIteratorState;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Node based bidirectional search on a {@link CustomizedCore}. Both searches only follow arcs upwards in rank until
+ * they reach the core, where they follow all arcs between core nodes. Virtual start and destination nodes of a query
+ * graph are connected to the base nodes by a small search over the virtual edges.
+ * <p>
+ * A search direction stops once its smallest weight is not below the best path found so far, as in contraction
+ * hierarchies.
+ */
+public class CustomizedCoreSearch {
+    private final CustomizedCore customization;
+    private final CustomizableCore core;
+    private final Graph graph;
+    private final Weighting weighting;
+    private final EdgeFilter edgeFilter;
+    private final int maxVisitedNodes;
+    private int visitedNodes;
+
+    private IntObjectMap<Label> fwdMap;
+    private IntObjectMap<Label> bwdMap;
+    private Label bestFwd;
+    private Label bestBwd;
+    private double bestWeight;
+
+    /**
+     * @param graph      query graph on top of the graph the core has been built for
+     * @param weighting  the weighting {@code customization} has been customized with
+     * @param edgeFilter the edge filter {@code customization} has been customized with
+     */
+    public CustomizedCoreSearch(CustomizedCore customization, Graph graph, Weighting weighting, EdgeFilter edgeFilter, int maxVisitedNodes) {
+        this.customization = customization;
+        this.core = customization.getCore();
+        this.graph = graph;
+        this.weighting = weighting;
+        this.edgeFilter = edgeFilter;
+        this.maxVisitedNodes = maxVisitedNodes;
+    }
+
+    public Path calcPath(int from, int to) {
+        fwdMap = new GHIntObjectHashMap<>();
+        bwdMap = new GHIntObjectHashMap<>();
+        PriorityQueue<Label> fwdQueue = new PriorityQueue<>();
+        PriorityQueue<Label> bwdQueue = new PriorityQueue<>();
+        bestWeight = Double.POSITIVE_INFINITY;
+        initSearch(from, false, fwdMap, fwdQueue);
+        initSearch(to, true, bwdMap, bwdQueue);
+        // start and destination might already be connected by virtual edges
+        for (IntObjectCursor<Label> cursor : fwdMap) {
+            Label other = bwdMap.get(cursor.key);
+            if (other != null)
+                updateBestPath(cursor.value, other);
+        }
+
+        boolean fwdFinished = false;
+        boolean bwdFinished = false;
+        while (visitedNodes < maxVisitedNodes) {
+            fwdFinished = fwdFinished || fwdQueue.isEmpty() || fwdQueue.peek().weight >= bestWeight;
+            bwdFinished = bwdFinished || bwdQueue.isEmpty() || bwdQueue.peek().weight >= bestWeight;
+            if (fwdFinished && bwdFinished)
+                break;
+            boolean reverse = fwdFinished || !bwdFinished && bwdQueue.peek().weight < fwdQueue.peek().weight;
+            IntObjectMap<Label> map = reverse ? bwdMap : fwdMap;
+            Label label = (reverse ? bwdQueue : fwdQueue).poll();
+            if (map.get(label.node) != label)
+                continue;
+            visitedNodes++;
+
+            Label other = (reverse ? fwdMap : bwdMap).get(label.node);
+            if (other != null)
+                updateBestPath(reverse ? other : label, reverse ? label : other);
+            expand(label, reverse, map, reverse ? bwdQueue : fwdQueue);
+        }
+        return extractPath(from, to);
+    }
+
+    public int getVisitedNodes() {
+        return visitedNodes;
+    }
+
+    private void initSearch(int start, boolean reverse, IntObjectMap<Label> map, PriorityQueue<Label> queue) {
+        Label root = new Label(start, 0, null, -1, EdgeIterator.NO_EDGE);
+        map.put(start, root);
+        if (start < core.getNodes()) {
+            queue.add(root);
+            return;
+        }
+
+        // search from a virtual node until the base nodes at the ends of its edge
+        PriorityQueue<Label> virtualQueue = new PriorityQueue<>();
+        virtualQueue.add(root);
+        EdgeExplorer explorer = graph.createEdgeExplorer();
+        while (!virtualQueue.isEmpty()) {
+            Label label = virtualQueue.poll();
+            if (map.get(label.node) != label)
+                continue;
+            if (label.node < core.getNodes()) {
+                queue.add(label);
+                continue;
+            }
+            EdgeIterator iter = explorer.setBaseNode(label.node);
+            while (iter.next()) {
+                if (!edgeFilter.accept(iter))
+                    continue;
+                double weight = label.weight + weighting.calcEdgeWeightWithAccess(iter, reverse);
+                Label adjLabel = relax(iter.getAdjNode(), weight, label, -1, iter.getEdge(), map);
+                if (adjLabel != null)
+                    virtualQueue.add(adjLabel);
+            }
+        }
+    }
+
+    private void expand(Label label, boolean reverse, IntObjectMap<Label> map, PriorityQueue<Label> queue) {
+        int node = label.node;
+        for (int arc = core.getArcsStart(node); arc < core.getArcsEnd(node); arc++)
+            relaxArc(label, arc, core.getHead(arc), reverse, map, queue);
+        if (!core.isCoreNode(node))
+            return;
+        for (int i = core.getInArcsStart(node); i < core.getInArcsEnd(node); i++) {
+            int arc = core.getInArc(i);
+            int tail = core.getTail(arc);
+            if (core.isCoreNode(tail))
+                relaxArc(label, arc, tail, reverse, map, queue);
+        }
+    }
+
+    private void relaxArc(Label label, int arc, int adj, boolean reverse, IntObjectMap<Label> map, PriorityQueue<Label> queue) {
+        double weight = label.weight + customization.getWeight(arc, reverse ? adj : label.node);
+        Label adjLabel = relax(adj, weight, label, arc, EdgeIterator.NO_EDGE, map);
+        if (adjLabel != null)
+            queue.add(adjLabel);
+    }
+
+    private static Label relax(int adj, double weight, Label parent, int arc, int edge, IntObjectMap<Label> map) {
+        if (Double.isInfinite(weight))
+            return null;
+        Label existing = map.get(adj);
+        if (existing != null && existing.weight <= weight)
+            return null;
+        Label label = new Label(adj, weight, parent, arc, edge);
+        map.put(adj, label);
+        return label;
+    }
+
+    private void updateBestPath(Label fwd, Label bwd) {
+        double weight = fwd.weight + bwd.weight;
+        if (weight < bestWeight) {
+            bestWeight = weight;
+            bestFwd = fwd;
+            bestBwd = bwd;
+        }
+    }
+
+    private Path extractPath(int from, int to) {
+        Path path = new Path(graph);
+        if (bestFwd == null)
+            return path;
+
+        // pairs of an edge and the node it leads to
+        IntArrayList edges = new IntArrayList();
+        List<Label> fwdLabels = new ArrayList<>();
+        for (Label label = bestFwd; label.parent != null; label = label.parent)
+            fwdLabels.add(label);
+        for (int i = fwdLabels.size() - 1; i >= 0; i--) {
+            Label label = fwdLabels.get(i);
+            if (label.arc >= 0)
+                customization.unpack(label.arc, label.parent.node, graph.getBaseGraph(), weighting, edgeFilter, edges);
+            else
+                edges.add(label.edge, label.node);
+        }
+        for (Label label = bestBwd; label.parent != null; label = label.parent) {
+            if (label.arc >= 0)
+                customization.unpack(label.arc, label.node, graph.getBaseGraph(), weighting, edgeFilter, edges);
+            else
+                edges.add(label.edge, label.parent.node);
+        }
+
+        path.setFromNode(from);
+        for (int i = 0; i < edges.size(); i += 2) {
+            EdgeIteratorState edge = graph.getEdgeIteratorState(edges.get(i), edges.get(i + 1));
+            path.addDistance(edge.getDistance());
+            path.addTime(weighting.calcEdgeMillis(edge, false));
+            path.addEdge(edge.getEdge());
+        }
+        return path.setEndNode(to).setWeight(bestWeight).setFound(true);
+    }
+
+    private static final class Label implements Comparable<Label> {
+        final int node;
+        final double weight;
+        final Label parent;
+        // arc of the core, or else edge of the query graph, leading to this node
+        final int arc;
+        final int edge;
+
+        Label(int node, double weight, Label parent, int arc, int edge) {
+            this.node = node;
+            this.weight = weight;
+            this.parent = parent;
+            this.arc = arc;
+            this.edge = edge;
+        }
+
+        @Override
+        public int compareTo(Label other) {
+            return Double.compare(weight, other.weight);
+        }
+    }
+}
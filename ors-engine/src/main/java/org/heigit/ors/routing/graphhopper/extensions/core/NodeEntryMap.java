@@ -0,0 +1,118 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.routing.graphhopper.extensions.core;
+
+import com.carrotsearch.hppc.BitMixer;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing map from node ids to search entries which can be cleared in time proportional to its size. Every
+ * slot carries the version it was written in and only slots of the current version are occupied, so {@link #clear()}
+ * increments the version instead of resetting all slots, and the arrays are reused by the next query. The values of
+ * the occupied slots are released on clearing, so that the search graph of the last query is not kept alive.
+ */
+final class NodeEntryMap<V> {
+    private static final double LOAD_FACTOR = 0.5;
+    private int[] keys;
+    private Object[] values;
+    private int[] versions;
+    private int[] occupied;
+    private int version = 1;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    NodeEntryMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(int key) {
+        for (int slot = BitMixer.mix32(key) & mask; versions[slot] == version; slot = (slot + 1) & mask) {
+            if (keys[slot] == key)
+                return (V) values[slot];
+        }
+        return null;
+    }
+
+    void put(int key, V value) {
+        int slot = BitMixer.mix32(key) & mask;
+        for (; versions[slot] == version; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        versions[slot] = version;
+        occupied[size] = slot;
+        if (++size > resizeAt)
+            grow();
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Removes all entries.
+     */
+    void clear() {
+        for (int i = 0; i < size; i++)
+            values[occupied[i]] = null;
+        size = 0;
+        if (++version == Integer.MAX_VALUE) {
+            Arrays.fill(versions, 0);
+            version = 1;
+        }
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        int[] oldOccupied = occupied;
+        allocate(keys.length << 1);
+        for (int i = 0; i < size; i++) {
+            int oldSlot = oldOccupied[i];
+            int slot = BitMixer.mix32(oldKeys[oldSlot]) & mask;
+            while (versions[slot] == version)
+                slot = (slot + 1) & mask;
+            keys[slot] = oldKeys[oldSlot];
+            values[slot] = oldValues[oldSlot];
+            versions[slot] = version;
+            occupied[i] = slot;
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        versions = new int[capacity];
+        version = 1;
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+        occupied = new int[resizeAt + 1];
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(8, (int) Math.ceil(expectedSize / LOAD_FACTOR)) - 1) << 1;
+        return Math.max(capacity, 16);
+    }
+}
@@ -26,6 +26,16 @@ import com.graphhopper.routing.weighting.Weighting;
 import com.graphhopper.storage.*;
 import com.graphhopper.util.*;
 import org.heigit.ors.routing.graphhopper.extensions.ORSGraphHopperStorage;
+import org.heigit.ors.routing.graphhopper.extensions.util.ORSParameters.Core;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 import static com.graphhopper.routing.ch.CHParameters.CONTRACTED_NODES;
 import static com.graphhopper.util.Helper.getMemInfo;
@@ -34,13 +44,23 @@ import static com.graphhopper.util.Helper.getMemInfo;
  * Prepare the core graph. The core graph is a contraction hierarchies graph in which specified parts are not contracted
  * but remain on the highest level. E.g. used to build the core from restrictions.
  * <p>
+ * Only the evaluation of the restrictions is spread over several threads, see {@link #RESTRICTION_THREADS}. The nodes
+ * are contracted one at a time: the contraction loop is inherited from {@link PrepareContractionHierarchies}, and
+ * neither the preparation graph nor the shortcut builder may be modified concurrently, so contracting independent
+ * sets of nodes in parallel would need a contraction loop and preparation graph of our own. Several core profiles of
+ * a graph are prepared concurrently by {@link CorePreparationHandler} instead.
+ * <p>
  * This code is based on that from GraphHopper GmbH.
  *
  * @author Peter Karich
  * @author Hendrik Leuschner, Andrzej Oles
  */
 public class PrepareCore extends PrepareContractionHierarchies {
-    private final EdgeFilter restrictionFilter;
+    public static final String RESTRICTION_THREADS = Core.PREPARE + "restriction_threads";
+
+    private final Supplier<EdgeFilter> restrictionFilterFactory;
+    // restricted edges by edge key, i.e. separately for both directions of an edge
+    private BitSet restrictedEdges;
     private boolean[] restrictedNodes;
     private int restrictedNodesCount = 0;
 
@@ -53,10 +73,20 @@ public class PrepareCore extends PrepareContractionHierarchies {
     };
 
     public PrepareCore(GraphHopperStorage ghStorage, CHConfig chConfig, EdgeFilter restrictionFilter) {
+        this(ghStorage, chConfig, () -> restrictionFilter);
+    }
+
+    /**
+     * @param restrictionFilterFactory creates a new restriction filter on each call. With more than one
+     *                                 {@link #RESTRICTION_THREADS} every thread evaluates the edges of its range with
+     *                                 a filter of its own, so the filters need not be thread-safe. Parts which are
+     *                                 expensive to build and only read may be shared by the filters.
+     */
+    public PrepareCore(GraphHopperStorage ghStorage, CHConfig chConfig, Supplier<EdgeFilter> restrictionFilterFactory) {
         super(ghStorage, chConfig);
         PMap pMap = new PMap(CONTRACTED_NODES + "=" + nodesContractedPercentage);
         setParams(pMap);
-        this.restrictionFilter = restrictionFilter;
+        this.restrictionFilterFactory = restrictionFilterFactory;
     }
 
     @Override
@@ -91,25 +121,72 @@ public class PrepareCore extends PrepareContractionHierarchies {
         // TreeMap is not memory-efficient and PriorityQueue does not support an efficient update method
         // (and is not memory efficient either)
         sortedNodes = new MinHeapWithUpdate(prepareGraph.getNodes());
-        logger.info("Building Core graph, {}", getMemInfo());
         StopWatch sw = new StopWatch().start();
-        Weighting weighting = new RestrictedEdgesWeighting(chConfig.getWeighting(), restrictionFilter);
+        int threads = pMap.getInt(RESTRICTION_THREADS, 1);
+        restrictedEdges = findRestrictedEdges(threads);
+        logger.info("Found {} restricted edge directions with {} threads, took: {}s", restrictedEdges.cardinality(), threads, sw.stop().getSeconds());
+        logger.info("Building Core graph, {}", getMemInfo());
+        sw = new StopWatch().start();
+        Weighting weighting = new RestrictedEdgesWeighting(chConfig.getWeighting(), restrictedEdges);
         buildFromGraph(prepareGraph, graph, weighting);
         logger.info("Finished building Core graph, took: {}s, {}", sw.stop().getSeconds(), getMemInfo());
         nodeContractor.initFromGraph();
         postInit(prepareGraph);
     }
 
+    /**
+     * Evaluates the restriction filter for both directions of every edge. The edges are split into consecutive ranges
+     * which are evaluated concurrently, each with a filter of its own. Only the graph is read by the threads, so the
+     * result does not depend on the number of threads.
+     */
+    private BitSet findRestrictedEdges(int threads) {
+        int edges = graph.getEdges();
+        threads = Math.max(1, Math.min(threads, edges));
+        if (threads == 1)
+            return markRestrictedEdges(restrictionFilterFactory.get(), 0, edges);
+
+        int rangeSize = (edges + threads - 1) / threads;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<BitSet>> ranges = new ArrayList<>(threads);
+            for (int start = 0; start < edges; start += rangeSize) {
+                int from = start;
+                int to = Math.min(edges, start + rangeSize);
+                ranges.add(executor.submit(() -> markRestrictedEdges(restrictionFilterFactory.get(), from, to)));
+            }
+            BitSet restricted = new BitSet(2 * edges);
+            for (Future<BitSet> range : ranges)
+                restricted.or(range.get());
+            return restricted;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Core preparation has been interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not evaluate the core restrictions", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private BitSet markRestrictedEdges(EdgeFilter restrictionFilter, int from, int to) {
+        BitSet restricted = new BitSet(2 * to);
+        for (int edge = from; edge < to; edge++) {
+            int edgeKey = GHUtility.createEdgeKey(edge, false);
+            if (!restrictionFilter.accept(graph.getEdgeIteratorStateForKey(edgeKey)))
+                restricted.set(edgeKey);
+            int reverseKey = GHUtility.reverseEdgeKey(edgeKey);
+            if (!restrictionFilter.accept(graph.getEdgeIteratorStateForKey(reverseKey)))
+                restricted.set(reverseKey);
+        }
+        return restricted;
+    }
+
     public void postInit(CHPreparationGraph prepareGraph) {
         restrictedNodes = new boolean[nodes];
-        EdgeExplorer restrictionExplorer;
-        restrictionExplorer = graph.createEdgeExplorer(EdgeFilter.ALL_EDGES);//FIXME: each edge is probably unnecessarily visited twice
-
-        for (int node = 0; node < nodes; node++) {
-            EdgeIterator edgeIterator = restrictionExplorer.setBaseNode(node);
-            while (edgeIterator.next())
-                if (!restrictionFilter.accept(edgeIterator))
-                    restrictedNodes[node] = restrictedNodes[edgeIterator.getAdjNode()] = true;
+        // both ends of an edge restricted in either direction become core nodes
+        for (int edgeKey = restrictedEdges.nextSetBit(0); edgeKey >= 0; edgeKey = restrictedEdges.nextSetBit(edgeKey + 1)) {
+            EdgeIteratorState edgeState = graph.getEdgeIteratorStateForKey(edgeKey);
+            restrictedNodes[edgeState.getBaseNode()] = restrictedNodes[edgeState.getAdjNode()] = true;
         }
 
         for (int node = 0; node < nodes; node++)
@@ -118,15 +195,15 @@ public class PrepareCore extends PrepareContractionHierarchies {
     }
 
     private static class RestrictedEdgesWeighting extends AbstractAdjustedWeighting {
-        private final EdgeFilter restrictionFilter;
+        private final BitSet restrictedEdges;
 
-        RestrictedEdgesWeighting(Weighting weighting, EdgeFilter restrictionFilter) {
+        RestrictedEdgesWeighting(Weighting weighting, BitSet restrictedEdges) {
             super(weighting);
-            this.restrictionFilter = restrictionFilter;
+            this.restrictedEdges = restrictedEdges;
         }
 
         public double calcEdgeWeight(EdgeIteratorState edgeState, boolean reverse) {
-            if (restrictionFilter.accept(edgeState))
+            if (!restrictedEdges.get(edgeState.getEdgeKey()))
                 return superWeighting.calcEdgeWeight(edgeState, reverse);
             else
                 return Double.POSITIVE_INFINITY;
@@ -147,7 +224,7 @@ public class PrepareCore extends PrepareContractionHierarchies {
         AllEdgesIterator iter = graph.getAllEdges();
         while (iter.next()) {
             double weightFwd = weighting.calcEdgeWeightWithAccess(iter, false);
-            // use reverse iterator because restrictionFilter.accept in RestrictedEdgesWeighting cannot be queried in reverse direction
+            // use reverse iterator because the restrictions in RestrictedEdgesWeighting are looked up by edge key
             EdgeIteratorState iterReverse = graph.getEdgeIteratorStateForKey(GHUtility.reverseEdgeKey(iter.getEdgeKey()));
             double weightBwd = weighting.calcEdgeWeightWithAccess(iterReverse, false);
             int timeFwd = Double.isFinite(weightFwd) ? (int) weighting.calcEdgeMillis(iter, false) : Integer.MAX_VALUE;
@@ -13,12 +13,14 @@
  */
 package org.heigit.ors.routing.graphhopper.extensions.edgefilters;
 
+import com.graphhopper.routing.querygraph.EdgeIteratorStateHelper;
 import com.graphhopper.routing.util.EdgeFilter;
 import com.graphhopper.storage.GraphHopperStorage;
 import com.graphhopper.util.EdgeIteratorState;
 import org.heigit.ors.routing.AvoidFeatureFlags;
 import org.heigit.ors.routing.RouteSearchParameters;
 import org.heigit.ors.routing.RoutingProfileCategory;
+import org.heigit.ors.routing.graphhopper.extensions.storages.EdgeRestrictionFlags;
 import org.heigit.ors.routing.graphhopper.extensions.storages.GraphStorageUtils;
 import org.heigit.ors.routing.graphhopper.extensions.storages.TollwaysGraphStorage;
 import org.heigit.ors.routing.graphhopper.extensions.storages.WayCategoryGraphStorage;
@@ -27,6 +29,7 @@ import org.heigit.ors.routing.pathprocessors.TollwayExtractor;
 public class AvoidFeaturesEdgeFilter implements EdgeFilter {
     private final byte[] buffer;
     private final WayCategoryGraphStorage storage;
+    private final EdgeRestrictionFlags restrictionFlags;
     private TollwayExtractor tollwayExtractor;
     private final int avoidFeatureType;
 
@@ -41,6 +44,7 @@ public class AvoidFeaturesEdgeFilter implements EdgeFilter {
         storage = GraphStorageUtils.getGraphExtension(graphStorage, WayCategoryGraphStorage.class);
         if (storage == null)
             throw new Exception("ExtendedGraphStorage for avoid features was not found.");
+        restrictionFlags = EdgeRestrictionFlags.of(graphStorage);
 
         TollwaysGraphStorage extTollways = GraphStorageUtils.getGraphExtension(graphStorage, TollwaysGraphStorage.class);
         if (extTollways != null)
@@ -57,13 +61,21 @@ public class AvoidFeaturesEdgeFilter implements EdgeFilter {
         storage = GraphStorageUtils.getGraphExtension(graphStorage, WayCategoryGraphStorage.class);
         if (storage == null)
             throw new IllegalStateException("ExtendedGraphStorage for avoid features was not found.");
+        restrictionFlags = EdgeRestrictionFlags.of(graphStorage);
     }
 
     @Override
     public final boolean accept(EdgeIteratorState iter) {
         if (avoidFeatureType != 0) {
-            int edge = iter.getEdge();
-            int edgeFeatType = storage.getEdgeValue(edge, buffer);
+            int edge;
+            int edgeFeatType;
+            if (restrictionFlags != null) {
+                edge = EdgeIteratorStateHelper.getOriginalEdge(iter);
+                edgeFeatType = restrictionFlags.get(edge) & EdgeRestrictionFlags.AVOID_FEATURES;
+            } else {
+                edge = iter.getEdge();
+                edgeFeatType = storage.getEdgeValue(edge, buffer);
+            }
 
             if (edgeFeatType != 0) {
                 int avoidEdgeFeatureType = avoidFeatureType & edgeFeatType;
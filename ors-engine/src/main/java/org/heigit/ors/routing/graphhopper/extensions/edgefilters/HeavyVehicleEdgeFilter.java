@@ -29,6 +29,7 @@ import com.graphhopper.util.EdgeIteratorState;
 import org.heigit.ors.routing.graphhopper.extensions.HeavyVehicleAttributes;
 import org.heigit.ors.routing.graphhopper.extensions.VehicleDimensionRestrictions;
 import org.heigit.ors.routing.graphhopper.extensions.VehicleLoadCharacteristicsFlags;
+import org.heigit.ors.routing.graphhopper.extensions.storages.EdgeRestrictionFlags;
 import org.heigit.ors.routing.graphhopper.extensions.storages.GraphStorageUtils;
 import org.heigit.ors.routing.graphhopper.extensions.storages.HeavyVehicleAttributesGraphStorage;
 import org.heigit.ors.routing.parameters.VehicleParameters;
@@ -53,6 +54,7 @@ public class HeavyVehicleEdgeFilter implements DestinationDependentEdgeFilter {
     private final int vehicleType;
     private final boolean hasHazmat;
     private final HeavyVehicleAttributesGraphStorage gsHeavyVehicles;
+    private final EdgeRestrictionFlags restrictionFlags;
     private final float[] restrictionValues;
     private final double[] retValues;
     private final Integer[] indexValues;
@@ -67,10 +69,14 @@ public class HeavyVehicleEdgeFilter implements DestinationDependentEdgeFilter {
     private static final int MODE_ROUTE = 0;
 
     public HeavyVehicleEdgeFilter(int vehicleType, VehicleParameters vehicleParams, GraphHopperStorage graphStorage) {
-        this(vehicleType, vehicleParams, GraphStorageUtils.getGraphExtension(graphStorage, HeavyVehicleAttributesGraphStorage.class));
+        this(vehicleType, vehicleParams, GraphStorageUtils.getGraphExtension(graphStorage, HeavyVehicleAttributesGraphStorage.class), EdgeRestrictionFlags.of(graphStorage));
     }
 
     public HeavyVehicleEdgeFilter(int vehicleType, VehicleParameters vehicleParams, HeavyVehicleAttributesGraphStorage hgvStorage) {
+        this(vehicleType, vehicleParams, hgvStorage, null);
+    }
+
+    private HeavyVehicleEdgeFilter(int vehicleType, VehicleParameters vehicleParams, HeavyVehicleAttributesGraphStorage hgvStorage, EdgeRestrictionFlags restrictionFlags) {
         float[] vehicleAttrs = new float[VehicleDimensionRestrictions.COUNT];
 
         if (vehicleParams != null) {
@@ -107,6 +113,7 @@ public class HeavyVehicleEdgeFilter implements DestinationDependentEdgeFilter {
         this.buffer = new byte[2];
 
         this.gsHeavyVehicles = hgvStorage;
+        this.restrictionFlags = restrictionFlags;
     }
 
     public void setDestinationEdge(EdgeIteratorState edge, Graph graph, FlagEncoder encoder, TraversalMode tMode) {
@@ -147,6 +154,11 @@ public class HeavyVehicleEdgeFilter implements DestinationDependentEdgeFilter {
     public boolean accept(EdgeIteratorState iter) {
         int edgeId = EdgeIteratorStateHelper.getOriginalEdge(iter);
 
+        // edges without any vehicle type, destination or dimension restrictions are accepted except for collecting
+        // destination edges
+        if (restrictionFlags != null && mode != MODE_DESTINATION_EDGES && !restrictionFlags.has(edgeId, EdgeRestrictionFlags.HEAVY_VEHICLE))
+            return true;
+
         int vt = gsHeavyVehicles.getEdgeVehicleType(edgeId, buffer);
         boolean dstFlag = buffer[1] != 0; // ((buffer[1] >> (vehicleType >> 1)) & 1) == 1
 
@@ -13,11 +13,13 @@
  */
 package org.heigit.ors.routing.graphhopper.extensions.edgefilters;
 
+import com.graphhopper.routing.querygraph.EdgeIteratorStateHelper;
 import com.graphhopper.routing.util.EdgeFilter;
 import com.graphhopper.storage.GraphHopperStorage;
 import com.graphhopper.util.EdgeIteratorState;
 import org.apache.log4j.Logger;
 import org.heigit.ors.routing.graphhopper.extensions.WheelchairAttributes;
+import org.heigit.ors.routing.graphhopper.extensions.storages.EdgeRestrictionFlags;
 import org.heigit.ors.routing.graphhopper.extensions.storages.GraphStorageUtils;
 import org.heigit.ors.routing.graphhopper.extensions.storages.WheelchairAttributesGraphStorage;
 import org.heigit.ors.routing.parameters.WheelchairParameters;
@@ -27,6 +29,7 @@ public class WheelchairEdgeFilter implements EdgeFilter {
     private final byte[] buffer;
     private final WheelchairAttributesGraphStorage storage;
     private final WheelchairAttributes attributes;
+    private final EdgeRestrictionFlags restrictionFlags;
     private WheelchairParameters params;
 
     public WheelchairEdgeFilter(WheelchairParameters params, GraphHopperStorage graphStorage) throws Exception {
@@ -39,10 +42,14 @@ public class WheelchairEdgeFilter implements EdgeFilter {
         }
         attributes = new WheelchairAttributes();
         buffer = new byte[WheelchairAttributesGraphStorage.BYTE_COUNT];
+        restrictionFlags = EdgeRestrictionFlags.of(graphStorage);
     }
 
     @Override
     public boolean accept(EdgeIteratorState iter) {
+        // edges without wheelchair attributes are always suitable
+        if (restrictionFlags != null && !restrictionFlags.has(EdgeIteratorStateHelper.getOriginalEdge(iter), EdgeRestrictionFlags.WHEELCHAIR))
+            return true;
         storage.getEdgeValues(iter.getEdge(), attributes, buffer);
         LOGGER.debug("edge: " + iter + (attributes.hasValues() ? " suitable: " + attributes.isSuitable() + " surfaceQualityKnown: " + attributes.isSurfaceQualityKnown() : " no wheelchair attributes"));
         return !attributes.hasValues() || !(
@@ -13,17 +13,20 @@
  */
 package org.heigit.ors.routing.graphhopper.extensions.edgefilters.core;
 
+import com.graphhopper.routing.querygraph.EdgeIteratorStateHelper;
 import com.graphhopper.routing.util.EdgeFilter;
 import com.graphhopper.storage.GraphHopperStorage;
 import com.graphhopper.storage.RoutingCHEdgeIterator;
 import com.graphhopper.util.EdgeIteratorState;
 import org.heigit.ors.routing.AvoidFeatureFlags;
+import org.heigit.ors.routing.graphhopper.extensions.storages.EdgeRestrictionFlags;
 import org.heigit.ors.routing.graphhopper.extensions.storages.GraphStorageUtils;
 import org.heigit.ors.routing.graphhopper.extensions.storages.WayCategoryGraphStorage;
 
 public class AvoidFeaturesCoreEdgeFilter implements EdgeFilter {
     private final byte[] buffer;
     private final WayCategoryGraphStorage storage;
+    private final EdgeRestrictionFlags restrictionFlags;
     private int avoidFeatures;
     private static final String TYPE = "avoid_features";
 
@@ -31,6 +34,7 @@ public class AvoidFeaturesCoreEdgeFilter implements EdgeFilter {
         buffer = new byte[10];
         avoidFeatures = AvoidFeatureFlags.getProfileFlags(profileCategory);
         storage = GraphStorageUtils.getGraphExtension(graphStorage, WayCategoryGraphStorage.class);
+        restrictionFlags = EdgeRestrictionFlags.of(graphStorage);
     }
 
     public AvoidFeaturesCoreEdgeFilter(GraphHopperStorage graphStorage, int profileCategory, int overrideClass) {
@@ -42,6 +46,8 @@ public class AvoidFeaturesCoreEdgeFilter implements EdgeFilter {
     public final boolean accept(EdgeIteratorState iter) {
         if (iter instanceof RoutingCHEdgeIterator iterator && iterator.isShortcut())
             return true;
+        if (restrictionFlags != null)
+            return !restrictionFlags.has(EdgeIteratorStateHelper.getOriginalEdge(iter), avoidFeatures);
         return (storage.getEdgeValue(iter.getEdge(), buffer) & avoidFeatures) == 0;
     }
 
@@ -17,20 +17,26 @@ import com.graphhopper.routing.querygraph.EdgeIteratorStateHelper;
 import com.graphhopper.routing.util.EdgeFilter;
 import com.graphhopper.storage.GraphHopperStorage;
 import com.graphhopper.util.EdgeIteratorState;
+import org.heigit.ors.routing.graphhopper.extensions.storages.EdgeRestrictionFlags;
 import org.heigit.ors.routing.graphhopper.extensions.storages.GraphStorageUtils;
 import org.heigit.ors.routing.graphhopper.extensions.storages.HeavyVehicleAttributesGraphStorage;
 
 
 public class HeavyVehicleCoreEdgeFilter implements EdgeFilter {
     private final HeavyVehicleAttributesGraphStorage storage;
+    private final EdgeRestrictionFlags restrictionFlags;
 
     public HeavyVehicleCoreEdgeFilter(GraphHopperStorage graphStorage) {
         storage = GraphStorageUtils.getGraphExtension(graphStorage, HeavyVehicleAttributesGraphStorage.class);
+        restrictionFlags = EdgeRestrictionFlags.of(graphStorage);
     }
 
     @Override
     public final boolean accept(EdgeIteratorState iter) {
-        return !storage.hasEdgeRestriction(EdgeIteratorStateHelper.getOriginalEdge(iter));
+        int edge = EdgeIteratorStateHelper.getOriginalEdge(iter);
+        if (restrictionFlags != null)
+            return !restrictionFlags.has(edge, EdgeRestrictionFlags.HEAVY_VEHICLE);
+        return !storage.hasEdgeRestriction(edge);
 
     }
 
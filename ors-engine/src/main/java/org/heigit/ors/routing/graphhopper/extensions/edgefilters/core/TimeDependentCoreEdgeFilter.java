@@ -14,12 +14,14 @@
 package org.heigit.ors.routing.graphhopper.extensions.edgefilters.core;
 
 import com.graphhopper.routing.ev.BooleanEncodedValue;
+import com.graphhopper.routing.querygraph.EdgeIteratorStateHelper;
 import com.graphhopper.routing.util.EdgeFilter;
 import com.graphhopper.routing.util.EncodingManager;
 import com.graphhopper.routing.util.FlagEncoder;
 import com.graphhopper.storage.ConditionalEdges;
 import com.graphhopper.storage.GraphHopperStorage;
 import com.graphhopper.util.EdgeIteratorState;
+import org.heigit.ors.routing.graphhopper.extensions.storages.EdgeRestrictionFlags;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -29,12 +31,30 @@ public class TimeDependentCoreEdgeFilter implements EdgeFilter {
     private final BooleanEncodedValue[] conditionalEncoders;
     private static final String[] names = {ConditionalEdges.ACCESS, ConditionalEdges.SPEED};
 
+    private final EdgeRestrictionFlags restrictionFlags;
+
     public TimeDependentCoreEdgeFilter(GraphHopperStorage graphStorage) {
+        conditionalEncoders = getConditionalEncodedValues(graphStorage.getEncodingManager());
+        restrictionFlags = EdgeRestrictionFlags.of(graphStorage);
+    }
+
+    /**
+     * Considers the conditionals of a single flag encoder only.
+     */
+    public TimeDependentCoreEdgeFilter(GraphHopperStorage graphStorage, FlagEncoder flagEncoder) {
         EncodingManager encodingManager = graphStorage.getEncodingManager();
+        conditionalEncoders = getConditionalEncodedValues(encodingManager, List.of(flagEncoder));
+        restrictionFlags = EdgeRestrictionFlags.of(graphStorage);
+    }
 
+    public static BooleanEncodedValue[] getConditionalEncodedValues(EncodingManager encodingManager) {
+        return getConditionalEncodedValues(encodingManager, encodingManager.fetchEdgeEncoders());
+    }
+
+    private static BooleanEncodedValue[] getConditionalEncodedValues(EncodingManager encodingManager, List<FlagEncoder> encoders) {
         List<BooleanEncodedValue> conditionalEncodersList = new ArrayList<>();
 
-        for (FlagEncoder encoder : encodingManager.fetchEdgeEncoders()) {
+        for (FlagEncoder encoder : encoders) {
             for (String name : names) {
                 String encoderName = EncodingManager.getKey(encoder, name);
                 if (encodingManager.hasEncodedValue(encoderName)) {
@@ -43,22 +63,23 @@ public class TimeDependentCoreEdgeFilter implements EdgeFilter {
             }
         }
 
-        conditionalEncoders = conditionalEncodersList.toArray(new BooleanEncodedValue[0]);
+        return conditionalEncodersList.toArray(new BooleanEncodedValue[0]);
     }
 
     public static boolean hasConditionals(EncodingManager encodingManager) {
-        for (FlagEncoder encoder : encodingManager.fetchEdgeEncoders())
-            for (String name : names) {
-                String encoderName = EncodingManager.getKey(encoder, name);
-                if (encodingManager.hasEncodedValue(encoderName)) {
-                    return true;
-                }
-            }
-        return false;
+        return getConditionalEncodedValues(encodingManager).length > 0;
+    }
+
+    public static boolean hasConditionals(EncodingManager encodingManager, FlagEncoder flagEncoder) {
+        return getConditionalEncodedValues(encodingManager, List.of(flagEncoder)).length > 0;
     }
 
     @Override
     public final boolean accept(EdgeIteratorState iter) {
+        // the flag covers both directions and all encoders, so only edges without it can be accepted right away, the
+        // others are checked in the direction of the iterator as before
+        if (restrictionFlags != null && !restrictionFlags.has(EdgeIteratorStateHelper.getOriginalEdge(iter), EdgeRestrictionFlags.CONDITIONAL))
+            return true;
         for (BooleanEncodedValue conditionalEncoder : conditionalEncoders) {
             if (iter.get(conditionalEncoder)) {
                 return false;
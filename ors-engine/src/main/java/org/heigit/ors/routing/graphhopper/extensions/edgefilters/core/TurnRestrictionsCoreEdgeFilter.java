@@ -12,77 +12,62 @@
 
 package org.heigit.ors.routing.graphhopper.extensions.edgefilters.core;
 
-import com.graphhopper.routing.util.AccessFilter;
+import com.graphhopper.routing.ev.DecimalEncodedValue;
+import com.graphhopper.routing.ev.TurnCost;
 import com.graphhopper.routing.util.EdgeFilter;
 import com.graphhopper.routing.util.FlagEncoder;
-import com.graphhopper.routing.weighting.DefaultTurnCostProvider;
-import com.graphhopper.routing.weighting.TurnCostProvider;
-import com.graphhopper.storage.Graph;
 import com.graphhopper.storage.GraphHopperStorage;
-import com.graphhopper.util.EdgeExplorer;
-import com.graphhopper.util.EdgeIterator;
+import com.graphhopper.storage.TurnCostStorage;
 import com.graphhopper.util.EdgeIteratorState;
+import com.graphhopper.util.StopWatch;
+import org.apache.log4j.Logger;
+
+import java.util.BitSet;
 
 
 /**
  * This class includes in the core all edges with turn restrictions.
+ * <p>
+ * The edges are collected in a single pass over the turn cost storage. An edge counts as restricted if it is the
+ * source or the target of a forbidden turn to another edge, regardless of the direction in which the restriction
+ * applies. This is so primarily for backwards compatibility with the former implementation in order to make
+ * `testTurnRestrictions` API test pass. In principle it should be enough to consider only the direction in which the
+ * restriction applies, however, then probably #1073 would need to be addressed for the API test to pass. U-turn
+ * restrictions do not add edges to the core.
  *
  * @author Athanasios Kogios
  * @author Andrzej Oles
  */
 
 public class TurnRestrictionsCoreEdgeFilter implements EdgeFilter {
-    private final TurnCostProvider turnCostProvider;
-    private final FlagEncoder flagEncoder;
-    private final EdgeExplorer inEdgeExplorer;
-    private final EdgeExplorer outEdgeExplorer;
-    private final Graph graph;
+    private static final Logger LOGGER = Logger.getLogger(TurnRestrictionsCoreEdgeFilter.class);
+
+    private final BitSet restrictedEdges;
 
     public TurnRestrictionsCoreEdgeFilter(FlagEncoder encoder, GraphHopperStorage graphHopperStorage) {
         if (!encoder.isRegistered())
             throw new IllegalStateException("Make sure you add the FlagEncoder " + encoder + " to an EncodingManager before using it elsewhere");
 
-        this.flagEncoder = encoder;
-        this.graph = graphHopperStorage.getBaseGraph();
-        turnCostProvider = new DefaultTurnCostProvider(flagEncoder, graphHopperStorage.getTurnCostStorage());
-        inEdgeExplorer = graph.createEdgeExplorer(AccessFilter.inEdges(flagEncoder.getAccessEnc()));
-        outEdgeExplorer = graph.createEdgeExplorer(AccessFilter.outEdges(flagEncoder.getAccessEnc()));
+        StopWatch sw = new StopWatch().start();
+        restrictedEdges = new BitSet(graphHopperStorage.getEdges());
+        String key = TurnCost.key(encoder.toString());
+        TurnCostStorage turnCostStorage = graphHopperStorage.getTurnCostStorage();
+        if (turnCostStorage != null && encoder.hasEncodedValue(key)) {
+            DecimalEncodedValue turnCostEnc = encoder.getDecimalEncodedValue(key);
+            TurnCostStorage.TurnRelationIterator iter = turnCostStorage.getAllTurnCosts();
+            while (iter.next()) {
+                if (iter.getFromEdge() != iter.getToEdge() && Double.isInfinite(iter.getCost(turnCostEnc))) {
+                    restrictedEdges.set(iter.getFromEdge());
+                    restrictedEdges.set(iter.getToEdge());
+                }
+            }
+        }
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info("Collected %d edges with turn restrictions of '%s', took %.1fs".formatted(restrictedEdges.cardinality(), encoder, sw.stop().getSeconds()));
     }
 
     boolean hasTurnRestrictions(EdgeIteratorState edge) {
-        return (isInvolvedInTurnRelation(edge, inEdgeExplorer) || isInvolvedInTurnRelation(edge, outEdgeExplorer));
-    }
-
-    boolean isInvolvedInTurnRelation(EdgeIteratorState edge, EdgeExplorer edgeExplorer) {
-        int queriedEdge = edge.getEdge();
-        int viaNode = (edgeExplorer == inEdgeExplorer) ? edge.getBaseNode() : edge.getAdjNode();
-        EdgeIterator edgeIterator = edgeExplorer.setBaseNode(viaNode);
-
-        while (edgeIterator.next()) {
-            int otherEdge = edgeIterator.getEdge();
-            //Do not add edges to the core because of u turn restrictions
-            if (queriedEdge == otherEdge)
-                continue;
-            //Double turnCost = (edgeExplorer == inEdgeExplorer) ?
-            //        turnCostProvider.calcTurnWeight(otherEdge, viaNode, queriedEdge) :
-            //        turnCostProvider.calcTurnWeight(queriedEdge, viaNode, otherEdge);
-            //if (turnCost.equals(Double.POSITIVE_INFINITY))
-            //    return true;
-            // ---
-            // The following code checks whether the given edge is involved in a turn restriction (TR) in any direction,
-            // i.e. even in the opposite one in which the TR does not actually apply. This is so primarily for backwards
-            // compatibility with the former implementation in order to make `testTurnRestrictions` API test pass.
-            // In principle it should be enough to check only in the direction in which the TR applies as in the
-            // commented out section above. However, then probably #1073 would need to be addressed for the API test to pass.
-            // ---
-            // fwd when edgeExplorer == inEdgeExplorer otherwise it's the other way round!
-            Double turnCostFwd = turnCostProvider.calcTurnWeight(otherEdge, viaNode, queriedEdge);
-            Double turnCostBwd = turnCostProvider.calcTurnWeight(queriedEdge, viaNode, otherEdge);
-            if (turnCostFwd.equals(Double.POSITIVE_INFINITY) || turnCostBwd.equals(Double.POSITIVE_INFINITY))
-                return true;
-        }
-
-        return false;
+        return restrictedEdges.get(edge.getEdge());
     }
 
     @Override
@@ -90,5 +75,3 @@ public class TurnRestrictionsCoreEdgeFilter implements EdgeFilter {
         return !hasTurnRestrictions(edge);
     }
 }
-
-
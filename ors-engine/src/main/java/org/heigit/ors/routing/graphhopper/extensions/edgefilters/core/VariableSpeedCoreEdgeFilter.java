@@ -33,7 +33,7 @@ public class VariableSpeedCoreEdgeFilter implements EdgeFilter {
 
     @Override
     public final boolean accept(EdgeIteratorState iter) {
-        return !storage.hasSpeed(EdgeIteratorStateHelper.getOriginalEdge(iter), iter.getReverse(flagEncoder.getAccessEnc()));
+        return !storage.hasSpeed(flagEncoder, EdgeIteratorStateHelper.getOriginalEdge(iter), iter.getReverse(flagEncoder.getAccessEnc()));
     }
 
 }
@@ -13,10 +13,12 @@
  */
 package org.heigit.ors.routing.graphhopper.extensions.edgefilters.core;
 
+import com.graphhopper.routing.querygraph.EdgeIteratorStateHelper;
 import com.graphhopper.routing.util.EdgeFilter;
 import com.graphhopper.storage.GraphHopperStorage;
 import com.graphhopper.util.EdgeIteratorState;
 import org.heigit.ors.routing.graphhopper.extensions.WheelchairAttributes;
+import org.heigit.ors.routing.graphhopper.extensions.storages.EdgeRestrictionFlags;
 import org.heigit.ors.routing.graphhopper.extensions.storages.GraphStorageUtils;
 import org.heigit.ors.routing.graphhopper.extensions.storages.WheelchairAttributesGraphStorage;
 
@@ -24,15 +26,19 @@ public final class WheelchairCoreEdgeFilter implements EdgeFilter {
     private final byte[] buffer;
     private final WheelchairAttributesGraphStorage storage;
     private final WheelchairAttributes attributes;
+    private final EdgeRestrictionFlags restrictionFlags;
 
     public WheelchairCoreEdgeFilter(GraphHopperStorage graphStorage) {
         buffer = new byte[WheelchairAttributesGraphStorage.BYTE_COUNT];
         attributes = new WheelchairAttributes();
         storage = GraphStorageUtils.getGraphExtension(graphStorage, WheelchairAttributesGraphStorage.class);
+        restrictionFlags = EdgeRestrictionFlags.of(graphStorage);
     }
 
     @Override
     public boolean accept(EdgeIteratorState iter) {
+        if (restrictionFlags != null)
+            return !restrictionFlags.has(EdgeIteratorStateHelper.getOriginalEdge(iter), EdgeRestrictionFlags.WHEELCHAIR);
 
         storage.getEdgeValues(iter.getEdge(), attributes, buffer);
 
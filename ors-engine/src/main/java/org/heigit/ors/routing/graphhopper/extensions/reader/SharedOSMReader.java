@@ -0,0 +1,245 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.routing.graphhopper.extensions.reader;
+
+import com.graphhopper.reader.ReaderElement;
+import com.graphhopper.reader.ReaderNode;
+import com.graphhopper.reader.ReaderRelation;
+import com.graphhopper.reader.ReaderWay;
+import com.graphhopper.reader.osm.OSMInput;
+import com.graphhopper.reader.osm.OSMInputFile;
+import org.apache.log4j.Logger;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses an OSM file once for all profiles which are imported at the same time, instead of once per profile.
+ * <p>
+ * Each profile reads the file twice, but as every pass covers the whole file, readers are grouped into rounds
+ * regardless of the pass they are in. A round starts as soon as all expected readers have joined, or when the
+ * first reader has waited for {@code joinTimeout}; readers arriving later join the next round. A single thread
+ * parses the file and hands batches of elements to the queues of all readers of the round, each reader copies the
+ * elements it takes as the OSM reader modifies them. The round proceeds at the pace of its slowest reader.
+ * <p>
+ * Readers which are expected but never open the file, e.g. because their graph already exists, have to be
+ * reported by {@link #readerFinished()} so that rounds do not wait for them.
+ */
+public class SharedOSMReader {
+    private static final Logger LOGGER = Logger.getLogger(SharedOSMReader.class);
+    private static final int BATCH_SIZE = 1024;
+    private static final int QUEUE_CAPACITY = 16;
+    private static final Batch END = new Batch(new ReaderElement[0], 0, null);
+
+    private final File osmFile;
+    private final int workerThreads;
+    private final long joinTimeout;
+    private final int maximumReaders;
+    private int remainingReaders;
+    private Round openRound;
+    private int rounds;
+
+    /**
+     * @param readers        number of readers which may open the file, i.e. profiles being loaded
+     * @param maximumReaders number of readers which may read at the same time, i.e. profiles loaded in parallel
+     * @param joinTimeout    milliseconds a round waits for expected readers to join
+     */
+    public SharedOSMReader(File osmFile, int workerThreads, int readers, int maximumReaders, long joinTimeout) {
+        this.osmFile = osmFile;
+        this.workerThreads = workerThreads;
+        this.remainingReaders = readers;
+        this.maximumReaders = maximumReaders;
+        this.joinTimeout = joinTimeout;
+    }
+
+    /**
+     * Reports that a reader has finished and will not open the file again.
+     */
+    public synchronized void readerFinished() {
+        remainingReaders--;
+        notifyAll();
+    }
+
+    /**
+     * Joins the next round of reading the file, waiting until the round starts.
+     */
+    public OSMInput open() throws InterruptedException {
+        Round round;
+        Reader reader;
+        synchronized (this) {
+            if (openRound == null)
+                openRound = new Round(++rounds, System.currentTimeMillis() + joinTimeout);
+            round = openRound;
+            reader = round.join();
+            notifyAll();
+            while (!round.started) {
+                long remaining = round.deadline - System.currentTimeMillis();
+                if (round.readers.size() >= Math.min(remainingReaders, maximumReaders) || remaining <= 0) {
+                    openRound = null;
+                    round.start();
+                    notifyAll();
+                } else {
+                    wait(remaining);
+                }
+            }
+        }
+        return reader;
+    }
+
+    private record Batch(ReaderElement[] elements, int size, Exception error) {
+    }
+
+    private class Round implements Runnable {
+        private final int id;
+        private final long deadline;
+        private final List<Reader> readers = new ArrayList<>();
+        private boolean started;
+
+        Round(int id, long deadline) {
+            this.id = id;
+            this.deadline = deadline;
+        }
+
+        Reader join() {
+            Reader reader = new Reader();
+            readers.add(reader);
+            return reader;
+        }
+
+        void start() {
+            started = true;
+            boolean exclusive = readers.size() == 1;
+            for (Reader reader : readers)
+                reader.copy = !exclusive;
+            LOGGER.info("Reading '%s' for %d profile(s), round %d.".formatted(osmFile.getName(), readers.size(), id));
+            Thread thread = new Thread(this, "ORS-osm-read-" + id);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        @Override
+        public void run() {
+            try (OSMInput input = new OSMInputFile(osmFile).setWorkerThreads(workerThreads).open()) {
+                ReaderElement[] elements = new ReaderElement[BATCH_SIZE];
+                int size = 0;
+                ReaderElement element;
+                while ((element = input.getNext()) != null) {
+                    elements[size++] = element;
+                    if (size == BATCH_SIZE) {
+                        if (!publish(new Batch(elements, size, null)))
+                            return;
+                        elements = new ReaderElement[BATCH_SIZE];
+                        size = 0;
+                    }
+                }
+                if (publish(new Batch(elements, size, null)))
+                    publish(END);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                LOGGER.error("Reading '%s' failed: %s".formatted(osmFile, e.getMessage()));
+                try {
+                    publish(new Batch(null, 0, e));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        /**
+         * @return whether any reader of the round is still reading
+         */
+        private boolean publish(Batch batch) throws InterruptedException {
+            boolean reading = false;
+            for (Reader reader : readers) {
+                while (!reader.closed) {
+                    if (reader.queue.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+                        reading = true;
+                        break;
+                    }
+                }
+            }
+            return reading;
+        }
+    }
+
+    private static class Reader implements OSMInput {
+        private final BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private volatile boolean closed;
+        private boolean copy;
+        private Batch batch;
+        private int position;
+
+        @Override
+        public ReaderElement getNext() {
+            while (batch == null || position >= batch.size()) {
+                if (batch == END)
+                    return null;
+                try {
+                    batch = queue.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while reading the OSM file.", e);
+                }
+                if (batch.error() != null)
+                    throw new IllegalStateException("Reading the OSM file failed.", batch.error());
+                position = 0;
+            }
+            ReaderElement element = batch.elements()[position++];
+            return copy ? copy(element) : element;
+        }
+
+        @Override
+        public int getUnprocessedElements() {
+            return queue.size() * BATCH_SIZE + (batch == null ? 0 : batch.size() - position);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            queue.clear();
+        }
+    }
+
+    static ReaderElement copy(ReaderElement element) {
+        ReaderElement copy;
+        switch (element.getType()) {
+            case ReaderElement.NODE -> {
+                ReaderNode node = (ReaderNode) element;
+                copy = new ReaderNode(node.getId(), node.getLat(), node.getLon());
+            }
+            case ReaderElement.WAY -> {
+                ReaderWay way = new ReaderWay(element.getId());
+                way.getNodes().addAll(((ReaderWay) element).getNodes());
+                copy = way;
+            }
+            case ReaderElement.RELATION -> {
+                ReaderRelation relation = new ReaderRelation(element.getId());
+                for (ReaderRelation.Member member : ((ReaderRelation) element).getMembers())
+                    relation.add(new ReaderRelation.Member(member));
+                copy = relation;
+            }
+            default -> {
+                // the file header is only read
+                return element;
+            }
+        }
+        copy.getTags().putAll(element.getTags());
+        return copy;
+    }
+}
@@ -22,7 +22,9 @@ import org.heigit.ors.util.CSVUtility;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.index.strtree.STRtree;
 
 import java.io.*;
 import java.util.*;
@@ -33,6 +35,7 @@ public class CountryBordersReader {
     public static final String INTERNATIONAL_NAME = "INTERNATIONAL";
     public static final String INTERNATIONAL_ID = "-1";
     public static final String KEY_PROPERTIES = "properties";
+    public static final short NO_COUNTRY = 0;
 
     private final String borderFile;
     private final String nameField;
@@ -47,6 +50,9 @@ public class CountryBordersReader {
 
     private final HashMap<Long, CountryBordersHierarchy> hierarchies = new HashMap<>();
 
+    // spatial index over the polygons of all hierarchies, built on first use
+    private volatile STRtree countryIndex;
+
     // Package scoped for testing purposes
     static CountryBordersReader currentInstance = null;
 
@@ -101,6 +107,7 @@ public class CountryBordersReader {
     public void addHierarchy(Long id, CountryBordersHierarchy hierarchy) {
         if (!hierarchies.containsKey(id)) {
             hierarchies.put(id, hierarchy);
+            countryIndex = null;
         }
     }
 
@@ -108,6 +115,7 @@ public class CountryBordersReader {
     public void addId(String id, String localName, String englishName, String cca2, String cca3) {
         if (!ids.containsKey(localName)) {
             ids.put(localName, new CountryInfo(id, localName, englishName));
+            countryIndex = null;
             isoCodes.put(cca2.trim().toUpperCase(), Integer.parseInt(id));
             isoCodes.put(cca3.trim().toUpperCase(), Integer.parseInt(id));
         }
@@ -285,6 +293,58 @@ public class CountryBordersReader {
         return countries.toArray(new CountryBordersPolygon[0]);
     }
 
+    /**
+     * Get the numeric identifier of a country that the given point lies within, without the string handling of
+     * {@link #getId(String)}. Candidates are taken from a spatial index of all border polygons, so that only the
+     * polygons whose bounding box contains the point are tested.
+     *
+     * @param c The point that you want to know which country is in
+     * @return The identifier of the country, or {@link #NO_COUNTRY} if the point is not in any country with a known id
+     */
+    public short getCountryId(Coordinate c) {
+        if (Double.isNaN(c.x) || Double.isNaN(c.y))
+            return NO_COUNTRY;
+        for (Object item : getCountryIndex().query(new Envelope(c))) {
+            IndexedCountry country = (IndexedCountry) item;
+            if (country.polygon.inArea(c))
+                return country.id;
+        }
+        return NO_COUNTRY;
+    }
+
+    private STRtree getCountryIndex() {
+        STRtree index = countryIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = countryIndex;
+                if (index == null) {
+                    index = createCountryIndex();
+                    countryIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    private STRtree createCountryIndex() {
+        STRtree index = new STRtree();
+        for (CountryBordersHierarchy h : hierarchies.values()) {
+            for (CountryBordersPolygon cp : h.getPolygons()) {
+                short id;
+                try {
+                    id = Short.parseShort(getId(cp.getName()));
+                } catch (NumberFormatException e) {
+                    continue;
+                }
+                double[] bbox = cp.getBBox();
+                index.insert(new Envelope(bbox[0], bbox[1], bbox[2], bbox[3]), new IndexedCountry(cp, id));
+            }
+        }
+        // building makes the tree read-only, so that it can be queried concurrently
+        index.build();
+        return index;
+    }
+
     /**
      * Method for getting a list of country objects that the given point COULD be found within. This could be more than
      * one if the point is found in overlapping regions. This tests against bounding boxes, and so the countries
@@ -445,6 +505,9 @@ public class CountryBordersReader {
         }
     }
 
+    private record IndexedCountry(CountryBordersPolygon polygon, short id) {
+    }
+
     /**
      * Holder class for storing information about a country read from the ids csv.
      */
@@ -26,6 +26,8 @@ public class BordersGraphStorage implements GraphExtension {
     private static final int EF_BORDER = 0;        // byte location of border type
     private static final int EF_START = 2;            // byte location of the start country id
     private static final int EF_END = 4;            // byte location of the end country id
+    private static final int EF_BASE_NODE = 6;        // byte location of the country id at the base node
+    private static final int EF_ADJ_NODE = 8;        // byte location of the country id at the adjacent node
 
     // border types
     public static final short NO_BORDER = 0;
@@ -39,7 +41,7 @@ public class BordersGraphStorage implements GraphExtension {
     public BordersGraphStorage() {
 
         int edgeEntryIndex = 0;
-        edgeEntryBytes = edgeEntryIndex + 6;    // item uses 3 short values which are 2 bytes length each
+        edgeEntryBytes = edgeEntryIndex + 10;    // item uses 5 short values which are 2 bytes length each
         edgesCount = 0;
     }
 
@@ -55,6 +57,19 @@ public class BordersGraphStorage implements GraphExtension {
      * @param end        ID of the country that the edge ends in
      */
     public void setEdgeValue(int edgeId, short borderType, short start, short end) {
+        setEdgeValue(edgeId, borderType, start, end, (short) 0, (short) 0);
+    }
+
+    /**
+     * Set values to the edge like {@link #setEdgeValue(int, short, short, short)}, together with the countries its
+     * two nodes are located in. Unlike start and end, which describe the whole OSM way, these refer to the nodes of the
+     * edge itself in the direction it is stored, so that the country at the start of a traversed edge does not have to
+     * be looked up in the border polygons.
+     *
+     * @param baseCountry ID of the country of the base node of the edge, 0 if unknown
+     * @param adjCountry  ID of the country of the adjacent node of the edge, 0 if unknown
+     */
+    public void setEdgeValue(int edgeId, short borderType, short start, short end, short baseCountry, short adjCountry) {
         edgesCount++;
         ensureEdgesIndex(edgeId);
 
@@ -64,6 +79,8 @@ public class BordersGraphStorage implements GraphExtension {
         orsEdges.setShort(edgePointer + EF_BORDER, borderType);
         orsEdges.setShort(edgePointer + EF_START, start);
         orsEdges.setShort(edgePointer + EF_END, end);
+        orsEdges.setShort(edgePointer + EF_BASE_NODE, baseCountry);
+        orsEdges.setShort(edgePointer + EF_ADJ_NODE, adjCountry);
     }
 
     private void ensureEdgesIndex(int edgeId) {
@@ -95,6 +112,22 @@ public class BordersGraphStorage implements GraphExtension {
 
     }
 
+    /**
+     * Get the country of one of the nodes of the edge, as set by
+     * {@link #setEdgeValue(int, short, short, short, short, short)}
+     *
+     * @param edgeId  Internal ID of the edge to get values for
+     * @param adjNode whether to get the country of the adjacent instead of the base node, with respect to the direction
+     *                the edge is stored in
+     * @return The ID of the country, or 0 if it is unknown, e.g. for graphs built before the node countries were stored
+     */
+    public short getNodeCountry(int edgeId, boolean adjNode) {
+        if (edgeEntryBytes <= EF_ADJ_NODE)
+            return 0;
+        long edgePointer = (long) edgeId * edgeEntryBytes;
+        return orsEdges.getShort(edgePointer + (adjNode ? EF_ADJ_NODE : EF_BASE_NODE));
+    }
+
     /**
      * initializes the extended storage by giving the base graph
      *
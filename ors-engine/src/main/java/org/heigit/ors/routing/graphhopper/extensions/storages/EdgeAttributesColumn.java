@@ -0,0 +1,113 @@
+package org.heigit.ors.routing.graphhopper.extensions.storages;
+
+import com.graphhopper.storage.Directory;
+import com.graphhopper.storage.Graph;
+import com.graphhopper.storage.GraphExtension;
+
+/**
+ * Base of the graph storages which keep a few bytes per edge in a column of an {@link EdgeAttributesGraphStorage}.
+ * The storage factory adds all of them to one table per graph, whose lifecycle is managed as a graph extension of its
+ * own. A column which has not been added to a table, e.g. in tests, creates a table of its own on {@link #init}.
+ */
+public abstract class EdgeAttributesColumn implements GraphExtension {
+    private final String name;
+    private final int columnBytes;
+    private EdgeAttributesGraphStorage attributes;
+    private int columnIndex;
+    private boolean ownsAttributes;
+
+    /**
+     * @param name        name of the table created if this column is used on its own
+     * @param columnBytes bytes of this column in every record
+     */
+    protected EdgeAttributesColumn(String name, int columnBytes) {
+        this.name = name;
+        this.columnBytes = columnBytes;
+    }
+
+    /**
+     * @return name of the table created if this column is used on its own, which was also the name of the storage file
+     * before the columns shared a table
+     */
+    String getName() {
+        return name;
+    }
+
+    public int getColumnBytes() {
+        return columnBytes;
+    }
+
+    void attach(EdgeAttributesGraphStorage attributes) {
+        if (this.attributes != null)
+            throw new IllegalStateException("The %s storage has already been added to an edge attributes storage.".formatted(name));
+        this.attributes = attributes;
+    }
+
+    void setColumnIndex(int columnIndex) {
+        this.columnIndex = columnIndex;
+    }
+
+    public void init(Graph graph, Directory dir) {
+        if (attributes == null) {
+            new EdgeAttributesGraphStorage(name).addColumn(this);
+            ownsAttributes = true;
+        }
+        if (ownsAttributes)
+            attributes.init(graph, dir);
+    }
+
+    public void setSegmentSize(int bytes) {
+        if (ownsAttributes)
+            attributes.setSegmentSize(bytes);
+    }
+
+    public EdgeAttributesColumn create(long initBytes) {
+        if (ownsAttributes)
+            attributes.create(initBytes);
+        return this;
+    }
+
+    public void flush() {
+        if (ownsAttributes)
+            attributes.flush();
+    }
+
+    public void close() {
+        if (ownsAttributes)
+            attributes.close();
+    }
+
+    @Override
+    public long getCapacity() {
+        return ownsAttributes ? attributes.getCapacity() : 0;
+    }
+
+    public int entries() {
+        return attributes.entries();
+    }
+
+    public boolean loadExisting() {
+        return !ownsAttributes || attributes.loadExisting();
+    }
+
+    protected byte getByte(int edgeId, int offset) {
+        return attributes.getByte(edgeId, columnIndex + offset);
+    }
+
+    protected void setByte(int edgeId, int offset, byte value) {
+        attributes.setByte(edgeId, columnIndex + offset, value);
+    }
+
+    protected void getBytes(int edgeId, int offset, byte[] buffer, int length) {
+        attributes.getBytes(edgeId, columnIndex + offset, buffer, length);
+    }
+
+    protected void setBytes(int edgeId, int offset, byte[] buffer, int length) {
+        attributes.setBytes(edgeId, columnIndex + offset, buffer, length);
+    }
+
+    @Override
+    public boolean isClosed() {
+        return false;
+    }
+}
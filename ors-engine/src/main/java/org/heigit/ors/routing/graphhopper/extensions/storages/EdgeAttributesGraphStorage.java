@@ -0,0 +1,167 @@
+package org.heigit.ors.routing.graphhopper.extensions.storages;
+
+import com.graphhopper.storage.DataAccess;
+import com.graphhopper.storage.Directory;
+import com.graphhopper.storage.Graph;
+import com.graphhopper.storage.GraphExtension;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Fixed-width table with one record per edge, shared by the graph storages which only need a few bytes per edge. Each
+ * {@link EdgeAttributesColumn} owns a range of bytes in every record, so reading several attributes of an edge, as the
+ * weightings and the extra info processor do, touches a single record instead of one page per storage.
+ * <p>
+ * The columns are ordered by their names, so the layout of the records depends on the configured storages only and not
+ * on the order in which they are configured. The layout and the version of the table are checked when loading an
+ * existing graph.
+ */
+public class EdgeAttributesGraphStorage implements GraphExtension {
+    public static final String NAME = "ext_edge_attributes";
+    private static final int VERSION = 1;
+
+    private final String name;
+    private final List<EdgeAttributesColumn> columns = new ArrayList<>();
+    private Directory dir;
+    private DataAccess edges;
+    private int recordBytes;
+    private int edgesCount;
+
+    public EdgeAttributesGraphStorage() {
+        this(NAME);
+    }
+
+    EdgeAttributesGraphStorage(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Reserves the bytes of {@code column} in every record. Columns need to be added before the storage is initialized.
+     */
+    public void addColumn(EdgeAttributesColumn column) {
+        if (edges != null)
+            throw new IllegalStateException("Columns cannot be added to the initialized storage '%s'.".formatted(name));
+        column.attach(this);
+        columns.add(column);
+        columns.sort(Comparator.comparing(EdgeAttributesColumn::getName));
+        recordBytes = 0;
+        for (EdgeAttributesColumn attached : columns) {
+            attached.setColumnIndex(recordBytes);
+            recordBytes += attached.getColumnBytes();
+        }
+    }
+
+    public boolean isEmpty() {
+        return columns.isEmpty();
+    }
+
+    public int getRecordBytes() {
+        return recordBytes;
+    }
+
+    public void init(Graph graph, Directory dir) {
+        if (edges != null)
+            throw new AssertionError("The %s storage must be initialized only once.".formatted(name));
+
+        this.dir = dir;
+        this.edges = dir.find(name);
+    }
+
+    public void setSegmentSize(int bytes) {
+        edges.setSegmentSize(bytes);
+    }
+
+    public EdgeAttributesGraphStorage create(long initBytes) {
+        edges.create(initBytes * recordBytes);
+        return this;
+    }
+
+    public void flush() {
+        edges.setHeader(0, recordBytes);
+        edges.setHeader(4, edgesCount);
+        edges.setHeader(8, getLayout());
+        edges.setHeader(12, VERSION);
+        edges.flush();
+    }
+
+    public void close() {
+        edges.close();
+    }
+
+    @Override
+    public long getCapacity() {
+        return edges.getCapacity();
+    }
+
+    public int entries() {
+        return edgesCount;
+    }
+
+    public boolean loadExisting() {
+        if (!edges.loadExisting()) {
+            if (hasFormerStorageFiles())
+                throw new IllegalStateException("Storage '%s' is missing, the graph has been built with an older storage layout and needs to be rebuilt.".formatted(name));
+            throw new IllegalStateException("Unable to load storage '%s'. corrupt file or directory?".formatted(name));
+        }
+        if (edges.getHeader(12) != VERSION)
+            throw new IllegalStateException("Storage '%s' has been built with an older storage layout, the graph needs to be rebuilt.".formatted(name));
+        if (edges.getHeader(0) != recordBytes || edges.getHeader(8) != getLayout())
+            throw new IllegalStateException("Storage '%s' has been built for other graph storages, the graph needs to be rebuilt.".formatted(name));
+
+        edgesCount = edges.getHeader(4);
+        return true;
+    }
+
+    /**
+     * Before the columns shared a table, every storage kept a file named like its column.
+     */
+    private boolean hasFormerStorageFiles() {
+        String location = dir.getLocation();
+        if (location == null)
+            return false;
+        for (EdgeAttributesColumn column : columns) {
+            if (!column.getName().equals(name) && new File(location, column.getName()).exists())
+                return true;
+        }
+        return false;
+    }
+
+    private int getLayout() {
+        int layout = 1;
+        for (EdgeAttributesColumn column : columns)
+            layout = 31 * (31 * layout + column.getName().hashCode()) + column.getColumnBytes();
+        return layout;
+    }
+
+    private long ensureEdgesIndex(int edgeId) {
+        if (edgeId >= edgesCount) {
+            edges.ensureCapacity(((long) edgeId + 1) * recordBytes);
+            edgesCount = edgeId + 1;
+        }
+        return (long) edgeId * recordBytes;
+    }
+
+    byte getByte(int edgeId, int index) {
+        return edges.getByte((long) edgeId * recordBytes + index);
+    }
+
+    void setByte(int edgeId, int index, byte value) {
+        edges.setByte(ensureEdgesIndex(edgeId) + index, value);
+    }
+
+    void getBytes(int edgeId, int index, byte[] buffer, int length) {
+        edges.getBytes((long) edgeId * recordBytes + index, buffer, length);
+    }
+
+    void setBytes(int edgeId, int index, byte[] buffer, int length) {
+        edges.setBytes(ensureEdgesIndex(edgeId) + index, buffer, length);
+    }
+
+    @Override
+    public boolean isClosed() {
+        return false;
+    }
+}
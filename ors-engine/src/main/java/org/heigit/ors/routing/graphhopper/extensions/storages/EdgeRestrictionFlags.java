@@ -0,0 +1,110 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.routing.graphhopper.extensions.storages;
+
+import com.graphhopper.routing.ev.BooleanEncodedValue;
+import com.graphhopper.routing.util.AllEdgesIterator;
+import com.graphhopper.storage.GraphHopperStorage;
+import com.graphhopper.util.StopWatch;
+import org.apache.log4j.Logger;
+import org.heigit.ors.routing.graphhopper.extensions.ORSGraphHopperStorage;
+import org.heigit.ors.routing.graphhopper.extensions.WheelchairAttributes;
+import org.heigit.ors.routing.graphhopper.extensions.edgefilters.core.TimeDependentCoreEdgeFilter;
+
+/**
+ * One word per edge summarizing the restrictions which are otherwise decoded from several storages: the way
+ * categories of avoid features, and whether there are any heavy vehicle restrictions, wheelchair attributes or
+ * conditional encoded values in either direction. Edge filters test the restrictions they are interested in with a single mask.
+ * <p>
+ * The flags are derived from the storages when the graph is loaded and kept in memory only.
+ */
+public class EdgeRestrictionFlags {
+    private static final Logger LOGGER = Logger.getLogger(EdgeRestrictionFlags.class);
+
+    /**
+     * Way categories as in {@link org.heigit.ors.routing.AvoidFeatureFlags}
+     */
+    public static final int AVOID_FEATURES = 0xFF;
+    public static final int HEAVY_VEHICLE = 1 << 8;
+    public static final int WHEELCHAIR = 1 << 9;
+    /**
+     * Conditional access or speed of any encoder in either direction. Filters which depend on the direction or the
+     * encoder use it to skip the edges without any conditionals and decode the others.
+     */
+    public static final int CONDITIONAL = 1 << 10;
+
+    private final short[] flags;
+
+    private EdgeRestrictionFlags(short[] flags) {
+        this.flags = flags;
+    }
+
+    public static EdgeRestrictionFlags build(GraphHopperStorage graphStorage) {
+        StopWatch sw = new StopWatch().start();
+        WayCategoryGraphStorage wayCategories = GraphStorageUtils.getGraphExtension(graphStorage, WayCategoryGraphStorage.class);
+        HeavyVehicleAttributesGraphStorage heavyVehicles = GraphStorageUtils.getGraphExtension(graphStorage, HeavyVehicleAttributesGraphStorage.class);
+        WheelchairAttributesGraphStorage wheelchair = GraphStorageUtils.getGraphExtension(graphStorage, WheelchairAttributesGraphStorage.class);
+        BooleanEncodedValue[] conditionals = TimeDependentCoreEdgeFilter.getConditionalEncodedValues(graphStorage.getEncodingManager());
+        byte[] buffer = new byte[WheelchairAttributesGraphStorage.BYTE_COUNT];
+        WheelchairAttributes attributes = new WheelchairAttributes();
+
+        short[] flags = new short[graphStorage.getEdges()];
+        AllEdgesIterator iter = graphStorage.getAllEdges();
+        while (iter.next()) {
+            int edge = iter.getEdge();
+            int value = 0;
+            if (wayCategories != null)
+                value |= wayCategories.getEdgeValue(edge, buffer) & AVOID_FEATURES;
+            if (heavyVehicles != null && heavyVehicles.hasEdgeRestriction(edge))
+                value |= HEAVY_VEHICLE;
+            if (wheelchair != null) {
+                wheelchair.getEdgeValues(edge, attributes, buffer);
+                if (attributes.hasValues())
+                    value |= WHEELCHAIR;
+            }
+            // conditional access may apply to one direction only, the flag covers both
+            for (BooleanEncodedValue conditional : conditionals) {
+                if (iter.get(conditional) || iter.getReverse(conditional)) {
+                    value |= CONDITIONAL;
+                    break;
+                }
+            }
+            flags[edge] = (short) value;
+        }
+        if (LOGGER.isInfoEnabled())
+            LOGGER.info("Built restriction flags of %d edges, took %.1fs".formatted(flags.length, sw.stop().getSeconds()));
+        return new EdgeRestrictionFlags(flags);
+    }
+
+    /**
+     * @return the flags of the given graph, or {@code null} if they have not been built
+     */
+    public static EdgeRestrictionFlags of(GraphHopperStorage graphStorage) {
+        return graphStorage instanceof ORSGraphHopperStorage orsStorage ? orsStorage.getEdgeRestrictionFlags() : null;
+    }
+
+    /**
+     * @param edge original edge of the graph, not a virtual one
+     */
+    public int get(int edge) {
+        return flags[edge];
+    }
+
+    /**
+     * @return whether the given edge has any of the restrictions in {@code mask}
+     */
+    public boolean has(int edge, int mask) {
+        return (flags[edge] & mask) != 0;
+    }
+}
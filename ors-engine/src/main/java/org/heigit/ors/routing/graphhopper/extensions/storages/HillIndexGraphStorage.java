@@ -13,78 +13,20 @@
  */
 package org.heigit.ors.routing.graphhopper.extensions.storages;
 
-import com.graphhopper.storage.DataAccess;
-import com.graphhopper.storage.Directory;
-import com.graphhopper.storage.Graph;
-import com.graphhopper.storage.GraphExtension;
-
 import java.util.Map;
 
-public class HillIndexGraphStorage implements GraphExtension {
-    private final int efHillIndex;
-
-    private DataAccess orsEdges;
-    protected int edgeEntryIndex = 0;
-    protected int edgeEntryBytes;
-    protected int edgesCount; // number of edges with custom values
-
-    private int maxHillIndex = 15;
-
+public class HillIndexGraphStorage extends EdgeAttributesColumn {
+    private final int maxHillIndex;
     private final byte[] byteValues;
 
     public HillIndexGraphStorage(Map<String, String> parameters) {
-        efHillIndex = 0;
-
-        if (parameters.containsKey("maximum_slope"))
-            maxHillIndex = (int) Double.parseDouble(parameters.get("maximum_slope"));
-
-        edgeEntryBytes = edgeEntryIndex + (maxHillIndex > 15 ? 2 : 1);
-        edgesCount = 0;
-        byteValues = new byte[2];
-    }
-
-    public void init(Graph graph, Directory dir) {
-        if (edgesCount > 0)
-            throw new AssertionError("The ORS storage must be initialized only once.");
-
-        this.orsEdges = dir.find("ext_hillindex");
-    }
-
-    public HillIndexGraphStorage create(long initBytes) {
-        orsEdges.create(initBytes * edgeEntryBytes);
-        return this;
-    }
-
-    public void flush() {
-        orsEdges.setHeader(0, edgeEntryBytes);
-        orsEdges.setHeader(4, edgesCount);
-        orsEdges.flush();
-    }
-
-    @Override
-    public long getCapacity() {
-        return orsEdges.getCapacity();
+        this(parameters.containsKey("maximum_slope") ? (int) Double.parseDouble(parameters.get("maximum_slope")) : 15);
     }
 
-    public void close() {
-        orsEdges.close();
-    }
-
-    public int entries() {
-        return edgesCount;
-    }
-
-    public boolean loadExisting() {
-        if (!orsEdges.loadExisting())
-            throw new IllegalStateException("Unable to load storage 'ext_hillindex'. corrupt file or directory?");
-
-        edgeEntryBytes = orsEdges.getHeader(0);
-        edgesCount = orsEdges.getHeader(4);
-        return true;
-    }
-
-    private void ensureEdgesIndex(int edgeIndex) {
-        orsEdges.ensureCapacity(((long) edgeIndex + 1) * edgeEntryBytes);
+    private HillIndexGraphStorage(int maxHillIndex) {
+        super("ext_hillindex", maxHillIndex > 15 ? 2 : 1);
+        this.maxHillIndex = maxHillIndex;
+        byteValues = new byte[2];
     }
 
     private int getHillIndex(int value) {
@@ -92,29 +34,19 @@ public class HillIndexGraphStorage implements GraphExtension {
     }
 
     public void setEdgeValue(int edgeId, int hillIndex, int reverseHillIndex) {
-        edgesCount++;
-        ensureEdgesIndex(edgeId);
-
-        if (hillIndex != 0 || reverseHillIndex != 0) {
-            // add entry
-            long edgePointer = (long) edgeId * edgeEntryBytes;
-            if (maxHillIndex <= 15) {
-                byteValues[0] = (byte) (getHillIndex(hillIndex) << 4 | (0x0F & getHillIndex(reverseHillIndex))); //hillIndex | (reverseHillIndex << 4))
-                orsEdges.setBytes(edgePointer + efHillIndex, byteValues, 1);
-            } else {
-                byteValues[0] = (byte) getHillIndex(hillIndex);
-                byteValues[1] = (byte) getHillIndex(reverseHillIndex);
-                orsEdges.setBytes(edgePointer + efHillIndex, byteValues, 2);
-            }
+        if (maxHillIndex <= 15) {
+            byteValues[0] = (byte) (getHillIndex(hillIndex) << 4 | (0x0F & getHillIndex(reverseHillIndex))); //hillIndex | (reverseHillIndex << 4))
+            setBytes(edgeId, 0, byteValues, 1);
+        } else {
+            byteValues[0] = (byte) getHillIndex(hillIndex);
+            byteValues[1] = (byte) getHillIndex(reverseHillIndex);
+            setBytes(edgeId, 0, byteValues, 2);
         }
     }
 
     public int getEdgeValue(int edgeId, boolean reverse, byte[] buffer) {
-        long edgePointer = (long) edgeId * edgeEntryBytes;
-
         if (maxHillIndex <= 15) {
-            orsEdges.getBytes(edgePointer + efHillIndex, buffer, 1);
-
+            getBytes(edgeId, 0, buffer, 1);
             int value = buffer[0];
             if (value < 0)
                 value = 256 + value;
@@ -124,14 +56,8 @@ public class HillIndexGraphStorage implements GraphExtension {
             else
                 return value & 0xF;
         } else {
-            orsEdges.getBytes(edgePointer + efHillIndex, buffer, 2);
-
+            getBytes(edgeId, 0, buffer, 2);
             return reverse ? buffer[1] : buffer[0];
         }
     }
-
-    @Override
-    public boolean isClosed() {
-        return false;
-    }
 }
@@ -15,30 +15,32 @@
 
 package org.heigit.ors.routing.graphhopper.extensions.storages;
 
-import com.graphhopper.storage.*;
+import com.graphhopper.storage.RAMDirectory;
 import org.heigit.ors.routing.RouteExtraInfo;
 import org.heigit.ors.routing.RouteSegmentItem;
+import org.heigit.ors.routing.RoutingProfileType;
 import org.heigit.ors.routing.RouteWarning;
 import org.heigit.ors.routing.graphhopper.extensions.AccessRestrictionType;
 
 /**
- * The graph storage for road access restrictions.
+ * The graph storage for road access restrictions. A graph shared by several profile types keeps the restrictions of
+ * each of them, as they depend on the vehicle.
  */
-public class RoadAccessRestrictionsGraphStorage implements GraphExtension, WarningGraphExtension {
+public class RoadAccessRestrictionsGraphStorage extends EdgeAttributesColumn implements WarningGraphExtension {
     private static final int NO_ENTRY = -1;
-    private final int efRestrictions;
 
-    protected DataAccess edges;
-    protected int edgeEntryIndex = 0;
-    protected int edgeEntryBytes;
-    protected int edgesCount;
-    private final byte[] byteData;
+    private final int[] profileTypes;
 
     public RoadAccessRestrictionsGraphStorage() {
-        efRestrictions = nextBlockEntryIndex(1);
-        edgeEntryBytes = edgeEntryIndex;
-        edgesCount = 0;
-        byteData = new byte[1];
+        this(new int[]{RoutingProfileType.UNKNOWN});
+    }
+
+    /**
+     * @param profileTypes the profile types of the graph, one byte per edge is stored for each of them
+     */
+    public RoadAccessRestrictionsGraphStorage(int[] profileTypes) {
+        super("ext_road_access_restrictions", profileTypes.length);
+        this.profileTypes = profileTypes.clone();
     }
 
     /**
@@ -46,84 +48,41 @@ public class RoadAccessRestrictionsGraphStorage implements GraphExtension, Warni
      * at the time tests are run
      */
     public void init() {
-        if (edgesCount > 0)
-            throw new AssertionError("The ORS storage must be initialized only once.");
-        Directory d = new RAMDirectory();
-        this.edges = d.find("");
-    }
-
-    public void init(Graph graph, Directory dir) {
-        if (edgesCount > 0)
-            throw new AssertionError("The ext_road_access_restrictions storage must be initialized only once.");
-
-        this.edges = dir.find("ext_road_access_restrictions");
+        init(null, new RAMDirectory());
     }
 
     public void setEdgeValue(int edgeId, int restriction) {
-        edgesCount++;
-        ensureEdgesIndex(edgeId);
-        long edgePointer = (long) edgeId * edgeEntryBytes;
-        byteData[0] = (byte) restriction;
-        edges.setBytes(edgePointer + efRestrictions, byteData, 1);
-    }
-
-    public int getEdgeValue(int edgeId, byte[] buffer) {
-        long edgeBase = (long) edgeId * edgeEntryBytes;
-        edges.getBytes(edgeBase + efRestrictions, buffer, 1);
-        return buffer[0] & 0xFF;
-    }
-
-    protected final int nextBlockEntryIndex(int size) {
-        int res = edgeEntryIndex;
-        edgeEntryIndex += size;
-        return res;
-    }
-
-    public void setSegmentSize(int bytes) {
-        edges.setSegmentSize(bytes);
-    }
-
-    public RoadAccessRestrictionsGraphStorage create(long initBytes) {
-        edges.create(initBytes * edgeEntryBytes);
-        return this;
-    }
-
-    public void flush() {
-        edges.setHeader(0, edgeEntryBytes);
-        edges.setHeader(4, edgesCount);
-        edges.flush();
+        setEdgeValue(edgeId, 0, restriction);
     }
 
-    public void close() {
-        edges.close();
-    }
-
-    @Override
-    public long getCapacity() {
-        return edges.getCapacity();
-    }
-
-    public int entries() {
-        return edgesCount;
+    /**
+     * @param vehicle index of the profile type as returned by {@link #getVehicle(int)}
+     */
+    public void setEdgeValue(int edgeId, int vehicle, int restriction) {
+        setByte(edgeId, vehicle, (byte) restriction);
     }
 
-    public boolean loadExisting() {
-        if (!edges.loadExisting())
-            throw new IllegalStateException("Unable to load storage 'ext_road_access_restrictions'. corrupt file or directory? ");
-
-        edgeEntryBytes = edges.getHeader(0);
-        edgesCount = edges.getHeader(4);
-        return true;
+    public int getEdgeValue(int edgeId, byte[] buffer) {
+        return getEdgeValue(edgeId, 0, buffer);
     }
 
-    void ensureEdgesIndex(int edgeIndex) {
-        edges.ensureCapacity(((long) edgeIndex + 1) * edgeEntryBytes);
+    /**
+     * @param vehicle index of the profile type as returned by {@link #getVehicle(int)}
+     */
+    public int getEdgeValue(int edgeId, int vehicle, byte[] buffer) {
+        getBytes(edgeId, vehicle, buffer, 1);
+        return buffer[0] & 0xFF;
     }
 
-
-    @Override
-    public boolean isClosed() {
-        return false;
+    /**
+     * @return index of the restrictions of the given profile type, or 0 if the graph has not been built for it
+     */
+    public int getVehicle(int profileType) {
+        for (int i = 0; i < profileTypes.length; i++) {
+            if (profileTypes[i] == profileType)
+                return i;
+        }
+        return 0;
     }
 
     private boolean isUsedForWarnings = false;
@@ -6,10 +6,13 @@ import com.graphhopper.storage.Directory;
 import com.graphhopper.storage.Graph;
 import com.graphhopper.storage.GraphExtension;
 
+import java.util.List;
+
 /**
  * Simple storage designed to hold edgeID - direction - speed
  * Speeds should be in kph
  * Indexed by edgeIds
+ * A graph shared by several vehicles keeps one file of speeds per flag encoder
  *
  * @author Hendrik Leuschner
  */
@@ -17,24 +20,32 @@ public class SpeedStorage implements GraphExtension {
     private static final long BYTE_COUNT = 2; //One byte for forward speed, one byte for backward speed.
     private static final long BYTE_POS_SPEED = 0;
     private static final long BYTE_POS_SPEED_REVERSE = 1;
-    protected DataAccess speedData;
+    protected DataAccess[] speedData;
     protected int edgeCount;
-    protected FlagEncoder flagEncoder;
+    protected FlagEncoder[] flagEncoders;
 
     public SpeedStorage(FlagEncoder flagEncoder) {
-        this.flagEncoder = flagEncoder;
+        this(List.of(flagEncoder));
+    }
+
+    public SpeedStorage(List<FlagEncoder> flagEncoders) {
+        this.flagEncoders = flagEncoders.toArray(new FlagEncoder[0]);
     }
 
     @Override
     public void init(Graph graph, Directory directory) {
-        this.speedData = directory.find("ext_speeds_" + this.flagEncoder.toString());
+        speedData = new DataAccess[flagEncoders.length];
+        for (int i = 0; i < flagEncoders.length; i++)
+            speedData[i] = directory.find("ext_speeds_" + flagEncoders[i].toString());
     }
 
     @Override
     public boolean loadExisting() {
-        if (!speedData.loadExisting())
-            return false;
-        this.edgeCount = speedData.getHeader(0);
+        for (DataAccess data : speedData) {
+            if (!data.loadExisting())
+                return false;
+        }
+        this.edgeCount = speedData[0].getHeader(0);
         return true;
     }
 
@@ -46,29 +57,49 @@ public class SpeedStorage implements GraphExtension {
      */
     @Override
     public SpeedStorage create(long edgeCount) {
-        speedData.create(BYTE_COUNT * edgeCount);
-        for (int i = 0; i < edgeCount; i++) {
-            this.setSpeed(i, false, Byte.MIN_VALUE);
-            this.setSpeed(i, true, Byte.MIN_VALUE);
+        for (int e = 0; e < speedData.length; e++) {
+            speedData[e].create(BYTE_COUNT * edgeCount);
+            for (int i = 0; i < edgeCount; i++) {
+                this.setSpeed(e, i, false, Byte.MIN_VALUE);
+                this.setSpeed(e, i, true, Byte.MIN_VALUE);
+            }
         }
         return this;
     }
 
     public void setSpeed(int edgeId, boolean reverse, byte speed) {
-        checkEdgeInBounds(edgeId);
-        speedData.setBytes(BYTE_COUNT * edgeId + (reverse ? BYTE_POS_SPEED_REVERSE : BYTE_POS_SPEED), new byte[]{speed}, 1);
+        setSpeed(0, edgeId, reverse, speed);
     }
 
     public void setSpeed(int edgeId, boolean reverse, int speed) {
+        setSpeed(flagEncoders[0], edgeId, reverse, speed);
+    }
+
+    public void setSpeed(FlagEncoder flagEncoder, int edgeId, boolean reverse, int speed) {
         if (speed > Byte.MAX_VALUE || speed < Byte.MIN_VALUE)
             throw new IllegalArgumentException("Speed value " + speed + " out of range: " + Byte.MIN_VALUE + " to " + Byte.MAX_VALUE);
-        this.setSpeed(edgeId, reverse, (byte) speed);
+        this.setSpeed(indexOf(flagEncoder), edgeId, reverse, (byte) speed);
+    }
+
+    private void setSpeed(int encoderIndex, int edgeId, boolean reverse, byte speed) {
+        DataAccess data = speedData[encoderIndex];
+        checkEdgeInBounds(data, edgeId);
+        data.setBytes(BYTE_COUNT * edgeId + (reverse ? BYTE_POS_SPEED_REVERSE : BYTE_POS_SPEED), new byte[]{speed}, 1);
     }
 
     public int getSpeed(int edgeId, boolean reverse) {
-        checkEdgeInBounds(edgeId);
+        return getSpeed(0, edgeId, reverse);
+    }
+
+    public int getSpeed(FlagEncoder flagEncoder, int edgeId, boolean reverse) {
+        return getSpeed(indexOf(flagEncoder), edgeId, reverse);
+    }
+
+    private int getSpeed(int encoderIndex, int edgeId, boolean reverse) {
+        DataAccess data = speedData[encoderIndex];
+        checkEdgeInBounds(data, edgeId);
         byte[] speedByte = new byte[1];
-        speedData.getBytes(BYTE_COUNT * edgeId + (reverse ? BYTE_POS_SPEED_REVERSE : BYTE_POS_SPEED), speedByte, 1);
+        data.getBytes(BYTE_COUNT * edgeId + (reverse ? BYTE_POS_SPEED_REVERSE : BYTE_POS_SPEED), speedByte, 1);
         return speedByte[0];
     }
 
@@ -76,29 +107,46 @@ public class SpeedStorage implements GraphExtension {
         return this.getSpeed(edgeId, reverse) != Byte.MIN_VALUE;
     }
 
+    public boolean hasSpeed(FlagEncoder flagEncoder, int edgeId, boolean reverse) {
+        return this.getSpeed(flagEncoder, edgeId, reverse) != Byte.MIN_VALUE;
+    }
+
+    private int indexOf(FlagEncoder flagEncoder) {
+        for (int i = 0; i < flagEncoders.length; i++) {
+            if (flagEncoders[i].toString().equals(flagEncoder.toString()))
+                return i;
+        }
+        throw new IllegalArgumentException("No speeds stored for flag encoder " + flagEncoder);
+    }
+
     @Override
     public long getCapacity() {
-        return speedData.getCapacity();
+        long capacity = 0;
+        for (DataAccess data : speedData)
+            capacity += data.getCapacity();
+        return capacity;
     }
 
     @Override
     public void close() {
-        speedData.close();
+        for (DataAccess data : speedData)
+            data.close();
     }
 
     @Override
     public boolean isClosed() {
-        return speedData.isClosed();
+        return speedData[0].isClosed();
     }
 
     @Override
     public void flush() {
-        speedData.flush();
+        for (DataAccess data : speedData)
+            data.flush();
     }
 
-    protected void checkEdgeInBounds(int edgeId) {
-        if (edgeId >= speedData.getCapacity() / BYTE_COUNT) {
-            speedData.ensureCapacity(edgeId * BYTE_COUNT);
+    protected void checkEdgeInBounds(DataAccess data, int edgeId) {
+        if (edgeId >= data.getCapacity() / BYTE_COUNT) {
+            data.ensureCapacity(edgeId * BYTE_COUNT);
         }
     }
 }
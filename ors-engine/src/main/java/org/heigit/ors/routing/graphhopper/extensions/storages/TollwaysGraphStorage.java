@@ -13,115 +13,16 @@
  */
 package org.heigit.ors.routing.graphhopper.extensions.storages;
 
-import com.graphhopper.storage.DataAccess;
-import com.graphhopper.storage.Directory;
-import com.graphhopper.storage.Graph;
-import com.graphhopper.storage.GraphExtension;
-
-public class TollwaysGraphStorage implements GraphExtension {
-    /* pointer for no entry */
-    protected final int efTollways;
-
-    protected DataAccess edges;
-    protected int edgeEntryIndex = 0;
-    protected int edgeEntryBytes;
-    protected int edgesCount;
-
+public class TollwaysGraphStorage extends EdgeAttributesColumn {
     public TollwaysGraphStorage() {
-        efTollways = nextBlockEntryIndex(1);
-
-        edgeEntryBytes = edgeEntryIndex;
-        edgesCount = 0;
-    }
-
-    public void init(Graph graph, Directory dir) {
-        if (edgesCount > 0)
-            throw new AssertionError("The ext_tolls storage must be initialized only once.");
-
-        this.edges = dir.find("ext_tolls");
-    }
-
-    protected final int nextBlockEntryIndex(int size) {
-        int res = edgeEntryIndex;
-        edgeEntryIndex += size;
-        return res;
-    }
-
-    public void setSegmentSize(int bytes) {
-        edges.setSegmentSize(bytes);
-    }
-
-    public TollwaysGraphStorage create(long initBytes) {
-        edges.create(initBytes * edgeEntryBytes);
-        return this;
-    }
-
-    public void flush() {
-        edges.setHeader(0, edgeEntryBytes);
-        edges.setHeader(4, edgesCount);
-        edges.flush();
-    }
-
-    public void close() {
-        edges.close();
-    }
-
-    @Override
-    public long getCapacity() {
-        return edges.getCapacity();
-    }
-
-    public int entries() {
-        return edgesCount;
-    }
-
-    public boolean loadExisting() {
-        if (!edges.loadExisting())
-            throw new IllegalStateException("Unable to load storage 'ext_tolls'. corrupt file or directory? ");
-
-        edgeEntryBytes = edges.getHeader(0);
-        edgesCount = edges.getHeader(4);
-        return true;
-    }
-
-    void ensureEdgesIndex(int edgeIndex) {
-        edges.ensureCapacity(((long) edgeIndex + 1) * edgeEntryBytes);
+        super("ext_tolls", 1);
     }
 
     public void setEdgeValue(int edgeId, int value) {
-        edgesCount++;
-        ensureEdgesIndex(edgeId);
-
-        byte byteValue = (byte) value;
-
-        edges.setByte((long) edgeId * edgeEntryBytes + efTollways, byteValue);
+        setByte(edgeId, 0, (byte) value);
     }
 
     public int getEdgeValue(int edgeId) {
-        byte byteValue = edges.getByte((long) edgeId * edgeEntryBytes + efTollways);
-        return byteValue & 0xFF;
-    }
-
-    public boolean isRequireNodeField() {
-        return true;
-    }
-
-    public boolean isRequireEdgeField() {
-        // we require the additional field in the graph to point to the first
-        // entry in the node table
-        return true;
-    }
-
-    public int getDefaultNodeFieldValue() {
-        return -1;
-    }
-
-    public int getDefaultEdgeFieldValue() {
-        return -1;
-    }
-
-    @Override
-    public boolean isClosed() {
-        return false;
+        return getByte(edgeId, 0) & 0xFF;
     }
 }
@@ -17,10 +17,6 @@ import com.graphhopper.storage.*;
 import com.graphhopper.util.GHUtility;
 import org.heigit.ors.routing.graphhopper.extensions.reader.traffic.TrafficEnums;
 
-import java.time.ZoneId;
-import java.util.Calendar;
-import java.util.TimeZone;
-
 /**
  * Graph storage class for the Border Restriction routing
  */
@@ -69,12 +65,17 @@ public class TrafficGraphStorage implements GraphExtension {
     public static final int DAILY_TRAFFIC_PATTERNS_BYTE_COUNT = 96; // The pattern value is transferred to mph to allow byte storage. 1 byte * 4 (15min per Hour) * 24 hours
     public static final int MAX_DAILY_TRAFFIC_SPEED_BYTE_COUNT = 1; // Maximum over daily traffic pattern values
 
+    private static final long MILLISECONDS_PER_DAY = 86400000L;
+    // week days by the number of days since the epoch modulo 7, as 1970-01-01 was a Thursday
+    private static final TrafficEnums.WeekDay[] WEEK_DAYS_FROM_EPOCH = {
+            TrafficEnums.WeekDay.THURSDAY, TrafficEnums.WeekDay.FRIDAY, TrafficEnums.WeekDay.SATURDAY, TrafficEnums.WeekDay.SUNDAY,
+            TrafficEnums.WeekDay.MONDAY, TrafficEnums.WeekDay.TUESDAY, TrafficEnums.WeekDay.WEDNESDAY
+    };
+
     private DataAccess orsEdgesProperties; // RAMDataAccess
     private DataAccess orsEdgesTrafficLinkLookup; // RAMDataAccess
     private DataAccess orsSpeedPatternLookup; // RAMDataAccess
 
-    private ZoneId zoneId = ZoneId.of("Europe/Berlin");
-
     private int edgePropertyEntryBytes;
     private int edgeLinkLookupEntryBytes;
     private int patternEntryBytes;
@@ -338,26 +339,21 @@ public class TrafficGraphStorage implements GraphExtension {
      * Only the weekday, hour, minute are taken into consideration since the traffic information are generalized to that resolution at the moment.
      * <p>
      * ## Time decoding ##
-     * The unix time is decoded using GMT+1 for german local time.
-     * For the time being we will use the german UTC until more traffic data comes in.
-     * <p>
-     * <p>
-     * ## TODO's ##
-     * - enhance internal time encoding and harmonize it in the whole ORS backend when more traffic data comes in.
+     * The unix time is shifted by the offset of the local time zone and then decoded arithmetically, as this is called
+     * for every edge of a time-dependent search.
      *
-     * @param edgeKey          Internal Edge Key
-     * @param unixMilliSeconds Time in unix milliseconds.
+     * @param edgeKey                Internal Edge Key
+     * @param unixMilliSeconds       Time in unix milliseconds.
+     * @param timeZoneOffsetSeconds  Offset of the local time from UTC in seconds
      * @return Returns the speed value in kph. If no value is found -1 is returned.
      */
-    public int getSpeedValue(int edgeKey, long unixMilliSeconds, int timeZoneOffset) {
-        Calendar calendarDate = Calendar.getInstance(TimeZone.getTimeZone("GMT+" + timeZoneOffset));
-        calendarDate.setTimeInMillis(unixMilliSeconds);
-        int calendarWeekDay = calendarDate.get(Calendar.DAY_OF_WEEK);
-        int hour = calendarDate.get(Calendar.HOUR_OF_DAY);
-        int minute = calendarDate.get(Calendar.MINUTE);
-        int patternId = getEdgeIdTrafficPatternLookup(edgeKey, TrafficEnums.WeekDay.valueOfCanonical(calendarWeekDay));
+    public int getSpeedValue(int edgeKey, long unixMilliSeconds, int timeZoneOffsetSeconds) {
+        long localMilliSeconds = unixMilliSeconds + timeZoneOffsetSeconds * 1000L;
+        int weekDay = (int) Math.floorMod(Math.floorDiv(localMilliSeconds, MILLISECONDS_PER_DAY), 7L);
+        int minuteOfDay = (int) (Math.floorMod(localMilliSeconds, MILLISECONDS_PER_DAY) / 60000);
+        int patternId = getEdgeIdTrafficPatternLookup(edgeKey, WEEK_DAYS_FROM_EPOCH[weekDay]);
         if (patternId > 0)
-            return getTrafficSpeed(patternId, hour, minute);
+            return getTrafficSpeed(patternId, minuteOfDay / 60, minuteOfDay % 60);
         return -1;
     }
 
@@ -583,12 +579,4 @@ public class TrafficGraphStorage implements GraphExtension {
             }
         }
     }
-
-    public void setZoneId(ZoneId zoneId) {
-        this.zoneId = zoneId;
-    }
-
-    public ZoneId getZoneId() {
-        return this.zoneId;
-    }
 }
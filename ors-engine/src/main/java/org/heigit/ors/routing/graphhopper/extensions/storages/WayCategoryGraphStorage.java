@@ -13,98 +13,16 @@
  */
 package org.heigit.ors.routing.graphhopper.extensions.storages;
 
-import com.graphhopper.storage.DataAccess;
-import com.graphhopper.storage.Directory;
-import com.graphhopper.storage.Graph;
-import com.graphhopper.storage.GraphExtension;
-
-public class WayCategoryGraphStorage implements GraphExtension {
-    /* pointer for no entry */
-    protected final int efWaytype;
-
-    protected DataAccess orsEdges;
-    protected int edgeEntryIndex = 0;
-    protected int edgeEntryBytes;
-    protected int edgesCount; // number of edges with custom values
-
+public class WayCategoryGraphStorage extends EdgeAttributesColumn {
     public WayCategoryGraphStorage() {
-        efWaytype = 0;
-
-        edgeEntryBytes = edgeEntryIndex + 1;
-        edgesCount = 0;
-    }
-
-    public void init(Graph graph, Directory dir) {
-        if (edgesCount > 0)
-            throw new AssertionError("The ORS storage must be initialized only once.");
-
-        this.orsEdges = dir.find("ext_waycategory");
-    }
-
-    public void setSegmentSize(int bytes) {
-        orsEdges.setSegmentSize(bytes);
-    }
-
-    public WayCategoryGraphStorage create(long initBytes) {
-        orsEdges.create(initBytes * edgeEntryBytes);
-        return this;
-    }
-
-    public void flush() {
-        orsEdges.setHeader(0, edgeEntryBytes);
-        orsEdges.setHeader(4, edgesCount);
-        orsEdges.flush();
-    }
-
-    public void close() {
-        orsEdges.close();
-    }
-
-    @Override
-    public long getCapacity() {
-        return orsEdges.getCapacity();
-    }
-
-    public int entries() {
-        return edgesCount;
-    }
-
-    public boolean loadExisting() {
-        if (!orsEdges.loadExisting())
-            throw new IllegalStateException("Unable to load storage 'ext_waycategory'. corrupt file or directory? ");
-
-        edgeEntryBytes = orsEdges.getHeader(0);
-        edgesCount = orsEdges.getHeader(4);
-        return true;
-    }
-
-    void ensureEdgesIndex(int edgeIndex) {
-        orsEdges.ensureCapacity(((long) edgeIndex + 1) * edgeEntryBytes);
+        super("ext_waycategory", 1);
     }
 
     public void setEdgeValue(int edgeId, int wayType) {
-        edgesCount++;
-        ensureEdgesIndex(edgeId);
-
-        // add entry
-        long edgePointer = (long) edgeId * edgeEntryBytes;
-        byte byteValue = (byte) wayType;
-        orsEdges.setByte(edgePointer + efWaytype, byteValue);
+        setByte(edgeId, 0, (byte) wayType);
     }
 
     public int getEdgeValue(int edgeId, byte[] buffer) {
-        long edgePointer = (long) edgeId * edgeEntryBytes;
-        byte byteValue = orsEdges.getByte(edgePointer + efWaytype);
-
-        int result = byteValue;
-        if (result < 0)
-            result = result & 0xff;
-
-        return result;
-    }
-
-    @Override
-    public boolean isClosed() {
-        return false;
+        return getByte(edgeId, 0) & 0xff;
     }
 }
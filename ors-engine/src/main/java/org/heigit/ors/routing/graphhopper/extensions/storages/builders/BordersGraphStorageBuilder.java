@@ -17,6 +17,8 @@ import com.graphhopper.GraphHopper;
 import com.graphhopper.reader.ReaderWay;
 import com.graphhopper.storage.GraphExtension;
 import com.graphhopper.util.EdgeIteratorState;
+import com.graphhopper.util.FetchMode;
+import com.graphhopper.util.PointList;
 import org.apache.log4j.Logger;
 import org.heigit.ors.routing.graphhopper.extensions.reader.borders.CountryBordersPolygon;
 import org.heigit.ors.routing.graphhopper.extensions.reader.borders.CountryBordersReader;
@@ -167,10 +169,15 @@ public class BordersGraphStorageBuilder extends AbstractGraphStorageBuilder {
             } catch (Exception ignore) {
                 // do nothing
             } finally {
+                short baseCountry = start;
+                short adjCountry = end;
                 if (start != end) {
                     type = (cbReader.isOpen(cbReader.getEngName(startVal), cbReader.getEngName(endVal))) ? (short) 2 : (short) 1;
+                    PointList towers = edge.fetchWayGeometry(FetchMode.TOWER_ONLY);
+                    baseCountry = cbReader.getCountryId(new Coordinate(towers.getLon(0), towers.getLat(0)));
+                    adjCountry = cbReader.getCountryId(new Coordinate(towers.getLon(1), towers.getLat(1)));
                 }
-                storage.setEdgeValue(edge.getEdge(), type, start, end);
+                storage.setEdgeValue(edge.getEdge(), type, start, end, baseCountry, adjCountry);
             }
         }
     }
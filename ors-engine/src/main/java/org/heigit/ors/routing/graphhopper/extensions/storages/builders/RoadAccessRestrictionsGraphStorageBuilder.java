@@ -39,14 +39,14 @@ public class RoadAccessRestrictionsGraphStorageBuilder extends AbstractGraphStor
     private static final String VAL_MOTOR_VEHICLE = "motor_vehicle";
     private RoadAccessRestrictionsGraphStorage storage;
     private boolean hasRestrictions = false;
-    private int restrictions;
+    private int[] restrictions;
     private final List<String> accessRestrictedTags = new ArrayList<>(5);
     private final List<String> motorCarTags = new ArrayList<>(5);
     private final List<String> motorCycleTags = new ArrayList<>(5);
     private final Set<String> restrictedValues = new HashSet<>(5);
     private final Set<String> permissiveValues = new HashSet<>(5);
 
-    private int profileType;
+    private int[] profileTypes;
 
     public RoadAccessRestrictionsGraphStorageBuilder() {
         accessRestrictedTags.addAll(Arrays.asList("motorcar", VAL_MOTOR_VEHICLE, "vehicle", VAL_ACCESS, VAL_BICYCLE, "foot"));
@@ -80,18 +80,22 @@ public class RoadAccessRestrictionsGraphStorageBuilder extends AbstractGraphStor
         if (storage != null)
             throw new Exception("GraphStorageBuilder has been already initialized.");
 
-        this.profileType = profileType;
+        init(new int[]{profileType});
+        return storage;
+    }
 
-        storage = new RoadAccessRestrictionsGraphStorage();
+    private void init(int[] profileTypes) {
+        this.profileTypes = profileTypes;
+        restrictions = new int[profileTypes.length];
+        storage = new RoadAccessRestrictionsGraphStorage(profileTypes);
 
         if (parameters.containsKey(KEY_USE_FOR_WARNINGS))
             storage.setIsUsedForWarning(Boolean.parseBoolean(parameters.get(KEY_USE_FOR_WARNINGS)));
-
-        return storage;
     }
 
     /**
-     * Initialise the road access restrictions graph storage builder for a profile
+     * Initialise the road access restrictions graph storage builder for all profile types of the graph, each of which
+     * gets its own restrictions
      *
      * @param graphhopper The graphhopper instance being used
      * @return The RoadAccessRestrictionStorage object created as part of the initialisation
@@ -111,13 +115,7 @@ public class RoadAccessRestrictionsGraphStorageBuilder extends AbstractGraphStor
             i++;
         }
 
-        profileType = profileTypes[0];
-
-        storage = new RoadAccessRestrictionsGraphStorage();
-
-        if (parameters.containsKey(KEY_USE_FOR_WARNINGS))
-            storage.setIsUsedForWarning(Boolean.parseBoolean(parameters.get(KEY_USE_FOR_WARNINGS)));
-
+        init(profileTypes);
         return storage;
     }
 
@@ -139,7 +137,7 @@ public class RoadAccessRestrictionsGraphStorageBuilder extends AbstractGraphStor
     public void processWay(ReaderWay way, Coordinate[] coords, Map<Integer, Map<String, String>> nodeTags) {
         if (hasRestrictions) {
             hasRestrictions = false;
-            restrictions = 0;
+            Arrays.fill(restrictions, 0);
         }
 
         if (nodeTags != null) {
@@ -152,17 +150,24 @@ public class RoadAccessRestrictionsGraphStorageBuilder extends AbstractGraphStor
 
         if (way.hasTag(accessRestrictedTags, restrictedValues)) {
             hasRestrictions = true;
-            if (RoutingProfileType.isDriving(profileType))
-                restrictions = isAccessAllowed(way, motorCarTags) ? 0 : getRestrictionType(way, motorCarTags);
-            if (profileType == RoutingProfileType.DRIVING_MOTORCYCLE)
-                restrictions = isAccessAllowed(way, motorCycleTags) ? 0 : getRestrictionType(way, motorCycleTags);
-            if (RoutingProfileType.isCycling(profileType))
-                restrictions = isAccessAllowed(way, VAL_BICYCLE) ? 0 : getRestrictionType(way, VAL_BICYCLE);
-            if (RoutingProfileType.isPedestrian(profileType))
-                restrictions = isAccessAllowed(way, "foot") ? 0 : getRestrictionType(way, "foot");
+            for (int i = 0; i < profileTypes.length; i++)
+                restrictions[i] = getRestrictions(way, profileTypes[i]);
         }
     }
 
+    private int getRestrictions(ReaderWay way, int profileType) {
+        int res = 0;
+        if (RoutingProfileType.isDriving(profileType))
+            res = isAccessAllowed(way, motorCarTags) ? 0 : getRestrictionType(way, motorCarTags);
+        if (profileType == RoutingProfileType.DRIVING_MOTORCYCLE)
+            res = isAccessAllowed(way, motorCycleTags) ? 0 : getRestrictionType(way, motorCycleTags);
+        if (RoutingProfileType.isCycling(profileType))
+            res = isAccessAllowed(way, VAL_BICYCLE) ? 0 : getRestrictionType(way, VAL_BICYCLE);
+        if (RoutingProfileType.isPedestrian(profileType))
+            res = isAccessAllowed(way, "foot") ? 0 : getRestrictionType(way, "foot");
+        return res;
+    }
+
     /**
      * Get the type of restrictions that have been set on the way.
      *
@@ -255,11 +260,12 @@ public class RoadAccessRestrictionsGraphStorageBuilder extends AbstractGraphStor
     }
 
     public void processEdge(ReaderWay way, EdgeIteratorState edge) {
-        storage.setEdgeValue(edge.getEdge(), restrictions);
+        for (int i = 0; i < restrictions.length; i++)
+            storage.setEdgeValue(edge.getEdge(), i, restrictions[i]);
     }
 
     public final int getRestrictions() {
-        return restrictions;
+        return restrictions[0];
     }
 
     @Override
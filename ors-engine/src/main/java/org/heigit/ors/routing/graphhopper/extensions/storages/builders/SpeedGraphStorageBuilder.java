@@ -30,12 +30,11 @@ public class SpeedGraphStorageBuilder extends AbstractGraphStorageBuilder {
         if (storage != null)
             throw new IllegalStateException("GraphStorageBuilder has been already initialized.");
 
-        // extract profiles from GraphHopper instance
+        // one file of speeds per flag encoder of the GraphHopper instance
         EncodingManager encMgr = graphhopper.getEncodingManager();
         List<FlagEncoder> encoders = encMgr.fetchEdgeEncoders();
-        FlagEncoder flagEncoder = encoders.get(0);
 
-        storage = new SpeedStorage(flagEncoder);
+        storage = new SpeedStorage(encoders);
         return storage;
     }
 
@@ -14,6 +14,7 @@
 package org.heigit.ors.routing.pathprocessors;
 
 import com.graphhopper.routing.querygraph.EdgeIteratorStateHelper;
+import com.graphhopper.routing.querygraph.VirtualEdgeIteratorState;
 import com.graphhopper.routing.util.FlagEncoder;
 import com.graphhopper.routing.util.PathProcessor;
 import com.graphhopper.routing.weighting.PriorityWeighting;
@@ -27,7 +28,6 @@ import org.heigit.ors.routing.RouteExtraInfo;
 import org.heigit.ors.routing.RouteExtraInfoFlag;
 import org.heigit.ors.routing.RoutingProfileType;
 import org.heigit.ors.routing.graphhopper.extensions.flagencoders.FlagEncoderKeys;
-import org.heigit.ors.routing.graphhopper.extensions.reader.borders.CountryBordersPolygon;
 import org.heigit.ors.routing.graphhopper.extensions.reader.borders.CountryBordersReader;
 import org.heigit.ors.routing.graphhopper.extensions.storages.*;
 import org.heigit.ors.routing.graphhopper.extensions.util.PriorityCode;
@@ -37,6 +37,7 @@ import org.heigit.ors.routing.util.extrainfobuilders.AppendableRouteExtraInfoBui
 import org.heigit.ors.routing.util.extrainfobuilders.AppendableSteepnessExtraInfoBuilder;
 import org.heigit.ors.routing.util.extrainfobuilders.RouteExtraInfoBuilder;
 import org.heigit.ors.routing.util.extrainfobuilders.SteepnessExtraInfoBuilder;
+import org.heigit.ors.util.StageMetrics;
 import org.locationtech.jts.geom.Coordinate;
 
 import java.util.ArrayList;
@@ -54,6 +55,7 @@ public class ExtraInfoProcessor implements PathProcessor {
     private HillIndexGraphStorage extHillIndex;
     private OsmIdGraphStorage extOsmId;
     private RoadAccessRestrictionsGraphStorage extRoadAccessRestrictions;
+    private int roadAccessRestrictionsVehicle;
     private BordersGraphStorage extCountryTraversalInfo;
     private CsvGraphStorage extCsvData;
     private ShadowIndexGraphStorage extShadowIndex;
@@ -114,6 +116,8 @@ public class ExtraInfoProcessor implements PathProcessor {
     private static final Logger LOGGER = Logger.getLogger(ExtraInfoProcessor.class.getName());
 
     private String skippedExtraInfo = "";
+    // the stage is timed once per path, from its first edge until its points have been processed
+    private long pathStart;
 
     private CountryBordersReader countryBordersReader;
 
@@ -251,6 +255,7 @@ public class ExtraInfoProcessor implements PathProcessor {
             if (includeExtraInfo(extraInfo, RouteExtraInfoFlag.ROAD_ACCESS_RESTRICTIONS)) {
                 extRoadAccessRestrictions = GraphStorageUtils.getGraphExtension(graphHopperStorage, RoadAccessRestrictionsGraphStorage.class);
                 if (extRoadAccessRestrictions != null) {
+                    roadAccessRestrictionsVehicle = extRoadAccessRestrictions.getVehicle(profileType);
                     roadAccessRestrictionsInfo = new RouteExtraInfo("roadaccessrestrictions", extRoadAccessRestrictions);
                     roadAccessRestrictionsInfoBuilder = new AppendableRouteExtraInfoBuilder(roadAccessRestrictionsInfo);
                 } else {
@@ -411,23 +416,35 @@ public class ExtraInfoProcessor implements PathProcessor {
             ((AppendableRouteExtraInfoBuilder) shadowInfoBuilder).append((AppendableRouteExtraInfoBuilder) more.shadowInfoBuilder);
     }
 
+    /**
+     * The country at the first point of a border crossing edge: stored with the edge for the node it is traversed from,
+     * and only looked up in the border polygons for virtual edges, which start at a snapped position.
+     */
+    private short getStartCountry(EdgeIteratorState edge, int originalEdge, PointList geom) {
+        if (!(edge instanceof VirtualEdgeIteratorState)) {
+            short country = extCountryTraversalInfo.getNodeCountry(originalEdge, edge.get(EdgeIteratorState.REVERSE_STATE));
+            if (country != CountryBordersReader.NO_COUNTRY)
+                return country;
+        }
+        return countryBordersReader.getCountryId(new Coordinate(geom.getLon(0), geom.getLat(0)));
+    }
+
     @Override
     public void processPathEdge(EdgeIteratorState edge, PointList geom) {
+        if (pathStart == 0)
+            pathStart = System.nanoTime();
         double dist = edge.getDistance();
 
         // TODO Add extra info for crossed countries
         if (extCountryTraversalInfo != null && countryBordersReader != null) {
-            short country1 = extCountryTraversalInfo.getEdgeValue(EdgeIteratorStateHelper.getOriginalEdge(edge), BordersGraphStorage.Property.START);
-            short country2 = extCountryTraversalInfo.getEdgeValue(EdgeIteratorStateHelper.getOriginalEdge(edge), BordersGraphStorage.Property.END);
+            int originalEdge = EdgeIteratorStateHelper.getOriginalEdge(edge);
+            short country1 = extCountryTraversalInfo.getEdgeValue(originalEdge, BordersGraphStorage.Property.START);
+            short country2 = extCountryTraversalInfo.getEdgeValue(originalEdge, BordersGraphStorage.Property.END);
             // This check will correct the countries of an edge if the starting coordinate of the route lies in a different country than the start of the edge.
             if (country1 != country2 && geom.size() > 0) {
-                Coordinate coordinate = new Coordinate();
-                coordinate.x = geom.getLon(0);
-                coordinate.y = geom.getLat(0);
-                CountryBordersPolygon[] countries = countryBordersReader.getCountry(coordinate);
-                if (countries.length >= 1) {
-                    country1 = Short.parseShort(countryBordersReader.getId(countryBordersReader.getCountry(coordinate)[0].getName()));
-                }
+                short country = getStartCountry(edge, originalEdge, geom);
+                if (country != CountryBordersReader.NO_COUNTRY)
+                    country1 = country;
             }
             if (countryTraversalInfoBuilder != null && country1 != 0) {
                 countryTraversalInfoBuilder.addSegment(country1, country1, geom, dist);
@@ -518,7 +535,7 @@ public class ExtraInfoProcessor implements PathProcessor {
         }
 
         if (roadAccessRestrictionsInfoBuilder != null) {
-            int value = extRoadAccessRestrictions.getEdgeValue(EdgeIteratorStateHelper.getOriginalEdge(edge), buffer);
+            int value = extRoadAccessRestrictions.getEdgeValue(EdgeIteratorStateHelper.getOriginalEdge(edge), roadAccessRestrictionsVehicle, buffer);
             roadAccessRestrictionsInfoBuilder.addSegment(value, value, geom, dist);
         }
 
@@ -535,6 +552,8 @@ public class ExtraInfoProcessor implements PathProcessor {
 
     @Override
     public PointList processPoints(PointList points) {
+        long start = pathStart != 0 ? pathStart : System.nanoTime();
+        pathStart = 0;
         PointList result = points;
 
 		if (steepnessInfoBuilder != null) {
@@ -542,6 +561,7 @@ public class ExtraInfoProcessor implements PathProcessor {
 			steepnessInfoBuilder.addPoints(result);
 		}
 
+        StageMetrics.accumulate(StageMetrics.Stage.EXTRA_INFO, System.nanoTime() - start);
         return result;
     }
 
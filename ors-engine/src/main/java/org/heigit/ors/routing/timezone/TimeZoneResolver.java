@@ -0,0 +1,123 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.routing.timezone;
+
+import org.apache.log4j.Logger;
+import org.heigit.ors.geojson.GeometryJSON;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Point;
+import org.locationtech.jts.geom.prep.PreparedGeometry;
+import org.locationtech.jts.geom.prep.PreparedGeometryFactory;
+import org.locationtech.jts.index.strtree.STRtree;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.ZoneId;
+
+/**
+ * Resolves the time zone of a location from time zone polygons, such as the GeoJSON releases of the
+ * timezone-boundary-builder project: a feature collection of (multi) polygons with the zone identifier in the
+ * {@code tzid} property.
+ * <p>
+ * The polygons are kept in a spatial index, so that a lookup only tests the few polygons whose bounding box contains
+ * the location. Locations outside of all polygons, e.g. at sea, resolve to the default zone.
+ */
+public class TimeZoneResolver {
+    private static final Logger LOGGER = Logger.getLogger(TimeZoneResolver.class);
+
+    public static final ZoneId DEFAULT_ZONE = ZoneId.of("Europe/Berlin");
+    /**
+     * Resolver without polygons, which resolves every location to {@link #DEFAULT_ZONE} like openrouteservice did
+     * before time zones were resolved by location
+     */
+    public static final TimeZoneResolver DEFAULT = new TimeZoneResolver(new STRtree(), DEFAULT_ZONE);
+
+    private static final String KEY_TZID = "tzid";
+
+    private final STRtree index;
+    private final ZoneId defaultZone;
+    private final GeometryFactory geometryFactory = new GeometryFactory();
+
+    private TimeZoneResolver(STRtree index, ZoneId defaultZone) {
+        // building makes the tree read-only, so that it can be queried concurrently
+        index.build();
+        this.index = index;
+        this.defaultZone = defaultZone;
+    }
+
+    /**
+     * @param file time zone polygons as GeoJSON feature collection, or {@code null} or empty for {@link #DEFAULT}
+     */
+    public static TimeZoneResolver create(String file) throws IOException {
+        if (file == null || file.isEmpty())
+            return DEFAULT;
+        try (Reader reader = Files.newBufferedReader(Path.of(file), StandardCharsets.UTF_8)) {
+            return read(reader, DEFAULT_ZONE);
+        }
+    }
+
+    static TimeZoneResolver read(Reader reader, ZoneId defaultZone) {
+        JSONArray features = new JSONObject(new JSONTokener(reader instanceof BufferedReader ? reader : new BufferedReader(reader)))
+                .getJSONArray("features");
+        PreparedGeometryFactory preparedGeometryFactory = new PreparedGeometryFactory();
+        STRtree index = new STRtree();
+        int zones = 0;
+        for (int i = 0; i < features.length(); i++) {
+            JSONObject feature = features.getJSONObject(i);
+            String tzid = feature.getJSONObject("properties").optString(KEY_TZID, null);
+            try {
+                ZoneId zone = ZoneId.of(tzid);
+                Geometry geometry = GeometryJSON.parse(feature.getJSONObject("geometry"));
+                index.insert(geometry.getEnvelopeInternal(), new ZonePolygon(preparedGeometryFactory.create(geometry), zone));
+                zones++;
+            } catch (DateTimeException | NullPointerException e) {
+                LOGGER.warn("Skipping time zone polygon with unknown zone '%s'".formatted(tzid));
+            } catch (Exception e) {
+                LOGGER.warn("Skipping invalid geometry of time zone '%s': %s".formatted(tzid, e.getMessage()));
+            }
+        }
+        LOGGER.info("%d time zone polygons read".formatted(zones));
+        return new TimeZoneResolver(index, defaultZone);
+    }
+
+    /**
+     * @return the zone of the given location, or the default zone if no polygon contains it
+     */
+    public ZoneId resolve(double lat, double lon) {
+        Coordinate c = new Coordinate(lon, lat);
+        Point point = null;
+        for (Object item : index.query(new Envelope(c))) {
+            ZonePolygon polygon = (ZonePolygon) item;
+            if (point == null)
+                point = geometryFactory.createPoint(c);
+            if (polygon.geometry.covers(point))
+                return polygon.zone;
+        }
+        return defaultZone;
+    }
+
+    private record ZonePolygon(PreparedGeometry geometry, ZoneId zone) {
+    }
+}
@@ -12,13 +12,19 @@ import org.heigit.ors.routing.graphhopper.extensions.flagencoders.VehicleFlagEnc
 import org.heigit.ors.routing.graphhopper.extensions.storages.GraphStorageUtils;
 import org.heigit.ors.routing.graphhopper.extensions.storages.TrafficGraphStorage;
 
-import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
 
 public class TrafficSpeedCalculator extends AbstractAdjustedSpeedCalculator {
     // time-dependent stuff
     protected TrafficGraphStorage trafficGraphStorage;
-    protected int timeZoneOffset;
+    protected int timeZoneOffsetSeconds;
+    // the transitions of the time zone offset around the requested time, e.g. to daylight saving time and back
+    private long previousTransitionMillis = Long.MIN_VALUE;
+    private int offsetBeforeSeconds;
+    private long nextTransitionMillis = Long.MAX_VALUE;
+    private int offsetAfterSeconds;
     private VehicleFlagEncoder vehicleFlagEncoder;
     private boolean isVehicle = false;
     private boolean isHGV = false;
@@ -46,7 +52,7 @@ public class TrafficSpeedCalculator extends AbstractAdjustedSpeedCalculator {
         if (time == -1)
             trafficSpeed = trafficGraphStorage.getMaxSpeedValue(edgeKey);
         else
-            trafficSpeed = trafficGraphStorage.getSpeedValue(edgeKey, time, timeZoneOffset);
+            trafficSpeed = trafficGraphStorage.getSpeedValue(edgeKey, time, getTimeZoneOffsetSeconds(time));
 
         if (trafficSpeed > 0) {
             //TODO: This is a heuristic to provide expected results given traffic data and ORS internal speed calculations.
@@ -87,12 +93,31 @@ public class TrafficSpeedCalculator extends AbstractAdjustedSpeedCalculator {
         this.trafficGraphStorage = trafficGraphStorage;
     }
 
+    /**
+     * Sets the time zone the traffic patterns are looked up in. The offsets in effect at the given time and on either
+     * side of the closest transitions are kept for the search, so that the lookup per edge needs no calendar
+     * calculations, while searches across a change to or from daylight saving time still use the local time.
+     */
     public void setZonedDateTime(ZonedDateTime zdt) {
-        this.timeZoneOffset = zdt.getOffset().getTotalSeconds() / 3600;
+        this.timeZoneOffsetSeconds = zdt.getOffset().getTotalSeconds();
+        ZoneRules rules = zdt.getZone().getRules();
+        ZoneOffsetTransition previous = rules.previousTransition(zdt.toInstant().plusMillis(1));
+        previousTransitionMillis = previous == null ? Long.MIN_VALUE : previous.toEpochSecond() * 1000;
+        offsetBeforeSeconds = previous == null ? timeZoneOffsetSeconds : previous.getOffsetBefore().getTotalSeconds();
+        ZoneOffsetTransition next = rules.nextTransition(zdt.toInstant());
+        nextTransitionMillis = next == null ? Long.MAX_VALUE : next.toEpochSecond() * 1000;
+        offsetAfterSeconds = next == null ? timeZoneOffsetSeconds : next.getOffsetAfter().getTotalSeconds();
     }
 
-    public ZoneId getZoneId() {
-        return trafficGraphStorage.getZoneId();
+    /**
+     * @return offset of the local time from UTC at the given time in unix milliseconds
+     */
+    protected int getTimeZoneOffsetSeconds(long time) {
+        if (time >= nextTransitionMillis)
+            return offsetAfterSeconds;
+        if (time < previousTransitionMillis)
+            return offsetBeforeSeconds;
+        return timeZoneOffsetSeconds;
     }
 
     @Override
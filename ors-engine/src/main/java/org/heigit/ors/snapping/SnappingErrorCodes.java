@@ -7,6 +7,7 @@ public class SnappingErrorCodes {
     public static final int INVALID_PARAMETER_FORMAT = 8002;
     public static final int INVALID_PARAMETER_VALUE = 8003;
     public static final int UNKNOWN_PARAMETER = 8004;
+    public static final int REQUEST_EXCEEDS_SERVER_LIMIT = 8005;
     public static final int UNSUPPORTED_EXPORT_FORMAT = 8006;
 
     public static final int POINT_NOT_FOUND = 8010;
@@ -0,0 +1,159 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.util;
+
+import io.micrometer.core.instrument.*;
+import org.heigit.ors.common.StatusCode;
+import org.heigit.ors.exceptions.ServiceOverloadedException;
+
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrency limit with a bounded wait queue.
+ * <p>
+ * Requests acquire a number of cost units out of a fixed capacity, so that a few expensive requests can occupy the
+ * whole capacity while cheap ones take a single unit each. If no capacity is available, up to a maximum number of
+ * requests wait in fair order for at most a maximum queue time. Requests are rejected right away with
+ * {@link StatusCode#TOO_MANY_REQUESTS} if the queue is full, and with {@link StatusCode#SERVICE_UNAVAILABLE} if the
+ * expected wait, estimated from the average processing time per cost unit, exceeds the maximum queue time or if they
+ * time out in the queue.
+ * <p>
+ * Queue depth, capacity in use, wait times and rejections are published as Micrometer meters.
+ */
+public class AdmissionLimiter {
+    private static final double AVERAGE_WEIGHT = 0.1;
+
+    private final int capacity;
+    private final int maximumQueueSize;
+    private final long maximumQueueTime;
+    private final Semaphore permits;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong queuedCost = new AtomicLong();
+    private final AtomicLong nanosPerCostUnit = new AtomicLong();
+    private final MeterRegistry registry;
+    private final Timer waitTime;
+    private final Counter rejectedQueueFull;
+    private final Counter rejectedQueueTime;
+    private final List<Meter> meters;
+
+    /**
+     * @param capacity         cost units which may be processed at the same time
+     * @param maximumQueueSize number of requests which may wait for capacity
+     * @param maximumQueueTime maximum time in milliseconds a request may wait for capacity
+     * @param tags             tags of the published meters
+     */
+    public AdmissionLimiter(int capacity, int maximumQueueSize, long maximumQueueTime, MeterRegistry registry, String... tags) {
+        this.capacity = Math.max(1, capacity);
+        this.maximumQueueSize = Math.max(0, maximumQueueSize);
+        this.maximumQueueTime = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maximumQueueTime));
+        this.permits = new Semaphore(this.capacity, true);
+        this.registry = registry;
+        waitTime = Timer.builder("ors.admission.wait").tags(tags).register(registry);
+        rejectedQueueFull = Counter.builder("ors.admission.rejected").tags(tags).tag("reason", "queue_full").register(registry);
+        rejectedQueueTime = Counter.builder("ors.admission.rejected").tags(tags).tag("reason", "queue_time").register(registry);
+        meters = List.of(waitTime, rejectedQueueFull, rejectedQueueTime,
+                Gauge.builder("ors.admission.queued", queued, AtomicInteger::get).tags(tags).register(registry),
+                Gauge.builder("ors.admission.active", permits, p -> (double) this.capacity - p.availablePermits()).tags(tags).register(registry));
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Waits until {@code cost} units of capacity are available. The cost is limited to the capacity, so that any
+     * request can be admitted eventually.
+     *
+     * @return permit to be closed when the request has been processed
+     * @throws ServiceOverloadedException if the request is rejected
+     */
+    public Permit acquire(int cost) throws ServiceOverloadedException {
+        int units = Math.max(1, Math.min(capacity, cost));
+        try {
+            // the timed variant respects the fairness of the semaphore, unlike tryAcquire(units)
+            if (permits.tryAcquire(units, 0, TimeUnit.NANOSECONDS))
+                return new Permit(units);
+
+            long estimatedWait = estimateWait(units);
+            if (queued.incrementAndGet() > maximumQueueSize) {
+                queued.decrementAndGet();
+                rejectedQueueFull.increment();
+                throw overloaded(StatusCode.TOO_MANY_REQUESTS, estimatedWait, "Too many requests are waiting to be processed.");
+            }
+            long start = System.nanoTime();
+            queuedCost.addAndGet(units);
+            try {
+                if (estimatedWait > maximumQueueTime || !permits.tryAcquire(units, maximumQueueTime, TimeUnit.NANOSECONDS)) {
+                    rejectedQueueTime.increment();
+                    throw overloaded(StatusCode.SERVICE_UNAVAILABLE, estimatedWait, "The request could not be processed in time due to high load.");
+                }
+            } finally {
+                queued.decrementAndGet();
+                queuedCost.addAndGet(-units);
+                waitTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+            return new Permit(units);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw overloaded(StatusCode.SERVICE_UNAVAILABLE, 0, "The request has been interrupted while waiting to be processed.");
+        }
+    }
+
+    /**
+     * @return expected time in nanoseconds until {@code units} become available, or 0 if no request has been
+     * processed yet
+     */
+    long estimateWait(int units) {
+        long inUse = (long) capacity - permits.availablePermits();
+        return nanosPerCostUnit.get() * (queuedCost.get() + inUse + units - capacity) / capacity;
+    }
+
+    private ServiceOverloadedException overloaded(int statusCode, long estimatedWait, String message) {
+        long wait = estimatedWait > 0 ? estimatedWait : maximumQueueTime;
+        return new ServiceOverloadedException(statusCode, Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + 999_999_999)), message);
+    }
+
+    private void release(int units, long processingTime) {
+        permits.release(units);
+        long sample = processingTime / units;
+        nanosPerCostUnit.getAndUpdate(average -> average == 0 ? sample : (long) (average + AVERAGE_WEIGHT * (sample - average)));
+    }
+
+    public void close() {
+        for (Meter meter : meters)
+            registry.remove(meter);
+    }
+
+    public class Permit implements AutoCloseable {
+        private final int units;
+        private final long start = System.nanoTime();
+        private boolean released;
+
+        private Permit(int units) {
+            this.units = units;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                release(units, System.nanoTime() - start);
+            }
+        }
+    }
+}
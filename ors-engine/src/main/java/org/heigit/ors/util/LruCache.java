@@ -0,0 +1,179 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.util;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Thread-safe least-recently-used cache with an upper bound on the number of entries or on their total weight, and an
+ * optional time to live. Entries older than the time to live are treated as absent and dropped on access.
+ *
+ * @param <K> key type, must implement {@link Object#equals(Object)} and {@link Object#hashCode()} by value
+ * @param <V> value type
+ */
+public class LruCache<K, V> {
+    private final LinkedHashMap<K, Entry<V>> entries;
+    private final int maxEntries;
+    private final long maxWeight;
+    private final ToLongFunction<V> weigher;
+    private final long timeToLive;
+    private long totalWeight;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param maxEntries maximum number of entries held before the least recently used one is evicted
+     * @param timeToLive time to live of an entry in milliseconds, values <= 0 disable expiry
+     */
+    public LruCache(int maxEntries, long timeToLive) {
+        if (maxEntries <= 0)
+            throw new IllegalArgumentException("maxEntries must be greater than 0.");
+        this.maxEntries = maxEntries;
+        this.maxWeight = Long.MAX_VALUE;
+        this.weigher = v -> 0;
+        this.timeToLive = timeToLive;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * @param maxWeight  maximum total weight of all entries held before the least recently used ones are evicted
+     * @param timeToLive time to live of an entry in milliseconds, values <= 0 disable expiry
+     * @param weigher    function computing the weight of a value, e.g. its estimated size in bytes
+     */
+    public LruCache(long maxWeight, long timeToLive, ToLongFunction<V> weigher) {
+        if (maxWeight <= 0)
+            throw new IllegalArgumentException("maxWeight must be greater than 0.");
+        this.maxEntries = Integer.MAX_VALUE;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.timeToLive = timeToLive;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (isExpired(entry, System.currentTimeMillis())) {
+            entries.remove(key);
+            totalWeight -= entry.weight;
+            evictions++;
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+
+    public synchronized void put(K key, V value) {
+        if (value == null)
+            return;
+        long weight = weigher.applyAsLong(value);
+        if (weight > maxWeight)
+            return;
+        Entry<V> previous = entries.put(key, new Entry<>(value, weight, System.currentTimeMillis()));
+        if (previous != null)
+            totalWeight -= previous.weight;
+        totalWeight += weight;
+        evict();
+    }
+
+    public synchronized void remove(K key) {
+        Entry<V> entry = entries.remove(key);
+        if (entry != null)
+            totalWeight -= entry.weight;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        totalWeight = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getTotalWeight() {
+        return totalWeight;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    /**
+     * Registers hit, miss and eviction counters as well as gauges for the number of entries and their total weight.
+     *
+     * @param name common prefix of the meter names, e.g. {@code ors.isochrones.cache}
+     * @param tags additional key/value tag pairs
+     * @return the registered meters, to be removed from the registry when the cache is discarded
+     */
+    public List<Meter> registerMeters(MeterRegistry registry, String name, String... tags) {
+        List<Meter> meters = new ArrayList<>();
+        meters.add(FunctionCounter.builder(name + ".hits", this, LruCache::getHits).tags(tags).register(registry));
+        meters.add(FunctionCounter.builder(name + ".misses", this, LruCache::getMisses).tags(tags).register(registry));
+        meters.add(FunctionCounter.builder(name + ".evictions", this, LruCache::getEvictions).tags(tags).register(registry));
+        meters.add(Gauge.builder(name + ".entries", this, LruCache::size).tags(tags).register(registry));
+        meters.add(Gauge.builder(name + ".weight", this, LruCache::getTotalWeight).tags(tags).register(registry));
+        return meters;
+    }
+
+    private void evict() {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<K, Entry<V>>> iter = entries.entrySet().iterator();
+        while (iter.hasNext()) {
+            Map.Entry<K, Entry<V>> eldest = iter.next();
+            if (entries.size() > maxEntries || totalWeight > maxWeight || isExpired(eldest.getValue(), now)) {
+                iter.remove();
+                totalWeight -= eldest.getValue().weight;
+                evictions++;
+            } else {
+                break;
+            }
+        }
+    }
+
+    private boolean isExpired(Entry<V> entry, long now) {
+        return timeToLive > 0 && now - entry.created > timeToLive;
+    }
+
+    private record Entry<V>(V value, long weight, long created) {
+    }
+}
@@ -17,12 +17,18 @@ public class ProfileTools {
     public static final String KEY_METHODS_CH = "methods.ch";
     public static final String KEY_ENABLED = "enabled";
     public static final String KEY_THREADS = "threads";
+    public static final String KEY_RESTRICTION_THREADS = "restriction_threads";
     public static final String KEY_WEIGHTINGS = "weightings";
+    public static final String KEY_ISOCHRONE_WEIGHTINGS = "isochrone_weightings";
+    public static final String KEY_ISOCHRONE_WEIGHTING = "isochrone_weighting";
     public static final String KEY_LMSETS = "lmsets";
     public static final String KEY_MAXCELLNODES = "maxcellnodes";
     public static final String KEY_METHODS_LM = "methods.lm";
     public static final String KEY_LANDMARKS = "landmarks";
     public static final String KEY_METHODS_CORE = "methods.core";
+    public static final String KEY_METHODS_CUSTOMIZABLE_CORE = "methods.customizable_core";
+    public static final String KEY_MAX_DEGREE = "max_degree";
+    public static final String KEY_CACHE_SIZE = "cache_size";
     public static final String KEY_DISABLING_ALLOWED = "disabling_allowed";
     public static final String KEY_ACTIVE_LANDMARKS = "active_landmarks";
     public static final String KEY_TOTAL_POP = "total_pop";
@@ -41,6 +47,13 @@ public class ProfileTools {
         return profileName;
     }
 
+    /**
+     * @return name of the CH profile prepared with the plain weighting used by concave balls isochrones
+     */
+    public static String makeIsochroneProfileName(String vehicleName, String weightingName) {
+        return vehicleName + "_isochrone_" + weightingName;
+    }
+
     /**
      * Set the weightingMethod for the request based on input weighting.
      *
@@ -0,0 +1,179 @@
+/*  This file is part of Openrouteservice.
+ *
+ *  Openrouteservice is free software; you can redistribute it and/or modify it under the terms of the
+ *  GNU Lesser General Public License as published by the Free Software Foundation; either version 2.1
+ *  of the License, or (at your option) any later version.
+
+ *  This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ *  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *  See the GNU Lesser General Public License for more details.
+
+ *  You should have received a copy of the GNU Lesser General Public License along with this library;
+ *  if not, see <https://www.gnu.org/licenses/>.
+ */
+package org.heigit.ors.util;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-profile latency and search effort metrics of the individual request stages.
+ * <p>
+ * All meters are registered up front, so recording on the request path is an array lookup followed by a
+ * {@link Timer#record(long, TimeUnit)}. Stages that run deep inside GraphHopper, where neither profile nor endpoint are
+ * known, add their elapsed time to a per-thread accumulator with {@link #accumulate(Stage, long)}; the caller that
+ * owns the request collects it with {@link #take(Stage)} and records it against the right endpoint.
+ */
+public class StageMetrics {
+    public static final String TIMER_NAME = "ors.request.stage";
+
+    public enum Stage {
+        SNAPPING,
+        SEARCH,
+        PATH_EXTRACTION,
+        EXTRA_INFO,
+        ISOCHRONE_HULL,
+        SERIALIZATION;
+
+        private final String tag = name().toLowerCase(Locale.ROOT);
+    }
+
+    public enum Endpoint {
+        ROUTES(EnumSet.of(Stage.SNAPPING, Stage.SEARCH, Stage.PATH_EXTRACTION, Stage.EXTRA_INFO, Stage.SERIALIZATION)),
+        MATRIX(EnumSet.of(Stage.SNAPPING, Stage.SEARCH, Stage.SERIALIZATION)),
+        ISOCHRONES(EnumSet.of(Stage.SNAPPING, Stage.SEARCH, Stage.ISOCHRONE_HULL, Stage.SERIALIZATION));
+
+        private final String tag = name().toLowerCase(Locale.ROOT);
+        private final Set<Stage> stages;
+
+        Endpoint(Set<Stage> stages) {
+            this.stages = stages;
+        }
+    }
+
+    private static final int SETTLED_CORE_NODES = Stage.values().length;
+    private static final ThreadLocal<long[]> PENDING = ThreadLocal.withInitial(() -> new long[SETTLED_CORE_NODES + 1]);
+
+    private final MeterRegistry registry;
+    private final Timer[][] timers = new Timer[Endpoint.values().length][Stage.values().length];
+    private final DistributionSummary visitedNodes;
+    private final DistributionSummary settledCoreNodes;
+    private final DistributionSummary matrixSize;
+    private final List<Meter> meters = new ArrayList<>();
+
+    public StageMetrics(MeterRegistry registry, String profileName) {
+        this(registry, profileName, false);
+    }
+
+    /**
+     * @param percentileHistograms whether to publish percentile histograms, which add a time series per bucket
+     */
+    public StageMetrics(MeterRegistry registry, String profileName, boolean percentileHistograms) {
+        this.registry = registry;
+        for (Endpoint endpoint : Endpoint.values()) {
+            for (Stage stage : endpoint.stages) {
+                timers[endpoint.ordinal()][stage.ordinal()] = register(Timer.builder(TIMER_NAME)
+                        .tags("endpoint", endpoint.tag, "profile", profileName, "stage", stage.tag)
+                        .publishPercentileHistogram(percentileHistograms)
+                        .register(registry));
+            }
+        }
+        visitedNodes = register(DistributionSummary.builder("ors.routes.visited_nodes")
+                .tags("profile", profileName)
+                .publishPercentileHistogram(percentileHistograms)
+                .register(registry));
+        settledCoreNodes = register(DistributionSummary.builder("ors.core.settled_nodes")
+                .tags("profile", profileName)
+                .publishPercentileHistogram(percentileHistograms)
+                .register(registry));
+        matrixSize = register(DistributionSummary.builder("ors.matrix.size")
+                .description("number of source/destination pairs per matrix request")
+                .tags("profile", profileName)
+                .publishPercentileHistogram(percentileHistograms)
+                .register(registry));
+    }
+
+    private <T extends Meter> T register(T meter) {
+        meters.add(meter);
+        return meter;
+    }
+
+    public void record(Endpoint endpoint, Stage stage, long nanos) {
+        Timer timer = timers[endpoint.ordinal()][stage.ordinal()];
+        if (timer != null)
+            timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records the time elapsed since {@code startNanos} and returns the current {@link System#nanoTime()}, so that
+     * consecutive stages can be chained.
+     */
+    public long recordSince(Endpoint endpoint, Stage stage, long startNanos) {
+        long now = System.nanoTime();
+        record(endpoint, stage, now - startNanos);
+        return now;
+    }
+
+    public void recordVisitedNodes(long nodes) {
+        visitedNodes.record(nodes);
+    }
+
+    public void recordSettledCoreNodes(long nodes) {
+        settledCoreNodes.record(nodes);
+    }
+
+    public void recordMatrixSize(long size) {
+        matrixSize.record(size);
+    }
+
+    public void close() {
+        for (Meter meter : meters)
+            registry.remove(meter);
+        meters.clear();
+    }
+
+    /**
+     * Discards anything accumulated on this thread, e.g. by a request that failed before its metrics were recorded.
+     */
+    public static void reset() {
+        Arrays.fill(PENDING.get(), 0);
+    }
+
+    /**
+     * Adds to the time spent in {@code stage} by the request currently processed on this thread.
+     */
+    public static void accumulate(Stage stage, long nanos) {
+        PENDING.get()[stage.ordinal()] += nanos;
+    }
+
+    public static void accumulateSettledCoreNodes(long nodes) {
+        PENDING.get()[SETTLED_CORE_NODES] += nodes;
+    }
+
+    /**
+     * @return time accumulated for {@code stage} on this thread since the last call, in nanoseconds
+     */
+    public static long take(Stage stage) {
+        long[] pending = PENDING.get();
+        long nanos = pending[stage.ordinal()];
+        pending[stage.ordinal()] = 0;
+        return nanos;
+    }
+
+    public static long takeSettledCoreNodes() {
+        long[] pending = PENDING.get();
+        long nodes = pending[SETTLED_CORE_NODES];
+        pending[SETTLED_CORE_NODES] = 0;
+        return nodes;
+    }
+}
@@ -0,0 +1,188 @@
+package org.heigit.ors.isochrones;
+
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.storage.GraphHopperStorage;
+import com.graphhopper.storage.index.Snap;
+import com.graphhopper.util.DistancePlaneProjection;
+import com.graphhopper.util.shapes.GHPoint3D;
+import org.heigit.ors.common.TravelRangeType;
+import org.heigit.ors.routing.RouteSearchParameters;
+import org.heigit.ors.routing.RoutingProfileType;
+import org.heigit.ors.routing.WeightingMethod;
+import org.heigit.ors.routing.parameters.ProfileParameters;
+import org.heigit.ors.routing.pathprocessors.BordersExtractor;
+import org.heigit.ors.util.ToyGraphCreationUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Polygon;
+
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IsochroneMapCacheTest {
+    private static final String GRAPH_DATE = "2024-01-01T00:00:00Z";
+    private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
+
+    private interface Change {
+        void apply(IsochroneSearchParameters parameters) throws Exception;
+    }
+
+    private GraphHopperStorage graph;
+
+    @BeforeEach
+    void setUp() {
+        graph = ToyGraphCreationUtil.createSimpleGraph(EncodingManager.create("car"));
+    }
+
+    private Snap snap(int edge, double lat, double lon) {
+        Snap snap = new Snap(lat, lon);
+        snap.setClosestEdge(graph.getBaseGraph().getEdgeIteratorState(edge, Integer.MIN_VALUE));
+        snap.setClosestNode(snap.getClosestEdge().getBaseNode());
+        snap.setWayIndex(0);
+        snap.setSnappedPosition(Snap.Position.TOWER);
+        snap.calcSnappedPoint(DistancePlaneProjection.DIST_PLANE);
+        GHPoint3D snapped = snap.getSnappedPoint();
+        snap.setQueryDistance(DistancePlaneProjection.DIST_PLANE.calcDist(lat, lon, snapped.lat, snapped.lon));
+        return snap;
+    }
+
+    private static IsochroneSearchParameters parameters() throws Exception {
+        IsochroneSearchParameters parameters = new IsochroneSearchParameters(0, new Coordinate(2, 2), new double[]{300, 600});
+        parameters.setRangeType(TravelRangeType.TIME);
+        parameters.setCalcMethod("ConcaveBalls");
+        RouteSearchParameters routeParameters = new RouteSearchParameters();
+        routeParameters.setProfileType(RoutingProfileType.DRIVING_CAR);
+        parameters.setRouteParameters(routeParameters);
+        return parameters;
+    }
+
+    private static IsochroneMap map(int travellerId, int points) {
+        Coordinate[] ring = new Coordinate[points + 1];
+        for (int i = 0; i < points; i++) {
+            double angle = 2 * Math.PI * i / points;
+            ring[i] = new Coordinate(Math.cos(angle), Math.sin(angle));
+        }
+        ring[points] = ring[0];
+        Polygon polygon = GEOMETRY_FACTORY.createPolygon(ring);
+        IsochroneMap map = new IsochroneMap(travellerId, new Coordinate(0, 0));
+        map.setGraphDate(GRAPH_DATE);
+        map.addIsochrone(new Isochrone(polygon, 300, 1000));
+        return map;
+    }
+
+    static Stream<Arguments> changes() {
+        return Stream.of(
+                Arguments.of("ranges", (Change) p -> p.setRanges(new double[]{300, 900})),
+                Arguments.of("range type", (Change) p -> p.setRangeType(TravelRangeType.DISTANCE)),
+                Arguments.of("reverse direction", (Change) p -> p.setReverseDirection(true)),
+                Arguments.of("smoothing", (Change) p -> p.setSmoothingFactor(0.5f)),
+                Arguments.of("calculation method", (Change) p -> p.setCalcMethod("FastIsochrone")),
+                Arguments.of("profile", (Change) p -> p.getRouteParameters().setProfileType(RoutingProfileType.DRIVING_HGV)),
+                Arguments.of("weighting", (Change) p -> p.getRouteParameters().setWeightingMethod(WeightingMethod.SHORTEST)),
+                Arguments.of("avoid features", (Change) p -> p.getRouteParameters().setAvoidFeatureTypes(1)),
+                Arguments.of("vehicle type", (Change) p -> p.getRouteParameters().setVehicleType(3)),
+                Arguments.of("avoid countries", (Change) p -> p.getRouteParameters().setAvoidCountries(new int[]{1})),
+                Arguments.of("avoid borders", (Change) p -> p.getRouteParameters().setAvoidBorders(BordersExtractor.Avoid.ALL)),
+                Arguments.of("maximum speed", (Change) p -> p.getRouteParameters().setMaximumSpeed(80)),
+                Arguments.of("flexible mode", (Change) p -> p.getRouteParameters().setFlexibleMode(true))
+        );
+    }
+
+    @Test
+    void equalRequestsGiveEqualKeys() throws Exception {
+        IsochroneMapCache.Key key = IsochroneMapCache.createKey(snap(0, 2.0001, 2.0001), parameters(), GRAPH_DATE);
+        assertNotNull(key);
+        assertEquals(key, IsochroneMapCache.createKey(snap(0, 2.0001, 2.0001), parameters(), GRAPH_DATE));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("changes")
+    void changedOptionChangesKey(String option, Change change) throws Exception {
+        IsochroneSearchParameters changed = parameters();
+        change.apply(changed);
+        assertNotEquals(IsochroneMapCache.createKey(snap(0, 2, 2), parameters(), GRAPH_DATE),
+                IsochroneMapCache.createKey(snap(0, 2, 2), changed, GRAPH_DATE));
+    }
+
+    @Test
+    void snapAndGraphDateChangeKey() throws Exception {
+        IsochroneMapCache.Key key = IsochroneMapCache.createKey(snap(0, 2, 2), parameters(), GRAPH_DATE);
+        assertNotEquals(key, IsochroneMapCache.createKey(snap(1, 2, 2), parameters(), GRAPH_DATE));
+        assertNotEquals(key, IsochroneMapCache.createKey(snap(0, 2.01, 2), parameters(), GRAPH_DATE));
+        assertNotEquals(key, IsochroneMapCache.createKey(snap(0, 2, 2), parameters(), "2024-02-01T00:00:00Z"));
+    }
+
+    @Test
+    void uncacheableRequestsHaveNoKey() throws Exception {
+        IsochroneSearchParameters timeDependent = parameters();
+        timeDependent.getRouteParameters().setDeparture(LocalDateTime.of(2024, 1, 1, 8, 0));
+        assertNull(IsochroneMapCache.createKey(snap(0, 2, 2), timeDependent, GRAPH_DATE));
+
+        IsochroneSearchParameters avoidAreas = parameters();
+        avoidAreas.getRouteParameters().setAvoidAreas(new Polygon[]{(Polygon) map(0, 4).getIsochrones().iterator().next().getGeometry()});
+        assertNull(IsochroneMapCache.createKey(snap(0, 2, 2), avoidAreas, GRAPH_DATE));
+
+        IsochroneSearchParameters profileParameters = parameters();
+        profileParameters.getRouteParameters().setProfileParams(new ProfileParameters());
+        assertNull(IsochroneMapCache.createKey(snap(0, 2, 2), profileParameters, GRAPH_DATE));
+
+        assertNull(IsochroneMapCache.createKey(new Snap(2, 2), parameters(), GRAPH_DATE));
+        assertNull(IsochroneMapCache.createKey(null, parameters(), GRAPH_DATE));
+    }
+
+    @Test
+    void returnsCopyForRequestingTraveller() throws Exception {
+        IsochroneMapCache cache = new IsochroneMapCache("car", 1_000_000, 0);
+        IsochroneMapCache.Key key = IsochroneMapCache.createKey(snap(0, 2, 2), parameters(), GRAPH_DATE);
+        assertNull(cache.get(key, 0));
+        IsochroneMap map = map(0, 10);
+        cache.put(key, map);
+
+        IsochroneMap cached = cache.get(key, 3);
+        assertNotSame(map, cached);
+        assertEquals(3, cached.getTravellerId());
+        assertEquals(GRAPH_DATE, cached.getGraphDate());
+        Isochrone isochrone = cached.getIsochrones().iterator().next();
+        assertEquals(map.getIsochrones().iterator().next().getGeometry(), isochrone.getGeometry());
+        assertNotSame(isochrone, cache.get(key, 3).getIsochrones().iterator().next());
+        cache.close();
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedMapsBeyondByteBound() throws Exception {
+        // each map with 100 polygon points is estimated at a little over 5 KB, so two of them fit
+        IsochroneMapCache cache = new IsochroneMapCache("car", 12_000, 0);
+        IsochroneMapCache.Key first = IsochroneMapCache.createKey(snap(0, 2, 2), parameters(), GRAPH_DATE);
+        IsochroneMapCache.Key second = IsochroneMapCache.createKey(snap(1, 2, 2), parameters(), GRAPH_DATE);
+        IsochroneMapCache.Key third = IsochroneMapCache.createKey(snap(2, 2, 2), parameters(), GRAPH_DATE);
+        cache.put(first, map(0, 100));
+        cache.put(second, map(0, 100));
+        assertNotNull(cache.get(first, 0));
+        cache.put(third, map(0, 100));
+
+        assertNotNull(cache.get(first, 0));
+        assertNull(cache.get(second, 0));
+        assertNotNull(cache.get(third, 0));
+        cache.close();
+    }
+
+    @Test
+    void closingFlushesCachedMaps() throws Exception {
+        IsochroneMapCache cache = new IsochroneMapCache("car", 1_000_000, 0);
+        IsochroneMapCache.Key key = IsochroneMapCache.createKey(snap(0, 2, 2), parameters(), GRAPH_DATE);
+        cache.put(key, map(0, 10));
+        cache.clear();
+        assertNull(cache.get(key, 0));
+
+        cache.put(key, map(0, 10));
+        cache.close();
+        assertNull(cache.get(key, 0));
+    }
+}
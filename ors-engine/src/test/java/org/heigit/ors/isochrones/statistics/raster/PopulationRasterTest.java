@@ -0,0 +1,139 @@
+package org.heigit.ors.isochrones.statistics.raster;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LinearRing;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PopulationRasterTest {
+    private final GeometryFactory geometryFactory = new GeometryFactory();
+
+    @TempDir
+    Path tempDir;
+
+    private PopulationRaster createRaster(int tileSize) throws IOException {
+        // 10x10 cells of 1 degree starting at (0, 10), value = row * 10 + col
+        float[] values = new float[100];
+        for (int i = 0; i < values.length; i++)
+            values[i] = i;
+        Path file = tempDir.resolve("pop" + tileSize + ".orsraster");
+        PopulationRaster.write(file, 10, 10, 0, 10, 1, 1, tileSize, values);
+        return PopulationRaster.open(file, 16);
+    }
+
+    private Geometry box(double minX, double minY, double maxX, double maxY) {
+        return geometryFactory.createPolygon(new Coordinate[]{
+                new Coordinate(minX, minY), new Coordinate(maxX, minY), new Coordinate(maxX, maxY),
+                new Coordinate(minX, maxY), new Coordinate(minX, minY)});
+    }
+
+    private double bruteForceSum(PopulationRaster raster, Geometry geometry) {
+        double sum = 0;
+        for (int row = 0; row < raster.getHeight(); row++) {
+            for (int col = 0; col < raster.getWidth(); col++) {
+                Coordinate center = new Coordinate(col + 0.5, 10 - row - 0.5);
+                if (geometry.contains(geometryFactory.createPoint(center)))
+                    sum += raster.getValue(row, col);
+            }
+        }
+        return sum;
+    }
+
+    @Test
+    void sumsCellsWithCentersInsideBox() throws IOException {
+        try (PopulationRaster raster = createRaster(4)) {
+            // rows 1-2 (y 7.5 and 8.5), cols 2-4 (x 1.9..4.9)
+            double sum = raster.sum(box(1.9, 7.1, 4.9, 9.1));
+            assertEquals(12 + 13 + 14 + 22 + 23 + 24, sum, 1e-9);
+        }
+    }
+
+    @Test
+    void sumIsIndependentOfTileSize() throws IOException {
+        Geometry triangle = geometryFactory.createPolygon(new Coordinate[]{
+                new Coordinate(0.2, 0.3), new Coordinate(9.7, 1.1), new Coordinate(4.4, 9.8), new Coordinate(0.2, 0.3)});
+        try (PopulationRaster small = createRaster(3); PopulationRaster large = createRaster(256)) {
+            assertEquals(bruteForceSum(small, triangle), small.sum(triangle), 1e-9);
+            assertEquals(small.sum(triangle), large.sum(triangle), 1e-9);
+        }
+    }
+
+    @Test
+    void excludesHoles() throws IOException {
+        LinearRing shell = geometryFactory.createLinearRing(box(0, 0, 10, 10).getCoordinates());
+        LinearRing hole = geometryFactory.createLinearRing(box(2, 2, 8, 8).getCoordinates());
+        Geometry polygon = geometryFactory.createPolygon(shell, new LinearRing[]{hole});
+        try (PopulationRaster raster = createRaster(4)) {
+            assertEquals(bruteForceSum(raster, polygon), raster.sum(polygon), 1e-9);
+        }
+    }
+
+    @Test
+    void convertsAsciiGrid() throws IOException {
+        Path asc = tempDir.resolve("pop.asc");
+        Files.writeString(asc, """
+                ncols 3
+                nrows 2
+                xllcorner 0
+                yllcorner 0
+                cellsize 1
+                NODATA_value -9999
+                1 2 -9999
+                4 5 6
+                """);
+        Path target = tempDir.resolve("pop.orsraster");
+        PopulationRaster.convertAsciiGrid(asc, target, 2);
+        try (PopulationRaster raster = PopulationRaster.open(target, 4)) {
+            assertEquals(0f, raster.getValue(0, 2));
+            assertEquals(4f, raster.getValue(1, 0));
+            assertEquals(18, raster.sum(box(0, 0, 3, 2)), 1e-9);
+        }
+    }
+
+    @Test
+    void readsFailAfterClose() throws IOException {
+        PopulationRaster raster = createRaster(4);
+        raster.close();
+        Geometry box = box(1, 1, 5, 5);
+        assertThrows(IllegalStateException.class, () -> raster.sum(box));
+        assertThrows(IllegalStateException.class, () -> raster.getValue(0, 0));
+    }
+
+    @Test
+    void sumsRunningWhileClosingFinishOrFailCleanly() throws Exception {
+        PopulationRaster raster = createRaster(3);
+        Geometry triangle = geometryFactory.createPolygon(new Coordinate[]{
+                new Coordinate(0.2, 0.3), new Coordinate(9.7, 1.1), new Coordinate(4.4, 9.8), new Coordinate(0.2, 0.3)});
+        double expected = raster.sum(triangle);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Double>> sums = new ArrayList<>();
+            for (int i = 0; i < 200; i++)
+                sums.add(executor.submit(() -> raster.sum(triangle)));
+            raster.close();
+            for (Future<Double> sum : sums) {
+                try {
+                    assertEquals(expected, sum.get(), 1e-9);
+                } catch (ExecutionException e) {
+                    assertInstanceOf(IllegalStateException.class, e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package org.heigit.ors.isochrones.statistics.raster;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RasterStatisticsProviderTest {
+    @TempDir
+    Path tempDir;
+
+    private Path writeGrid(String values) throws IOException {
+        Path source = Files.createDirectories(tempDir.resolve("source"));
+        return Files.writeString(source.resolve("pop.asc"), """
+                ncols 2
+                nrows 1
+                xllcorner 0
+                yllcorner 0
+                cellsize 1
+                """ + values);
+    }
+
+    @Test
+    void convertsIntoCachePath() throws IOException {
+        Path grid = writeGrid("1 2\n");
+        Path cachePath = tempDir.resolve("cache");
+
+        Path converted = RasterStatisticsProvider.convert(grid, cachePath, 256);
+
+        assertEquals(cachePath.resolve("pop.orsraster"), converted);
+        assertFalse(Files.exists(grid.resolveSibling("pop.orsraster")));
+        try (PopulationRaster raster = PopulationRaster.open(converted, 4)) {
+            assertEquals(2f, raster.getValue(0, 1));
+        }
+        try (var files = Files.list(cachePath)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void convertsAgainWhenGridIsNewer() throws IOException {
+        Path grid = writeGrid("1 2\n");
+        Path cachePath = tempDir.resolve("cache");
+        Path converted = RasterStatisticsProvider.convert(grid, cachePath, 256);
+        FileTime convertedTime = Files.getLastModifiedTime(converted);
+
+        assertEquals(convertedTime, Files.getLastModifiedTime(RasterStatisticsProvider.convert(grid, cachePath, 256)));
+
+        writeGrid("3 4\n");
+        Files.setLastModifiedTime(grid, FileTime.fromMillis(convertedTime.toMillis() + 1000));
+        RasterStatisticsProvider.convert(grid, cachePath, 256);
+        try (PopulationRaster raster = PopulationRaster.open(converted, 4)) {
+            assertEquals(4f, raster.getValue(0, 1));
+        }
+    }
+}
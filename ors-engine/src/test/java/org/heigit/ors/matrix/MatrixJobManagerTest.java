@@ -0,0 +1,256 @@
+package org.heigit.ors.matrix;
+
+import com.graphhopper.routing.weighting.Weighting;
+import org.heigit.ors.exceptions.ServerLimitExceededException;
+import org.heigit.ors.routing.RoutingProfilesCollection;
+import org.heigit.ors.routing.graphhopper.extensions.SnapCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.locationtech.jts.geom.Coordinate;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatrixJobManagerTest {
+    @TempDir
+    Path spoolPath;
+
+    private static MatrixRequest createRequest(int sources, int destinations) {
+        MatrixRequest req = new MatrixRequest(Double.MAX_VALUE, Integer.MAX_VALUE, Weighting.INFINITE_U_TURN_COSTS);
+        req.setSources(coordinates(sources));
+        req.setDestinations(coordinates(destinations));
+        req.setMetrics(MatrixMetricsType.DURATION | MatrixMetricsType.DISTANCE);
+        return req;
+    }
+
+    private static Coordinate[] coordinates(int count) {
+        Coordinate[] coordinates = new Coordinate[count];
+        for (int i = 0; i < count; i++)
+            coordinates[i] = new Coordinate(i, -i);
+        return coordinates;
+    }
+
+    private static ResolvedLocation[] resolve(Coordinate[] coordinates) {
+        ResolvedLocation[] locations = new ResolvedLocation[coordinates.length];
+        for (int i = 0; i < coordinates.length; i++)
+            locations[i] = new ResolvedLocation(coordinates[i], null, 0);
+        return locations;
+    }
+
+    /**
+     * Durations are {@code 10 * source + destination}, distances the negated durations.
+     */
+    private static MatrixResult computeTile(MatrixRequest tile) {
+        Coordinate[] sources = tile.getSources();
+        Coordinate[] destinations = tile.getDestinations();
+        float[] durations = new float[sources.length * destinations.length];
+        float[] distances = new float[durations.length];
+        for (int i = 0; i < sources.length; i++) {
+            for (int j = 0; j < destinations.length; j++) {
+                durations[i * destinations.length + j] = (float) (10 * sources[i].x + destinations[j].x);
+                distances[i * destinations.length + j] = -durations[i * destinations.length + j];
+            }
+        }
+        MatrixResult result = new MatrixResult(resolve(sources), resolve(destinations));
+        result.setTable(MatrixMetricsType.DURATION, durations);
+        result.setTable(MatrixMetricsType.DISTANCE, distances);
+        return result;
+    }
+
+    private static MatrixJob await(MatrixJob job) throws InterruptedException {
+        for (int i = 0; i < 500 && !job.getStatus().isFinished(); i++)
+            Thread.sleep(10);
+        return job;
+    }
+
+    @Test
+    void writesTiledResult() throws Exception {
+        MatrixJobManager manager = new MatrixJobManager(spoolPath, 2, 2, 100, 1, 60, (tile, snapCache) -> computeTile(tile));
+        try {
+            MatrixJob job = await(manager.submit(createRequest(5, 3)));
+            assertEquals(MatrixJob.Status.COMPLETED, job.getStatus());
+            assertEquals(6, job.getTiles());
+            assertEquals(6, job.getCompletedTiles());
+
+            ByteBuffer result = ByteBuffer.wrap(Files.readAllBytes(job.getResultFile())).order(ByteOrder.LITTLE_ENDIAN);
+            assertEquals(MatrixJobManager.MAGIC, result.getInt());
+            assertEquals(MatrixJobManager.FORMAT_VERSION, result.getInt());
+            assertEquals(5, result.getInt());
+            assertEquals(3, result.getInt());
+            assertEquals(MatrixMetricsType.DURATION | MatrixMetricsType.DISTANCE, result.getInt());
+            for (int i = 0; i < 5; i++)
+                for (int j = 0; j < 3; j++)
+                    assertEquals(10 * i + j, result.getFloat());
+            for (int i = 0; i < 5; i++)
+                for (int j = 0; j < 3; j++)
+                    assertEquals(-(10 * i + j), result.getFloat());
+            for (int i = 0; i < 5; i++) {
+                assertEquals(i, result.getDouble());
+                assertEquals(-i, result.getDouble());
+            }
+            for (int j = 0; j < 3; j++) {
+                assertEquals(j, result.getDouble());
+                assertEquals(-j, result.getDouble());
+            }
+            assertFalse(result.hasRemaining());
+
+            assertTrue(manager.remove(job.getId()));
+            assertFalse(Files.exists(job.getResultFile()));
+            assertNull(manager.getJob(job.getId()));
+        } finally {
+            manager.close();
+        }
+    }
+
+    @Test
+    void failsJobIfTileFails() throws Exception {
+        MatrixJobManager manager = new MatrixJobManager(spoolPath, 2, 2, 100, 1, 60, (tile, snapCache) -> {
+            throw new IllegalStateException("no route");
+        });
+        try {
+            MatrixJob job = await(manager.submit(createRequest(3, 3)));
+            assertEquals(MatrixJob.Status.FAILED, job.getStatus());
+            assertEquals("no route", job.getError());
+            try (var files = Files.list(spoolPath)) {
+                assertEquals(0, files.count());
+            }
+        } finally {
+            manager.close();
+        }
+    }
+
+    @Test
+    void holdsProfilesForAllTilesOfAJob() throws Exception {
+        RoutingProfilesCollection profiles = new RoutingProfilesCollection();
+        AtomicInteger computers = new AtomicInteger();
+        AtomicInteger tilesWithoutProfiles = new AtomicInteger();
+        MatrixJobManager manager = new MatrixJobManager(spoolPath, 2, 2, 100, 2, 60, () -> {
+            computers.incrementAndGet();
+            profiles.acquire();
+            return new MatrixJobManager.TileComputer() {
+                @Override
+                public MatrixResult compute(MatrixRequest tile, SnapCache snapCache) throws InterruptedException {
+                    // gives a reload the chance to close the profiles between two tiles
+                    Thread.sleep(20);
+                    if (!profiles.isUsed())
+                        tilesWithoutProfiles.incrementAndGet();
+                    return computeTile(tile);
+                }
+
+                @Override
+                public void close() {
+                    profiles.release();
+                }
+            };
+        });
+        try {
+            MatrixJob job = await(manager.submit(createRequest(5, 5)));
+            assertEquals(MatrixJob.Status.COMPLETED, job.getStatus());
+            assertEquals(9, job.getCompletedTiles());
+            assertEquals(1, computers.get());
+            assertEquals(0, tilesWithoutProfiles.get());
+            assertFalse(profiles.isUsed());
+
+            await(manager.submit(createRequest(3, 3)));
+            assertEquals(2, computers.get());
+            assertFalse(profiles.isUsed());
+        } finally {
+            manager.close();
+        }
+    }
+
+    @Test
+    void releasesProfilesOnlyAfterRunningTilesOfRemovedJob() throws Exception {
+        CountDownLatch tilesStarted = new CountDownLatch(2);
+        CountDownLatch continueTiles = new CountDownLatch(1);
+        AtomicInteger runningTiles = new AtomicInteger();
+        AtomicInteger runningTilesOnClose = new AtomicInteger(-1);
+        MatrixJobManager manager = new MatrixJobManager(spoolPath, 2, 2, 100, 1, 60, () -> new MatrixJobManager.TileComputer() {
+            @Override
+            public MatrixResult compute(MatrixRequest tile, SnapCache snapCache) {
+                runningTiles.incrementAndGet();
+                tilesStarted.countDown();
+                // like the matrix algorithms, the computation does not react to interrupts
+                boolean continued = false;
+                while (!continued) {
+                    try {
+                        continued = continueTiles.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        // keep computing
+                    }
+                }
+                runningTiles.decrementAndGet();
+                return computeTile(tile);
+            }
+
+            @Override
+            public void close() {
+                runningTilesOnClose.set(runningTiles.get());
+            }
+        });
+        try {
+            MatrixJob job = manager.submit(createRequest(4, 4));
+            assertTrue(tilesStarted.await(10, TimeUnit.SECONDS));
+            assertTrue(manager.remove(job.getId()));
+            Thread.sleep(100);
+            assertEquals(-1, runningTilesOnClose.get());
+
+            continueTiles.countDown();
+            for (int i = 0; i < 500 && runningTilesOnClose.get() < 0; i++)
+                Thread.sleep(10);
+            assertEquals(0, runningTilesOnClose.get());
+            assertEquals(MatrixJob.Status.CANCELLED, job.getStatus());
+            assertTrue(job.getCompletedTiles() < job.getTiles());
+        } finally {
+            manager.close();
+        }
+    }
+
+    @Test
+    void openedResultSurvivesRemoval() throws Exception {
+        MatrixJobManager manager = new MatrixJobManager(spoolPath, 1, 2, 100, 1, 60, (tile, snapCache) -> computeTile(tile));
+        try {
+            MatrixJob job = await(manager.submit(createRequest(3, 3)));
+            long size = Files.size(job.getResultFile());
+            try (FileChannel result = manager.openResult(job.getId())) {
+                assertTrue(manager.remove(job.getId()));
+                assertNull(manager.openResult(job.getId()));
+                ByteBuffer content = ByteBuffer.allocate((int) size);
+                while (content.hasRemaining()) {
+                    if (result.read(content) < 0)
+                        break;
+                }
+                assertEquals(size, content.position());
+                assertEquals(MatrixJobManager.MAGIC, content.flip().order(ByteOrder.LITTLE_ENDIAN).getInt());
+            }
+            assertNull(manager.openResult("unknown"));
+        } finally {
+            manager.close();
+        }
+    }
+
+    @Test
+    void rejectsTooManyRoutes() throws Exception {
+        MatrixJobManager manager = new MatrixJobManager(spoolPath, 1, 2, 10, 1, 60, (tile, snapCache) -> computeTile(tile));
+        try {
+            assertThrows(ServerLimitExceededException.class, () -> manager.submit(createRequest(4, 3)));
+        } finally {
+            manager.close();
+        }
+    }
+
+    @Test
+    void deletesStaleFilesOnStart() throws Exception {
+        Path stale = Files.createFile(spoolPath.resolve("stale.matrix"));
+        new MatrixJobManager(spoolPath, 1, 2, 10, 1, 60, (tile, snapCache) -> computeTile(tile)).close();
+        assertFalse(Files.exists(stale));
+    }
+}
@@ -28,7 +28,7 @@ import static org.heigit.ors.pbt.GraphHopperDomain.encodingManager;
  * <li>Distances are between 0 and MAX_DISTANCE</li>
  * </ul>
  */
-class GraphGenerator implements RandomGenerator<GraphHopperStorage> {
+public class GraphGenerator implements RandomGenerator<GraphHopperStorage> {
     private final static int MAX_DISTANCE = 10;
     private final static int AVERAGE_EDGES_PER_NODE = 2;
     private final Weighting weighting = new ShortestWeighting(carEncoder);
@@ -0,0 +1,263 @@
+package org.heigit.ors.routing;
+
+import com.graphhopper.util.PointList;
+import org.heigit.ors.common.DistanceUnit;
+import org.heigit.ors.routing.parameters.VehicleParameters;
+import org.heigit.ors.routing.pathprocessors.BordersExtractor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.Polygon;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteResultCacheTest {
+    private static final String PROFILE = "car";
+    private static final String GRAPH_DATE = "2024-01-01T00:00:00Z";
+
+    private interface Change {
+        void apply(RoutingRequest request) throws Exception;
+    }
+
+    private RouteResultCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new RouteResultCache(1_000_000, 0, false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cache.close();
+    }
+
+    private static RoutingRequest request() throws Exception {
+        RoutingRequest request = new RoutingRequest();
+        request.setCoordinates(new Coordinate[]{new Coordinate(8.68, 49.41), new Coordinate(8.69, 49.42)});
+        request.getSearchParameters().setProfileType(RoutingProfileType.DRIVING_CAR);
+        return request;
+    }
+
+    private static RouteResult result(int points) {
+        RouteResult result = new RouteResult(0);
+        PointList pointList = new PointList(points, false);
+        for (int i = 0; i < points; i++)
+            pointList.add(49.41 + i * 0.001, 8.68);
+        result.addPointsToGeometry(pointList, false, false);
+        result.addPointlist(pointList);
+        result.getSummary().setDistance(1234);
+        return result;
+    }
+
+    private static Polygon square() {
+        return new GeometryFactory().createPolygon(new Coordinate[]{
+                new Coordinate(8.6, 49.4), new Coordinate(8.7, 49.4), new Coordinate(8.7, 49.5), new Coordinate(8.6, 49.4)});
+    }
+
+    static Stream<Arguments> changes() {
+        return Stream.of(
+                Arguments.of("coordinates", (Change) r -> r.setCoordinates(new Coordinate[]{new Coordinate(8.68, 49.41), new Coordinate(8.7, 49.42)})),
+                Arguments.of("units", (Change) r -> r.setUnits(DistanceUnit.KILOMETERS)),
+                Arguments.of("language", (Change) r -> r.setLanguage("de")),
+                Arguments.of("geometry format", (Change) r -> r.setGeometryFormat("geojson")),
+                Arguments.of("geometry simplify", (Change) r -> r.setGeometrySimplify(true)),
+                Arguments.of("instructions format", (Change) r -> r.setInstructionsFormat(RouteInstructionsFormat.HTML)),
+                Arguments.of("instructions", (Change) r -> r.setIncludeInstructions(false)),
+                Arguments.of("elevation", (Change) r -> r.setIncludeElevation(true)),
+                Arguments.of("geometry", (Change) r -> r.setIncludeGeometry(false)),
+                Arguments.of("maneuvers", (Change) r -> r.setIncludeManeuvers(true)),
+                Arguments.of("roundabout exits", (Change) r -> r.setIncludeRoundaboutExits(true)),
+                Arguments.of("attributes", (Change) r -> r.setAttributes(new String[]{"avgspeed"})),
+                Arguments.of("extra info", (Change) r -> r.setExtraInfo(1)),
+                Arguments.of("continue straight", (Change) r -> r.setContinueStraight(true)),
+                Arguments.of("skip segments", (Change) r -> r.setSkipSegments(List.of(1))),
+                Arguments.of("country info", (Change) r -> r.setIncludeCountryInfo(true)),
+                Arguments.of("request maximum speed", (Change) r -> r.setMaximumSpeed(80)),
+                Arguments.of("response format", (Change) r -> r.setResponseFormat("geojson")),
+                Arguments.of("profile", (Change) r -> r.getSearchParameters().setProfileType(RoutingProfileType.DRIVING_HGV)),
+                Arguments.of("weighting", (Change) r -> r.getSearchParameters().setWeightingMethod(WeightingMethod.SHORTEST)),
+                Arguments.of("turn restrictions", (Change) r -> r.getSearchParameters().setConsiderTurnRestrictions(true)),
+                Arguments.of("avoid areas", (Change) r -> r.getSearchParameters().setAvoidAreas(new Polygon[]{square()})),
+                Arguments.of("avoid features", (Change) r -> r.getSearchParameters().setAvoidFeatureTypes(1)),
+                Arguments.of("avoid countries", (Change) r -> r.getSearchParameters().setAvoidCountries(new int[]{1})),
+                Arguments.of("avoid borders", (Change) r -> r.getSearchParameters().setAvoidBorders(BordersExtractor.Avoid.ALL)),
+                Arguments.of("vehicle type", (Change) r -> r.getSearchParameters().setVehicleType(3)),
+                Arguments.of("profile parameters", (Change) r -> r.getSearchParameters().setProfileParams(new VehicleParameters())),
+                Arguments.of("bearings", (Change) r -> r.getSearchParameters().setBearings(new WayPointBearing[]{new WayPointBearing(90), null})),
+                Arguments.of("continue straight at waypoints", (Change) r -> r.getSearchParameters().setContinueStraight(true)),
+                Arguments.of("radiuses", (Change) r -> r.getSearchParameters().setMaximumRadiuses(new double[]{500, 500})),
+                Arguments.of("flexible mode", (Change) r -> r.getSearchParameters().setFlexibleMode(true)),
+                Arguments.of("optimized", (Change) r -> r.getSearchParameters().setOptimized(false)),
+                Arguments.of("search extra info", (Change) r -> r.getSearchParameters().setExtraInfo(1)),
+                Arguments.of("suppress warnings", (Change) r -> r.getSearchParameters().setSuppressWarnings(true)),
+                Arguments.of("alternative routes", (Change) r -> r.getSearchParameters().setAlternativeRoutesCount(2)),
+                Arguments.of("alternative weight factor", (Change) r -> r.getSearchParameters().setAlternativeRoutesWeightFactor(2)),
+                Arguments.of("alternative share factor", (Change) r -> r.getSearchParameters().setAlternativeRoutesShareFactor(0.8)),
+                Arguments.of("round trip", (Change) r -> {
+                    r.getSearchParameters().setRoundTripLength(10000);
+                    r.getSearchParameters().setRoundTripSeed(1);
+                }),
+                Arguments.of("maximum speed", (Change) r -> r.getSearchParameters().setMaximumSpeed(80)),
+                Arguments.of("schedule", (Change) r -> r.getSearchParameters().setSchedule(true)),
+                Arguments.of("schedule rows", (Change) r -> r.getSearchParameters().setScheduleRows(3)),
+                Arguments.of("schedule duration", (Change) r -> r.getSearchParameters().setScheduleDuaration(Duration.ofHours(1))),
+                Arguments.of("ignore transfers", (Change) r -> r.getSearchParameters().setIgnoreTransfers(true)),
+                Arguments.of("walking time", (Change) r -> r.getSearchParameters().setWalkingTime(Duration.ofMinutes(20)))
+        );
+    }
+
+    @Test
+    void equalRequestsGiveEqualKeys() throws Exception {
+        String key = cache.createKey(request(), PROFILE, GRAPH_DATE);
+        assertNotNull(key);
+        assertEquals(key, cache.createKey(request(), PROFILE, GRAPH_DATE));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("changes")
+    void changedOptionChangesKey(String option, Change change) throws Exception {
+        RoutingRequest changed = request();
+        change.apply(changed);
+        assertNotEquals(cache.createKey(request(), PROFILE, GRAPH_DATE), cache.createKey(changed, PROFILE, GRAPH_DATE));
+    }
+
+    @Test
+    void vehicleParametersChangeKey() throws Exception {
+        RoutingRequest unloaded = request();
+        unloaded.getSearchParameters().setProfileParams(new VehicleParameters());
+        RoutingRequest loaded = request();
+        VehicleParameters vehicleParameters = new VehicleParameters();
+        vehicleParameters.setWeight(7.5);
+        loaded.getSearchParameters().setProfileParams(vehicleParameters);
+        assertNotEquals(cache.createKey(unloaded, PROFILE, GRAPH_DATE), cache.createKey(loaded, PROFILE, GRAPH_DATE));
+    }
+
+    @Test
+    void profileAndGraphDateChangeKey() throws Exception {
+        String key = cache.createKey(request(), PROFILE, GRAPH_DATE);
+        assertNotEquals(key, cache.createKey(request(), "hgv", GRAPH_DATE));
+        assertNotEquals(key, cache.createKey(request(), PROFILE, "2024-02-01T00:00:00Z"));
+    }
+
+    @Test
+    void timeDependentRequestsBypassCacheUnlessEnabled() throws Exception {
+        RoutingRequest departure = request();
+        departure.getSearchParameters().setDeparture(LocalDateTime.of(2024, 1, 1, 8, 0));
+        RoutingRequest arrival = request();
+        arrival.getSearchParameters().setArrival(LocalDateTime.of(2024, 1, 1, 8, 0));
+        assertNull(cache.createKey(departure, PROFILE, GRAPH_DATE));
+        assertNull(cache.createKey(arrival, PROFILE, GRAPH_DATE));
+
+        RouteResultCache timeDependentCache = new RouteResultCache(1_000_000, 0, true);
+        try {
+            String key = timeDependentCache.createKey(departure, PROFILE, GRAPH_DATE);
+            assertNotNull(key);
+            RoutingRequest later = request();
+            later.getSearchParameters().setDeparture(LocalDateTime.of(2024, 1, 1, 9, 0));
+            assertNotEquals(key, timeDependentCache.createKey(later, PROFILE, GRAPH_DATE));
+            assertNotEquals(key, timeDependentCache.createKey(arrival, PROFILE, GRAPH_DATE));
+        } finally {
+            timeDependentCache.close();
+        }
+    }
+
+    @Test
+    void roundTripsWithoutSeedAreNotCached() throws Exception {
+        RoutingRequest roundTrip = request();
+        roundTrip.getSearchParameters().setRoundTripLength(10000);
+        assertNull(cache.createKey(roundTrip, PROFILE, GRAPH_DATE));
+    }
+
+    @Test
+    void servesHitsAndMisses() throws Exception {
+        String key = cache.createKey(request(), PROFILE, GRAPH_DATE);
+        assertNull(cache.get(key));
+        cache.put(key, new RouteResult[]{result(10)});
+
+        RouteResult[] cached = cache.get(key);
+        assertEquals(1, cached.length);
+        assertEquals(10, cached[0].getGeometry().length);
+        assertEquals(1234, cached[0].getSummary().getDistance());
+        assertNull(cache.get(cache.createKey(request(), PROFILE, "2024-02-01T00:00:00Z")));
+    }
+
+    @Test
+    void returnedResultsDoNotAffectCachedOnes() throws Exception {
+        String key = cache.createKey(request(), PROFILE, GRAPH_DATE);
+        RouteResult[] computed = {result(10)};
+        cache.put(key, computed);
+        computed[0].getSummary().setDistance(1);
+        computed[0].getGeometry()[0].x = 0;
+
+        RouteResult[] first = cache.get(key);
+        assertNotSame(computed[0], first[0]);
+        first[0].getSummary().setDistance(2);
+        first[0].getGeometry()[0].x = 0;
+        first[0].addWarning(new RouteWarning(RouteWarning.TOLLWAYS));
+        first[0].setGraphDate("modified");
+
+        RouteResult[] second = cache.get(key);
+        assertNotSame(first[0], second[0]);
+        assertEquals(1234, second[0].getSummary().getDistance());
+        assertEquals(8.68, second[0].getGeometry()[0].x);
+        assertTrue(second[0].getWarnings().isEmpty());
+        assertEquals("", second[0].getGraphDate());
+    }
+
+    @Test
+    void expiredResultsAreNotReturned() throws Exception {
+        RouteResultCache expiringCache = new RouteResultCache(1_000_000, 1, false);
+        try {
+            String key = expiringCache.createKey(request(), PROFILE, GRAPH_DATE);
+            expiringCache.put(key, new RouteResult[]{result(10)});
+            assertNotNull(expiringCache.get(key));
+            Thread.sleep(1100);
+            assertNull(expiringCache.get(key));
+        } finally {
+            expiringCache.close();
+        }
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedResultsBeyondSizeBound() throws Exception {
+        // each result without geometry is estimated at 1 KB
+        RouteResultCache smallCache = new RouteResultCache(2048, 0, false);
+        try {
+            RoutingRequest other = request();
+            other.setLanguage("de");
+            RoutingRequest third = request();
+            third.setLanguage("fr");
+            String firstKey = smallCache.createKey(request(), PROFILE, GRAPH_DATE);
+            String secondKey = smallCache.createKey(other, PROFILE, GRAPH_DATE);
+            String thirdKey = smallCache.createKey(third, PROFILE, GRAPH_DATE);
+            smallCache.put(firstKey, new RouteResult[]{new RouteResult(0)});
+            smallCache.put(secondKey, new RouteResult[]{new RouteResult(0)});
+            assertNotNull(smallCache.get(firstKey));
+            smallCache.put(thirdKey, new RouteResult[]{new RouteResult(0)});
+
+            assertNotNull(smallCache.get(firstKey));
+            assertNull(smallCache.get(secondKey));
+            assertNotNull(smallCache.get(thirdKey));
+        } finally {
+            smallCache.close();
+        }
+    }
+
+    @Test
+    void clearingOnReloadDropsAllResults() throws Exception {
+        String key = cache.createKey(request(), PROFILE, GRAPH_DATE);
+        cache.put(key, new RouteResult[]{result(10)});
+        cache.clear();
+        assertNull(cache.get(key));
+    }
+}
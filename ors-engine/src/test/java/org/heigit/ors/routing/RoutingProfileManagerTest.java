@@ -0,0 +1,72 @@
+package org.heigit.ors.routing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RoutingProfileManagerTest {
+    private static class RecordingProfilesCollection extends RoutingProfilesCollection {
+        final AtomicBoolean destroyed = new AtomicBoolean();
+
+        @Override
+        public void destroy() {
+            destroyed.set(true);
+        }
+    }
+
+    private static CompletableFuture<Void> closeWhenUnused(RoutingProfilesCollection profiles, long warningInterval) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                RoutingProfileManager.closeWhenUnused(profiles, 0, warningInterval);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    @Test
+    void reloadWaitsForRequestsSpanningSeveralCalls() throws Exception {
+        RecordingProfilesCollection profiles = new RecordingProfilesCollection();
+        profiles.acquire();
+        CompletableFuture<Void> closing = closeWhenUnused(profiles, 60000);
+        // e.g. the segments of a route or the tiles of a matrix job, between which no profile is in use
+        for (int segment = 0; segment < 5; segment++) {
+            Thread.sleep(50);
+            assertFalse(profiles.destroyed.get());
+        }
+        profiles.release();
+        closing.get(10, TimeUnit.SECONDS);
+        assertTrue(profiles.destroyed.get());
+    }
+
+    @Test
+    void reloadNeverClosesProfilesInUse() throws Exception {
+        RecordingProfilesCollection profiles = new RecordingProfilesCollection();
+        profiles.acquire();
+        // the warning interval passes several times while the profiles are in use
+        CompletableFuture<Void> closing = closeWhenUnused(profiles, 50);
+        Thread.sleep(500);
+        assertFalse(closing.isDone());
+        assertFalse(profiles.destroyed.get());
+
+        profiles.release();
+        closing.get(10, TimeUnit.SECONDS);
+        assertTrue(profiles.destroyed.get());
+    }
+
+    @Test
+    void acquireIsCounted() {
+        RoutingProfilesCollection profiles = new RoutingProfilesCollection();
+        profiles.acquire();
+        profiles.acquire();
+        profiles.release();
+        assertTrue(profiles.isUsed());
+        profiles.release();
+        assertFalse(profiles.isUsed());
+    }
+}
@@ -0,0 +1,28 @@
+package org.heigit.ors.routing;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RoutingProfileWarmUpTest {
+    @TempDir
+    Path graphDirectory;
+
+    @Test
+    void testReadFullyReadsFilesLargerThanBuffer() throws Exception {
+        Path file = graphDirectory.resolve("nodes");
+        Files.write(file, new byte[(3 << 20) + 17]);
+        assertEquals((3 << 20) + 17, RoutingProfileWarmUp.readFully(file));
+        assertEquals(0, RoutingProfileWarmUp.readFully(Files.createFile(graphDirectory.resolve("empty"))));
+    }
+
+    @Test
+    void testRunWithoutProfiles() {
+        new RoutingProfileWarmUp(2, 10).run(List.of());
+    }
+}
@@ -0,0 +1,118 @@
+package org.heigit.ors.routing.algorithms;
+
+import com.carrotsearch.hppc.IntObjectMap;
+import com.carrotsearch.hppc.cursors.IntObjectCursor;
+import com.graphhopper.routing.SPTEntry;
+import com.graphhopper.routing.ch.PrepareContractionHierarchies;
+import com.graphhopper.routing.util.CarFlagEncoder;
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.routing.util.TraversalMode;
+import com.graphhopper.routing.weighting.ShortestWeighting;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.CHConfig;
+import com.graphhopper.storage.GraphBuilder;
+import com.graphhopper.storage.GraphHopperStorage;
+import com.graphhopper.storage.RoutingCHGraph;
+import com.graphhopper.util.GHUtility;
+import org.heigit.ors.util.ToyGraphCreationUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PHASTAlgorithmTest {
+    private final CarFlagEncoder carEncoder = new CarFlagEncoder();
+    private final EncodingManager encodingManager = EncodingManager.create(carEncoder);
+    private final Weighting weighting = new ShortestWeighting(carEncoder);
+    private final CHConfig chConfig = CHConfig.nodeBased("c", weighting);
+    private int islandEdge;
+
+    private GraphHopperStorage createGraph() {
+        GraphHopperStorage g = ToyGraphCreationUtil.createMediumGraph(new GraphBuilder(encodingManager).setCHConfigs(chConfig).create(), encodingManager);
+        // one-way edges, so that forward and reverse searches differ
+        GHUtility.setSpeed(60, true, false, carEncoder, g.edge(5, 8).setDistance(1));
+        GHUtility.setSpeed(60, true, false, carEncoder, g.edge(2, 6).setDistance(1.5));
+        g.getBaseGraph().getNodeAccess().setNode(9, 0, 0);
+        islandEdge = GHUtility.setSpeed(60, true, false, carEncoder, g.edge(9, 1).setDistance(4)).getEdge();
+        g.freeze();
+        PrepareContractionHierarchies.fromGraphHopperStorage(g, chConfig).doWork();
+        return g;
+    }
+
+    @ParameterizedTest
+    @CsvSource({"0,3,false", "0,3,true", "1,4.5,false", "5,2.5,true", "7,100,false", "9,100,true", "9,5,false"})
+    void matchesDijkstraWithinLimit(int from, double limit, boolean reverse) {
+        GraphHopperStorage g = createGraph();
+        RoutingCHGraph chGraph = g.getRoutingCHGraph(chConfig.getName());
+
+        DijkstraCostCondition dijkstra = new DijkstraCostCondition(g, weighting, limit, reverse, TraversalMode.NODE_BASED);
+        dijkstra.calcPath(from, Integer.MIN_VALUE);
+        IntObjectMap<SPTEntry> expected = dijkstra.getMap();
+
+        PHASTAlgorithm phast = new PHASTAlgorithm(chGraph, g, PHASTAlgorithm.DownwardEdges.create(chGraph, reverse), limit, reverse);
+        IntObjectMap<SPTEntry> actual = phast.calcTree(from);
+
+        int withinLimit = 0;
+        for (IntObjectCursor<SPTEntry> cursor : actual) {
+            if (cursor.value.weight <= limit)
+                withinLimit++;
+        }
+        // each node within the limit is settled at most once by each of the two searches
+        assertTrue(phast.getVisitedNodes() <= 2 * withinLimit, "visited " + phast.getVisitedNodes() + " nodes");
+
+        for (IntObjectCursor<SPTEntry> cursor : expected) {
+            if (cursor.value.weight <= limit) {
+                assertTrue(actual.containsKey(cursor.key), "node " + cursor.key + " missing");
+                assertEquals(cursor.value.weight, actual.get(cursor.key).weight, 1e-6, "weight of node " + cursor.key);
+            }
+        }
+        for (IntObjectCursor<SPTEntry> cursor : actual) {
+            SPTEntry entry = cursor.value;
+            assertTrue(expected.containsKey(cursor.key), "node " + cursor.key + " not reached by Dijkstra");
+            if (cursor.key == from) {
+                assertNull(entry.parent);
+                continue;
+            }
+            assertNotNull(entry.parent, "parent of node " + cursor.key);
+            assertTrue(entry.parent.weight <= limit);
+            double edgeWeight = weighting.calcEdgeWeightWithAccess(g.getEdgeIteratorState(entry.edge, entry.adjNode), reverse);
+            assertEquals(entry.parent.weight + edgeWeight, entry.weight, 1e-6, "weight along the tree to node " + cursor.key);
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({"false", "true"})
+    void downwardEdgesLeadToLowerLevels(boolean reverse) {
+        GraphHopperStorage g = createGraph();
+        RoutingCHGraph chGraph = g.getRoutingCHGraph(chConfig.getName());
+        PHASTAlgorithm.DownwardEdges downwardEdges = PHASTAlgorithm.DownwardEdges.create(chGraph, reverse);
+
+        assertEquals(chGraph.getNodes(), downwardEdges.getNodes());
+        int edges = 0;
+        for (int node = 0; node < chGraph.getNodes(); node++) {
+            for (int adj : downwardEdges.getAdjNodes(node)) {
+                assertTrue(chGraph.getLevel(node) > chGraph.getLevel(adj));
+                edges++;
+            }
+        }
+        assertTrue(edges > 0);
+    }
+
+    @Test
+    void dropsNodesOnlyLinkedOverFilteredEdges() {
+        GraphHopperStorage g = createGraph();
+        RoutingCHGraph chGraph = g.getRoutingCHGraph(chConfig.getName());
+        PHASTAlgorithm phast = new PHASTAlgorithm(chGraph, g, PHASTAlgorithm.DownwardEdges.create(chGraph, false), 100, false);
+        phast.setEdgeFilter(edge -> edge.getEdge() != islandEdge);
+
+        IntObjectMap<SPTEntry> tree = phast.calcTree(9);
+        assertEquals(1, tree.size());
+        assertTrue(tree.containsKey(9));
+
+        tree = phast.calcTree(0);
+        assertFalse(tree.isEmpty());
+        for (IntObjectCursor<SPTEntry> cursor : tree)
+            assertNotEquals(islandEdge, cursor.value.edge);
+    }
+}
@@ -3,13 +3,22 @@ package org.heigit.ors.routing.graphhopper.extensions;
 import com.graphhopper.GHRequest;
 import com.graphhopper.GHResponse;
 import com.graphhopper.ResponsePath;
+import com.graphhopper.config.CHProfile;
 import com.graphhopper.config.Profile;
+import com.graphhopper.storage.NodeAccess;
 import com.graphhopper.util.Instruction;
 import com.graphhopper.util.InstructionList;
+import com.graphhopper.util.Parameters;
 import com.graphhopper.util.PointList;
+import com.graphhopper.util.shapes.GHPoint;
 import org.heigit.ors.routing.configuration.RouteProfileConfiguration;
+import org.heigit.ors.routing.graphhopper.extensions.core.CustomizableCore;
+import org.heigit.ors.routing.graphhopper.extensions.flagencoders.FlagEncoderNames;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -91,6 +100,154 @@ class ORSGraphHopperTest {
         assertEquals(419, storage.getNodes());
     }
 
+    /**
+     * Car and HGV routes through the core on a graph shared by both vehicles have to be the same as on a graph of
+     * their own, which requires each core to be prepared with the filters of its own vehicle.
+     */
+    @Test
+    void sharedGraphRoutesLikeSeparateGraphs(@TempDir Path graphs) throws Exception {
+        String car = FlagEncoderNames.CAR_ORS;
+        String hgv = FlagEncoderNames.HEAVYVEHICLE;
+        ORSGraphHopper shared = buildCoreGraph(graphs.resolve("shared"), "driving-car,driving-hgv", car, hgv);
+        ORSGraphHopper carOnly = buildCoreGraph(graphs.resolve("car"), "driving-car", car);
+        ORSGraphHopper hgvOnly = buildCoreGraph(graphs.resolve("hgv"), "driving-hgv", hgv);
+
+        NodeAccess nodes = carOnly.getGraphHopperStorage().getNodeAccess();
+        int nodeCount = carOnly.getGraphHopperStorage().getNodes();
+        int routes = 0;
+        for (int i = 0; i < nodeCount / 2; i += 7) {
+            GHPoint from = new GHPoint(nodes.getLat(i), nodes.getLon(i));
+            GHPoint to = new GHPoint(nodes.getLat(nodeCount - 1 - i), nodes.getLon(nodeCount - 1 - i));
+            routes += assertSameRoute(routeThroughCore(carOnly, car, from, to), routeThroughCore(shared, car, from, to));
+            routes += assertSameRoute(routeThroughCore(hgvOnly, hgv, from, to), routeThroughCore(shared, hgv, from, to));
+        }
+        assertTrue(routes > 0);
+    }
+
+    /**
+     * The first request with a customization key is answered as before and starts the customization, the following
+     * ones are answered on the customized core with the same routes. A graph loaded later uses the stored topology.
+     */
+    @Test
+    void customizedCoreRoutesLikeFlexibleRouting(@TempDir Path graphs) throws Exception {
+        String car = FlagEncoderNames.CAR_ORS;
+        ORSGraphHopper gh = buildCustomizableCoreGraph(graphs.resolve("car"), car);
+        CustomizableCore core = gh.getCustomizableCore();
+        assertNotNull(core);
+
+        NodeAccess nodes = gh.getGraphHopperStorage().getNodeAccess();
+        int nodeCount = gh.getGraphHopperStorage().getNodes();
+        GHPoint start = new GHPoint(nodes.getLat(0), nodes.getLon(0));
+        GHResponse first = routeOnCustomizedCore(gh, car, start, new GHPoint(nodes.getLat(nodeCount - 1), nodes.getLon(nodeCount - 1)));
+        assertFalse(first.getDebugInfo().contains("customized-core-routing"));
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (core.getCustomization("test") == null && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        assertNotNull(core.getCustomization("test"));
+
+        int routes = 0;
+        for (int i = 0; i < nodeCount / 2; i += 7) {
+            GHPoint from = new GHPoint(nodes.getLat(i), nodes.getLon(i));
+            GHPoint to = new GHPoint(nodes.getLat(nodeCount - 1 - i), nodes.getLon(nodeCount - 1 - i));
+            GHRequest request = new GHRequest(from, to).setProfile(car + "_fastest").setAlgorithm(Parameters.Algorithms.DIJKSTRA_BI);
+            request.getHints().putObject("ch.disable", true);
+            request.getHints().putObject("lm.disable", true);
+            GHResponse customized = routeOnCustomizedCore(gh, car, from, to);
+            int found = assertSameRoute(gh.route(request), customized);
+            if (found > 0)
+                assertTrue(customized.getDebugInfo().contains("customized-core-routing"));
+            routes += found;
+        }
+        assertTrue(routes > 0);
+
+        core.close();
+        gh.close();
+
+        ORSGraphHopper loaded = buildCustomizableCoreGraph(graphs.resolve("car"), car);
+        assertEquals(core.getCoreRank(), loaded.getCustomizableCore().getCoreRank());
+        assertEquals(core.getArcs(), loaded.getCustomizableCore().getArcs());
+        for (int node = 0; node < nodeCount; node++)
+            assertEquals(core.getRank(node), loaded.getCustomizableCore().getRank(node));
+        loaded.getCustomizableCore().close();
+        loaded.close();
+    }
+
+    private static ORSGraphHopper buildCustomizableCoreGraph(Path location, String vehicle) throws Exception {
+        RouteProfileConfiguration rpc = new RouteProfileConfiguration();
+        rpc.setName(location.getFileName().toString());
+        rpc.setEnabled(true);
+        rpc.setProfiles("driving-car");
+        GraphProcessContext gpc = new GraphProcessContext(rpc);
+        ORSGraphHopper gh = new ORSGraphHopper(gpc);
+        gh.setFlagEncoderFactory(new ORSDefaultFlagEncoderFactory());
+        ORSGraphHopperConfig ghConfig = new ORSGraphHopperConfig();
+        ghConfig.putObject("graph.dataaccess", "RAM_STORE");
+        ghConfig.putObject("graph.location", location.toString());
+        ghConfig.putObject("datareader.file", "src/test/files/preprocessed_osm_data.pbf");
+        ghConfig.putObject("graph.flag_encoders", vehicle);
+        ghConfig.putObject("prepare.customizable_core.enabled", true);
+        ghConfig.setProfiles(List.of(new Profile(vehicle + "_fastest").setVehicle(vehicle).setWeighting("fastest").setTurnCosts(false)));
+        gh.init(ghConfig);
+        gh.setGraphStorageFactory(new ORSGraphStorageFactory(gpc.getStorageBuilders()));
+        gh.importOrLoad();
+        return gh;
+    }
+
+    private static GHResponse routeOnCustomizedCore(ORSGraphHopper gh, String vehicle, GHPoint from, GHPoint to) {
+        GHRequest request = new GHRequest(from, to).setProfile(vehicle + "_fastest").setAlgorithm(Parameters.Algorithms.DIJKSTRA_BI);
+        request.getHints().putObject("ch.disable", true);
+        request.getHints().putObject("lm.disable", true);
+        request.getHints().putObject(CustomizableCore.KEY_CUSTOMIZATION, "test");
+        return gh.route(request);
+    }
+
+    private static ORSGraphHopper buildCoreGraph(Path location, String profileTypes, String... vehicles) throws Exception {
+        RouteProfileConfiguration rpc = new RouteProfileConfiguration();
+        rpc.setName(location.getFileName().toString());
+        rpc.setEnabled(true);
+        rpc.setProfiles(profileTypes);
+        GraphProcessContext gpc = new GraphProcessContext(rpc);
+        ORSGraphHopper gh = new ORSGraphHopper(gpc);
+        gh.setFlagEncoderFactory(new ORSDefaultFlagEncoderFactory());
+        ORSGraphHopperConfig ghConfig = new ORSGraphHopperConfig();
+        ghConfig.putObject("graph.dataaccess", "RAM");
+        ghConfig.putObject("graph.location", location.toString());
+        ghConfig.putObject("datareader.file", "src/test/files/preprocessed_osm_data.pbf");
+        ghConfig.putObject("graph.flag_encoders", String.join(",", vehicles));
+        List<Profile> profiles = new ArrayList<>();
+        List<CHProfile> coreProfiles = new ArrayList<>();
+        for (String vehicle : vehicles) {
+            profiles.add(new Profile(vehicle + "_fastest").setVehicle(vehicle).setWeighting("fastest").setTurnCosts(false));
+            coreProfiles.add(new CHProfile(vehicle + "_fastest"));
+        }
+        ghConfig.setProfiles(profiles);
+        ghConfig.setCoreProfiles(coreProfiles);
+        gh.init(ghConfig);
+        gh.setGraphStorageFactory(new ORSGraphStorageFactory(gpc.getStorageBuilders()));
+        gh.importOrLoad();
+        return gh;
+    }
+
+    private static GHResponse routeThroughCore(ORSGraphHopper gh, String vehicle, GHPoint from, GHPoint to) {
+        GHRequest request = new GHRequest(from, to).setProfile(vehicle + "_fastest").setAlgorithm(Parameters.Algorithms.ASTAR_BI);
+        request.getHints().putObject("ch.disable", true);
+        request.getHints().putObject("lm.disable", true);
+        request.getHints().putObject("core.disable", false);
+        return gh.route(request);
+    }
+
+    /**
+     * @return 1 if a route has been found, 0 otherwise
+     */
+    private static int assertSameRoute(GHResponse expected, GHResponse actual) {
+        assertEquals(expected.hasErrors(), actual.hasErrors());
+        if (expected.hasErrors())
+            return 0;
+        assertEquals(expected.getBest().getDistance(), actual.getBest().getDistance(), 0.1);
+        assertEquals(expected.getBest().getTime(), actual.getBest().getTime(), 10);
+        return 1;
+    }
+
     private void checkInstructions(InstructionList instructions) {
         for (Instruction instruction : instructions) {
             PointList points = instruction.getPoints();
@@ -0,0 +1,42 @@
+package org.heigit.ors.routing.graphhopper.extensions;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchComponentsScopeTest {
+    private final Object owner = new Object();
+
+    @Test
+    void createsComponentsPerRequestOutsideOfScope() {
+        assertNotSame(SearchComponentsScope.get(owner, "weighting", "car", Object::new),
+                SearchComponentsScope.get(owner, "weighting", "car", Object::new));
+    }
+
+    @Test
+    void sharesComponentsWithEqualKeysWithinScope() {
+        try (SearchComponentsScope scope = SearchComponentsScope.open()) {
+            Object weighting = SearchComponentsScope.get(owner, "weighting", "car", Object::new);
+            assertSame(weighting, SearchComponentsScope.get(owner, "weighting", "car", Object::new));
+            assertNotSame(weighting, SearchComponentsScope.get(owner, "weighting", "hgv", Object::new));
+            assertNotSame(weighting, SearchComponentsScope.get(owner, "edgeFilter", "car", Object::new));
+            assertNotSame(weighting, SearchComponentsScope.get(new Object(), "weighting", "car", Object::new));
+            assertNotSame(SearchComponentsScope.get(owner, "weighting", null, Object::new),
+                    SearchComponentsScope.get(owner, "weighting", null, Object::new));
+        }
+        assertFalse(SearchComponentsScope.isOpen());
+    }
+
+    @Test
+    void nestedScopeKeepsOuterScopeOpen() {
+        try (SearchComponentsScope scope = SearchComponentsScope.open()) {
+            Object weighting = SearchComponentsScope.get(owner, "weighting", "car", Object::new);
+            try (SearchComponentsScope nested = SearchComponentsScope.open()) {
+                assertSame(weighting, SearchComponentsScope.get(owner, "weighting", "car", Object::new));
+            }
+            assertTrue(SearchComponentsScope.isOpen());
+            assertSame(weighting, SearchComponentsScope.get(owner, "weighting", "car", Object::new));
+        }
+        assertFalse(SearchComponentsScope.isOpen());
+    }
+}
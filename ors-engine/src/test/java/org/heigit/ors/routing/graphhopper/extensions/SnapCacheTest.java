@@ -0,0 +1,57 @@
+package org.heigit.ors.routing.graphhopper.extensions;
+
+import com.graphhopper.routing.util.EdgeFilter;
+import com.graphhopper.storage.index.LocationIndex;
+import com.graphhopper.storage.index.Snap;
+import com.graphhopper.util.shapes.BBox;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class SnapCacheTest {
+    private static class CountingIndex implements LocationIndex {
+        int lookups;
+
+        @Override
+        public Snap findClosest(double lat, double lon, EdgeFilter edgeFilter) {
+            lookups++;
+            return new Snap(lat, lon);
+        }
+
+        @Override
+        public void query(BBox queryBBox, Visitor function) {
+        }
+
+        public void close() {
+        }
+    }
+
+    @Test
+    void servesRepeatedLookupsFromCache() {
+        CountingIndex index = new CountingIndex();
+        SnapCache cache = new SnapCache(10);
+        cache.findClosest(index, null, 49.41, 8.68, EdgeFilter.ALL_EDGES, "car");
+        assertFalse(cache.findClosest(index, null, 49.41, 8.68, EdgeFilter.ALL_EDGES, "car").isValid());
+        assertEquals(1, index.lookups);
+        cache.findClosest(index, null, 49.41, 8.68, EdgeFilter.ALL_EDGES, "hgv");
+        assertEquals(2, index.lookups);
+    }
+
+    @Test
+    void bypassedCacheIsNeitherReadNorFilled() {
+        CountingIndex index = new CountingIndex();
+        SnapCache cache = new SnapCache(10);
+        cache.findClosest(index, null, 49.41, 8.68, EdgeFilter.ALL_EDGES, "car");
+
+        cache.setBypassed(true);
+        cache.findClosest(index, null, 49.41, 8.68, EdgeFilter.ALL_EDGES, "car");
+        cache.findClosest(index, null, 50.0, 9.0, EdgeFilter.ALL_EDGES, "car");
+        assertEquals(3, index.lookups);
+
+        cache.setBypassed(false);
+        cache.findClosest(index, null, 49.41, 8.68, EdgeFilter.ALL_EDGES, "car");
+        cache.findClosest(index, null, 50.0, 9.0, EdgeFilter.ALL_EDGES, "car");
+        assertEquals(4, index.lookups);
+    }
+}
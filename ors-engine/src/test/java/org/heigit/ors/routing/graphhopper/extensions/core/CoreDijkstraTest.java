@@ -154,6 +154,29 @@ class CoreDijkstraTest {
         assertEquals(144829, p1.getTime(), p1.toString());
     }
 
+    @Test
+    void testConsecutiveQueriesReuseScratch() {
+        // Core consisting of a single edge 1-2, every query reuses the collections of the previous one
+        ghStorage = createGHStorage();
+        initDirectedAndDiffSpeed(ghStorage, carEncoder);
+
+        CoreTestEdgeFilter restrictedEdges = new CoreTestEdgeFilter();
+        restrictedEdges.add(4);
+
+        prepareCore(ghStorage, chConfig, restrictedEdges);
+
+        RoutingCHGraph chGraph = ghStorage.getCoreGraph(chConfig.getName());
+        CoreRoutingAlgorithmFactory factory = new CoreRoutingAlgorithmFactory(chGraph);
+        for (int i = 0; i < 3; i++) {
+            Path p1 = factory.createAlgo(ghStorage, weighting, new AlgorithmOptions()).calcPath(0, 3);
+            assertEquals(IntArrayList.from(0, 1, 5, 2, 3), p1.calcNodes());
+            assertEquals(402.30, p1.getDistance(), 1e-2, p1.toString());
+
+            Path p2 = factory.createAlgo(ghStorage, weighting, new AlgorithmOptions()).calcPath(4, 7);
+            assertEquals(IntArrayList.from(4, 6, 7), p2.calcNodes());
+        }
+    }
+
     @Test
     void testCoreGraph() {
         // All edges are part of core
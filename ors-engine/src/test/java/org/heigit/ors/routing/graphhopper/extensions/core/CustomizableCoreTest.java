@@ -0,0 +1,222 @@
+package org.heigit.ors.routing.graphhopper.extensions.core;
+
+import com.graphhopper.routing.Dijkstra;
+import com.graphhopper.routing.Path;
+import com.graphhopper.routing.querygraph.QueryGraph;
+import com.graphhopper.routing.util.AllEdgesIterator;
+import com.graphhopper.routing.util.CarFlagEncoder;
+import com.graphhopper.routing.util.EdgeFilter;
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.routing.util.TraversalMode;
+import com.graphhopper.routing.weighting.ShortestWeighting;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.Graph;
+import com.graphhopper.storage.GraphHopperStorage;
+import com.graphhopper.storage.NodeAccess;
+import com.graphhopper.storage.RAMDirectory;
+import com.graphhopper.storage.index.LocationIndexTree;
+import com.graphhopper.storage.index.Snap;
+import com.graphhopper.util.GHUtility;
+import org.heigit.ors.util.ToyGraphCreationUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomizableCoreTest {
+    private final CarFlagEncoder carEncoder = new CarFlagEncoder();
+    private final EncodingManager encodingManager = EncodingManager.create(carEncoder);
+    private final Weighting weighting = new ShortestWeighting(carEncoder);
+
+    private GraphHopperStorage createStorage() {
+        GraphHopperStorage g = ToyGraphCreationUtil.createMediumGraph(encodingManager);
+        // a parallel edge, which must not lead to a second arc
+        GHUtility.setSpeed(60, true, true, carEncoder, g.edge(1, 0).setDistance(3));
+        // one-way edges, so that the weights of both directions of an arc differ
+        GHUtility.setSpeed(60, true, false, carEncoder, g.edge(5, 8).setDistance(1));
+        GHUtility.setSpeed(60, true, false, carEncoder, g.edge(2, 6).setDistance(1.5));
+        return g;
+    }
+
+    private Graph createGraph() {
+        return createStorage().getBaseGraph();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 2, 3, 32})
+    void matchesDijkstra(int maxDegree) {
+        Graph graph = createGraph();
+        CustomizableCore core = CustomizableCore.build(graph, maxDegree, 1);
+        CustomizedCore customization = CustomizedCore.customize(core, graph, weighting, EdgeFilter.ALL_EDGES);
+        if (maxDegree == 32)
+            assertEquals(graph.getNodes(), core.getCoreRank());
+
+        for (int from = 0; from < graph.getNodes(); from++) {
+            for (int to = 0; to < graph.getNodes(); to++) {
+                Path expected = new Dijkstra(graph, weighting, TraversalMode.NODE_BASED).calcPath(from, to);
+                Path actual = new CustomizedCoreSearch(customization, graph, weighting, EdgeFilter.ALL_EDGES, Integer.MAX_VALUE).calcPath(from, to);
+                String route = from + " -> " + to;
+                assertEquals(expected.isFound(), actual.isFound(), route);
+                if (!expected.isFound())
+                    continue;
+                assertEquals(expected.getWeight(), actual.getWeight(), 1e-3, route);
+                assertEquals(expected.getDistance(), actual.getDistance(), 1e-3, route);
+                assertEquals(from, actual.calcNodes().get(0), route);
+                assertEquals(to, actual.calcNodes().get(actual.calcNodes().size() - 1), route);
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 3})
+    void filteredEdgesAreAvoided(int maxDegree) {
+        Graph graph = createGraph();
+        // without edge 5 -> 8 the only way into 8 leads over other nodes
+        int blocked = graph.getEdges() - 2;
+        EdgeFilter filter = edge -> edge.getEdge() != blocked;
+        CustomizableCore core = CustomizableCore.build(graph, maxDegree, 1);
+        CustomizedCore customization = CustomizedCore.customize(core, graph, weighting, filter);
+
+        Path path = new CustomizedCoreSearch(customization, graph, weighting, filter, Integer.MAX_VALUE).calcPath(5, 8);
+        Dijkstra dijkstra = new Dijkstra(graph, weighting, TraversalMode.NODE_BASED);
+        dijkstra.setEdgeFilter(filter);
+        Path expected = dijkstra.calcPath(5, 8);
+        assertTrue(expected.isFound());
+        assertTrue(path.isFound());
+        assertEquals(expected.getWeight(), path.getWeight(), 1e-3);
+        assertFalse(path.calcEdges().stream().anyMatch(edge -> edge.getEdge() == blocked));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 3})
+    void matchesDijkstraOnQueryGraph(int maxDegree) {
+        GraphHopperStorage storage = createStorage();
+        Graph graph = storage.getBaseGraph();
+        CustomizableCore core = CustomizableCore.build(graph, maxDegree, 1);
+        CustomizedCore customization = CustomizedCore.customize(core, graph, weighting, EdgeFilter.ALL_EDGES);
+        LocationIndexTree index = new LocationIndexTree(graph, new RAMDirectory());
+        index.prepareIndex();
+
+        // snapped to the middle of every edge, several of them on the same edge
+        NodeAccess nodeAccess = graph.getNodeAccess();
+        List<Snap> snaps = new ArrayList<>();
+        AllEdgesIterator iter = graph.getAllEdges();
+        while (iter.next()) {
+            double lat = (nodeAccess.getLat(iter.getBaseNode()) + nodeAccess.getLat(iter.getAdjNode())) / 2;
+            double lon = (nodeAccess.getLon(iter.getBaseNode()) + nodeAccess.getLon(iter.getAdjNode())) / 2;
+            for (double offset : new double[]{0, 0.01}) {
+                Snap snap = index.findClosest(lat + offset, lon, EdgeFilter.ALL_EDGES);
+                if (snap.isValid())
+                    snaps.add(snap);
+            }
+        }
+        QueryGraph queryGraph = QueryGraph.create(graph, snaps);
+        assertTrue(queryGraph.getNodes() > graph.getNodes());
+
+        for (Snap fromSnap : snaps) {
+            for (Snap toSnap : snaps) {
+                int from = fromSnap.getClosestNode();
+                int to = toSnap.getClosestNode();
+                Path expected = new Dijkstra(queryGraph, weighting, TraversalMode.NODE_BASED).calcPath(from, to);
+                Path actual = new CustomizedCoreSearch(customization, queryGraph, weighting, EdgeFilter.ALL_EDGES, Integer.MAX_VALUE).calcPath(from, to);
+                String route = from + " -> " + to;
+                assertEquals(expected.isFound(), actual.isFound(), route);
+                if (!expected.isFound())
+                    continue;
+                assertEquals(expected.getWeight(), actual.getWeight(), 1e-3, route);
+                assertEquals(expected.getDistance(), actual.getDistance(), 1e-3, route);
+            }
+        }
+    }
+
+    @Test
+    void storesAndLoadsTopology(@TempDir File location) {
+        Graph graph = createGraph();
+        CustomizableCore built = CustomizableCore.loadOrBuild(graph, new RAMDirectory(location.getPath(), true), 3, 1);
+        // as after a restart
+        CustomizableCore loaded = CustomizableCore.loadOrBuild(graph, new RAMDirectory(location.getPath(), true), 3, 1);
+        assertEquals(built.getCoreRank(), loaded.getCoreRank());
+        assertEquals(built.getArcs(), loaded.getArcs());
+        for (int node = 0; node < graph.getNodes(); node++) {
+            assertEquals(built.getRank(node), loaded.getRank(node));
+            assertEquals(built.getArcsStart(node), loaded.getArcsStart(node));
+        }
+        for (int arc = 0; arc < built.getArcs(); arc++) {
+            assertEquals(built.getHead(arc), loaded.getHead(arc));
+            assertEquals(built.getEdgesEnd(arc), loaded.getEdgesEnd(arc));
+        }
+        // one arc per pair of adjacent nodes, the parallel edges share theirs
+        int arc = built.findArc(0, 1);
+        assertEquals(2, built.getEdgesEnd(arc) - built.getEdgesStart(arc));
+    }
+
+    @Test
+    void dropsCustomizationsWhenClosed() throws InterruptedException {
+        Graph graph = createGraph();
+        CustomizableCore core = CustomizableCore.build(graph, 3, 2);
+        core.customizeLater("a", graph, weighting, EdgeFilter.ALL_EDGES);
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (core.getCustomization("a") == null && System.currentTimeMillis() < deadline)
+            Thread.sleep(10);
+        assertNotNull(core.getCustomization("a"));
+
+        core.close();
+        assertNull(core.getCustomization("a"));
+        core.customizeLater("b", graph, weighting, EdgeFilter.ALL_EDGES);
+        Thread.sleep(100);
+        assertNull(core.getCustomization("b"));
+    }
+
+    @Test
+    void interruptedCustomizationIsCancelled() {
+        Graph graph = createGraph();
+        CustomizableCore core = CustomizableCore.build(graph, 3, 1);
+        Thread.currentThread().interrupt();
+        try {
+            assertThrows(CancellationException.class, () -> CustomizedCore.customize(core, graph, weighting, EdgeFilter.ALL_EDGES));
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    void closeWaitsForRunningCustomization() throws Exception {
+        Graph graph = createGraph();
+        CustomizableCore core = CustomizableCore.build(graph, 3, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        EdgeFilter blockingFilter = edge -> {
+            started.countDown();
+            // a graph read in progress, which does not react to the interrupt
+            while (proceed.getCount() > 0) {
+                try {
+                    proceed.await();
+                } catch (InterruptedException e) {
+                    // keep reading
+                }
+            }
+            return true;
+        };
+        core.customizeLater("a", graph, weighting, blockingFilter);
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        CompletableFuture<Void> close = CompletableFuture.runAsync(core::close);
+        Thread.sleep(100);
+        assertFalse(close.isDone());
+
+        proceed.countDown();
+        close.get(10, TimeUnit.SECONDS);
+        assertNull(core.getCustomization("a"));
+    }
+}
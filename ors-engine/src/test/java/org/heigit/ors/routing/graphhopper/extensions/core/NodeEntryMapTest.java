@@ -0,0 +1,82 @@
+package org.heigit.ors.routing.graphhopper.extensions.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NodeEntryMapTest {
+
+    @Test
+    void putGetAndClear() {
+        NodeEntryMap<String> map = new NodeEntryMap<>(4);
+        map.put(7, "a");
+        map.put(0, "b");
+        map.put(7, "c");
+        assertEquals("c", map.get(7));
+        assertEquals("b", map.get(0));
+        assertNull(map.get(1));
+        assertEquals(2, map.size());
+
+        map.clear();
+        assertEquals(0, map.size());
+        assertNull(map.get(7));
+        assertNull(map.get(0));
+        map.put(0, "d");
+        assertEquals("d", map.get(0));
+    }
+
+    @Test
+    void growsAndKeepsEntries() {
+        NodeEntryMap<Integer> map = new NodeEntryMap<>(4);
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int run = 0; run < 3; run++) {
+            map.clear();
+            expected.clear();
+            for (int i = 0; i < 10000; i++) {
+                int key = random.nextInt(100000);
+                map.put(key, i);
+                expected.put(key, i);
+            }
+            assertEquals(expected.size(), map.size());
+            for (int key = 0; key < 100000; key++)
+                assertEquals(expected.get(key), map.get(key));
+        }
+    }
+
+    @Test
+    void clearReleasesValues() {
+        NodeEntryMap<Object> map = new NodeEntryMap<>(4);
+        Object value = new Object();
+        WeakReference<Object> reference = new WeakReference<>(value);
+        map.put(3, value);
+        for (int i = 0; i < 100; i++)
+            map.put(100 + i, new Object());
+        value = null;
+        map.clear();
+        for (int i = 0; i < 10 && reference.get() != null; i++)
+            System.gc();
+        assertNull(reference.get());
+        assertNull(map.get(3));
+    }
+
+    @Test
+    void scratchIsReusedByConsecutiveSearches() {
+        CoreSearchScratch<Object> first = CoreSearchScratch.acquire();
+        CoreSearchScratch<Object> nested = CoreSearchScratch.acquire();
+        assertNotSame(first, nested);
+        nested.release();
+
+        first.fromMapCH.put(1, "entry");
+        first.release();
+        CoreSearchScratch<Object> second = CoreSearchScratch.acquire();
+        assertSame(first, second);
+        assertNull(second.fromMapCH.get(1));
+        second.release();
+    }
+}
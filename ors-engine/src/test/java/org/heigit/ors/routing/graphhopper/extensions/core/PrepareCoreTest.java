@@ -21,15 +21,18 @@ import com.graphhopper.routing.weighting.ShortestWeighting;
 import com.graphhopper.routing.weighting.Weighting;
 import com.graphhopper.storage.*;
 import com.graphhopper.util.GHUtility;
+import com.graphhopper.util.PMap;
+import net.jqwik.api.ForAll;
+import net.jqwik.api.Property;
+import net.jqwik.api.constraints.IntRange;
 import org.heigit.ors.routing.graphhopper.extensions.ORSGraphHopperStorage;
 import org.heigit.ors.util.DebugUtility;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.*;
 
+import static com.graphhopper.routing.ch.CHParameters.CONTRACTED_NODES;
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -425,6 +428,65 @@ public class PrepareCoreTest {
 
         contractGraph(restrictedEdges);
 
+        assertComplexRestricted();
+    }
+
+    /**
+     * The restrictions evaluated by several threads have to give the same core and shortcuts as a single thread.
+     */
+    @Property(tries = 200)
+    void restrictionThreadsGiveSameCore(@ForAll long seed, @ForAll @IntRange(min = 2, max = 8) int threads) {
+        RoutingCHGraph expected = contractRandomGraph(seed, 1);
+        RoutingCHGraph actual = contractRandomGraph(seed, threads);
+
+        assertEquals(expected.getNodes(), actual.getNodes());
+        for (int node = 0; node < expected.getNodes(); node++)
+            assertEquals(expected.getLevel(node), actual.getLevel(node), "level of node " + node);
+        assertEquals(findShortcuts(expected), findShortcuts(actual));
+    }
+
+    private RoutingCHGraph contractRandomGraph(long seed, int threads) {
+        Random random = new Random(seed);
+        ORSGraphHopperStorage graph = new ORSGraphHopperStorage(new RAMDirectory(), encodingManager, false, false, -1);
+        graph.addCoreGraph(chConfig);
+        graph.create(1000);
+        int nodes = 2 + random.nextInt(40);
+        int edges = random.nextInt(3 * nodes);
+        CoreTestEdgeFilter restrictedEdges = new CoreTestEdgeFilter();
+        for (int edge = 0; edge < edges; edge++) {
+            int from = random.nextInt(nodes);
+            int to = (from + 1 + random.nextInt(nodes - 1)) % nodes;
+            GHUtility.setSpeed(60, true, random.nextInt(5) > 0, carEncoder, graph.edge(from, to).setDistance(1 + random.nextInt(20)));
+            if (random.nextInt(8) == 0)
+                restrictedEdges.add(edge, random.nextBoolean());
+        }
+        graph.freeze();
+
+        // every thread gets a filter of its own
+        PrepareCore prepare = new PrepareCore(graph, chConfig, () -> {
+            CoreTestEdgeFilter filter = new CoreTestEdgeFilter();
+            filter.addAll(restrictedEdges);
+            return filter;
+        });
+        prepare.setParams(new PMap(CONTRACTED_NODES + "=99").putObject(PrepareCore.RESTRICTION_THREADS, threads));
+        prepare.doWork();
+        return graph.getCoreGraph(chConfig.getName());
+    }
+
+    private static Map<Shortcut, Integer> findShortcuts(RoutingCHGraph chGraph) {
+        RoutingCHEdgeExplorer explorer = chGraph.createOutEdgeExplorer();
+        Map<Shortcut, Integer> shortcuts = new HashMap<>();
+        for (int node = 0; node < chGraph.getNodes(); node++) {
+            RoutingCHEdgeIterator iter = explorer.setBaseNode(node);
+            while (iter.next()) {
+                if (iter.isShortcut())
+                    shortcuts.merge(new Shortcut(iter.getBaseNode(), iter.getAdjNode(), iter.getWeight(false)), 1, Integer::sum);
+            }
+        }
+        return shortcuts;
+    }
+
+    private void assertComplexRestricted() {
         HashSet<Shortcut> shortcuts = new HashSet<>();
         shortcuts.add(new Shortcut(2, 6, 4));
         shortcuts.add(new Shortcut(2, 12, 4));
@@ -0,0 +1,73 @@
+package org.heigit.ors.routing.graphhopper.extensions.reader;
+
+import com.graphhopper.reader.ReaderElement;
+import com.graphhopper.reader.osm.OSMInput;
+import com.graphhopper.reader.osm.OSMInputFile;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SharedOSMReaderTest {
+    private static final File OSM_FILE = new File("src/test/files/preprocessed_osm_data.pbf");
+
+    private static List<ReaderElement> readAll(OSMInput input) throws Exception {
+        List<ReaderElement> elements = new ArrayList<>();
+        try (input) {
+            ReaderElement element;
+            while ((element = input.getNext()) != null)
+                elements.add(element);
+        }
+        return elements;
+    }
+
+    private static void assertSameElements(List<ReaderElement> expected, List<ReaderElement> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getType(), actual.get(i).getType());
+            assertEquals(expected.get(i).getId(), actual.get(i).getId());
+            assertEquals(expected.get(i).getTags(), actual.get(i).getTags());
+        }
+    }
+
+    @Test
+    void readersOfOneRoundGetTheirOwnCopies() throws Exception {
+        List<ReaderElement> expected = readAll(new OSMInputFile(OSM_FILE).open());
+        SharedOSMReader sharedReader = new SharedOSMReader(OSM_FILE, 2, 2, 2, 60000);
+
+        CompletableFuture<List<ReaderElement>> first = CompletableFuture.supplyAsync(() -> read(sharedReader));
+        CompletableFuture<List<ReaderElement>> second = CompletableFuture.supplyAsync(() -> read(sharedReader));
+
+        List<ReaderElement> firstElements = first.get();
+        List<ReaderElement> secondElements = second.get();
+        assertSameElements(expected, firstElements);
+        assertSameElements(expected, secondElements);
+        for (int i = 0; i < firstElements.size(); i++) {
+            if (firstElements.get(i).getType() != ReaderElement.FILEHEADER)
+                assertNotSame(firstElements.get(i), secondElements.get(i));
+        }
+    }
+
+    @Test
+    void roundStartsWithoutReadersWhichHaveFinished() throws Exception {
+        List<ReaderElement> expected = readAll(new OSMInputFile(OSM_FILE).open());
+        SharedOSMReader sharedReader = new SharedOSMReader(OSM_FILE, 2, 2, 2, 60000);
+        sharedReader.readerFinished();
+
+        // would wait for the join timeout if the finished reader were still expected
+        assertSameElements(expected, readAll(sharedReader.open()));
+        assertSameElements(expected, readAll(sharedReader.open()));
+    }
+
+    private static List<ReaderElement> read(SharedOSMReader sharedReader) {
+        try {
+            return readAll(sharedReader.open());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
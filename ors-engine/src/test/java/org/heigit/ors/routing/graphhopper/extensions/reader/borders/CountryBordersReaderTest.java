@@ -122,6 +122,20 @@ class CountryBordersReaderTest {
         assertEquals("1", _reader.getId("country1"));
     }
 
+    /**
+     * Test that the numeric id of the country surrounding the given point is found through the spatial index
+     */
+    @Test
+    void TestGetCountryIdOfCoordinate() {
+        assertEquals(1, _reader.getCountryId(new Coordinate(0.5, 0.5)));
+        // country2 has no id, and no country surrounds the last point
+        assertEquals(CountryBordersReader.NO_COUNTRY, _reader.getCountryId(new Coordinate(1.5, 1.5)));
+        assertEquals(CountryBordersReader.NO_COUNTRY, _reader.getCountryId(new Coordinate(5, 5)));
+
+        _reader.addId("2", "country2", "country2 English", "CU", "CTU");
+        assertEquals(2, _reader.getCountryId(new Coordinate(1.5, 1.5)));
+    }
+
     /**
      * Test that the correct English name is returned for a country of the given local name
      */
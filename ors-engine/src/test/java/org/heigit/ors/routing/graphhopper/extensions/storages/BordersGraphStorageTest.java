@@ -35,4 +35,16 @@ class BordersGraphStorageTest {
         assertEquals(2, _storage.getEdgeValue(1, BordersGraphStorage.Property.START));
         assertEquals(3, _storage.getEdgeValue(1, BordersGraphStorage.Property.END));
     }
+
+    @Test
+    void TestNodeCountries() {
+        _storage.setEdgeValue(2, BordersGraphStorage.CONTROLLED_BORDER, (short) 2, (short) 3, (short) 3, (short) 2);
+        _storage.setEdgeValue(3, BordersGraphStorage.NO_BORDER, (short) 2, (short) 2);
+
+        assertEquals(2, _storage.getEdgeValue(2, BordersGraphStorage.Property.START));
+        assertEquals(3, _storage.getNodeCountry(2, false));
+        assertEquals(2, _storage.getNodeCountry(2, true));
+        assertEquals(0, _storage.getNodeCountry(3, false));
+        assertEquals(0, _storage.getNodeCountry(3, true));
+    }
 }
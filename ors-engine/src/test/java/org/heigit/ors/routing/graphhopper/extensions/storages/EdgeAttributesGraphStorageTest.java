@@ -0,0 +1,125 @@
+package org.heigit.ors.routing.graphhopper.extensions.storages;
+
+import com.graphhopper.storage.DataAccess;
+import com.graphhopper.storage.Directory;
+import com.graphhopper.storage.RAMDirectory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EdgeAttributesGraphStorageTest {
+    @TempDir
+    Path graphDirectory;
+
+    private final byte[] buffer = new byte[2];
+
+    @Test
+    void testColumnsShareOneRecordPerEdge() {
+        WayCategoryGraphStorage wayCategory = new WayCategoryGraphStorage();
+        TrailDifficultyScaleGraphStorage trailDifficulty = new TrailDifficultyScaleGraphStorage();
+        HillIndexGraphStorage hillIndex = new HillIndexGraphStorage(Map.of());
+        TollwaysGraphStorage tollways = new TollwaysGraphStorage();
+        EdgeAttributesGraphStorage attributes = createStorage(new RAMDirectory(), wayCategory, trailDifficulty, hillIndex, tollways);
+        attributes.create(2);
+        assertEquals(5, attributes.getRecordBytes());
+
+        for (int edge = 0; edge < 3; edge++) {
+            wayCategory.setEdgeValue(edge, 0xF0 | edge);
+            trailDifficulty.setEdgeValue(edge, edge + 1, edge + 2, edge + 3);
+            hillIndex.setEdgeValue(edge, edge + 4, edge + 5);
+            tollways.setEdgeValue(edge, 0xFF - edge);
+        }
+
+        assertEquals(3, attributes.entries());
+        for (int edge = 0; edge < 3; edge++) {
+            assertEquals(0xF0 | edge, wayCategory.getEdgeValue(edge, buffer));
+            assertEquals(edge + 1, trailDifficulty.getHikingScale(edge, buffer));
+            assertEquals(edge + 2, trailDifficulty.getMtbScale(edge, buffer, false));
+            assertEquals(edge + 3, trailDifficulty.getMtbScale(edge, buffer, true));
+            assertEquals(edge + 4, hillIndex.getEdgeValue(edge, true, buffer));
+            assertEquals(edge + 5, hillIndex.getEdgeValue(edge, false, buffer));
+            assertEquals(0xFF - edge, tollways.getEdgeValue(edge));
+        }
+    }
+
+    @Test
+    void testLoadExistingChecksLayout() {
+        String location = graphDirectory.toString();
+        WayCategoryGraphStorage wayCategory = new WayCategoryGraphStorage();
+        EdgeAttributesGraphStorage attributes = createStorage(new RAMDirectory(location, true), wayCategory, new TollwaysGraphStorage());
+        attributes.create(1);
+        wayCategory.setEdgeValue(4, 3);
+        attributes.flush();
+        attributes.close();
+
+        WayCategoryGraphStorage loadedWayCategory = new WayCategoryGraphStorage();
+        EdgeAttributesGraphStorage loaded = createStorage(new RAMDirectory(location, true), loadedWayCategory, new TollwaysGraphStorage());
+        assertTrue(loaded.loadExisting());
+        assertEquals(5, loaded.entries());
+        assertEquals(3, loadedWayCategory.getEdgeValue(4, buffer));
+        loaded.close();
+
+        // the layout does not depend on the order in which the storages are configured
+        WayCategoryGraphStorage reorderedWayCategory = new WayCategoryGraphStorage();
+        EdgeAttributesGraphStorage reordered = createStorage(new RAMDirectory(location, true), new TollwaysGraphStorage(), reorderedWayCategory);
+        assertTrue(reordered.loadExisting());
+        assertEquals(3, reorderedWayCategory.getEdgeValue(4, buffer));
+        reordered.close();
+
+        EdgeAttributesGraphStorage other = createStorage(new RAMDirectory(location, true), new WayCategoryGraphStorage(), new WaySurfaceTypeGraphStorage());
+        IllegalStateException e = assertThrows(IllegalStateException.class, other::loadExisting);
+        assertTrue(e.getMessage().contains("other graph storages"));
+    }
+
+    @Test
+    void testGraphWithFormerStoragesNeedsRebuild() {
+        // a graph built before the storages shared a table has a file per storage
+        String location = graphDirectory.toString();
+        WayCategoryGraphStorage former = new WayCategoryGraphStorage();
+        former.init(null, new RAMDirectory(location, true));
+        former.create(1);
+        former.setEdgeValue(0, 1);
+        former.flush();
+        former.close();
+
+        EdgeAttributesGraphStorage attributes = createStorage(new RAMDirectory(location, true), new WayCategoryGraphStorage(), new TollwaysGraphStorage());
+        IllegalStateException e = assertThrows(IllegalStateException.class, attributes::loadExisting);
+        assertTrue(e.getMessage().contains("older storage layout"));
+    }
+
+    @Test
+    void testOlderVersionNeedsRebuild() {
+        String location = graphDirectory.toString();
+        DataAccess older = new RAMDirectory(location, true).find(EdgeAttributesGraphStorage.NAME);
+        older.create(100);
+        older.setHeader(0, 1);
+        older.flush();
+        older.close();
+
+        EdgeAttributesGraphStorage attributes = createStorage(new RAMDirectory(location, true), new WayCategoryGraphStorage());
+        IllegalStateException e = assertThrows(IllegalStateException.class, attributes::loadExisting);
+        assertTrue(e.getMessage().contains("older storage layout"));
+    }
+
+    @Test
+    void testColumnCannotBeSharedTwice() {
+        WayCategoryGraphStorage wayCategory = new WayCategoryGraphStorage();
+        new EdgeAttributesGraphStorage().addColumn(wayCategory);
+        EdgeAttributesGraphStorage other = new EdgeAttributesGraphStorage();
+        assertThrows(IllegalStateException.class, () -> other.addColumn(wayCategory));
+    }
+
+    private static EdgeAttributesGraphStorage createStorage(Directory dir, EdgeAttributesColumn... columns) {
+        EdgeAttributesGraphStorage attributes = new EdgeAttributesGraphStorage();
+        for (EdgeAttributesColumn column : columns) {
+            attributes.addColumn(column);
+            column.init(null, dir);
+        }
+        attributes.init(null, dir);
+        return attributes;
+    }
+}
@@ -0,0 +1,225 @@
+package org.heigit.ors.routing.graphhopper.extensions.storages;
+
+import com.graphhopper.routing.ev.BooleanEncodedValue;
+import com.graphhopper.routing.util.EdgeFilter;
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.routing.util.FlagEncoder;
+import com.graphhopper.routing.util.TraversalMode;
+import com.graphhopper.storage.ConditionalEdges;
+import com.graphhopper.storage.ExtendedStorageSequence;
+import com.graphhopper.storage.GraphExtension;
+import com.graphhopper.storage.RAMDirectory;
+import com.graphhopper.util.EdgeExplorer;
+import com.graphhopper.util.EdgeIterator;
+import com.graphhopper.util.EdgeIteratorState;
+import com.graphhopper.util.GHUtility;
+import com.graphhopper.util.PMap;
+import net.jqwik.api.ForAll;
+import net.jqwik.api.Property;
+import org.heigit.ors.routing.AvoidFeatureFlags;
+import org.heigit.ors.routing.RoutingProfileCategory;
+import org.heigit.ors.routing.graphhopper.extensions.HeavyVehicleAttributes;
+import org.heigit.ors.routing.graphhopper.extensions.ORSDefaultFlagEncoderFactory;
+import org.heigit.ors.routing.graphhopper.extensions.ORSGraphHopperStorage;
+import org.heigit.ors.routing.graphhopper.extensions.VehicleDimensionRestrictions;
+import org.heigit.ors.routing.graphhopper.extensions.VehicleLoadCharacteristicsFlags;
+import org.heigit.ors.routing.graphhopper.extensions.WheelchairAttributes;
+import org.heigit.ors.routing.graphhopper.extensions.edgefilters.AvoidFeaturesEdgeFilter;
+import org.heigit.ors.routing.graphhopper.extensions.edgefilters.HeavyVehicleEdgeFilter;
+import org.heigit.ors.routing.graphhopper.extensions.edgefilters.WheelchairEdgeFilter;
+import org.heigit.ors.routing.graphhopper.extensions.edgefilters.core.AvoidFeaturesCoreEdgeFilter;
+import org.heigit.ors.routing.graphhopper.extensions.edgefilters.core.HeavyVehicleCoreEdgeFilter;
+import org.heigit.ors.routing.graphhopper.extensions.edgefilters.core.TimeDependentCoreEdgeFilter;
+import org.heigit.ors.routing.graphhopper.extensions.edgefilters.core.WheelchairCoreEdgeFilter;
+import org.heigit.ors.routing.graphhopper.extensions.flagencoders.FlagEncoderNames;
+import org.heigit.ors.routing.parameters.VehicleParameters;
+import org.heigit.ors.routing.parameters.WheelchairParameters;
+
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Every edge filter has to accept the same edges in the same directions whether it tests the restriction flags or
+ * decodes the storages.
+ */
+class EdgeRestrictionFlagsTest {
+    private static final int NODES = 12;
+    private static final int[] VEHICLE_TYPES = {HeavyVehicleAttributes.GOODS, HeavyVehicleAttributes.HGV,
+            HeavyVehicleAttributes.BUS, HeavyVehicleAttributes.AGRICULTURE, HeavyVehicleAttributes.FORESTRY,
+            HeavyVehicleAttributes.DELIVERY};
+
+    private final FlagEncoder encoder = new ORSDefaultFlagEncoderFactory().createFlagEncoder(FlagEncoderNames.CAR_ORS,
+            new PMap().putObject(ConditionalEdges.ACCESS, true).putObject(ConditionalEdges.SPEED, true));
+    private final EncodingManager encodingManager = EncodingManager.create(encoder);
+
+    private ORSGraphHopperStorage graph;
+    private HeavyVehicleAttributesGraphStorage heavyVehicles;
+
+    /**
+     * Random graph with random attributes, most edges without any restriction as in real graphs.
+     */
+    private void createGraph(Random random) {
+        RAMDirectory dir = new RAMDirectory();
+        graph = new ORSGraphHopperStorage(dir, encodingManager, false, false, -1);
+        WayCategoryGraphStorage wayCategories = new WayCategoryGraphStorage();
+        heavyVehicles = new HeavyVehicleAttributesGraphStorage(true);
+        WheelchairAttributesGraphStorage wheelchair = new WheelchairAttributesGraphStorage();
+        // the way categories are stored in the shared edge records as in the graphs built by the storage factory
+        EdgeAttributesGraphStorage edgeAttributes = new EdgeAttributesGraphStorage();
+        edgeAttributes.addColumn(wayCategories);
+        ExtendedStorageSequence extensions = new ExtendedStorageSequence(List.<GraphExtension>of(wayCategories, heavyVehicles, wheelchair, edgeAttributes));
+        extensions.init(graph.getBaseGraph(), dir);
+        graph.setExtendedStorages(extensions);
+        graph.create(100);
+
+        BooleanEncodedValue conditionalAccess = encodingManager.getBooleanEncodedValue(EncodingManager.getKey(encoder, ConditionalEdges.ACCESS));
+        BooleanEncodedValue conditionalSpeed = encodingManager.getBooleanEncodedValue(EncodingManager.getKey(encoder, ConditionalEdges.SPEED));
+        int edges = 1 + random.nextInt(40);
+        for (int i = 0; i < edges; i++) {
+            EdgeIteratorState edge = graph.edge(random.nextInt(NODES), random.nextInt(NODES)).setDistance(1 + random.nextInt(100));
+            GHUtility.setSpeed(60, true, random.nextInt(4) > 0, encoder, edge);
+            if (random.nextInt(4) == 0)
+                edge.set(conditionalAccess, random.nextBoolean(), random.nextBoolean());
+            if (random.nextInt(4) == 0)
+                edge.set(conditionalSpeed, true);
+
+            wayCategories.setEdgeValue(edge.getEdge(), random.nextInt(3) == 0 ? random.nextInt(32) : 0);
+
+            double[] dimensions = new double[VehicleDimensionRestrictions.COUNT];
+            if (random.nextInt(3) == 0) {
+                for (int d = 0; d < dimensions.length; d++)
+                    dimensions[d] = random.nextBoolean() ? 1 + random.nextInt(40) : 0;
+            }
+            int vehicleType = random.nextInt(3) == 0 ? random.nextInt(256) : 0;
+            int destination = random.nextInt(4) == 0 ? random.nextInt(256) : 0;
+            heavyVehicles.setEdgeValue(edge.getEdge(), vehicleType, destination, dimensions);
+
+            WheelchairAttributes attributes = new WheelchairAttributes();
+            if (random.nextInt(3) == 0) {
+                attributes.setSurfaceType(1 + random.nextInt(10));
+                attributes.setSmoothnessType(random.nextInt(8));
+                attributes.setTrackType(random.nextInt(5));
+                attributes.setIncline(random.nextInt(15));
+                attributes.setWidth(random.nextInt(300));
+                attributes.setSuitable(random.nextBoolean());
+                attributes.setSurfaceQualityKnown(random.nextBoolean());
+            }
+            wheelchair.setEdgeValues(edge.getEdge(), attributes);
+        }
+        graph.setEdgeRestrictionFlags(EdgeRestrictionFlags.build(graph));
+    }
+
+    /**
+     * @return the filter created while the graph has no restriction flags, so that it decodes the storages
+     */
+    private <T extends EdgeFilter> T decoding(Supplier<T> filter) {
+        EdgeRestrictionFlags flags = graph.getEdgeRestrictionFlags();
+        graph.setEdgeRestrictionFlags(null);
+        try {
+            return filter.get();
+        } finally {
+            graph.setEdgeRestrictionFlags(flags);
+        }
+    }
+
+    private void assertSameEdges(EdgeFilter expected, EdgeFilter actual, String filter) {
+        EdgeExplorer explorer = graph.createEdgeExplorer();
+        for (int node = 0; node < graph.getNodes(); node++) {
+            EdgeIterator iter = explorer.setBaseNode(node);
+            while (iter.next())
+                assertEquals(expected.accept(iter), actual.accept(iter), "%s, edge %d from %d".formatted(filter, iter.getEdge(), node));
+        }
+    }
+
+    @Property(tries = 300)
+    void avoidFeaturesFlagsMatchStorage(@ForAll long seed) throws Exception {
+        Random random = new Random(seed);
+        createGraph(random);
+        // tollways alone need the tollway storage, which is not part of the flags
+        int avoidFeatures = random.nextInt(32);
+        if (avoidFeatures == AvoidFeatureFlags.TOLLWAYS)
+            avoidFeatures |= AvoidFeatureFlags.FERRIES;
+        int features = avoidFeatures;
+        assertSameEdges(decoding(() -> createAvoidFeaturesFilter(features)), createAvoidFeaturesFilter(features), "avoid features " + features);
+
+        for (int category : new int[]{RoutingProfileCategory.DRIVING, RoutingProfileCategory.CYCLING, RoutingProfileCategory.WALKING, RoutingProfileCategory.WHEELCHAIR}) {
+            assertSameEdges(decoding(() -> new AvoidFeaturesCoreEdgeFilter(graph, category)), new AvoidFeaturesCoreEdgeFilter(graph, category), "core avoid features " + category);
+            assertSameEdges(decoding(() -> new AvoidFeaturesCoreEdgeFilter(graph, category, features)), new AvoidFeaturesCoreEdgeFilter(graph, category, features), "core avoid features " + features);
+        }
+    }
+
+    private AvoidFeaturesEdgeFilter createAvoidFeaturesFilter(int avoidFeatures) {
+        try {
+            return new AvoidFeaturesEdgeFilter(avoidFeatures, graph);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Property(tries = 300)
+    void heavyVehicleFlagsMatchStorage(@ForAll long seed) {
+        Random random = new Random(seed);
+        createGraph(random);
+        int vehicleType = VEHICLE_TYPES[random.nextInt(VEHICLE_TYPES.length)];
+        VehicleParameters params = new VehicleParameters();
+        if (random.nextBoolean()) {
+            params.setHeight(random.nextInt(6));
+            params.setWidth(random.nextInt(4));
+            params.setWeight(random.nextInt(40));
+            params.setLength(random.nextInt(20));
+            params.setAxleload(random.nextInt(12));
+        }
+        if (random.nextBoolean())
+            params.setLoadCharacteristics(VehicleLoadCharacteristicsFlags.HAZMAT);
+
+        // closest edge mode, used when snapping
+        HeavyVehicleEdgeFilter decoding = new HeavyVehicleEdgeFilter(vehicleType, params, heavyVehicles);
+        HeavyVehicleEdgeFilter flagged = new HeavyVehicleEdgeFilter(vehicleType, params, graph);
+        assertSameEdges(decoding, flagged, "heavy vehicle closest edge");
+
+        // route mode, with or without destination edges collected in destination mode
+        EdgeIteratorState destination = random.nextBoolean() ? graph.getEdgeIteratorState(random.nextInt(graph.getEdges()), Integer.MIN_VALUE) : null;
+        decoding.setDestinationEdge(destination, graph, encoder, TraversalMode.NODE_BASED);
+        flagged.setDestinationEdge(destination, graph, encoder, TraversalMode.NODE_BASED);
+        assertSameEdges(decoding, flagged, "heavy vehicle route");
+
+        assertSameEdges(decoding(() -> new HeavyVehicleCoreEdgeFilter(graph)), new HeavyVehicleCoreEdgeFilter(graph), "core heavy vehicle");
+    }
+
+    @Property(tries = 300)
+    void wheelchairFlagsMatchStorage(@ForAll long seed) {
+        Random random = new Random(seed);
+        createGraph(random);
+        WheelchairParameters params = new WheelchairParameters();
+        if (random.nextBoolean()) {
+            params.setSurfaceType(random.nextInt(10));
+            params.setSmoothnessType(random.nextInt(8));
+            params.setTrackType(random.nextInt(5));
+            params.setMaximumIncline(random.nextInt(15));
+            params.setMinimumWidth(random.nextFloat() * 3);
+        }
+        params.setSurfaceQualityKnown(random.nextBoolean());
+        params.setAllowUnsuitable(random.nextBoolean());
+
+        assertSameEdges(decoding(() -> createWheelchairFilter(params)), createWheelchairFilter(params), "wheelchair");
+        assertSameEdges(decoding(() -> new WheelchairCoreEdgeFilter(graph)), new WheelchairCoreEdgeFilter(graph), "core wheelchair");
+    }
+
+    private WheelchairEdgeFilter createWheelchairFilter(WheelchairParameters params) {
+        try {
+            return new WheelchairEdgeFilter(params, graph);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Property(tries = 300)
+    void timeDependentFlagsMatchEncodedValues(@ForAll long seed) {
+        createGraph(new Random(seed));
+        assertSameEdges(decoding(() -> new TimeDependentCoreEdgeFilter(graph)), new TimeDependentCoreEdgeFilter(graph), "time dependent");
+        assertSameEdges(decoding(() -> new TimeDependentCoreEdgeFilter(graph, encoder)), new TimeDependentCoreEdgeFilter(graph, encoder), "time dependent " + encoder);
+    }
+}
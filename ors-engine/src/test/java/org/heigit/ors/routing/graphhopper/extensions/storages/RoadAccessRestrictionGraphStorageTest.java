@@ -15,6 +15,7 @@
 
 package org.heigit.ors.routing.graphhopper.extensions.storages;
 
+import org.heigit.ors.routing.RoutingProfileType;
 import org.heigit.ors.routing.graphhopper.extensions.AccessRestrictionType;
 import org.junit.jupiter.api.Test;
 
@@ -44,4 +45,20 @@ class RoadAccessRestrictionGraphStorageTest {
         storage.getEdgeValue(2, buffer);
         assertEquals(AccessRestrictionType.PERMISSIVE, buffer[0]);
     }
+
+    @Test
+    void keepsRestrictionsPerVehicle() {
+        RoadAccessRestrictionsGraphStorage shared = new RoadAccessRestrictionsGraphStorage(new int[]{RoutingProfileType.DRIVING_CAR, RoutingProfileType.DRIVING_MOTORCYCLE});
+        shared.init();
+        shared.create(3);
+        int car = shared.getVehicle(RoutingProfileType.DRIVING_CAR);
+        int motorcycle = shared.getVehicle(RoutingProfileType.DRIVING_MOTORCYCLE);
+        shared.setEdgeValue(1, car, AccessRestrictionType.PRIVATE);
+        shared.setEdgeValue(1, motorcycle, AccessRestrictionType.NONE);
+
+        assertEquals(AccessRestrictionType.PRIVATE, shared.getEdgeValue(1, car, buffer));
+        assertEquals(AccessRestrictionType.NONE, shared.getEdgeValue(1, motorcycle, buffer));
+        assertEquals(AccessRestrictionType.PRIVATE, shared.getEdgeValue(1, buffer));
+        assertEquals(0, shared.getVehicle(RoutingProfileType.DRIVING_HGV));
+    }
 }
@@ -0,0 +1,94 @@
+package org.heigit.ors.routing.graphhopper.extensions.storages;
+
+import com.graphhopper.storage.RAMDirectory;
+import org.heigit.ors.routing.graphhopper.extensions.reader.traffic.TrafficEnums;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TrafficGraphStorageTest {
+    // edge 0 in storage direction, with a pattern per week day whose speed is ten times the ISO day of week
+    private static final int WEEK_DAY_EDGE_KEY = 0;
+    // edge 1 in storage direction, with the same pattern on every day whose speed is the quarter hour of the day plus one
+    private static final int TIME_OF_DAY_EDGE_KEY = 2;
+    private static final int TIME_OF_DAY_PATTERN = 8;
+
+    private TrafficGraphStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new TrafficGraphStorage();
+        storage.init(null, new RAMDirectory());
+        storage.create(2);
+
+        short[] timeOfDay = new short[TrafficGraphStorage.DAILY_TRAFFIC_PATTERNS_BYTE_COUNT];
+        for (int i = 0; i < timeOfDay.length; i++)
+            timeOfDay[i] = (short) (i + 1);
+        storage.setTrafficPatterns(TIME_OF_DAY_PATTERN, timeOfDay);
+        for (int day = 1; day <= 7; day++) {
+            short[] weekDay = new short[TrafficGraphStorage.DAILY_TRAFFIC_PATTERNS_BYTE_COUNT];
+            Arrays.fill(weekDay, (short) (10 * day));
+            storage.setTrafficPatterns(day, weekDay);
+            storage.setEdgeIdTrafficPatternLookup(WEEK_DAY_EDGE_KEY, day, TrafficEnums.WeekDay.valueOfCanonical(day), 1);
+            storage.setEdgeIdTrafficPatternLookup(TIME_OF_DAY_EDGE_KEY, TIME_OF_DAY_PATTERN, TrafficEnums.WeekDay.valueOfCanonical(day), 1);
+        }
+    }
+
+    private void assertLocalTime(Instant instant, ZoneId zone) {
+        ZonedDateTime local = instant.atZone(zone);
+        int offsetSeconds = local.getOffset().getTotalSeconds();
+        long millis = instant.toEpochMilli();
+        assertEquals(10 * local.getDayOfWeek().getValue(), storage.getSpeedValue(WEEK_DAY_EDGE_KEY, millis, offsetSeconds), "week day of " + local);
+        assertEquals(local.getHour() * 4 + local.getMinute() / 15 + 1, storage.getSpeedValue(TIME_OF_DAY_EDGE_KEY, millis, offsetSeconds), "time of day of " + local);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            // midnight
+            "2024-03-04T22:59:59.999Z, Europe/Berlin",
+            "2024-03-04T23:00:00Z, Europe/Berlin",
+            // week wrap from Sunday to Monday
+            "2024-03-10T22:59:59.999Z, Europe/Berlin",
+            "2024-03-10T23:00:00Z, Europe/Berlin",
+            "2024-03-10T23:59:59.999Z, UTC",
+            "2024-03-11T00:00:00Z, UTC",
+            // daylight saving time begins at 02:00 and ends at 03:00 local time
+            "2024-03-31T00:59:59.999Z, Europe/Berlin",
+            "2024-03-31T01:00:00Z, Europe/Berlin",
+            "2024-10-27T00:59:59.999Z, Europe/Berlin",
+            "2024-10-27T01:00:00Z, Europe/Berlin",
+            "2024-03-10T06:59:59.999Z, America/New_York",
+            "2024-03-10T07:00:00Z, America/New_York",
+            // negative offsets before and at the epoch
+            "1970-01-01T04:59:59.999Z, America/New_York",
+            "1970-01-01T05:00:00Z, America/New_York",
+            "1969-12-28T12:00:00Z, UTC",
+            // offsets that are not whole hours, or exceed half a day
+            "2024-01-07T18:29:59.999Z, Asia/Kolkata",
+            "2024-01-07T18:30:00Z, Asia/Kolkata",
+            "2024-03-10T10:00:00Z, Pacific/Kiritimati",
+            "2024-03-10T11:00:00Z, Pacific/Pago_Pago"
+    })
+    void looksUpPatternsInLocalTime(String instant, String zone) {
+        assertLocalTime(Instant.parse(instant), ZoneId.of(zone));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"Europe/Berlin", "America/New_York", "Australia/Sydney", "Asia/Kolkata"})
+    void looksUpPatternsInLocalTimeThroughoutAYear(String zone) {
+        Instant end = Instant.parse("2025-01-01T00:00:00Z");
+        // a step that is not a divisor of a quarter hour, so that all offsets within the quarters are covered
+        Duration step = Duration.ofSeconds(7 * 60 + 13);
+        for (Instant instant = Instant.parse("2024-01-01T00:00:00Z"); instant.isBefore(end); instant = instant.plus(step))
+            assertLocalTime(instant, ZoneId.of(zone));
+    }
+}
@@ -0,0 +1,44 @@
+package org.heigit.ors.routing.timezone;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class TimeZoneResolverTest {
+    private static final String POLYGONS = """
+            {"type": "FeatureCollection", "features": [
+              {"type": "Feature", "properties": {"tzid": "America/New_York"},
+               "geometry": {"type": "Polygon", "coordinates": [[[-80, 35], [-70, 35], [-70, 45], [-80, 45], [-80, 35]]]}},
+              {"type": "Feature", "properties": {"tzid": "Asia/Kolkata"},
+               "geometry": {"type": "MultiPolygon", "coordinates": [[[[70, 10], [90, 10], [90, 30], [70, 30], [70, 10]]]]}},
+              {"type": "Feature", "properties": {"tzid": "Not/A_Zone"},
+               "geometry": {"type": "Polygon", "coordinates": [[[0, 0], [1, 0], [1, 1], [0, 1], [0, 0]]]}}
+            ]}
+            """;
+
+    private final TimeZoneResolver resolver = TimeZoneResolver.read(new StringReader(POLYGONS), ZoneId.of("UTC"));
+
+    @Test
+    void resolvesZoneOfContainingPolygon() {
+        assertEquals(ZoneId.of("America/New_York"), resolver.resolve(40.7, -74.0));
+        assertEquals(ZoneId.of("Asia/Kolkata"), resolver.resolve(19.1, 72.9));
+    }
+
+    @Test
+    void fallsBackToDefaultZone() {
+        // outside of all polygons, and within the polygon of an unknown zone
+        assertEquals(ZoneId.of("UTC"), resolver.resolve(49.4, 8.7));
+        assertEquals(ZoneId.of("UTC"), resolver.resolve(0.5, 0.5));
+    }
+
+    @Test
+    void defaultResolverWithoutFile() throws IOException {
+        assertSame(TimeZoneResolver.DEFAULT, TimeZoneResolver.create(""));
+        assertEquals(TimeZoneResolver.DEFAULT_ZONE, TimeZoneResolver.DEFAULT.resolve(40.7, -74.0));
+    }
+}
@@ -8,6 +8,11 @@ import com.graphhopper.util.EdgeIteratorState;
 import org.heigit.ors.routing.graphhopper.extensions.storages.TrafficGraphStorage;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
 
 import static com.graphhopper.util.GHUtility.createMockedEdgeIteratorState;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -103,6 +108,34 @@ class TrafficSpeedCalculatorTest {
         assertEquals(65, trafficSpeedCalculator.getSpeed(edgeIteratorState, false, 1), 1e-8);
     }
 
+    @ParameterizedTest
+    @CsvSource({
+            // departures shortly before daylight saving time begins and ends, edges reached after the change
+            "2024-03-31T01:50:00+01:00[Europe/Berlin], 20, 61, 62",
+            "2024-10-27T02:50:00+02:00[Europe/Berlin], 20, 62, 61",
+            // arrivals shortly after the change, edges reached before it
+            "2024-03-31T03:10:00+02:00[Europe/Berlin], -20, 62, 61",
+            "2024-10-27T02:10:00+01:00[Europe/Berlin], -20, 61, 62",
+            "2024-07-01T12:00:00+02:00[Europe/Berlin], 600, 62, 62"
+    })
+    void followsTimeZoneOffsetChangesDuringSearch(String time, int minutes, int speedAtTime, int speedAfterMinutes) {
+        // reports the offset of the local time in hours in the speed
+        trafficSpeedCalculator.setTrafficGraphStorage(new TrafficGraphStorage() {
+            @Override
+            public int getSpeedValue(int edgeId, long unixMilliSeconds, int timeZoneOffset) {
+                return 60 + timeZoneOffset / 3600;
+            }
+        });
+        ZonedDateTime zdt = ZonedDateTime.parse(time);
+        trafficSpeedCalculator.setZonedDateTime(zdt);
+        IntsRef edgeFlags = encodingManager.createEdgeFlags();
+        carEncoder.getAverageSpeedEnc().setDecimal(false, edgeFlags, 80.0);
+        EdgeIteratorState edgeIteratorState = createMockedEdgeIteratorState(10, edgeFlags, 0, 1, 0, 2, 3);
+        long millis = zdt.toInstant().toEpochMilli();
+        assertEquals(speedAtTime, trafficSpeedCalculator.getSpeed(edgeIteratorState, false, millis), 1e-8);
+        assertEquals(speedAfterMinutes, trafficSpeedCalculator.getSpeed(edgeIteratorState, false, millis + Duration.ofMinutes(minutes).toMillis()), 1e-8);
+    }
+
     private static class MockTrafficStorage extends TrafficGraphStorage {
 
         @Override
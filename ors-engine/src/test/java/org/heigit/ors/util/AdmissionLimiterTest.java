@@ -0,0 +1,57 @@
+package org.heigit.ors.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.heigit.ors.common.StatusCode;
+import org.heigit.ors.exceptions.ServiceOverloadedException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionLimiterTest {
+
+    @Test
+    void rejectsWithTooManyRequestsWhenQueueIsFull() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AdmissionLimiter limiter = new AdmissionLimiter(2, 0, 1000, registry, "endpoint", "matrix");
+        try (AdmissionLimiter.Permit permit = limiter.acquire(5)) {
+            assertEquals(2.0, registry.get("ors.admission.active").gauge().value());
+            ServiceOverloadedException e = assertThrows(ServiceOverloadedException.class, () -> limiter.acquire(1));
+            assertEquals(StatusCode.TOO_MANY_REQUESTS, e.getStatusCode());
+            assertTrue(e.getRetryAfter() >= 1);
+        }
+        assertEquals(0.0, registry.get("ors.admission.active").gauge().value());
+        assertEquals(1.0, registry.get("ors.admission.rejected").tag("reason", "queue_full").counter().count());
+        limiter.acquire(1).close();
+    }
+
+    @Test
+    void rejectsWithServiceUnavailableAfterQueueTime() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AdmissionLimiter limiter = new AdmissionLimiter(1, 10, 50, registry);
+        try (AdmissionLimiter.Permit permit = limiter.acquire(1)) {
+            ServiceOverloadedException e = assertThrows(ServiceOverloadedException.class, () -> limiter.acquire(1));
+            assertEquals(StatusCode.SERVICE_UNAVAILABLE, e.getStatusCode());
+        }
+        assertEquals(1.0, registry.get("ors.admission.rejected").tag("reason", "queue_time").counter().count());
+        assertEquals(0.0, registry.get("ors.admission.queued").gauge().value());
+    }
+
+    @Test
+    void admitsQueuedRequestOnceCapacityIsReleased() throws Exception {
+        AdmissionLimiter limiter = new AdmissionLimiter(1, 10, 5000, new SimpleMeterRegistry());
+        AdmissionLimiter.Permit permit = limiter.acquire(1);
+        CompletableFuture<Void> queued = CompletableFuture.runAsync(() -> {
+            try {
+                limiter.acquire(1).close();
+            } catch (ServiceOverloadedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        permit.close();
+        queued.get(5, TimeUnit.SECONDS);
+        limiter.close();
+    }
+}
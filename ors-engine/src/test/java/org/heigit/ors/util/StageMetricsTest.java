@@ -0,0 +1,59 @@
+package org.heigit.ors.util;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StageMetricsTest {
+
+    @Test
+    void registersTimersForStagesOfEachEndpoint() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        StageMetrics metrics = new StageMetrics(registry, "car");
+        metrics.record(StageMetrics.Endpoint.ROUTES, StageMetrics.Stage.SEARCH, 2_000_000);
+        metrics.record(StageMetrics.Endpoint.ROUTES, StageMetrics.Stage.ISOCHRONE_HULL, 1_000_000);
+
+        Timer search = registry.find(StageMetrics.TIMER_NAME).tags("endpoint", "routes", "profile", "car", "stage", "search").timer();
+        assertNotNull(search);
+        assertEquals(1, search.count());
+        assertEquals(2, search.totalTime(TimeUnit.MILLISECONDS), 1e-9);
+        assertNull(registry.find(StageMetrics.TIMER_NAME).tags("endpoint", "routes", "stage", "isochrone_hull").timer());
+        assertNotNull(registry.find(StageMetrics.TIMER_NAME).tags("endpoint", "isochrones", "stage", "isochrone_hull").timer());
+
+        metrics.close();
+        assertTrue(registry.getMeters().isEmpty());
+    }
+
+    @Test
+    void publishesPercentileHistogramsOnlyIfEnabled() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        StageMetrics plain = new StageMetrics(registry, "car");
+        StageMetrics histograms = new StageMetrics(registry, "hgv", true);
+        plain.record(StageMetrics.Endpoint.ROUTES, StageMetrics.Stage.SEARCH, 2_000_000);
+        histograms.record(StageMetrics.Endpoint.ROUTES, StageMetrics.Stage.SEARCH, 2_000_000);
+
+        Timer plainSearch = registry.find(StageMetrics.TIMER_NAME).tags("endpoint", "routes", "profile", "car", "stage", "search").timer();
+        Timer histogramSearch = registry.find(StageMetrics.TIMER_NAME).tags("endpoint", "routes", "profile", "hgv", "stage", "search").timer();
+        assertEquals(0, plainSearch.takeSnapshot().histogramCounts().length);
+        assertTrue(histogramSearch.takeSnapshot().histogramCounts().length > 0);
+
+        plain.close();
+        histograms.close();
+    }
+
+    @Test
+    void takeReturnsAndClearsAccumulatedTime() {
+        StageMetrics.reset();
+        StageMetrics.accumulate(StageMetrics.Stage.SNAPPING, 5);
+        StageMetrics.accumulate(StageMetrics.Stage.SNAPPING, 7);
+        StageMetrics.accumulateSettledCoreNodes(3);
+
+        assertEquals(12, StageMetrics.take(StageMetrics.Stage.SNAPPING));
+        assertEquals(0, StageMetrics.take(StageMetrics.Stage.SNAPPING));
+        assertEquals(3, StageMetrics.takeSettledCoreNodes());
+    }
+}